@@ -39,6 +39,15 @@ android {
     buildFeatures {
         viewBinding = true
     }
+
+    testOptions {
+        // Plain JVM tests exercise classes that log through android.util.Log
+        unitTests.isReturnDefaultValues = true
+        // Timed benchmarks in the unit suite are skipped unless run with -Pbenchmarks
+        unitTests.all {
+            it.systemProperty("calltracker.benchmarks", project.hasProperty("benchmarks").toString())
+        }
+    }
 }
 
 dependencies {
@@ -66,6 +75,7 @@ dependencies {
 
     // Testing
     testImplementation("junit:junit:4.13.2")
+    testImplementation("com.squareup.okhttp3:mockwebserver:4.11.0")
     androidTestImplementation("androidx.test.ext:junit:1.1.5")
     androidTestImplementation("androidx.test.espresso:espresso-core:3.5.1")
 }
\ No newline at end of file
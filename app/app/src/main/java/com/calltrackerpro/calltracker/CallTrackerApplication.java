@@ -0,0 +1,73 @@
+package com.calltrackerpro.calltracker;
+
+import android.app.Application;
+import android.telephony.TelephonyManager;
+import android.util.Log;
+
+import com.calltrackerpro.calltracker.data.CallerContextCache;
+import com.calltrackerpro.calltracker.data.ContactNameCache;
+import com.calltrackerpro.calltracker.data.DeviceCallLogStore;
+import com.calltrackerpro.calltracker.data.Outbox;
+import com.calltrackerpro.calltracker.network.DnsCache;
+import com.calltrackerpro.calltracker.network.EndpointSelector;
+import com.calltrackerpro.calltracker.network.HttpClientFactory;
+import com.calltrackerpro.calltracker.network.OutboxReplayer;
+import com.calltrackerpro.calltracker.services.CallReconciler;
+import com.calltrackerpro.calltracker.utils.PhoneNumbers;
+
+import java.util.Locale;
+
+/**
+ * Process entry point. Wires up process-wide infrastructure before any
+ * activity, service or receiver runs.
+ */
+public class CallTrackerApplication extends Application {
+    private static final String TAG = "CallTrackerApplication";
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+
+        // Country for placing national numbers; every phone-keyed cache depends on it
+        String region = deviceRegion();
+        int countryCode = PhoneNumbers.setDefaultRegion(region);
+        Log.d(TAG, "📞 Default country code for " + region + ": " + (countryCode != 0 ? "+" + countryCode : "unknown"));
+
+        // Shared HTTP stack: response cache lives in the app cache dir
+        HttpClientFactory.init(this);
+
+        // Persisted DNS answers; resolve the backend now, off the first request's path
+        DnsCache.getInstance().init(this);
+        DnsCache.getInstance().preResolve(EndpointSelector.getInstance().getPrimaryHost());
+
+        // Reload mutations that never reached the backend and start sending them
+        Outbox.getInstance().init(this);
+        OutboxReplayer.getInstance().init(this);
+        // No-op until READ_CALL_LOG is granted; the call log screen starts it again then
+        DeviceCallLogStore.getInstance(this).start();
+        // Listens from launch so a row that lands before its call ends is still matched
+        CallReconciler.getInstance(this);
+        // Caller names for the ringing path, loaded before the first call
+        ContactNameCache.getInstance(this).start();
+        // Call history for likely callers, so the ringing screen has it before the phone rings
+        CallerContextCache.getInstance(this).prewarm();
+    }
+
+    /**
+     * The country the phone is in: from the network, then the SIM, then the locale
+     */
+    private String deviceRegion() {
+        String region = null;
+        TelephonyManager telephony = (TelephonyManager) getSystemService(TELEPHONY_SERVICE);
+        if (telephony != null) {
+            region = telephony.getNetworkCountryIso();
+            if (region == null || region.isEmpty()) {
+                region = telephony.getSimCountryIso();
+            }
+        }
+        if (region == null || region.isEmpty()) {
+            region = Locale.getDefault().getCountry();
+        }
+        return region;
+    }
+}
@@ -8,6 +8,8 @@ import android.os.Bundle;
 import android.util.Log;
 import android.view.Menu;
 import android.view.MenuItem;
+import android.view.View;
+import android.widget.TextView;
 import android.widget.Toast;
 import androidx.activity.OnBackPressedCallback;
 import androidx.annotation.NonNull;
@@ -20,6 +22,7 @@ import androidx.fragment.app.FragmentTransaction;
 import com.calltrackerpro.calltracker.R;
 import com.calltrackerpro.calltracker.fragments.*;
 import com.calltrackerpro.calltracker.models.User;
+import com.calltrackerpro.calltracker.network.CircuitBreakerRegistry;
 import com.calltrackerpro.calltracker.utils.PermissionManager;
 import com.calltrackerpro.calltracker.utils.TokenManager;
 import com.calltrackerpro.calltracker.utils.WebSocketManager;
@@ -38,6 +41,14 @@ public class UnifiedDashboardActivity extends AppCompatActivity {
     private User currentUser;
     private BottomNavigationView bottomNavigation;
     private FragmentManager fragmentManager;
+    private TextView connectivityBanner;
+
+    // Backend reachability as seen by the circuit breakers; one banner for every screen
+    private final CircuitBreakerRegistry.Listener backendListener = openGroups -> {
+        if (connectivityBanner != null) {
+            connectivityBanner.setVisibility(openGroups.isEmpty() ? View.GONE : View.VISIBLE);
+        }
+    };
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -108,6 +119,9 @@ public class UnifiedDashboardActivity extends AppCompatActivity {
             getSupportActionBar().setSubtitle(currentUser.getFullName() + " (" + currentUser.getRoleDisplayName() + ")");
         }
 
+        connectivityBanner = findViewById(R.id.connectivity_banner);
+        connectivityBanner.setOnClickListener(v -> refreshCurrentFragment());
+
         // Setup bottom navigation
         bottomNavigation = findViewById(R.id.bottom_navigation);
         fragmentManager = getSupportFragmentManager();
@@ -455,6 +469,8 @@ public class UnifiedDashboardActivity extends AppCompatActivity {
             return;
         }
 
+        CircuitBreakerRegistry.getInstance().addListener(backendListener);
+
         if (!webSocketManager.isConnected()) {
             webSocketManager.connect();
         }
@@ -466,6 +482,8 @@ public class UnifiedDashboardActivity extends AppCompatActivity {
     protected void onPause() {
         super.onPause();
 
+        CircuitBreakerRegistry.getInstance().removeListener(backendListener);
+
         if (webSocketManager.isConnected()) {
             webSocketManager.sendStatusUpdate("away");
         }
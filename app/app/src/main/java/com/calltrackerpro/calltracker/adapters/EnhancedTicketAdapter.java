@@ -11,13 +11,16 @@ import androidx.annotation.NonNull;
 import androidx.core.content.ContextCompat;
 import androidx.recyclerview.widget.RecyclerView;
 import com.calltrackerpro.calltracker.R;
+import com.calltrackerpro.calltracker.data.SearchIndex;
 import com.calltrackerpro.calltracker.models.Ticket;
 
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
+import java.util.Set;
 
 public class EnhancedTicketAdapter extends RecyclerView.Adapter<EnhancedTicketAdapter.TicketViewHolder> {
 
@@ -25,6 +28,8 @@ public class EnhancedTicketAdapter extends RecyclerView.Adapter<EnhancedTicketAd
     private List<Ticket> filteredTickets;
     private Context context;
     private OnTicketClickListener listener;
+    private final SearchIndex searchIndex = new SearchIndex();
+    private boolean searchIndexStale = true;
 
     public interface OnTicketClickListener {
         void onTicketClick(Ticket ticket);
@@ -45,12 +50,30 @@ public class EnhancedTicketAdapter extends RecyclerView.Adapter<EnhancedTicketAd
     public void setTickets(List<Ticket> tickets) {
         this.tickets = tickets != null ? tickets : new ArrayList<>();
         this.filteredTickets = new ArrayList<>(this.tickets);
+        searchIndexStale = true;
         notifyDataSetChanged();
     }
 
+    /**
+     * Append a chunk of a page that is still streaming in
+     */
+    public void appendTickets(List<Ticket> moreTickets) {
+        if (moreTickets == null || moreTickets.isEmpty()) return;
+        int start = filteredTickets.size();
+        tickets.addAll(moreTickets);
+        filteredTickets.addAll(moreTickets);
+        searchIndexStale = true;
+        notifyItemRangeInserted(start, moreTickets.size());
+    }
+
+    public List<Ticket> getTickets() {
+        return tickets;
+    }
+
     public void addTicket(Ticket newTicket) {
         tickets.add(0, newTicket);
         filteredTickets.add(0, newTicket);
+        searchIndexStale = true;
         notifyItemInserted(0);
     }
 
@@ -59,6 +82,7 @@ public class EnhancedTicketAdapter extends RecyclerView.Adapter<EnhancedTicketAd
         for (int i = 0; i < tickets.size(); i++) {
             if (updatedTicket.getId().equals(tickets.get(i).getId())) {
                 tickets.set(i, updatedTicket);
+                searchIndex.putTicket(updatedTicket);
                 break;
             }
         }
@@ -78,13 +102,9 @@ public class EnhancedTicketAdapter extends RecyclerView.Adapter<EnhancedTicketAd
         if (query == null || query.trim().isEmpty()) {
             filteredTickets.addAll(tickets);
         } else {
-            String lowerCaseQuery = query.toLowerCase().trim();
+            Set<String> matches = searchMatches(query);
             for (Ticket ticket : tickets) {
-                if (ticket.getContactName() != null && ticket.getContactName().toLowerCase().contains(lowerCaseQuery) ||
-                    ticket.getPhoneNumber() != null && ticket.getPhoneNumber().toLowerCase().contains(lowerCaseQuery) ||
-                    ticket.getCompany() != null && ticket.getCompany().toLowerCase().contains(lowerCaseQuery) ||
-                    ticket.getTicketId() != null && ticket.getTicketId().toLowerCase().contains(lowerCaseQuery) ||
-                    ticket.getEmail() != null && ticket.getEmail().toLowerCase().contains(lowerCaseQuery)) {
+                if (matches.contains(ticket.getId())) {
                     filteredTickets.add(ticket);
                 }
             }
@@ -95,9 +115,10 @@ public class EnhancedTicketAdapter extends RecyclerView.Adapter<EnhancedTicketAd
 
     public void applyFilters(String statusFilter, String priorityFilter, String tabFilter, String searchQuery, String currentUserId) {
         filteredTickets.clear();
+        Set<String> searchHits = searchQuery != null && !searchQuery.trim().isEmpty() ? searchMatches(searchQuery) : null;
 
         for (Ticket ticket : tickets) {
-            if (matchesFilters(ticket, statusFilter, priorityFilter, tabFilter, searchQuery, currentUserId)) {
+            if (matchesFilters(ticket, statusFilter, priorityFilter, tabFilter, searchHits, currentUserId)) {
                 filteredTickets.add(ticket);
             }
         }
@@ -105,15 +126,9 @@ public class EnhancedTicketAdapter extends RecyclerView.Adapter<EnhancedTicketAd
         notifyDataSetChanged();
     }
 
-    private boolean matchesFilters(Ticket ticket, String statusFilter, String priorityFilter, String tabFilter, String searchQuery, String currentUserId) {
-        if (searchQuery != null && !searchQuery.trim().isEmpty()) {
-            String lowerCaseQuery = searchQuery.toLowerCase().trim();
-            boolean matchesSearch = (ticket.getContactName() != null && ticket.getContactName().toLowerCase().contains(lowerCaseQuery)) ||
-                                  (ticket.getPhoneNumber() != null && ticket.getPhoneNumber().toLowerCase().contains(lowerCaseQuery)) ||
-                                  (ticket.getCompany() != null && ticket.getCompany().toLowerCase().contains(lowerCaseQuery)) ||
-                                  (ticket.getTicketId() != null && ticket.getTicketId().toLowerCase().contains(lowerCaseQuery)) ||
-                                  (ticket.getEmail() != null && ticket.getEmail().toLowerCase().contains(lowerCaseQuery));
-            if (!matchesSearch) return false;
+    private boolean matchesFilters(Ticket ticket, String statusFilter, String priorityFilter, String tabFilter, Set<String> searchHits, String currentUserId) {
+        if (searchHits != null && !searchHits.contains(ticket.getId())) {
+            return false;
         }
 
         if (statusFilter != null && !statusFilter.equals("all")) {
@@ -160,6 +175,20 @@ public class EnhancedTicketAdapter extends RecyclerView.Adapter<EnhancedTicketAd
         return true;
     }
 
+    /**
+     * Ids of tickets matching {@code query}; the index is rebuilt only after the list changed
+     */
+    private Set<String> searchMatches(String query) {
+        if (searchIndexStale) {
+            searchIndex.clear(null);
+            for (Ticket ticket : tickets) {
+                searchIndex.putTicket(ticket);
+            }
+            searchIndexStale = false;
+        }
+        return new HashSet<>(searchIndex.search(SearchIndex.KIND_TICKET, query, Integer.MAX_VALUE));
+    }
+
     public void filterByStatus(String status) {
         filteredTickets.clear();
         if (status == null || status.equals("all")) {
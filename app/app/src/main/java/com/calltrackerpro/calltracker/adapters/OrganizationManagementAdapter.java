@@ -11,20 +11,27 @@ import androidx.annotation.NonNull;
 import androidx.core.content.ContextCompat;
 import androidx.recyclerview.widget.RecyclerView;
 import com.calltrackerpro.calltracker.R;
+import com.calltrackerpro.calltracker.data.SearchIndex;
 import com.calltrackerpro.calltracker.models.Organization;
 
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
+import java.util.Set;
 
 public class OrganizationManagementAdapter extends RecyclerView.Adapter<OrganizationManagementAdapter.OrganizationViewHolder> {
     
+    private static final String KIND_ORGANIZATION = "organization";
+    
     private List<Organization> organizations;
     private List<Organization> filteredOrganizations;
     private Context context;
     private OnOrganizationClickListener listener;
+    private final SearchIndex searchIndex = new SearchIndex();
+    private boolean searchIndexStale = true;
     
     public interface OnOrganizationClickListener {
         void onOrganizationClick(Organization organization);
@@ -44,6 +51,7 @@ public class OrganizationManagementAdapter extends RecyclerView.Adapter<Organiza
     public void setOrganizations(List<Organization> organizations) {
         this.organizations = organizations != null ? organizations : new ArrayList<>();
         this.filteredOrganizations = new ArrayList<>(this.organizations);
+        searchIndexStale = true;
         notifyDataSetChanged();
     }
     
@@ -51,6 +59,7 @@ public class OrganizationManagementAdapter extends RecyclerView.Adapter<Organiza
         for (int i = 0; i < organizations.size(); i++) {
             if (organizations.get(i).getId().equals(updatedOrganization.getId())) {
                 organizations.set(i, updatedOrganization);
+                searchIndexStale = true;
                 break;
             }
         }
@@ -70,11 +79,16 @@ public class OrganizationManagementAdapter extends RecyclerView.Adapter<Organiza
         if (query == null || query.trim().isEmpty()) {
             filteredOrganizations.addAll(organizations);
         } else {
-            String lowerCaseQuery = query.toLowerCase().trim();
+            if (searchIndexStale) {
+                searchIndex.clear(null);
+                for (Organization org : organizations) {
+                    searchIndex.put(KIND_ORGANIZATION, org.getId(), org.getName(), org.getDomain(), org.getSubscriptionPlan());
+                }
+                searchIndexStale = false;
+            }
+            Set<String> matches = new HashSet<>(searchIndex.search(KIND_ORGANIZATION, query, Integer.MAX_VALUE));
             for (Organization org : organizations) {
-                if ((org.getName() != null && org.getName().toLowerCase().contains(lowerCaseQuery)) ||
-                    (org.getDomain() != null && org.getDomain().toLowerCase().contains(lowerCaseQuery)) ||
-                    (org.getSubscriptionPlan() != null && org.getSubscriptionPlan().toLowerCase().contains(lowerCaseQuery))) {
+                if (matches.contains(org.getId())) {
                     filteredOrganizations.add(org);
                 }
             }
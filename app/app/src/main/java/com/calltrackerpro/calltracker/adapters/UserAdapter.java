@@ -11,20 +11,27 @@ import androidx.annotation.NonNull;
 import androidx.core.content.ContextCompat;
 import androidx.recyclerview.widget.RecyclerView;
 import com.calltrackerpro.calltracker.R;
+import com.calltrackerpro.calltracker.data.SearchIndex;
 import com.calltrackerpro.calltracker.models.User;
 
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
+import java.util.Set;
 
 public class UserAdapter extends RecyclerView.Adapter<UserAdapter.UserViewHolder> {
     
+    private static final String KIND_USER = "user";
+    
     private List<User> users;
     private List<User> filteredUsers;
     private Context context;
     private OnUserClickListener listener;
+    private final SearchIndex searchIndex = new SearchIndex();
+    private boolean searchIndexStale = true;
     
     public interface OnUserClickListener {
         void onUserClick(User user);
@@ -44,6 +51,7 @@ public class UserAdapter extends RecyclerView.Adapter<UserAdapter.UserViewHolder
     public void setUsers(List<User> users) {
         this.users = users != null ? users : new ArrayList<>();
         this.filteredUsers = new ArrayList<>(this.users);
+        searchIndexStale = true;
         notifyDataSetChanged();
     }
     
@@ -52,6 +60,7 @@ public class UserAdapter extends RecyclerView.Adapter<UserAdapter.UserViewHolder
         for (int i = 0; i < users.size(); i++) {
             if (updatedUser.getId().equals(users.get(i).getId())) {
                 users.set(i, updatedUser);
+                searchIndexStale = true;
                 break;
             }
         }
@@ -71,13 +80,16 @@ public class UserAdapter extends RecyclerView.Adapter<UserAdapter.UserViewHolder
         if (query == null || query.trim().isEmpty()) {
             filteredUsers.addAll(users);
         } else {
-            String lowerCaseQuery = query.toLowerCase().trim();
+            if (searchIndexStale) {
+                searchIndex.clear(null);
+                for (User user : users) {
+                    searchIndex.put(KIND_USER, user.getId(), user.getFullName(), user.getEmail(), user.getRoleDisplayName());
+                }
+                searchIndexStale = false;
+            }
+            Set<String> matches = new HashSet<>(searchIndex.search(KIND_USER, query, Integer.MAX_VALUE));
             for (User user : users) {
-                String fullName = user.getFullName() != null ? user.getFullName() : "";
-                String email = user.getEmail() != null ? user.getEmail() : "";
-                if (fullName.toLowerCase().contains(lowerCaseQuery) ||
-                    email.toLowerCase().contains(lowerCaseQuery) ||
-                    user.getRoleDisplayName().toLowerCase().contains(lowerCaseQuery)) {
+                if (matches.contains(user.getId())) {
                     filteredUsers.add(user);
                 }
             }
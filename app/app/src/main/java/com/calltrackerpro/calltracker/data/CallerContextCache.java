@@ -0,0 +1,349 @@
+package com.calltrackerpro.calltracker.data;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.calltrackerpro.calltracker.json.GsonProvider;
+import com.calltrackerpro.calltracker.models.ApiResponse;
+import com.calltrackerpro.calltracker.models.Ticket;
+import com.calltrackerpro.calltracker.models.User;
+import com.calltrackerpro.calltracker.network.NetworkMetrics;
+import com.calltrackerpro.calltracker.services.ApiService;
+import com.calltrackerpro.calltracker.utils.PhoneNumbers;
+import com.calltrackerpro.calltracker.utils.TokenManager;
+import com.google.gson.reflect.TypeToken;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+/**
+ * What the agent should see when a number rings: its contact, recent calls
+ * and related tickets, per canonical number.
+ *
+ * Entries are fetched ahead of time, in the background lane, for the
+ * numbers the agent calls most and the callers on their assigned tickets,
+ * and are kept on disk so a freshly started process has them too. The
+ * ringing path reads {@link #peek} synchronously. {@link #get} serves what
+ * is cached right away and, if it is older than {@link #FRESH_MS} or
+ * missing, fetches it and serves again (stale-while-revalidate).
+ */
+public final class CallerContextCache {
+    private static final String TAG = "CallerContextCache";
+
+    public static final String METRIC_HITS = "callercontext.hits";
+    public static final String METRIC_MISSES = "callercontext.misses";
+    public static final String METRIC_STALE = "callercontext.stale";
+    public static final String METRIC_FETCH_MS = "callercontext.fetch_ms";
+    public static final String METRIC_RING_TO_CONTEXT_MS = "callercontext.ring_to_context_ms";
+    public static final String METRIC_ENTRIES = "callercontext.entries";
+
+    private static final String FILE_NAME = "caller_context.json";
+    private static final int MAX_ENTRIES = 300;
+    private static final long FRESH_MS = TimeUnit.MINUTES.toMillis(5);
+    // Older than this is not worth showing, even while revalidating
+    private static final long MAX_AGE_MS = TimeUnit.DAYS.toMillis(7);
+
+    private static final int PREWARM_FREQUENT = 30;
+    private static final int PREWARM_ASSIGNED = 30;
+    private static final long PREWARM_LOOKBACK_MS = TimeUnit.DAYS.toMillis(30);
+    private static final long PREWARM_INTERVAL_MS = TimeUnit.MINUTES.toMillis(30);
+    private static final long SAVE_DELAY_MS = 2000;
+
+    public interface Listener {
+        /**
+         * Called with the cached context first if there is one, then again
+         * with {@code fresh} true once revalidated; main thread
+         */
+        void onContext(ApiService.CallHistoryResponse context, boolean fresh);
+    }
+
+    private static volatile CallerContextCache instance;
+
+    private final Context context;
+    private final File file;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "CallTracker-CallerContext");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean saveQueued = new AtomicBoolean(false);
+
+    // Guarded by this
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<String, Entry>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+    // Main thread only: listeners waiting on a fetch, per key
+    private final Map<String, List<Listener>> inFlight = new HashMap<>();
+    private long lastPrewarmAt = 0;
+
+    public static CallerContextCache getInstance(Context context) {
+        if (instance == null) {
+            synchronized (CallerContextCache.class) {
+                if (instance == null) {
+                    instance = new CallerContextCache(context.getApplicationContext());
+                }
+            }
+        }
+        return instance;
+    }
+
+    private CallerContextCache(Context context) {
+        this.context = context;
+        this.file = new File(context.getFilesDir(), FILE_NAME);
+        executor.execute(this::load);
+    }
+
+    /**
+     * Cached context for {@code phoneNumber}, however old, or null. No I/O.
+     */
+    public ApiService.CallHistoryResponse peek(String phoneNumber) {
+        Entry entry = entry(PhoneNumbers.canonical(phoneNumber));
+        return entry != null ? entry.data : null;
+    }
+
+    /**
+     * Serve the cached context now if there is one, and fetch a fresh copy
+     * if it is stale or missing. Call on the main thread.
+     */
+    public void get(String phoneNumber, Listener listener) {
+        String key = PhoneNumbers.canonical(phoneNumber);
+        if (key == null) return;
+        Entry entry = entry(key);
+        if (entry != null) {
+            boolean fresh = System.currentTimeMillis() - entry.fetchedAt < FRESH_MS;
+            NetworkMetrics.increment(fresh ? METRIC_HITS : METRIC_STALE);
+            listener.onContext(entry.data, fresh);
+            if (fresh) return;
+        } else {
+            NetworkMetrics.increment(METRIC_MISSES);
+        }
+        fetch(key, phoneNumber, listener);
+    }
+
+    /**
+     * The number just had a call; its history and tickets are out of date
+     */
+    public void invalidate(String phoneNumber) {
+        String key = PhoneNumbers.canonical(phoneNumber);
+        if (key == null) return;
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry != null) entry.fetchedAt = 0;
+        }
+    }
+
+    /**
+     * Fetch context for the agent's frequent and assigned callers, at most
+     * once per {@link #PREWARM_INTERVAL_MS}. Call on the main thread.
+     */
+    public void prewarm() {
+        long now = System.currentTimeMillis();
+        if (now - lastPrewarmAt < PREWARM_INTERVAL_MS) return;
+        TokenManager tokenManager = new TokenManager(context);
+        User user = tokenManager.getUser();
+        if (!tokenManager.isLoggedIn() || user == null) return;
+        lastPrewarmAt = now;
+
+        Set<String> numbers = new LinkedHashSet<>();
+        DeviceCallLogStore.getInstance(context).frequentNumbers(now - PREWARM_LOOKBACK_MS, PREWARM_FREQUENT, frequent -> {
+            numbers.addAll(frequent);
+            TicketStore.getInstance(context).query(new TicketStore.Filter().tab("my_tickets", user.getId()),
+                    PREWARM_ASSIGNED, tickets -> {
+                        for (Ticket ticket : tickets) {
+                            if (ticket.getPhoneNumber() != null) numbers.add(ticket.getPhoneNumber());
+                        }
+                        executor.execute(() -> prefetch(new ArrayList<>(numbers)));
+                    });
+        });
+    }
+
+    public void clear() {
+        synchronized (this) {
+            entries.clear();
+        }
+        lastPrewarmAt = 0;
+        executor.execute(() -> {
+            if (file.exists() && !file.delete()) {
+                Log.w(TAG, "Could not delete " + file);
+            }
+        });
+        NetworkMetrics.setGauge(METRIC_ENTRIES, 0);
+    }
+
+    private void fetch(String key, String phoneNumber, Listener listener) {
+        List<Listener> waiting = inFlight.get(key);
+        if (waiting != null) {
+            waiting.add(listener);
+            return;
+        }
+        waiting = new ArrayList<>();
+        waiting.add(listener);
+        inFlight.put(key, waiting);
+
+        long start = System.nanoTime();
+        ApiService.getInstance().getCallHistory(ApiService.SESSION_AUTH, phoneNumber)
+                .enqueue(new Callback<ApiResponse<ApiService.CallHistoryResponse>>() {
+                    @Override
+                    public void onResponse(Call<ApiResponse<ApiService.CallHistoryResponse>> call,
+                                           Response<ApiResponse<ApiService.CallHistoryResponse>> response) {
+                        NetworkMetrics.recordSample(METRIC_FETCH_MS, (System.nanoTime() - start) / 1_000_000);
+                        List<Listener> listeners = inFlight.remove(key);
+                        ApiService.CallHistoryResponse data = body(response);
+                        if (data == null || listeners == null) return;
+                        store(key, data);
+                        for (Listener waiter : listeners) {
+                            waiter.onContext(data, true);
+                        }
+                    }
+
+                    @Override
+                    public void onFailure(Call<ApiResponse<ApiService.CallHistoryResponse>> call, Throwable t) {
+                        inFlight.remove(key);
+                        Log.w(TAG, "Caller context fetch failed: " + t.getMessage());
+                    }
+                });
+    }
+
+    /**
+     * Fetch each number not already fresh, one at a time; runs on the executor
+     */
+    private void prefetch(List<String> numbers) {
+        int fetched = 0;
+        for (String number : numbers) {
+            String key = PhoneNumbers.canonical(number);
+            if (key == null) continue;
+            Entry entry = entry(key);
+            if (entry != null && System.currentTimeMillis() - entry.fetchedAt < FRESH_MS) continue;
+            try {
+                long start = System.nanoTime();
+                Response<ApiResponse<ApiService.CallHistoryResponse>> response =
+                        ApiService.getInstance().prefetchCallHistory(ApiService.SESSION_AUTH, number).execute();
+                NetworkMetrics.recordSample(METRIC_FETCH_MS, (System.nanoTime() - start) / 1_000_000);
+                ApiService.CallHistoryResponse data = body(response);
+                if (data != null) {
+                    store(key, data);
+                    fetched++;
+                }
+            } catch (IOException e) {
+                // Offline or the backend is struggling; the next pre-warm tries again
+                Log.w(TAG, "Pre-warm stopped after " + fetched + " numbers: " + e.getMessage());
+                break;
+            }
+        }
+        Log.d(TAG, "🔥 Pre-warmed caller context for " + fetched + " of " + numbers.size() + " numbers");
+    }
+
+    private Entry entry(String key) {
+        if (key == null) return null;
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            return entry != null && System.currentTimeMillis() - entry.fetchedAt < MAX_AGE_MS ? entry : null;
+        }
+    }
+
+    private void store(String key, ApiService.CallHistoryResponse data) {
+        int size;
+        synchronized (this) {
+            entries.put(key, new Entry(key, data, System.currentTimeMillis()));
+            size = entries.size();
+        }
+        NetworkMetrics.setGauge(METRIC_ENTRIES, size);
+        scheduleSave();
+    }
+
+    private static ApiService.CallHistoryResponse body(Response<ApiResponse<ApiService.CallHistoryResponse>> response) {
+        if (!response.isSuccessful() || response.body() == null || !response.body().isSuccess()) return null;
+        return response.body().getData();
+    }
+
+    private void scheduleSave() {
+        if (saveQueued.compareAndSet(false, true)) {
+            mainHandler.postDelayed(() -> executor.execute(this::save), SAVE_DELAY_MS);
+        }
+    }
+
+    private void save() {
+        saveQueued.set(false);
+        List<Entry> snapshot;
+        synchronized (this) {
+            snapshot = new ArrayList<>(entries.values());
+        }
+        File tmp = new File(file.getPath() + ".tmp");
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(tmp), StandardCharsets.UTF_8)) {
+            GsonProvider.getGson().toJson(snapshot, writer);
+        } catch (IOException e) {
+            Log.e(TAG, "Could not save caller context", e);
+            return;
+        }
+        if (!tmp.renameTo(file)) {
+            Log.e(TAG, "Could not replace " + file);
+        }
+    }
+
+    private void load() {
+        if (!file.exists()) return;
+        List<Entry> saved;
+        try (Reader reader = new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8)) {
+            saved = GsonProvider.getGson().fromJson(reader, new TypeToken<List<Entry>>() {}.getType());
+        } catch (IOException | RuntimeException e) {
+            Log.w(TAG, "Discarding unreadable caller context cache: " + e.getMessage());
+            return;
+        }
+        if (saved == null) return;
+
+        long cutoff = System.currentTimeMillis() - MAX_AGE_MS;
+        int size;
+        synchronized (this) {
+            for (Entry entry : saved) {
+                // Anything fetched since launch is newer than the file
+                if (entry.key != null && entry.data != null && entry.fetchedAt > cutoff
+                        && !entries.containsKey(entry.key)) {
+                    entries.put(entry.key, entry);
+                }
+            }
+            size = entries.size();
+        }
+        NetworkMetrics.setGauge(METRIC_ENTRIES, size);
+        Log.d(TAG, "📂 Loaded caller context for " + size + " numbers");
+    }
+
+    private static final class Entry {
+        String key;
+        ApiService.CallHistoryResponse data;
+        long fetchedAt;
+
+        Entry(String key, ApiService.CallHistoryResponse data, long fetchedAt) {
+            this.key = key;
+            this.data = data;
+            this.fetchedAt = fetchedAt;
+        }
+    }
+}
@@ -0,0 +1,344 @@
+package com.calltrackerpro.calltracker.data;
+
+import android.Manifest;
+import android.content.Context;
+import android.content.pm.PackageManager;
+import android.database.ContentObserver;
+import android.database.Cursor;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.provider.ContactsContract;
+import android.provider.ContactsContract.CommonDataKinds.Phone;
+import android.util.Log;
+
+import androidx.core.content.ContextCompat;
+
+import com.calltrackerpro.calltracker.network.NetworkMetrics;
+import com.calltrackerpro.calltracker.utils.PhoneNumbers;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Phone number to contact name, in memory, for the ringing path. Keyed by
+ * {@link PhoneNumbers#canonical}, so every format of a number hits.
+ *
+ * The address book is read once in the background and then kept current
+ * from a contacts ContentObserver: only contacts updated or deleted since
+ * the last pass are re-read. Entries live in an access-ordered LRU capped
+ * at {@link #MAX_ENTRIES}, so a huge address book keeps the numbers that
+ * actually call. {@link #lookup} is a hash lookup and never touches the
+ * provider; while the whole address book fits, a miss is a definite "not
+ * a contact". Otherwise {@link #resolve} looks the number up in the
+ * background and remembers the answer, including "no such contact".
+ */
+public final class ContactNameCache {
+    private static final String TAG = "ContactNameCache";
+
+    public static final String METRIC_HITS = "contacts.cache.hits";
+    public static final String METRIC_MISSES = "contacts.cache.misses";
+    public static final String METRIC_LOOKUP_US = "contacts.cache.lookup_us";
+    public static final String METRIC_ENTRIES = "contacts.cache.entries";
+
+    private static final int MAX_ENTRIES = 20000;
+    private static final long OBSERVER_DEBOUNCE_MS = 1000;
+
+    // Remembered "not a contact"; shares the LRU with real names
+    private static final Entry NOT_A_CONTACT = new Entry(null, -1);
+
+    public interface NameCallback {
+        /**
+         * Contact name, or null if the number is not in the address book
+         */
+        void onName(String name);
+    }
+
+    private static volatile ContactNameCache instance;
+
+    private final Context context;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "CallTracker-Contacts");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean observing = new AtomicBoolean(false);
+    private final AtomicBoolean refreshQueued = new AtomicBoolean(false);
+
+    // Guarded by this
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<String, Entry>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            if (size() <= MAX_ENTRIES) return false;
+            complete = false;
+            evictions++;
+            return true;
+        }
+    };
+    // True while every contact number is in entries, so a miss needs no lookup
+    private boolean complete = false;
+    private long evictions = 0;
+
+    // Touched only on the executor thread
+    private final Map<Long, List<String>> keysByContact = new HashMap<>();
+    private long lastUpdated = -1;
+
+    public static ContactNameCache getInstance(Context context) {
+        if (instance == null) {
+            synchronized (ContactNameCache.class) {
+                if (instance == null) {
+                    instance = new ContactNameCache(context.getApplicationContext());
+                }
+            }
+        }
+        return instance;
+    }
+
+    private ContactNameCache(Context context) {
+        this.context = context;
+    }
+
+    /**
+     * Load the address book and follow its changes. Safe to call repeatedly;
+     * does nothing until READ_CONTACTS is granted.
+     */
+    public void start() {
+        if (!hasPermission()) return;
+        if (observing.compareAndSet(false, true)) {
+            try {
+                context.getContentResolver().registerContentObserver(ContactsContract.Contacts.CONTENT_URI, true,
+                        new ContentObserver(mainHandler) {
+                            @Override
+                            public void onChange(boolean selfChange) {
+                                scheduleRefresh(OBSERVER_DEBOUNCE_MS);
+                            }
+                        });
+            } catch (SecurityException e) {
+                observing.set(false);
+                Log.w(TAG, "Cannot observe contacts: " + e.getMessage());
+                return;
+            }
+            scheduleRefresh(0);
+        }
+    }
+
+    /**
+     * Cached name for {@code phoneNumber}, or null when it is not a known
+     * contact or not cached. No I/O; safe on the ringing path.
+     */
+    public String lookup(String phoneNumber) {
+        Entry entry = get(phoneNumber);
+        return entry != null ? entry.name : null;
+    }
+
+    /**
+     * Like {@link #lookup}, but when the cache cannot tell, asks the provider
+     * in the background. The callback runs right away when the cache knows,
+     * otherwise on the main thread.
+     */
+    public void resolve(String phoneNumber, NameCallback callback) {
+        String key = key(phoneNumber);
+        Entry entry = get(phoneNumber);
+        boolean known;
+        synchronized (this) {
+            known = entry != null || complete || key == null;
+        }
+        if (known || !hasPermission()) {
+            callback.onName(entry != null ? entry.name : null);
+            return;
+        }
+
+        executor.execute(() -> {
+            String name = queryPhoneLookup(phoneNumber);
+            synchronized (this) {
+                if (!entries.containsKey(key)) {
+                    entries.put(key, name != null ? new Entry(name, -1) : NOT_A_CONTACT);
+                }
+            }
+            mainHandler.post(() -> callback.onName(name));
+        });
+    }
+
+    private Entry get(String phoneNumber) {
+        long start = System.nanoTime();
+        String key = key(phoneNumber);
+        Entry entry = null;
+        if (key != null) {
+            synchronized (this) {
+                entry = entries.get(key);
+            }
+        }
+        NetworkMetrics.increment(entry != null ? METRIC_HITS : METRIC_MISSES);
+        NetworkMetrics.recordSample(METRIC_LOOKUP_US, (System.nanoTime() - start) / 1000);
+        return entry;
+    }
+
+    private void scheduleRefresh(long delayMs) {
+        if (!refreshQueued.compareAndSet(false, true)) return;
+        if (delayMs > 0) {
+            mainHandler.postDelayed(() -> executor.execute(this::refresh), delayMs);
+        } else {
+            executor.execute(this::refresh);
+        }
+    }
+
+    /**
+     * First pass reads every phone number; later passes only contacts
+     * changed or deleted since the newest timestamp seen
+     */
+    private void refresh() {
+        refreshQueued.set(false);
+        if (!hasPermission()) return;
+
+        long start = System.nanoTime();
+        boolean full = lastUpdated < 0;
+        long evictionsBefore;
+        synchronized (this) {
+            evictionsBefore = evictions;
+        }
+        int changed = 0;
+        try {
+            if (!full) {
+                changed += applyDeletions();
+            }
+            changed += applyUpdates(full);
+        } catch (SecurityException e) {
+            Log.w(TAG, "Contacts permission revoked: " + e.getMessage());
+            return;
+        } catch (RuntimeException e) {
+            Log.e(TAG, "Contact refresh failed", e);
+            return;
+        }
+
+        int size;
+        synchronized (this) {
+            if (full && evictions == evictionsBefore) {
+                complete = true;
+            }
+            size = entries.size();
+        }
+        NetworkMetrics.setGauge(METRIC_ENTRIES, size);
+        Log.d(TAG, "📇 " + (full ? "Loaded " : "Refreshed ") + changed + " contact numbers in "
+                + (System.nanoTime() - start) / 1_000_000 + "ms (" + size + " cached)");
+    }
+
+    private int applyUpdates(boolean full) {
+        String selection = full ? null : Phone.CONTACT_LAST_UPDATED_TIMESTAMP + " > ?";
+        String[] args = full ? null : new String[]{String.valueOf(lastUpdated)};
+        Map<Long, List<String[]>> byContact = new LinkedHashMap<>();
+        long newest = Math.max(lastUpdated, 0);
+
+        try (Cursor cursor = context.getContentResolver().query(Phone.CONTENT_URI,
+                new String[]{Phone.CONTACT_ID, Phone.NUMBER, Phone.NORMALIZED_NUMBER,
+                        Phone.DISPLAY_NAME, Phone.CONTACT_LAST_UPDATED_TIMESTAMP},
+                selection, args, null)) {
+            if (cursor == null) return 0;
+            while (cursor.moveToNext()) {
+                long contactId = cursor.getLong(0);
+                String number = cursor.getString(2) != null ? cursor.getString(2) : cursor.getString(1);
+                List<String[]> numbers = byContact.get(contactId);
+                if (numbers == null) {
+                    numbers = new ArrayList<>(2);
+                    byContact.put(contactId, numbers);
+                }
+                numbers.add(new String[]{number, cursor.getString(3)});
+                newest = Math.max(newest, cursor.getLong(4));
+            }
+        }
+
+        int count = 0;
+        synchronized (this) {
+            for (Map.Entry<Long, List<String[]>> contact : byContact.entrySet()) {
+                long contactId = contact.getKey();
+                removeContact(contactId);
+                List<String> keys = new ArrayList<>(contact.getValue().size());
+                for (String[] number : contact.getValue()) {
+                    String key = key(number[0]);
+                    if (key == null || number[1] == null) continue;
+                    entries.put(key, new Entry(number[1], contactId));
+                    keys.add(key);
+                    count++;
+                }
+                keysByContact.put(contactId, keys);
+            }
+        }
+        lastUpdated = newest;
+        return count;
+    }
+
+    private int applyDeletions() {
+        List<Long> deleted = new ArrayList<>();
+        long newest = lastUpdated;
+        try (Cursor cursor = context.getContentResolver().query(ContactsContract.DeletedContacts.CONTENT_URI,
+                new String[]{ContactsContract.DeletedContacts.CONTACT_ID,
+                        ContactsContract.DeletedContacts.CONTACT_DELETED_TIMESTAMP},
+                ContactsContract.DeletedContacts.CONTACT_DELETED_TIMESTAMP + " > ?",
+                new String[]{String.valueOf(lastUpdated)}, null)) {
+            if (cursor == null) return 0;
+            while (cursor.moveToNext()) {
+                deleted.add(cursor.getLong(0));
+                newest = Math.max(newest, cursor.getLong(1));
+            }
+        }
+
+        synchronized (this) {
+            for (long contactId : deleted) {
+                removeContact(contactId);
+            }
+        }
+        lastUpdated = newest;
+        return deleted.size();
+    }
+
+    /**
+     * Drop a contact's numbers, unless another contact has since claimed them.
+     * Caller holds the lock.
+     */
+    private void removeContact(long contactId) {
+        List<String> keys = keysByContact.remove(contactId);
+        if (keys == null) return;
+        for (String key : keys) {
+            Entry entry = entries.get(key);
+            if (entry != null && entry.contactId == contactId) {
+                entries.remove(key);
+            }
+        }
+    }
+
+    private String queryPhoneLookup(String phoneNumber) {
+        Uri uri = Uri.withAppendedPath(ContactsContract.PhoneLookup.CONTENT_FILTER_URI, Uri.encode(phoneNumber));
+        try (Cursor cursor = context.getContentResolver().query(uri,
+                new String[]{ContactsContract.PhoneLookup.DISPLAY_NAME}, null, null, null)) {
+            return cursor != null && cursor.moveToFirst() ? cursor.getString(0) : null;
+        } catch (RuntimeException e) {
+            Log.e(TAG, "Error resolving contact name", e);
+            return null;
+        }
+    }
+
+    private boolean hasPermission() {
+        return ContextCompat.checkSelfPermission(context, Manifest.permission.READ_CONTACTS)
+                == PackageManager.PERMISSION_GRANTED;
+    }
+
+    static String key(String phoneNumber) {
+        return PhoneNumbers.canonical(phoneNumber);
+    }
+
+    private static final class Entry {
+        final String name;
+        final long contactId;
+
+        Entry(String name, long contactId) {
+            this.name = name;
+            this.contactId = contactId;
+        }
+    }
+}
@@ -0,0 +1,449 @@
+package com.calltrackerpro.calltracker.data;
+
+import android.Manifest;
+import android.content.ContentValues;
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.content.pm.PackageManager;
+import android.database.ContentObserver;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.provider.CallLog.Calls;
+import android.util.Log;
+
+import androidx.core.content.ContextCompat;
+
+import com.calltrackerpro.calltracker.models.CallLog;
+import com.calltrackerpro.calltracker.network.NetworkMetrics;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.TimeZone;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Local copy of the phone's call log, kept current incrementally.
+ *
+ * The store remembers the highest provider {@code _ID} it has ingested
+ * and only ever reads rows above it, in batches, on a background thread.
+ * A ContentObserver on the call log triggers the next pass; bursts of
+ * notifications collapse into one pass. Rows deleted from the phone's
+ * history are noticed by comparing row counts and pruned. Screens page from the local table newest first, so opening
+ * the call log costs one indexed query no matter how long the history is.
+ */
+public final class DeviceCallLogStore extends SQLiteOpenHelper {
+    private static final String TAG = "DeviceCallLogStore";
+
+    public static final String METRIC_INGESTED = "calllog.device.ingested";
+    public static final String METRIC_INGEST_MS = "calllog.device.ingest_ms";
+    public static final String METRIC_ROWS = "calllog.device.rows";
+
+    private static final String DB_NAME = "device_calls.db";
+    private static final int DB_VERSION = 1;
+    private static final String TABLE = "device_calls";
+
+    private static final String PREFS = "device_call_log";
+    private static final String KEY_LAST_ID = "last_id";
+
+    private static final int INGEST_BATCH = 500;
+    // Lets the dialer finish writing a burst of rows before we read
+    private static final long OBSERVER_DEBOUNCE_MS = 500;
+
+    public interface PageCallback {
+        /**
+         * @param calls the page, or null if the local copy could not be read
+         */
+        void onPage(List<CallLog> calls);
+    }
+
+    public interface NumbersCallback {
+        void onNumbers(List<String> numbers);
+    }
+
+    public interface Listener {
+        /**
+         * New rows were ingested, oldest first; called on the main thread
+         */
+        void onCallsIngested(List<CallLog> added);
+
+        /**
+         * The phone's call log could not be read; called on the main thread
+         */
+        void onIngestFailed(RuntimeException error);
+    }
+
+    private static volatile DeviceCallLogStore instance;
+
+    private final Context context;
+    private final SharedPreferences prefs;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "CallTracker-CallLog");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private final AtomicBoolean ingestQueued = new AtomicBoolean(false);
+    private final AtomicBoolean observing = new AtomicBoolean(false);
+    // Touched only on the executor thread
+    private final SimpleDateFormat isoFormat = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'", Locale.US);
+
+    public static DeviceCallLogStore getInstance(Context context) {
+        if (instance == null) {
+            synchronized (DeviceCallLogStore.class) {
+                if (instance == null) {
+                    instance = new DeviceCallLogStore(context.getApplicationContext());
+                }
+            }
+        }
+        return instance;
+    }
+
+    private DeviceCallLogStore(Context context) {
+        super(context, DB_NAME, null, DB_VERSION);
+        this.context = context;
+        this.prefs = context.getSharedPreferences(PREFS, Context.MODE_PRIVATE);
+        isoFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
+    }
+
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + TABLE + " ("
+                + "provider_id INTEGER PRIMARY KEY, "
+                + "number TEXT, "
+                + "name TEXT, "
+                + "call_type TEXT, "
+                + "call_status TEXT, "
+                + "date INTEGER NOT NULL, "
+                + "duration INTEGER NOT NULL)");
+        db.execSQL("CREATE INDEX idx_device_calls_date ON " + TABLE + " (date, provider_id)");
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        // A copy of the provider: rebuild rather than migrate
+        db.execSQL("DROP TABLE IF EXISTS " + TABLE);
+        onCreate(db);
+        prefs.edit().clear().apply();
+    }
+
+    /**
+     * Start watching the call log and catch up on anything new. Safe to call
+     * repeatedly; does nothing until READ_CALL_LOG is granted.
+     */
+    public void start() {
+        if (!hasPermission()) return;
+        if (observing.compareAndSet(false, true)) {
+            try {
+                context.getContentResolver().registerContentObserver(Calls.CONTENT_URI, true,
+                        new ContentObserver(mainHandler) {
+                            @Override
+                            public void onChange(boolean selfChange) {
+                                scheduleIngest(OBSERVER_DEBOUNCE_MS);
+                            }
+                        });
+            } catch (SecurityException e) {
+                observing.set(false);
+                Log.w(TAG, "Cannot observe the call log: " + e.getMessage());
+                return;
+            }
+        }
+        scheduleIngest(0);
+    }
+
+    /**
+     * Ingest anything new now, e.g. on pull-to-refresh
+     */
+    public void refresh() {
+        scheduleIngest(0);
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Up to {@code limit} calls older than {@code after} (null for the
+     * newest page), newest first; the callback runs on the main thread
+     */
+    public void loadPage(CallLog after, int limit, PageCallback callback) {
+        executor.execute(() -> {
+            List<CallLog> page;
+            try {
+                page = queryPage(after, limit);
+            } catch (RuntimeException e) {
+                Log.e(TAG, "Could not read the local call log", e);
+                page = null;
+            }
+            List<CallLog> result = page;
+            mainHandler.post(() -> callback.onPage(result));
+        });
+    }
+
+    /**
+     * Numbers with the most calls since {@code sinceMillis}, most first, as
+     * written in the call log; the callback runs on the main thread
+     */
+    public void frequentNumbers(long sinceMillis, int limit, NumbersCallback callback) {
+        executor.execute(() -> {
+            List<String> numbers = new ArrayList<>(limit);
+            try (Cursor cursor = getReadableDatabase().rawQuery("SELECT number FROM " + TABLE
+                            + " WHERE date >= ? AND number IS NOT NULL AND number != ''"
+                            + " GROUP BY number ORDER BY COUNT(*) DESC LIMIT " + limit,
+                    new String[]{String.valueOf(sinceMillis)})) {
+                while (cursor.moveToNext()) {
+                    numbers.add(cursor.getString(0));
+                }
+            }
+            mainHandler.post(() -> callback.onNumbers(numbers));
+        });
+    }
+
+    private void scheduleIngest(long delayMs) {
+        if (!ingestQueued.compareAndSet(false, true)) return;
+        if (delayMs > 0) {
+            mainHandler.postDelayed(() -> executor.execute(this::ingest), delayMs);
+        } else {
+            executor.execute(this::ingest);
+        }
+    }
+
+    private void ingest() {
+        ingestQueued.set(false);
+        if (!hasPermission()) return;
+
+        long start = System.nanoTime();
+        long lastId = prefs.getLong(KEY_LAST_ID, 0);
+        List<CallLog> added = new ArrayList<>();
+
+        try {
+            long providerMaxId = providerMaxId();
+            if (providerMaxId < lastId) {
+                // Provider was wiped or restored: ids restarted, so start over
+                Log.w(TAG, "Call log ids went backwards (" + providerMaxId + " < " + lastId + "), re-ingesting");
+                getWritableDatabase().delete(TABLE, null, null);
+                lastId = 0;
+            }
+
+            SQLiteDatabase db = getWritableDatabase();
+            while (true) {
+                List<CallLog> batch = new ArrayList<>();
+                db.beginTransaction();
+                try (Cursor cursor = context.getContentResolver().query(limited(INGEST_BATCH),
+                        new String[]{Calls._ID, Calls.NUMBER, Calls.CACHED_NAME, Calls.TYPE, Calls.DATE, Calls.DURATION},
+                        Calls._ID + " > ?", new String[]{String.valueOf(lastId)},
+                        Calls._ID + " ASC")) {
+                    if (cursor == null) break;
+                    while (cursor.moveToNext()) {
+                        ContentValues row = new ContentValues();
+                        long id = cursor.getLong(0);
+                        int type = cursor.getInt(3);
+                        long duration = cursor.getLong(5);
+                        row.put("provider_id", id);
+                        row.put("number", cursor.getString(1));
+                        row.put("name", cursor.getString(2));
+                        row.put("call_type", mapCallType(type));
+                        row.put("call_status", mapCallStatus(type, duration));
+                        row.put("date", cursor.getLong(4));
+                        row.put("duration", duration);
+                        db.insertWithOnConflict(TABLE, null, row, SQLiteDatabase.CONFLICT_REPLACE);
+                        batch.add(toCallLog(row));
+
+                        lastId = id;
+                    }
+                    db.setTransactionSuccessful();
+                } finally {
+                    db.endTransaction();
+                }
+                // Watermark moves only after the batch is committed
+                prefs.edit().putLong(KEY_LAST_ID, lastId).apply();
+                added.addAll(batch);
+                if (batch.size() < INGEST_BATCH) break;
+            }
+
+            pruneDeleted(db);
+        } catch (SecurityException e) {
+            Log.w(TAG, "Call log permission revoked: " + e.getMessage());
+            failed(e);
+            return;
+        } catch (RuntimeException e) {
+            Log.e(TAG, "Call log ingestion failed", e);
+            failed(e);
+            return;
+        }
+
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        NetworkMetrics.recordSample(METRIC_INGEST_MS, elapsedMs);
+        NetworkMetrics.setGauge(METRIC_ROWS, localCount());
+        if (added.isEmpty()) return;
+
+        NetworkMetrics.add(METRIC_INGESTED, added.size());
+        Log.d(TAG, "📥 Ingested " + added.size() + " call log rows in " + elapsedMs + "ms (last id " + lastId + ")");
+        List<CallLog> snapshot = Collections.unmodifiableList(added);
+        mainHandler.post(() -> {
+            for (Listener listener : listeners) {
+                listener.onCallsIngested(snapshot);
+            }
+        });
+    }
+
+    private void failed(RuntimeException error) {
+        mainHandler.post(() -> {
+            for (Listener listener : listeners) {
+                listener.onIngestFailed(error);
+            }
+        });
+    }
+
+    /**
+     * Drop rows the user deleted from the phone's history. Only the row
+     * counts are compared unless they differ.
+     */
+    private void pruneDeleted(SQLiteDatabase db) {
+        long local = localCount();
+        Set<Long> present;
+        try (Cursor cursor = context.getContentResolver().query(Calls.CONTENT_URI,
+                new String[]{Calls._ID}, null, null, null)) {
+            if (cursor == null || cursor.getCount() >= local) return;
+            present = new HashSet<>(cursor.getCount() * 2);
+            while (cursor.moveToNext()) {
+                present.add(cursor.getLong(0));
+            }
+        }
+
+        int removed = 0;
+        db.beginTransaction();
+        try (Cursor cursor = db.query(TABLE, new String[]{"provider_id"}, null, null, null, null, null)) {
+            while (cursor.moveToNext()) {
+                long id = cursor.getLong(0);
+                if (!present.contains(id)) {
+                    db.delete(TABLE, "provider_id = ?", new String[]{String.valueOf(id)});
+                    removed++;
+                }
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        Log.d(TAG, "🧹 Pruned " + removed + " call log rows deleted on the phone");
+    }
+
+    private List<CallLog> queryPage(CallLog after, int limit) {
+        String selection = null;
+        String[] args = null;
+        if (after != null) {
+            // Keyset paging on (date, provider_id), which the index covers
+            selection = "date < ? OR (date = ? AND provider_id < ?)";
+            args = new String[]{String.valueOf(after.getTimestamp()), String.valueOf(after.getTimestamp()), after.getId()};
+        }
+
+        List<CallLog> page = new ArrayList<>(limit);
+        try (Cursor cursor = getReadableDatabase().query(TABLE,
+                new String[]{"provider_id", "number", "name", "call_type", "call_status", "date", "duration"},
+                selection, args, null, null, "date DESC, provider_id DESC", String.valueOf(limit))) {
+            while (cursor.moveToNext()) {
+                CallLog call = new CallLog();
+                call.setId(String.valueOf(cursor.getLong(0)));
+                call.setPhoneNumber(cursor.getString(1) != null ? cursor.getString(1) : "");
+                call.setContactName(cursor.getString(2) != null ? cursor.getString(2) : "Unknown");
+                call.setCallType(cursor.getString(3));
+                call.setCallStatus(cursor.getString(4));
+                call.setTimestamp(cursor.getLong(5));
+                call.setDate(isoFormat.format(new Date(cursor.getLong(5))));
+                call.setDuration(cursor.getLong(6));
+                page.add(call);
+            }
+        }
+        return page;
+    }
+
+    private CallLog toCallLog(ContentValues row) {
+        CallLog call = new CallLog();
+        call.setId(String.valueOf(row.getAsLong("provider_id")));
+        String number = row.getAsString("number");
+        String name = row.getAsString("name");
+        call.setPhoneNumber(number != null ? number : "");
+        call.setContactName(name != null ? name : "Unknown");
+        call.setCallType(row.getAsString("call_type"));
+        call.setCallStatus(row.getAsString("call_status"));
+        call.setTimestamp(row.getAsLong("date"));
+        call.setDate(isoFormat.format(new Date(row.getAsLong("date"))));
+        call.setDuration(row.getAsLong("duration"));
+        return call;
+    }
+
+    private long providerMaxId() {
+        try (Cursor cursor = context.getContentResolver().query(limited(1),
+                new String[]{Calls._ID}, null, null, Calls._ID + " DESC")) {
+            return cursor != null && cursor.moveToFirst() ? cursor.getLong(0) : 0;
+        }
+    }
+
+    /**
+     * The call log URI with a row limit; the provider rejects LIMIT in the sort order from Android 11
+     */
+    private static Uri limited(int limit) {
+        return Calls.CONTENT_URI.buildUpon()
+                .appendQueryParameter(Calls.LIMIT_PARAM_KEY, String.valueOf(limit))
+                .build();
+    }
+
+    private long localCount() {
+        try (Cursor cursor = getReadableDatabase().rawQuery("SELECT COUNT(*) FROM " + TABLE, null)) {
+            return cursor.moveToFirst() ? cursor.getLong(0) : 0;
+        }
+    }
+
+    private boolean hasPermission() {
+        return ContextCompat.checkSelfPermission(context, Manifest.permission.READ_CALL_LOG)
+                == PackageManager.PERMISSION_GRANTED;
+    }
+
+    static String mapCallType(int type) {
+        switch (type) {
+            case Calls.INCOMING_TYPE:
+                return "incoming";
+            case Calls.OUTGOING_TYPE:
+                return "outgoing";
+            case Calls.MISSED_TYPE:
+                return "missed";
+            case Calls.REJECTED_TYPE:
+                return "rejected";
+            case Calls.BLOCKED_TYPE:
+                return "blocked";
+            default:
+                return "unknown";
+        }
+    }
+
+    static String mapCallStatus(int type, long durationSec) {
+        switch (type) {
+            case Calls.MISSED_TYPE:
+                return "missed";
+            case Calls.REJECTED_TYPE:
+                return "declined";
+            case Calls.BLOCKED_TYPE:
+                return "blocked";
+            default:
+                return durationSec > 0 ? "completed" : "missed";
+        }
+    }
+}
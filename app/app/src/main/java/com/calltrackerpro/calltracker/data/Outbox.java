@@ -0,0 +1,280 @@
+package com.calltrackerpro.calltracker.data;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.calltrackerpro.calltracker.network.NetworkMetrics;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Durable on-device queue of mutations waiting to reach the backend.
+ *
+ * Services append a mutation (type + JSON payload) before the first attempt
+ * to send it, and the replay worker
+ * ({@link com.calltrackerpro.calltracker.network.OutboxReplayer}) acks it
+ * once the backend has accepted or permanently rejected it. Entries are
+ * handed out strictly in append order and only after they are on disk, so
+ * nothing the app has accepted is lost to a crash or a dead network.
+ *
+ * Every entry carries an idempotency key, generated at append time and sent
+ * with every attempt. The backend does not dedupe on it yet, so delivery is
+ * at least once: a replay after a lost response can apply a mutation twice.
+ *
+ * Entries belong to the user and organization that queued them. Only the
+ * signed-in owner's entries are handed out, so nothing is sent under
+ * another session's token; the rest stay parked until their owner is back.
+ * Signing out drops everything ({@link #clear}).
+ */
+public final class Outbox {
+    private static final String TAG = "Outbox";
+
+    public static final String TYPE_CALL_LOG = "call_log.create";
+    public static final String TYPE_TICKET = "ticket.create";
+    public static final String TYPE_REPEAT_CALLS = "ticket.repeat_calls";
+
+    public static final String METRIC_DEPTH = "outbox.depth";
+    public static final String METRIC_APPENDED = "outbox.appended";
+    public static final String METRIC_ACKED = "outbox.acked";
+
+    // Rewrite the journal once it is mostly acked records
+    private static final long COMPACT_MIN_BYTES = 256 * 1024;
+    private static final int COMPACT_MAX_LIVE = 100;
+
+    public interface Listener {
+        /**
+         * New entries are on disk and ready to send; called on the journal thread
+         */
+        void onEntriesAvailable();
+    }
+
+    /**
+     * One queued mutation
+     */
+    public static final class Entry {
+        public final long seq;
+        public final String type;
+        public final String key;
+        public final String payload;
+        public final long createdAt;
+        // Who queued it; null in records written before entries had owners
+        public final String userId;
+        public final String organizationId;
+        // Failed attempts that count against the entry, and when the first was
+        private int attempts;
+        private long firstFailedAt;
+
+        Entry(long seq, String type, String key, String payload, long createdAt,
+              String userId, String organizationId) {
+            this.seq = seq;
+            this.type = type;
+            this.key = key;
+            this.payload = payload;
+            this.createdAt = createdAt;
+            this.userId = userId;
+            this.organizationId = organizationId;
+        }
+
+        public synchronized int getAttempts() {
+            return attempts;
+        }
+
+        /**
+         * When the first counted attempt failed, or 0 if none has
+         */
+        public synchronized long getFirstFailedAt() {
+            return firstFailedAt;
+        }
+
+        synchronized void setFailures(int attempts, long firstFailedAt) {
+            this.attempts = attempts;
+            this.firstFailedAt = firstFailedAt;
+        }
+
+        boolean isOwnedBy(String userId, String organizationId) {
+            return this.userId != null && this.userId.equals(userId)
+                    && (this.organizationId == null ? organizationId == null : this.organizationId.equals(organizationId));
+        }
+    }
+
+    private static final Outbox instance = new Outbox();
+
+    // Unacked entries in append order; "durable" holds the ones already fsynced
+    private final Map<Long, Entry> entries = new LinkedHashMap<>();
+    private final Map<Long, Boolean> durable = new LinkedHashMap<>();
+    private long nextSeq = 1;
+    private OutboxJournal journal;
+    private volatile Listener listener;
+
+    public static Outbox getInstance() {
+        return instance;
+    }
+
+    private Outbox() {}
+
+    /**
+     * Open the journal under the app's files dir and reload unacked entries.
+     * Call once from Application.onCreate(); without it the outbox is memory-only.
+     */
+    public void init(Context context) {
+        init(new File(new File(context.getApplicationContext().getFilesDir(), "outbox"), "journal.bin"));
+    }
+
+    synchronized void init(File file) {
+        if (journal != null) return;
+        OutboxJournal opened = new OutboxJournal(file);
+        try {
+            opened.open(new OutboxJournal.Replay() {
+                @Override
+                public void onEnqueue(Entry entry) {
+                    entries.put(entry.seq, entry);
+                    durable.put(entry.seq, Boolean.TRUE);
+                    nextSeq = Math.max(nextSeq, entry.seq + 1);
+                }
+
+                @Override
+                public void onAck(long seq) {
+                    entries.remove(seq);
+                    durable.remove(seq);
+                }
+
+                @Override
+                public void onFailure(long seq, int attempts, long firstFailedAt) {
+                    Entry entry = entries.get(seq);
+                    if (entry != null) entry.setFailures(attempts, firstFailedAt);
+                }
+            });
+        } catch (IOException e) {
+            Log.e(TAG, "Cannot open outbox journal, running memory-only", e);
+            return;
+        }
+        journal = opened;
+        publishDepth();
+        Log.d(TAG, "📮 Outbox opened with " + entries.size() + " pending entries");
+        compactIfWorthIt();
+    }
+
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Queue a mutation on behalf of {@code userId} in {@code organizationId};
+     * it becomes visible to {@link #peek} once it is on disk
+     */
+    public synchronized void append(String type, String key, String payload,
+                                    String userId, String organizationId) {
+        Entry entry = new Entry(nextSeq++, type, key, payload, System.currentTimeMillis(),
+                userId, organizationId);
+        entries.put(entry.seq, entry);
+        NetworkMetrics.increment(METRIC_APPENDED);
+        publishDepth();
+
+        if (journal == null) {
+            markDurable(entry.seq);
+        } else {
+            journal.appendEnqueue(entry, () -> markDurable(entry.seq));
+        }
+    }
+
+    /**
+     * Up to {@code max} of the oldest durable entries owned by {@code userId}
+     * in {@code organizationId}, in append order. Stops at the first entry not
+     * yet on disk, so order is never skipped.
+     */
+    public synchronized List<Entry> peek(int max, String userId, String organizationId) {
+        List<Entry> head = new ArrayList<>(Math.min(max, entries.size()));
+        for (Entry entry : entries.values()) {
+            if (head.size() >= max || !durable.containsKey(entry.seq)) break;
+            if (entry.isOwnedBy(userId, organizationId)) head.add(entry);
+        }
+        return head;
+    }
+
+    /**
+     * The entry is done with (delivered, or rejected for good)
+     */
+    public synchronized void ack(long seq) {
+        if (entries.remove(seq) == null) return;
+        durable.remove(seq);
+        NetworkMetrics.increment(METRIC_ACKED);
+        publishDepth();
+        if (journal != null) {
+            journal.appendAck(seq);
+            compactIfWorthIt();
+        }
+    }
+
+    /**
+     * Count a failed attempt to send the entry, on disk too, so a mutation
+     * the backend keeps refusing can be given up on across restarts
+     */
+    public synchronized void recordFailure(Entry entry) {
+        if (!entries.containsKey(entry.seq)) return;
+        int attempts = entry.getAttempts() + 1;
+        long firstFailedAt = attempts == 1 ? System.currentTimeMillis() : entry.getFirstFailedAt();
+        entry.setFailures(attempts, firstFailedAt);
+        if (journal != null) {
+            journal.appendFailure(entry.seq, attempts, firstFailedAt);
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Drop every entry, on disk too; for sign-out, when nobody may send them any more
+     */
+    public synchronized void clear() {
+        int dropped = entries.size();
+        entries.clear();
+        durable.clear();
+        publishDepth();
+        if (journal != null) {
+            journal.clear();
+        }
+        if (dropped > 0) {
+            Log.d(TAG, "🗑️ Outbox cleared, " + dropped + " unsent entries dropped");
+        }
+    }
+
+    /**
+     * Wait until every append and ack so far is on disk
+     */
+    public void sync() throws InterruptedException {
+        OutboxJournal current;
+        synchronized (this) {
+            current = journal;
+        }
+        if (current != null) {
+            current.sync(5_000);
+        }
+    }
+
+    private void markDurable(long seq) {
+        synchronized (this) {
+            if (!entries.containsKey(seq)) return;
+            durable.put(seq, Boolean.TRUE);
+        }
+        Listener current = listener;
+        if (current != null) {
+            current.onEntriesAvailable();
+        }
+    }
+
+    private void compactIfWorthIt() {
+        if (entries.size() <= COMPACT_MAX_LIVE && journal.length() >= COMPACT_MIN_BYTES) {
+            journal.compact(new ArrayList<>(entries.values()));
+        }
+    }
+
+    private void publishDepth() {
+        NetworkMetrics.setGauge(METRIC_DEPTH, entries.size());
+    }
+}
@@ -0,0 +1,386 @@
+package com.calltrackerpro.calltracker.data;
+
+import android.util.Log;
+
+import com.calltrackerpro.calltracker.network.NetworkMetrics;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only, checksummed journal file behind {@link Outbox}.
+ *
+ * Each record is framed as [length][crc32][body]. Writers never touch the
+ * file: they queue records, and a single writer thread appends everything
+ * queued so far and fsyncs once (group commit), so a burst of calls costs a
+ * handful of fsyncs rather than one each. A record counts as written only
+ * after that fsync; its callback runs then, on the writer thread.
+ *
+ * On open, records are read back until the first torn or corrupt one (a
+ * crash mid-write) and the file is truncated there. A write that fails
+ * while the process lives can leave the same kind of torn record, and
+ * anything appended behind it would be dropped with it on the next open;
+ * so the file is cut back to the end of the last good write before the
+ * next append, and the failed records are written again then.
+ */
+final class OutboxJournal {
+    private static final String TAG = "OutboxJournal";
+
+    static final String METRIC_FSYNCS = "outbox.fsyncs";
+    static final String METRIC_RECORDS_PER_FSYNC = "outbox.records_per_fsync";
+
+    // Enqueue without an owner, as written before entries had one
+    static final byte RECORD_ENQUEUE = 'E';
+    static final byte RECORD_OWNED_ENQUEUE = 'O';
+    static final byte RECORD_ACK = 'A';
+    static final byte RECORD_FAILURE = 'F';
+
+    // Anything larger is a corrupt length field, not a real record
+    private static final int MAX_RECORD_BYTES = 4 * 1024 * 1024;
+
+    interface Replay {
+        void onEnqueue(Outbox.Entry entry);
+
+        void onAck(long seq);
+
+        void onFailure(long seq, int attempts, long firstFailedAt);
+    }
+
+    private final File file;
+    private final ConcurrentLinkedQueue<Pending> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean(false);
+    private final AtomicBoolean compactScheduled = new AtomicBoolean(false);
+    // Bumped by clear(), so a compaction scheduled before it does not write back what it dropped
+    private final AtomicInteger clears = new AtomicInteger();
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "CallTracker-Outbox");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Writer thread only
+    private FileOutputStream out;
+    // Length of the file up to the end of the last good write
+    private long committed;
+    // A write failed after committed; the file must be cut back before the next one
+    private boolean torn;
+    // Records of failed writes, in order, to go out ahead of the next group
+    private final List<byte[]> unwritten = new ArrayList<>();
+
+    OutboxJournal(File file) {
+        this.file = file;
+    }
+
+    /**
+     * Read every intact record, drop a torn tail, and open for appending.
+     * Runs on the caller's thread, before any write.
+     */
+    void open(Replay replay) throws IOException {
+        File dir = file.getParentFile();
+        if (dir != null && !dir.exists() && !dir.mkdirs()) {
+            throw new IOException("Cannot create " + dir);
+        }
+
+        long goodLength = 0;
+        if (file.exists()) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+                while (true) {
+                    byte[] body = readRecord(in);
+                    if (body == null) break;
+                    decode(body, replay);
+                    goodLength += 8 + body.length;
+                }
+            }
+            if (goodLength < file.length()) {
+                Log.w(TAG, "Dropping torn journal tail: " + (file.length() - goodLength) + " bytes");
+                try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+                    raf.setLength(goodLength);
+                    raf.getFD().sync();
+                }
+            }
+        }
+        committed = goodLength;
+        out = new FileOutputStream(file, true);
+    }
+
+    void appendEnqueue(Outbox.Entry entry, Runnable onDurable) {
+        submit(encodeEnqueue(entry), onDurable);
+    }
+
+    void appendAck(long seq) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(9);
+        try (DataOutputStream data = new DataOutputStream(bytes)) {
+            data.writeByte(RECORD_ACK);
+            data.writeLong(seq);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        submit(bytes.toByteArray(), null);
+    }
+
+    void appendFailure(long seq, int attempts, long firstFailedAt) {
+        submit(encodeFailure(seq, attempts, firstFailedAt), null);
+    }
+
+    /**
+     * Replace the file with just {@code live} entries, atomically. Runs on
+     * the writer thread after everything queued before it. {@code live}
+     * must include entries whose records are still queued; a record written
+     * again after the swap is harmless (replay is keyed by seq).
+     */
+    void compact(Collection<Outbox.Entry> live) {
+        if (!compactScheduled.compareAndSet(false, true)) return;
+        List<byte[]> bodies = new ArrayList<>(live.size());
+        for (Outbox.Entry entry : live) {
+            bodies.add(encodeEnqueue(entry));
+            if (entry.getAttempts() > 0) {
+                bodies.add(encodeFailure(entry.seq, entry.getAttempts(), entry.getFirstFailedAt()));
+            }
+        }
+        int clearsAtSchedule = clears.get();
+        writer.execute(() -> {
+            if (clears.get() != clearsAtSchedule) {
+                compactScheduled.set(false);
+                return;
+            }
+            File tmp = new File(file.getPath() + ".tmp");
+            try {
+                try (FileOutputStream tmpOut = new FileOutputStream(tmp)) {
+                    DataOutputStream data = new DataOutputStream(new BufferedOutputStream(tmpOut));
+                    for (byte[] body : bodies) {
+                        writeRecord(data, body);
+                    }
+                    data.flush();
+                    tmpOut.getFD().sync();
+                }
+                out.close();
+                if (!tmp.renameTo(file)) {
+                    throw new IOException("Rename failed");
+                }
+                // Records of earlier failed writes stay queued: some may be newer than live
+                committed = file.length();
+                torn = false;
+                Log.d(TAG, "🗜️ Journal compacted to " + bodies.size() + " entries");
+            } catch (IOException e) {
+                Log.e(TAG, "Journal compaction failed", e);
+            } finally {
+                try {
+                    out = new FileOutputStream(file, true);
+                } catch (IOException e) {
+                    Log.e(TAG, "Cannot reopen journal", e);
+                }
+                compactScheduled.set(false);
+            }
+        });
+    }
+
+    /**
+     * Empty the file, dropping every record queued before this call; records
+     * queued after it are still written
+     */
+    void clear() {
+        clears.incrementAndGet();
+        submit(null, null);
+    }
+
+    long length() {
+        return file.length();
+    }
+
+    /**
+     * Block until everything queued so far is on disk
+     */
+    void sync(long timeoutMs) throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        writer.execute(done::countDown);
+        done.await(timeoutMs, TimeUnit.MILLISECONDS);
+    }
+
+    private void submit(byte[] body, Runnable onDurable) {
+        queue.add(new Pending(body, onDurable));
+        // One flush task at a time; whatever queues up meanwhile rides the next fsync
+        if (flushScheduled.compareAndSet(false, true)) {
+            writer.execute(this::flush);
+        }
+    }
+
+    private void flush() {
+        flushScheduled.set(false);
+        List<Pending> group = new ArrayList<>();
+        Pending next;
+        while ((next = queue.poll()) != null) {
+            group.add(next);
+        }
+        if (group.isEmpty()) return;
+
+        // Everything before the last clear marker is dropped unwritten
+        List<byte[]> bodies = new ArrayList<>(group.size());
+        for (Pending pending : group) {
+            if (pending.body != null) {
+                bodies.add(pending.body);
+            } else {
+                bodies.clear();
+                unwritten.clear();
+                committed = 0;
+                torn = true;
+            }
+        }
+
+        try {
+            if (torn) {
+                out.getChannel().truncate(committed);
+                torn = false;
+            }
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream data = new DataOutputStream(bytes);
+            for (byte[] body : unwritten) {
+                writeRecord(data, body);
+            }
+            for (byte[] body : bodies) {
+                writeRecord(data, body);
+            }
+            out.write(bytes.toByteArray());
+            out.getFD().sync();
+            committed += bytes.size();
+            NetworkMetrics.increment(METRIC_FSYNCS);
+            NetworkMetrics.setGauge(METRIC_RECORDS_PER_FSYNC, unwritten.size() + bodies.size());
+            unwritten.clear();
+        } catch (IOException e) {
+            // Entries stay in memory and are still delivered; only crash safety is lost until a write succeeds
+            Log.e(TAG, "Journal write failed for " + bodies.size() + " records", e);
+            torn = true;
+            unwritten.addAll(bodies);
+        }
+
+        for (Pending pending : group) {
+            if (pending.onDurable != null) {
+                try {
+                    pending.onDurable.run();
+                } catch (RuntimeException e) {
+                    Log.e(TAG, "Journal callback failed", e);
+                }
+            }
+        }
+    }
+
+    private static byte[] encodeEnqueue(Outbox.Entry entry) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + entry.payload.length());
+        try (DataOutputStream data = new DataOutputStream(bytes)) {
+            data.writeByte(RECORD_OWNED_ENQUEUE);
+            data.writeLong(entry.seq);
+            data.writeLong(entry.createdAt);
+            data.writeUTF(entry.type);
+            data.writeUTF(entry.key);
+            byte[] payload = entry.payload.getBytes(StandardCharsets.UTF_8);
+            data.writeInt(payload.length);
+            data.write(payload);
+            writeNullableUTF(data, entry.userId);
+            writeNullableUTF(data, entry.organizationId);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static byte[] encodeFailure(long seq, int attempts, long firstFailedAt) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(21);
+        try (DataOutputStream data = new DataOutputStream(bytes)) {
+            data.writeByte(RECORD_FAILURE);
+            data.writeLong(seq);
+            data.writeInt(attempts);
+            data.writeLong(firstFailedAt);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void decode(byte[] body, Replay replay) throws IOException {
+        DataInputStream data = new DataInputStream(new ByteArrayInputStream(body));
+        byte kind = data.readByte();
+        if (kind == RECORD_ENQUEUE || kind == RECORD_OWNED_ENQUEUE) {
+            long seq = data.readLong();
+            long createdAt = data.readLong();
+            String type = data.readUTF();
+            String key = data.readUTF();
+            byte[] payload = new byte[data.readInt()];
+            data.readFully(payload);
+            String userId = kind == RECORD_OWNED_ENQUEUE ? readNullableUTF(data) : null;
+            String organizationId = kind == RECORD_OWNED_ENQUEUE ? readNullableUTF(data) : null;
+            replay.onEnqueue(new Outbox.Entry(seq, type, key, new String(payload, StandardCharsets.UTF_8), createdAt,
+                    userId, organizationId));
+        } else if (kind == RECORD_ACK) {
+            replay.onAck(data.readLong());
+        } else if (kind == RECORD_FAILURE) {
+            replay.onFailure(data.readLong(), data.readInt(), data.readLong());
+        }
+    }
+
+    private static void writeNullableUTF(DataOutputStream data, String value) throws IOException {
+        data.writeBoolean(value != null);
+        if (value != null) data.writeUTF(value);
+    }
+
+    private static String readNullableUTF(DataInputStream data) throws IOException {
+        return data.readBoolean() ? data.readUTF() : null;
+    }
+
+    private static void writeRecord(DataOutputStream data, byte[] body) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(body);
+        data.writeInt(body.length);
+        data.writeInt((int) crc.getValue());
+        data.write(body);
+    }
+
+    /**
+     * Next intact record body, or null at the end of the file or at a torn/corrupt record
+     */
+    private static byte[] readRecord(DataInputStream data) throws IOException {
+        try {
+            int length = data.readInt();
+            int expected = data.readInt();
+            if (length <= 0 || length > MAX_RECORD_BYTES) return null;
+            byte[] body = new byte[length];
+            data.readFully(body);
+            CRC32 crc = new CRC32();
+            crc.update(body);
+            return (int) crc.getValue() == expected ? body : null;
+        } catch (EOFException e) {
+            return null;
+        }
+    }
+
+    private static final class Pending {
+        // Null for a clear marker
+        final byte[] body;
+        final Runnable onDurable;
+
+        Pending(byte[] body, Runnable onDurable) {
+            this.body = body;
+            this.onDurable = onDurable;
+        }
+    }
+}
@@ -0,0 +1,393 @@
+package com.calltrackerpro.calltracker.data;
+
+import com.calltrackerpro.calltracker.models.Ticket;
+import com.calltrackerpro.calltracker.models.TicketNote;
+import com.calltrackerpro.calltracker.network.NetworkMetrics;
+import com.calltrackerpro.calltracker.utils.PhoneNumbers;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory trigram index for substring and prefix search over records of
+ * one or more kinds: the stored tickets in the shared instance, and the
+ * users, organizations or tickets of a list in an adapter's own.
+ *
+ * Each record's searchable fields are lowercased once, when it is put, and
+ * every three-character window is posted to a list of record ordinals. A
+ * query of three or more characters only looks at the records in the
+ * shortest posting list among its trigrams, and confirms each with one
+ * substring check. One- and two-character queries match word prefixes
+ * only, from postings of each word's first one and two characters; as
+ * substrings they would match nearly everything. Phone-like fields are
+ * also indexed as bare digits and in canonical form, and phone-like queries
+ * are searched as digits, so "5551234" and "+1 555-1234" both find
+ * "(555) 123-4567".
+ *
+ * Updates replace a record in place from the caller's point of view: the
+ * old ordinal is tombstoned and skipped, and postings are rebuilt once
+ * tombstones outnumber live records. Reads share a lock, so searches from
+ * the main thread never wait on each other.
+ */
+public final class SearchIndex {
+
+    public static final String KIND_TICKET = "ticket";
+
+    public static final String METRIC_QUERY_US = "search.query_us";
+    public static final String METRIC_RECORDS = "search.records";
+
+    // Joins fields so that no match or trigram spans two of them
+    private static final char FIELD_SEPARATOR = '\u0001';
+    private static final int MIN_TOMBSTONES_FOR_REBUILD = 1024;
+
+    // Posting keys: trigrams use the low 48 bits, word prefixes are tagged above them
+    private static final long ONE_CHAR_PREFIX = 1L << 48;
+    private static final long TWO_CHAR_PREFIX = 2L << 48;
+
+    private static final SearchIndex instance = new SearchIndex();
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Integer> ordinals = new HashMap<>();
+    private final Map<Long, IntList> postings = new HashMap<>();
+    private String[] kinds = new String[256];
+    private String[] ids = new String[256];
+    private String[] texts = new String[256]; // null once tombstoned
+    private int count = 0;
+    private int tombstones = 0;
+
+    /**
+     * Shared index behind the local stores; adapters over small, short-lived
+     * lists keep their own instance
+     */
+    public static SearchIndex getInstance() {
+        return instance;
+    }
+
+    public SearchIndex() {}
+
+    public void putTicket(Ticket ticket) {
+        if (ticket == null || ticket.getId() == null) return;
+        put(KIND_TICKET, ticket.getId(), ticket.getContactName(), ticket.getPhoneNumber(),
+                PhoneNumbers.canonical(ticket.getPhoneNumber()), ticket.getCompany(), ticket.getTicketId(),
+                ticket.getEmail(), notesText(ticket));
+    }
+
+    /**
+     * Add or replace a record. Null fields are skipped.
+     */
+    public void put(String kind, String id, String... fields) {
+        String text = normalizeFields(fields);
+        lock.writeLock().lock();
+        try {
+            String key = kind + FIELD_SEPARATOR + id;
+            Integer previous = ordinals.get(key);
+            if (previous != null) {
+                if (text.equals(texts[previous])) return;
+                tombstone(previous);
+            }
+            int ordinal = append(kind, id, text);
+            ordinals.put(key, ordinal);
+            post(ordinal, text);
+            maybeRebuild();
+            publishSize();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String kind, String id) {
+        lock.writeLock().lock();
+        try {
+            Integer ordinal = ordinals.remove(kind + FIELD_SEPARATOR + id);
+            if (ordinal != null) {
+                tombstone(ordinal);
+                maybeRebuild();
+                publishSize();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Drop every record of {@code kind}, or everything if {@code kind} is null
+     */
+    public void clear(String kind) {
+        lock.writeLock().lock();
+        try {
+            if (kind == null) {
+                ordinals.clear();
+                postings.clear();
+                Arrays.fill(kinds, 0, count, null);
+                Arrays.fill(ids, 0, count, null);
+                Arrays.fill(texts, 0, count, null);
+                count = 0;
+                tombstones = 0;
+            } else {
+                for (int i = 0; i < count; i++) {
+                    if (texts[i] != null && kind.equals(kinds[i])) {
+                        ordinals.remove(kinds[i] + FIELD_SEPARATOR + ids[i]);
+                        tombstone(i);
+                    }
+                }
+                maybeRebuild();
+            }
+            publishSize();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Ids of {@code kind} records with a field containing {@code query},
+     * case-insensitively (a word starting with it, for queries under three
+     * characters). Matches at the start of a word come first; within each
+     * group the most recently put come first.
+     */
+    public List<String> search(String kind, String query, int limit) {
+        long start = System.nanoTime();
+        String needle = normalize(query);
+        String digits = digitsOnly(needle);
+        if (digits.length() >= 3) {
+            // "+1 (555) 12" finds the record's digits however either side was punctuated
+            needle = digits;
+        }
+        List<String> result = new ArrayList<>();
+        if (needle.isEmpty() || limit <= 0) return result;
+
+        List<String> substringMatches = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            IntList candidates = needle.length() >= 3
+                    ? shortestPosting(needle)
+                    : postings.get(prefixKey(needle, 0, needle.length()));
+            if (candidates == null) {
+                return result;
+            }
+
+            for (int i = candidates.size - 1; i >= 0 && result.size() < limit; i--) {
+                int ordinal = candidates.values[i];
+                String text = texts[ordinal];
+                if (text == null || !kind.equals(kinds[ordinal])) continue;
+                int at = text.indexOf(needle);
+                if (at < 0) continue;
+
+                if (startsWord(text, needle, at)) {
+                    result.add(ids[ordinal]);
+                } else if (substringMatches.size() < limit) {
+                    substringMatches.add(ids[ordinal]);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        for (int i = 0; i < substringMatches.size() && result.size() < limit; i++) {
+            result.add(substringMatches.get(i));
+        }
+        NetworkMetrics.recordSample(METRIC_QUERY_US, (System.nanoTime() - start) / 1000);
+        return result;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return ordinals.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void publishSize() {
+        if (this == instance) {
+            NetworkMetrics.setGauge(METRIC_RECORDS, ordinals.size());
+        }
+    }
+
+    private IntList shortestPosting(String needle) {
+        IntList shortest = null;
+        for (int i = 0; i + 3 <= needle.length(); i++) {
+            IntList list = postings.get(trigram(needle, i));
+            if (list == null) return null;
+            if (shortest == null || list.size < shortest.size) {
+                shortest = list;
+            }
+        }
+        return shortest;
+    }
+
+    private int append(String kind, String id, String text) {
+        if (count == texts.length) {
+            int capacity = count * 2;
+            kinds = Arrays.copyOf(kinds, capacity);
+            ids = Arrays.copyOf(ids, capacity);
+            texts = Arrays.copyOf(texts, capacity);
+        }
+        kinds[count] = kind;
+        ids[count] = id;
+        texts[count] = text;
+        return count++;
+    }
+
+    private void post(int ordinal, String text) {
+        int length = text.length();
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (c == FIELD_SEPARATOR) continue;
+
+            if (Character.isLetterOrDigit(c) && (i == 0 || !Character.isLetterOrDigit(text.charAt(i - 1)))) {
+                addPosting(prefixKey(text, i, 1), ordinal);
+                if (i + 1 < length && text.charAt(i + 1) != FIELD_SEPARATOR) {
+                    addPosting(prefixKey(text, i, 2), ordinal);
+                }
+            }
+            if (i + 3 <= length && text.charAt(i + 1) != FIELD_SEPARATOR
+                    && text.charAt(i + 2) != FIELD_SEPARATOR) {
+                addPosting(trigram(text, i), ordinal);
+            }
+        }
+    }
+
+    private void addPosting(long key, int ordinal) {
+        IntList list = postings.get(key);
+        if (list == null) {
+            list = new IntList();
+            postings.put(key, list);
+        }
+        // Ordinals only grow, so each list stays sorted; skip repeats within one record
+        if (list.size == 0 || list.values[list.size - 1] != ordinal) {
+            list.add(ordinal);
+        }
+    }
+
+    private void tombstone(int ordinal) {
+        texts[ordinal] = null;
+        tombstones++;
+    }
+
+    /**
+     * Renumber live records and rebuild postings once most entries are dead
+     */
+    private void maybeRebuild() {
+        if (tombstones < MIN_TOMBSTONES_FOR_REBUILD || tombstones < count - tombstones) return;
+
+        int live = 0;
+        for (int i = 0; i < count; i++) {
+            if (texts[i] == null) continue;
+            kinds[live] = kinds[i];
+            ids[live] = ids[i];
+            texts[live] = texts[i];
+            live++;
+        }
+        Arrays.fill(kinds, live, count, null);
+        Arrays.fill(ids, live, count, null);
+        Arrays.fill(texts, live, count, null);
+        count = live;
+        tombstones = 0;
+
+        ordinals.clear();
+        postings.clear();
+        for (int i = 0; i < count; i++) {
+            ordinals.put(kinds[i] + FIELD_SEPARATOR + ids[i], i);
+            post(i, texts[i]);
+        }
+    }
+
+    private static String normalizeFields(String... fields) {
+        StringBuilder text = new StringBuilder();
+        for (String field : fields) {
+            if (field == null) continue;
+            String value = normalize(field);
+            if (value.isEmpty()) continue;
+            appendField(text, value);
+
+            String digits = digitsOnly(value);
+            if (digits.length() >= 3 && digits.length() != value.length()) {
+                appendField(text, digits);
+            }
+        }
+        return text.toString();
+    }
+
+    private static void appendField(StringBuilder text, String value) {
+        if (text.length() > 0) text.append(FIELD_SEPARATOR);
+        text.append(value);
+    }
+
+    private static String normalize(String value) {
+        if (value == null) return "";
+        return value.trim().toLowerCase(Locale.ROOT).replace(FIELD_SEPARATOR, ' ');
+    }
+
+    /**
+     * Digits of a phone-like value; empty if it has letters (names, emails)
+     */
+    private static String digitsOnly(String value) {
+        StringBuilder digits = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits.append(c);
+            } else if (Character.isLetter(c)) {
+                return "";
+            }
+        }
+        return digits.toString();
+    }
+
+    static String notesText(Ticket ticket) {
+        StringBuilder notes = new StringBuilder();
+        appendNotes(notes, ticket.getAgentNotes());
+        appendNotes(notes, ticket.getClientNotes());
+        return notes.length() > 0 ? notes.toString() : null;
+    }
+
+    private static void appendNotes(StringBuilder notes, List<TicketNote> list) {
+        if (list == null) return;
+        for (TicketNote note : list) {
+            if (note != null && note.getNote() != null) {
+                if (notes.length() > 0) notes.append(' ');
+                notes.append(note.getNote());
+            }
+        }
+    }
+
+    private static boolean startsWord(String text, String needle, int firstAt) {
+        for (int at = firstAt; at >= 0; at = text.indexOf(needle, at + 1)) {
+            if (at == 0 || !Character.isLetterOrDigit(text.charAt(at - 1))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static long prefixKey(String text, int i, int length) {
+        return length == 1
+                ? ONE_CHAR_PREFIX | text.charAt(i)
+                : TWO_CHAR_PREFIX | ((long) text.charAt(i) << 16) | text.charAt(i + 1);
+    }
+
+    private static long trigram(String text, int i) {
+        return ((long) text.charAt(i) << 32) | ((long) text.charAt(i + 1) << 16) | text.charAt(i + 2);
+    }
+
+    /**
+     * Growable int array; avoids boxing in posting lists
+     */
+    private static final class IntList {
+        int[] values = new int[4];
+        int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+    }
+}
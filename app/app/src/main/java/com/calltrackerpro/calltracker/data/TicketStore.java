@@ -0,0 +1,534 @@
+package com.calltrackerpro.calltracker.data;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.calltrackerpro.calltracker.json.GsonProvider;
+import com.calltrackerpro.calltracker.models.Ticket;
+import com.calltrackerpro.calltracker.network.NetworkMetrics;
+import com.calltrackerpro.calltracker.utils.PhoneNumbers;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.TimeZone;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Local copy of the tickets the user can see, so list screens render from
+ * disk first and reconcile with the server in the background.
+ *
+ * Each row keeps the full ticket as JSON plus the columns that list filters
+ * use, with an index per filter column. The filter indexes end in
+ * updated_at, so the list's newest-first order comes from the index rather
+ * than a sort. Text search goes through the shared {@link SearchIndex},
+ * which the store loads on startup and keeps in step with every write. All
+ * reads and writes run in order on one background thread; results are
+ * delivered on the main thread.
+ */
+public final class TicketStore extends SQLiteOpenHelper {
+    private static final String TAG = "TicketStore";
+
+    public static final String METRIC_QUERY_MS = "tickets.store.query_ms";
+    public static final String METRIC_ROWS = "tickets.store.rows";
+
+    private static final String DB_NAME = "tickets.db";
+    private static final int DB_VERSION = 3;
+
+    private static final String TABLE = "tickets";
+
+    // Search results handed to SQL as "id IN (...)"; stays under SQLite's bind limit
+    private static final int MAX_SEARCH_IDS = 900;
+
+    // Date, time, optional fraction, then Z, ±hh:mm, ±hhmm or ±hh
+    private static final Pattern ISO_TIME = Pattern.compile(
+            "(\\d{4}-\\d{2}-\\d{2})[T ](\\d{2}:\\d{2}:\\d{2})(?:\\.(\\d+))?(Z|[+-](\\d{2})(?::?(\\d{2}))?)?");
+
+    public interface QueryCallback {
+        void onTickets(List<Ticket> tickets);
+    }
+
+    public interface CountCallback {
+        void onCount(int count);
+    }
+
+    public interface TicketCallback {
+        void onTicket(Ticket ticket);
+    }
+
+    /**
+     * Which tickets to return. The scope fields mirror the server's role
+     * filtering; the rest mirror the list's tabs, chips and search box.
+     * "all" or null means no restriction.
+     */
+    public static final class Filter {
+        String organizationId;
+        String teamId;
+        String assignedTo;
+        String status;
+        String priority;
+        String tab;
+        String search;
+        String currentUserId;
+
+        public Filter scope(String organizationId, String teamId, String assignedTo) {
+            this.organizationId = organizationId;
+            this.teamId = teamId;
+            this.assignedTo = assignedTo;
+            return this;
+        }
+
+        public Filter status(String status) {
+            this.status = status;
+            return this;
+        }
+
+        public Filter priority(String priority) {
+            this.priority = priority;
+            return this;
+        }
+
+        public Filter tab(String tab, String currentUserId) {
+            this.tab = tab;
+            this.currentUserId = currentUserId;
+            return this;
+        }
+
+        public Filter search(String search) {
+            this.search = search;
+            return this;
+        }
+
+        public String getOrganizationId() { return organizationId; }
+        public String getTeamId() { return teamId; }
+        public String getAssignedTo() { return assignedTo; }
+    }
+
+    private static volatile TicketStore instance;
+
+    private final Gson gson = GsonProvider.getGson();
+    private final SearchIndex searchIndex = SearchIndex.getInstance();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "CallTracker-TicketStore");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public static TicketStore getInstance(Context context) {
+        if (instance == null) {
+            synchronized (TicketStore.class) {
+                if (instance == null) {
+                    instance = new TicketStore(context.getApplicationContext());
+                }
+            }
+        }
+        return instance;
+    }
+
+    private TicketStore(Context context) {
+        super(context, DB_NAME, null, DB_VERSION);
+        // Runs before any query, since they share the executor
+        executor.execute(this::loadSearchIndex);
+    }
+
+    @Override
+    public void onConfigure(SQLiteDatabase db) {
+        db.enableWriteAheadLogging();
+    }
+
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + TABLE + " ("
+                + "id TEXT PRIMARY KEY, "
+                + "ticket_id TEXT, "
+                + "organization_id TEXT, "
+                + "team_id TEXT, "
+                + "assigned_to TEXT, "
+                + "status TEXT, "
+                + "priority TEXT, "
+                + "due_at INTEGER, "
+                + "updated_at INTEGER NOT NULL DEFAULT 0, "
+                + "contact_name TEXT, "
+                + "phone_number TEXT, "
+                + "phone_key TEXT, "
+                + "company TEXT, "
+                + "email TEXT, "
+                + "notes TEXT, "
+                + "synced_at INTEGER NOT NULL DEFAULT 0, "
+                + "json TEXT NOT NULL)");
+        db.execSQL("CREATE INDEX idx_tickets_status ON " + TABLE + " (status, updated_at)");
+        db.execSQL("CREATE INDEX idx_tickets_priority ON " + TABLE + " (priority, updated_at)");
+        db.execSQL("CREATE INDEX idx_tickets_assigned_to ON " + TABLE + " (assigned_to, updated_at)");
+        db.execSQL("CREATE INDEX idx_tickets_team_id ON " + TABLE + " (team_id, updated_at)");
+        db.execSQL("CREATE INDEX idx_tickets_due_at ON " + TABLE + " (due_at)");
+        db.execSQL("CREATE INDEX idx_tickets_updated_at ON " + TABLE + " (updated_at)");
+        db.execSQL("CREATE INDEX idx_tickets_phone_key ON " + TABLE + " (phone_key, status)");
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        // Only a cache of server data: rebuild rather than migrate
+        db.execSQL("DROP TABLE IF EXISTS " + TABLE);
+        onCreate(db);
+    }
+
+    /**
+     * Newest first, at most {@code limit} rows; the callback runs on the main thread
+     */
+    public void query(Filter filter, int limit, QueryCallback callback) {
+        executor.execute(() -> {
+            List<Ticket> tickets = queryNow(filter, limit);
+            mainHandler.post(() -> callback.onTickets(tickets));
+        });
+    }
+
+    /**
+     * How many open tickets there are for {@code phoneNumber}, in any format,
+     * within {@code organizationId} if given; the callback runs on the main thread
+     */
+    public void countOpen(String organizationId, String phoneNumber, CountCallback callback) {
+        String key = PhoneNumbers.canonical(phoneNumber);
+        executor.execute(() -> {
+            int count = 0;
+            if (key != null) {
+                List<String> args = new ArrayList<>();
+                args.add(key);
+                String where = "phone_key = ? AND status IN ('open', 'new', 'in_progress', 'contacted')";
+                if (organizationId != null) {
+                    where += " AND organization_id = ?";
+                    args.add(organizationId);
+                }
+                try (Cursor cursor = getReadableDatabase().rawQuery(
+                        "SELECT COUNT(*) FROM " + TABLE + " WHERE " + where, args.toArray(new String[0]))) {
+                    if (cursor.moveToFirst()) count = cursor.getInt(0);
+                }
+            }
+            int open = count;
+            mainHandler.post(() -> callback.onCount(open));
+        });
+    }
+
+    /**
+     * The stored ticket with server id {@code id}, or null if there is none;
+     * the callback runs on the main thread
+     */
+    public void get(String id, TicketCallback callback) {
+        executor.execute(() -> {
+            Ticket ticket = null;
+            if (id != null) {
+                try (Cursor cursor = getReadableDatabase().query(TABLE, new String[]{"json"}, "id = ?",
+                        new String[]{id}, null, null, null)) {
+                    if (cursor.moveToFirst()) ticket = gson.fromJson(cursor.getString(0), Ticket.class);
+                } catch (JsonParseException e) {
+                    Log.w(TAG, "Unreadable ticket row " + id + ": " + e.getMessage());
+                }
+            }
+            Ticket stored = ticket;
+            mainHandler.post(() -> callback.onTicket(stored));
+        });
+    }
+
+    /**
+     * Insert or replace one ticket, e.g. after an edit or a real-time event
+     */
+    public void put(Ticket ticket) {
+        if (ticket == null || ticket.getId() == null) return;
+        List<Ticket> one = new ArrayList<>(1);
+        one.add(ticket);
+        putAll(one);
+    }
+
+    public void putAll(Collection<Ticket> tickets) {
+        List<Ticket> copy = new ArrayList<>(tickets);
+        executor.execute(() -> write(copy, 0));
+    }
+
+    /**
+     * Store a server listing for {@code scope}. If {@code complete} (the
+     * server returned everything in scope), rows in scope that the listing no
+     * longer contains are deleted.
+     */
+    public void reconcile(Filter scope, Collection<Ticket> serverTickets, boolean complete) {
+        List<Ticket> copy = new ArrayList<>(serverTickets);
+        executor.execute(() -> {
+            long stamp = System.currentTimeMillis();
+            SQLiteDatabase db = getWritableDatabase();
+            db.beginTransaction();
+            try {
+                write(copy, stamp);
+                if (complete) {
+                    List<String> args = new ArrayList<>();
+                    String where = scopeClause(scope, args);
+                    args.add(String.valueOf(stamp));
+                    String stale = (where.isEmpty() ? "" : where + " AND ") + "synced_at < ?";
+                    String[] staleArgs = args.toArray(new String[0]);
+
+                    try (Cursor cursor = db.query(TABLE, new String[]{"id"}, stale, staleArgs, null, null, null)) {
+                        while (cursor.moveToNext()) {
+                            searchIndex.remove(SearchIndex.KIND_TICKET, cursor.getString(0));
+                        }
+                    }
+                    int removed = db.delete(TABLE, stale, staleArgs);
+                    if (removed > 0) {
+                        Log.d(TAG, "🧹 Removed " + removed + " tickets no longer on the server");
+                    }
+                }
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+            publishRowCount(db);
+        });
+    }
+
+    /**
+     * Drop everything, e.g. on logout
+     */
+    public void clear() {
+        executor.execute(() -> {
+            getWritableDatabase().delete(TABLE, null, null);
+            searchIndex.clear(SearchIndex.KIND_TICKET);
+            publishRowCount(getReadableDatabase());
+        });
+    }
+
+    private void write(List<Ticket> tickets, long syncedAt) {
+        SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        try {
+            for (Ticket ticket : tickets) {
+                if (ticket.getId() == null) continue;
+                db.insertWithOnConflict(TABLE, null, toRow(ticket, syncedAt), SQLiteDatabase.CONFLICT_REPLACE);
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        for (Ticket ticket : tickets) {
+            searchIndex.putTicket(ticket);
+        }
+    }
+
+    /**
+     * Index the stored tickets' search columns; no JSON is parsed
+     */
+    private void loadSearchIndex() {
+        long start = System.nanoTime();
+        int loaded = 0;
+        try (Cursor cursor = getReadableDatabase().query(TABLE,
+                new String[]{"id", "contact_name", "phone_number", "company", "ticket_id", "email", "notes"},
+                null, null, null, null, "updated_at")) {
+            while (cursor.moveToNext()) {
+                searchIndex.put(SearchIndex.KIND_TICKET, cursor.getString(0), cursor.getString(1),
+                        cursor.getString(2), cursor.getString(3), cursor.getString(4),
+                        cursor.getString(5), cursor.getString(6));
+                loaded++;
+            }
+        } catch (RuntimeException e) {
+            Log.e(TAG, "Failed to load the ticket search index", e);
+        }
+        Log.d(TAG, "🔤 Indexed " + loaded + " stored tickets in " + (System.nanoTime() - start) / 1_000_000 + "ms");
+    }
+
+    private List<Ticket> queryNow(Filter filter, int limit) {
+        long start = System.nanoTime();
+        List<String> args = new ArrayList<>();
+        StringBuilder where = new StringBuilder(scopeClause(filter, args));
+
+        if (isSet(filter.status)) {
+            and(where, "status = ?");
+            args.add(filter.status);
+        }
+        if (isSet(filter.priority)) {
+            and(where, "priority = ?");
+            args.add(filter.priority);
+        }
+        if (isSet(filter.tab)) {
+            switch (filter.tab) {
+                case "my_tickets":
+                    and(where, "assigned_to = ?");
+                    args.add(filter.currentUserId != null ? filter.currentUserId : "");
+                    break;
+                case "open":
+                    and(where, "status IN ('open', 'new')");
+                    break;
+                case "in_progress":
+                    and(where, "status IN ('in_progress', 'contacted')");
+                    break;
+                case "high_priority":
+                    and(where, "priority IN ('high', 'urgent')");
+                    break;
+                case "overdue":
+                    // A resolved or closed ticket is done, however late
+                    and(where, "due_at < ? AND (status IS NULL OR status NOT IN ('resolved', 'closed'))");
+                    args.add(String.valueOf(System.currentTimeMillis()));
+                    break;
+            }
+        }
+        if (filter.search != null && !filter.search.trim().isEmpty()) {
+            // Filter first and intersect after: capping the matches before the scope
+            // and status filters ran could leave none of them in scope
+            Set<String> matches = new HashSet<>(
+                    searchIndex.search(SearchIndex.KIND_TICKET, filter.search, Integer.MAX_VALUE));
+            List<String> ids = matches.isEmpty()
+                    ? new ArrayList<>()
+                    : filteredIds(where.toString(), args, matches, Math.min(limit, MAX_SEARCH_IDS));
+            if (ids.isEmpty()) {
+                return new ArrayList<>();
+            }
+            StringBuilder in = new StringBuilder("id IN (");
+            for (int i = 0; i < ids.size(); i++) {
+                in.append(i == 0 ? "?" : ", ?");
+            }
+            where = new StringBuilder(in.append(')'));
+            args = ids;
+        }
+
+        List<Ticket> tickets = new ArrayList<>();
+        try (Cursor cursor = getReadableDatabase().query(TABLE, new String[]{"json"},
+                where.length() > 0 ? where.toString() : null, args.toArray(new String[0]),
+                null, null, "updated_at DESC", String.valueOf(limit))) {
+            while (cursor.moveToNext()) {
+                try {
+                    Ticket ticket = gson.fromJson(cursor.getString(0), Ticket.class);
+                    if (ticket != null) tickets.add(ticket);
+                } catch (JsonParseException e) {
+                    Log.w(TAG, "Skipping unreadable ticket row: " + e.getMessage());
+                }
+            }
+        }
+
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+        NetworkMetrics.recordSample(METRIC_QUERY_MS, elapsedMs);
+        Log.d(TAG, "🔎 Local query returned " + tickets.size() + " tickets in " + elapsedMs + "ms");
+        return tickets;
+    }
+
+    /**
+     * Newest first, up to {@code max} ids of rows passing {@code where} that are in {@code matches}
+     */
+    private List<String> filteredIds(String where, List<String> args, Set<String> matches, int max) {
+        List<String> ids = new ArrayList<>();
+        try (Cursor cursor = getReadableDatabase().query(TABLE, new String[]{"id"},
+                where.isEmpty() ? null : where, args.toArray(new String[0]),
+                null, null, "updated_at DESC")) {
+            while (ids.size() < max && cursor.moveToNext()) {
+                String id = cursor.getString(0);
+                if (matches.contains(id)) ids.add(id);
+            }
+        }
+        return ids;
+    }
+
+    private static String scopeClause(Filter filter, List<String> args) {
+        StringBuilder where = new StringBuilder();
+        if (filter.organizationId != null) {
+            and(where, "organization_id = ?");
+            args.add(filter.organizationId);
+        }
+        if (filter.teamId != null) {
+            and(where, "team_id = ?");
+            args.add(filter.teamId);
+        }
+        if (filter.assignedTo != null) {
+            and(where, "assigned_to = ?");
+            args.add(filter.assignedTo);
+        }
+        return where.toString();
+    }
+
+    private ContentValues toRow(Ticket ticket, long syncedAt) {
+        ContentValues row = new ContentValues();
+        row.put("id", ticket.getId());
+        row.put("ticket_id", ticket.getTicketId());
+        row.put("organization_id", ticket.getOrganizationId());
+        row.put("team_id", ticket.getTeamId());
+        row.put("assigned_to", ticket.getAssignedTo());
+        // Same fallback the list uses when a lead has no ticket status yet
+        row.put("status", ticket.getStatus() != null ? ticket.getStatus() : ticket.getLeadStatus());
+        row.put("priority", ticket.getPriority());
+        row.put("due_at", parseTime(ticket.getDueDate()));
+        Long updatedAt = parseTime(ticket.getUpdatedAt() != null ? ticket.getUpdatedAt() : ticket.getCreatedAt());
+        row.put("updated_at", updatedAt != null ? updatedAt : 0L);
+        row.put("contact_name", ticket.getContactName());
+        row.put("phone_number", ticket.getPhoneNumber());
+        row.put("phone_key", PhoneNumbers.canonical(ticket.getPhoneNumber()));
+        row.put("company", ticket.getCompany());
+        row.put("email", ticket.getEmail());
+        row.put("notes", SearchIndex.notesText(ticket));
+        row.put("synced_at", syncedAt);
+        row.put("json", gson.toJson(ticket));
+        return row;
+    }
+
+    /**
+     * Epoch millis of an ISO-8601 backend timestamp, or null. Takes any
+     * number of fraction digits (Supabase sends microseconds) and a Z or
+     * {@code ±hh:mm} offset; a time without either is UTC.
+     */
+    static Long parseTime(String iso) {
+        if (iso == null || iso.isEmpty()) return null;
+        Matcher match = ISO_TIME.matcher(iso);
+        if (!match.matches()) return null;
+
+        SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss", Locale.US);
+        format.setTimeZone(TimeZone.getTimeZone("UTC"));
+        format.setLenient(false);
+        long millis;
+        try {
+            Date date = format.parse(match.group(1) + " " + match.group(2));
+            if (date == null) return null;
+            millis = date.getTime();
+        } catch (ParseException e) {
+            return null;
+        }
+
+        String fraction = match.group(3);
+        if (fraction != null) {
+            // Millisecond precision: pad or cut to three digits
+            millis += Integer.parseInt((fraction + "00").substring(0, 3));
+        }
+        String offset = match.group(4);
+        if (offset != null && !"Z".equals(offset)) {
+            int minutes = Integer.parseInt(match.group(5)) * 60
+                    + (match.group(6) != null ? Integer.parseInt(match.group(6)) : 0);
+            millis -= (offset.charAt(0) == '-' ? -minutes : minutes) * 60_000L;
+        }
+        return millis;
+    }
+
+    private static void publishRowCount(SQLiteDatabase db) {
+        try (Cursor cursor = db.rawQuery("SELECT COUNT(*) FROM " + TABLE, null)) {
+            if (cursor.moveToFirst()) {
+                NetworkMetrics.setGauge(METRIC_ROWS, cursor.getLong(0));
+            }
+        }
+    }
+
+    private static void and(StringBuilder where, String clause) {
+        if (where.length() > 0) where.append(" AND ");
+        where.append(clause);
+    }
+
+    private static boolean isSet(String value) {
+        return value != null && !"all".equals(value);
+    }
+}
@@ -1,12 +1,9 @@
 package com.calltrackerpro.calltracker.fragments;
 
 import android.Manifest;
-import android.content.ContentResolver;
 import android.content.Intent;
 import android.content.pm.PackageManager;
-import android.database.Cursor;
 import android.os.Bundle;
-import android.provider.ContactsContract;
 import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
@@ -24,6 +21,7 @@ import androidx.swiperefreshlayout.widget.SwipeRefreshLayout;
 import com.calltrackerpro.calltracker.R;
 import com.calltrackerpro.calltracker.activities.TicketDetailsActivity;
 import com.calltrackerpro.calltracker.adapters.CallLogsAdapter;
+import com.calltrackerpro.calltracker.data.DeviceCallLogStore;
 import com.calltrackerpro.calltracker.models.ApiResponse;
 import com.calltrackerpro.calltracker.models.CallLog;
 import com.calltrackerpro.calltracker.models.Ticket;
@@ -45,8 +43,10 @@ import retrofit2.Call;
 import retrofit2.Callback;
 import retrofit2.Response;
 
-public class CallLogsFragment extends Fragment implements CallLogsAdapter.OnCallLogClickListener {
+public class CallLogsFragment extends Fragment implements CallLogsAdapter.OnCallLogClickListener,
+        DeviceCallLogStore.Listener {
     private static final String TAG = "CallLogsFragment";
+    private static final int PAGE_SIZE = 50;
 
     // UI Components
     private RecyclerView recyclerView;
@@ -64,6 +64,8 @@ public class CallLogsFragment extends Fragment implements CallLogsAdapter.OnCall
 
     private List<CallLog> callLogsList = new ArrayList<>();
     private boolean isLoading = false;
+    private boolean showingDeviceCalls = false;
+    private boolean hasMoreDeviceCalls = false;
 
     @Override
     public void onCreate(@Nullable Bundle savedInstanceState) {
@@ -107,13 +109,25 @@ public class CallLogsFragment extends Fragment implements CallLogsAdapter.OnCall
 
     private void setupRecyclerView() {
         adapter = new CallLogsAdapter(callLogsList, this);
-        recyclerView.setLayoutManager(new LinearLayoutManager(getContext()));
+        LinearLayoutManager layoutManager = new LinearLayoutManager(getContext());
+        recyclerView.setLayoutManager(layoutManager);
         recyclerView.setAdapter(adapter);
+        recyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView view, int dx, int dy) {
+                if (dy > 0 && showingDeviceCalls
+                        && layoutManager.findLastVisibleItemPosition() >= callLogsList.size() - 10) {
+                    loadMoreDeviceCallLogs();
+                }
+            }
+        });
     }
 
     private void setupSwipeRefresh() {
         swipeRefreshLayout.setOnRefreshListener(() -> {
-            callLogsList.clear();
+            if (hasCallLogPermission()) {
+                DeviceCallLogStore.getInstance(getContext()).refresh();
+            }
             loadCallLogs();
         });
     }
@@ -149,6 +163,7 @@ public class CallLogsFragment extends Fragment implements CallLogsAdapter.OnCall
             loadDeviceCallLogs();
         } else {
             Log.w(TAG, "READ_CALL_LOG permission NOT granted - falling back to API");
+            showingDeviceCalls = false;
             if (getContext() != null) {
                 Toast.makeText(getContext(),
                     "Call log permission not granted. Showing server data. Please grant permission in Settings.",
@@ -165,131 +180,85 @@ public class CallLogsFragment extends Fragment implements CallLogsAdapter.OnCall
     }
 
     /**
-     * Read actual call logs from the phone's call history via ContentResolver.
+     * Show the newest page of the phone's call history from the local copy;
+     * {@link DeviceCallLogStore} keeps that copy current in the background.
      */
     private void loadDeviceCallLogs() {
-        try {
-            if (getContext() == null) return;
-            ContentResolver resolver = getContext().getContentResolver();
-
-            String[] projection = {
-                android.provider.CallLog.Calls._ID,
-                android.provider.CallLog.Calls.NUMBER,
-                android.provider.CallLog.Calls.CACHED_NAME,
-                android.provider.CallLog.Calls.TYPE,
-                android.provider.CallLog.Calls.DATE,
-                android.provider.CallLog.Calls.DURATION
-            };
-
-            // Sort by date descending (no LIMIT in sortOrder for broader compatibility)
-            String sortOrder = android.provider.CallLog.Calls.DATE + " DESC";
-
-            Cursor cursor = resolver.query(
-                android.provider.CallLog.Calls.CONTENT_URI,
-                projection,
-                null,
-                null,
-                sortOrder
-            );
-
-            callLogsList.clear();
-
-            if (cursor != null) {
-                int idIdx = cursor.getColumnIndex(android.provider.CallLog.Calls._ID);
-                int numberIdx = cursor.getColumnIndex(android.provider.CallLog.Calls.NUMBER);
-                int nameIdx = cursor.getColumnIndex(android.provider.CallLog.Calls.CACHED_NAME);
-                int typeIdx = cursor.getColumnIndex(android.provider.CallLog.Calls.TYPE);
-                int dateIdx = cursor.getColumnIndex(android.provider.CallLog.Calls.DATE);
-                int durationIdx = cursor.getColumnIndex(android.provider.CallLog.Calls.DURATION);
-
-                int count = 0;
-                while (cursor.moveToNext() && count < 100) {
-                    count++;
-                    CallLog callLog = new CallLog();
-
-                    callLog.setId(idIdx >= 0 ? cursor.getString(idIdx) : String.valueOf(count));
-                    callLog.setPhoneNumber(numberIdx >= 0 ? cursor.getString(numberIdx) : "");
-
-                    String cachedName = nameIdx >= 0 ? cursor.getString(nameIdx) : null;
-                    callLog.setContactName(cachedName != null ? cachedName : "Unknown");
-
-                    int callTypeInt = typeIdx >= 0 ? cursor.getInt(typeIdx) : 0;
-                    callLog.setCallType(mapCallType(callTypeInt));
-
-                    long dateMillis = dateIdx >= 0 ? cursor.getLong(dateIdx) : 0;
-                    callLog.setDate(new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'", Locale.getDefault()).format(new Date(dateMillis)));
-                    callLog.setTimestamp(dateMillis);
-
-                    long durationSec = durationIdx >= 0 ? cursor.getLong(durationIdx) : 0;
-                    callLog.setDuration(durationSec);
-
-                    // Determine status from type and duration
-                    callLog.setCallStatus(mapCallStatus(callTypeInt, durationSec));
-
-                    callLogsList.add(callLog);
-                }
-                cursor.close();
+        if (getContext() == null) return;
+        DeviceCallLogStore store = DeviceCallLogStore.getInstance(getContext());
+        showingDeviceCalls = true;
+        hasMoreDeviceCalls = true;
+
+        store.loadPage(null, Math.max(PAGE_SIZE, callLogsList.size()), calls -> {
+            // Fell back to the API meanwhile
+            if (!showingDeviceCalls) return;
+            if (calls == null) {
+                fallBackToApi("Could not read the device call log. Showing server data.");
+                return;
             }
-
             isLoading = false;
             if (swipeRefreshLayout != null) {
                 swipeRefreshLayout.setRefreshing(false);
             }
-
+            callLogsList.clear();
+            callLogsList.addAll(calls);
+            hasMoreDeviceCalls = calls.size() >= PAGE_SIZE;
             if (adapter != null) {
                 adapter.notifyDataSetChanged();
             }
             updateEmptyView();
+            Log.d(TAG, "Loaded " + calls.size() + " call logs from device store");
+        });
+        // Picks up anything new since the last pass; the listener reloads when it lands
+        store.start();
+    }
 
-            Log.d(TAG, "Loaded " + callLogsList.size() + " call logs from device");
+    private void loadMoreDeviceCallLogs() {
+        if (isLoading || !hasMoreDeviceCalls || callLogsList.isEmpty() || getContext() == null) return;
+        isLoading = true;
 
-        } catch (SecurityException se) {
-            Log.e(TAG, "SecurityException reading call logs - permission revoked?", se);
-            if (getContext() != null) {
-                Toast.makeText(getContext(), "Call log permission denied by system", Toast.LENGTH_LONG).show();
-            }
+        CallLog last = callLogsList.get(callLogsList.size() - 1);
+        DeviceCallLogStore.getInstance(getContext()).loadPage(last, PAGE_SIZE, calls -> {
+            if (!showingDeviceCalls) return;
             isLoading = false;
-            if (swipeRefreshLayout != null) swipeRefreshLayout.setRefreshing(false);
-            loadApiCallLogs();
-        } catch (Exception e) {
-            Log.e(TAG, "Error reading device call logs: " + e.getMessage(), e);
-            if (getContext() != null) {
-                Toast.makeText(getContext(), "Error reading call logs: " + e.getMessage(), Toast.LENGTH_LONG).show();
+            if (calls == null) {
+                hasMoreDeviceCalls = false;
+                return;
             }
-            isLoading = false;
-            if (swipeRefreshLayout != null) swipeRefreshLayout.setRefreshing(false);
-            loadApiCallLogs();
+            hasMoreDeviceCalls = calls.size() >= PAGE_SIZE;
+            if (calls.isEmpty()) return;
+            int start = callLogsList.size();
+            callLogsList.addAll(calls);
+            if (adapter != null) {
+                adapter.notifyItemRangeInserted(start, calls.size());
+            }
+        });
+    }
+
+    @Override
+    public void onCallsIngested(List<CallLog> added) {
+        if (showingDeviceCalls && !isLoading && isAdded()) {
+            isLoading = true;
+            loadDeviceCallLogs();
         }
     }
 
-    private String mapCallType(int type) {
-        switch (type) {
-            case android.provider.CallLog.Calls.INCOMING_TYPE:
-                return "incoming";
-            case android.provider.CallLog.Calls.OUTGOING_TYPE:
-                return "outgoing";
-            case android.provider.CallLog.Calls.MISSED_TYPE:
-                return "missed";
-            case android.provider.CallLog.Calls.REJECTED_TYPE:
-                return "rejected";
-            case android.provider.CallLog.Calls.BLOCKED_TYPE:
-                return "blocked";
-            default:
-                return "unknown";
+    @Override
+    public void onIngestFailed(RuntimeException error) {
+        if (showingDeviceCalls && isAdded()) {
+            fallBackToApi(error instanceof SecurityException
+                    ? "Call log permission denied by system"
+                    : "Could not read the device call log. Showing server data.");
         }
     }
 
-    private String mapCallStatus(int type, long durationSec) {
-        switch (type) {
-            case android.provider.CallLog.Calls.MISSED_TYPE:
-                return "missed";
-            case android.provider.CallLog.Calls.REJECTED_TYPE:
-                return "declined";
-            case android.provider.CallLog.Calls.BLOCKED_TYPE:
-                return "blocked";
-            default:
-                return durationSec > 0 ? "completed" : "missed";
+    private void fallBackToApi(String message) {
+        showingDeviceCalls = false;
+        isLoading = true;
+        if (getContext() != null) {
+            Toast.makeText(getContext(), message, Toast.LENGTH_SHORT).show();
         }
+        loadApiCallLogs();
     }
 
     /**
@@ -599,14 +568,23 @@ public class CallLogsFragment extends Fragment implements CallLogsAdapter.OnCall
     @Override
     public void onResume() {
         super.onResume();
+        if (getContext() != null) {
+            DeviceCallLogStore.getInstance(getContext()).addListener(this);
+        }
         if (adapter != null) {
-            callLogsList.clear();
             loadCallLogs();
         }
     }
 
+    @Override
+    public void onPause() {
+        super.onPause();
+        if (getContext() != null) {
+            DeviceCallLogStore.getInstance(getContext()).removeListener(this);
+        }
+    }
+
     public void refreshCallLogs() {
-        callLogsList.clear();
         loadCallLogs();
     }
 }
@@ -23,21 +23,24 @@ import com.calltrackerpro.calltracker.R;
 import com.calltrackerpro.calltracker.activities.TicketDetailsActivity;
 import com.calltrackerpro.calltracker.activities.UnifiedDashboardActivity;
 import com.calltrackerpro.calltracker.adapters.EnhancedTicketAdapter;
+import com.calltrackerpro.calltracker.data.TicketStore;
+import com.calltrackerpro.calltracker.json.GsonProvider;
 import com.calltrackerpro.calltracker.models.ApiResponse;
 import com.calltrackerpro.calltracker.models.Ticket;
 import com.calltrackerpro.calltracker.models.TicketNote;
 import com.calltrackerpro.calltracker.models.User;
+import com.calltrackerpro.calltracker.network.StreamingListLoader;
 import com.calltrackerpro.calltracker.services.ApiService;
 import com.calltrackerpro.calltracker.utils.PermissionManager;
 import com.calltrackerpro.calltracker.utils.TokenManager;
 import com.calltrackerpro.calltracker.utils.WebSocketManager;
 import com.google.android.material.button.MaterialButton;
-import com.google.android.material.snackbar.Snackbar;
 import com.google.android.material.chip.ChipGroup;
 import com.google.android.material.floatingactionbutton.FloatingActionButton;
 import com.google.android.material.tabs.TabLayout;
 import com.google.android.material.textfield.TextInputEditText;
 import com.google.android.material.textfield.TextInputLayout;
+import okhttp3.ResponseBody;
 import retrofit2.Call;
 import retrofit2.Callback;
 import retrofit2.Response;
@@ -52,6 +55,10 @@ import android.widget.LinearLayout;
 public class EnhancedTicketsFragment extends Fragment implements UnifiedDashboardActivity.RefreshableFragment {
     
     private static final String TAG = "EnhancedTickets";
+
+    // Rows rendered from the local store, and the server page that refreshes it
+    private static final int LOCAL_QUERY_LIMIT = 500;
+    private static final int SYNC_PAGE_SIZE = 500;
     
     // UI Components
     private TextView tvTicketStats;
@@ -79,6 +86,9 @@ public class EnhancedTicketsFragment extends Fragment implements UnifiedDashboar
     private PermissionManager permissionManager;
     private User currentUser;
     private WebSocketManager webSocketManager;
+    private TicketStore ticketStore;
+    private Call<ResponseBody> ticketsCall;
+    private boolean showingDemoData = false;
     
     // Filter State
     private String currentStatusFilter = "all";
@@ -133,6 +143,7 @@ public class EnhancedTicketsFragment extends Fragment implements UnifiedDashboar
         tokenManager = new TokenManager(requireContext());
         currentUser = tokenManager.getUser();
         webSocketManager = WebSocketManager.getInstance(requireContext());
+        ticketStore = TicketStore.getInstance(requireContext());
         
         if (currentUser != null) {
             permissionManager = new PermissionManager(currentUser);
@@ -286,67 +297,139 @@ public class EnhancedTicketsFragment extends Fragment implements UnifiedDashboar
             return;
         }
         
-        showLoading(true);
-        
-        String authToken = "Bearer " + tokenManager.getToken();
-        String organizationId = currentUser.getOrganizationId();
+        if (ticketAdapter.getItemCount() == 0) {
+            showLoading(true);
+        }
         
-        // Apply role-based filtering
+        // Render whatever is stored right away, then refresh the store from the server
+        queryLocalTickets();
+        syncTickets();
+    }
+    
+    /**
+     * Tickets this user may see: agents their own, managers their team's,
+     * admins the whole organization. Same scope the server applies.
+     */
+    private TicketStore.Filter buildScope() {
         String teamId = null;
         String assignedTo = null;
         
         if (currentUser.isAgent()) {
-            assignedTo = currentUser.getId(); // Agents see only their tickets
+            assignedTo = currentUser.getId();
         } else if (currentUser.isManager() && currentUser.getTeamIds() != null && !currentUser.getTeamIds().isEmpty()) {
-            teamId = currentUser.getTeamIds().get(0); // Managers see team tickets
+            teamId = currentUser.getTeamIds().get(0);
         }
-        // Org admins and super admins see all tickets
+        return new TicketStore.Filter().scope(currentUser.getOrganizationId(), teamId, assignedTo);
+    }
+    
+    /**
+     * Fill the list from the local store using the current tab, chips and search
+     */
+    private void queryLocalTickets() {
+        if (currentUser == null || ticketStore == null) return;
         
-        Call<ApiResponse<List<Ticket>>> call = apiService.getTickets(
-            authToken, organizationId, teamId, assignedTo, 
-            currentStatusFilter.equals("all") ? null : currentStatusFilter,
+        TicketStore.Filter filter = buildScope()
+            .status(currentStatusFilter)
+            .priority(currentPriorityFilter)
+            .tab(currentTabFilter, currentUser.getId())
+            .search(currentSearchQuery);
+        
+        ticketStore.query(filter, LOCAL_QUERY_LIMIT, tickets -> {
+            if (!isAdded() || getView() == null || showingDemoData) return;
+            ticketAdapter.setTickets(tickets);
+            updateTicketStats(tickets);
+            if (!tickets.isEmpty()) {
+                showLoading(false);
+            }
+            // An empty store while the first sync is running is not "no tickets" yet
+            if (layoutLoading.getVisibility() != View.VISIBLE) {
+                updateEmptyState();
+            }
+        });
+    }
+    
+    /**
+     * Stream the user's tickets into the local store, re-rendering as chunks
+     * land. Filters are applied locally, so the whole scope is fetched.
+     */
+    private void syncTickets() {
+        String authToken = "Bearer " + tokenManager.getToken();
+        TicketStore.Filter scope = buildScope();
+        List<Ticket> received = new ArrayList<>();
+        
+        if (ticketsCall != null) {
+            ticketsCall.cancel();
+        }
+
+        ticketsCall = StreamingListLoader.load(apiService.streamTickets(
+            authToken, scope.getOrganizationId(), scope.getTeamId(), scope.getAssignedTo(),
+            null, // status
             null, // category
-            currentPriorityFilter.equals("all") ? null : currentPriorityFilter,
+            null, // priority
             null, // slaStatus
-            1, 100 // page, limit
-        );
-        
-        call.enqueue(new Callback<ApiResponse<List<Ticket>>>() {
+            1, SYNC_PAGE_SIZE // page, limit
+        ), Ticket.class, new StreamingListLoader.Listener<Ticket>() {
             @Override
-            public void onResponse(Call<ApiResponse<List<Ticket>>> call, Response<ApiResponse<List<Ticket>>> response) {
-                showLoading(false);
-                
-                if (response.isSuccessful() && response.body() != null) {
-                    ApiResponse<List<Ticket>> apiResponse = response.body();
-                    
-                    if (apiResponse.isSuccess() && apiResponse.getData() != null) {
-                        List<Ticket> tickets = apiResponse.getData();
-                        ticketAdapter.setTickets(tickets);
-                        updateTicketStats(tickets);
-                        updateEmptyState();
-                        Log.d(TAG, "Loaded " + tickets.size() + " tickets");
-                    } else {
-                        String errorMsg = apiResponse.getMessage() != null ? 
-                            apiResponse.getMessage() : "Failed to load tickets";
-                        showError(errorMsg);
-                    }
+            public void onChunk(List<Ticket> tickets, boolean first) {
+                received.addAll(tickets);
+                ticketStore.putAll(tickets);
+                if (!isAdded()) return;
+                showingDemoData = false;
+                queryLocalTickets();
+            }
+
+            @Override
+            public void onComplete(ApiResponse<Integer> summary) {
+                if (!isAdded()) return;
+
+                if (summary.isSuccess()) {
+                    // A short page is the whole scope, so anything missing was deleted upstream
+                    ticketStore.reconcile(scope, received, received.size() < SYNC_PAGE_SIZE);
+                    showingDemoData = false;
+                    showLoading(false);
+                    queryLocalTickets();
+                    Log.d(TAG, "Synced " + summary.getData() + " tickets");
                 } else {
-                    showError("Error: " + response.code() + " - " + response.message());
+                    showLoading(false);
+                    String errorMsg = summary.getMessage() != null ? 
+                        summary.getMessage() : "Failed to load tickets";
+                    showError(errorMsg);
                 }
             }
-            
+
             @Override
-            public void onFailure(Call<ApiResponse<List<Ticket>>> call, Throwable t) {
+            public void onError(String error) {
+                if (!isAdded()) return;
                 showLoading(false);
-                Log.e(TAG, "Network error loading tickets", t);
+                Log.e(TAG, "Error syncing tickets: " + error);
 
-                // Show demo data when network fails
-                loadDemoTickets();
-                showOfflineBanner();
+                // Keep showing stored tickets; with nothing stored, fall back to demo
+                // data. The dashboard's connectivity banner reports the outage.
+                if (ticketAdapter.getItemCount() == 0 && !hasActiveFilters()) {
+                    loadDemoTickets();
+                }
             }
         });
     }
     
+    private boolean hasActiveFilters() {
+        return !"all".equals(currentStatusFilter) || !"all".equals(currentPriorityFilter)
+            || !"all".equals(currentTabFilter) || !currentSearchQuery.trim().isEmpty();
+    }
+    
+    /**
+     * A ticket changed here or upstream: store it and re-run the current query,
+     * since the change may move it in or out of the filtered list
+     */
+    private void onTicketChanged(Ticket ticket) {
+        if (showingDemoData) {
+            ticketAdapter.updateTicket(ticket);
+            return;
+        }
+        ticketStore.put(ticket);
+        queryLocalTickets();
+    }
+    
     private void loadDemoTickets() {
         List<Ticket> demoTickets = new ArrayList<>();
         
@@ -432,6 +515,7 @@ public class EnhancedTicketsFragment extends Fragment implements UnifiedDashboar
         demoTickets.add(ticket4);
         demoTickets.add(ticket5);
         
+        showingDemoData = true;
         ticketAdapter.setTickets(demoTickets);
         updateTicketStats(demoTickets);
         updateEmptyState();
@@ -442,7 +526,12 @@ public class EnhancedTicketsFragment extends Fragment implements UnifiedDashboar
     }
     
     private void applyAllFilters() {
-        if (ticketAdapter != null && currentUser != null) {
+        if (ticketAdapter == null || currentUser == null) return;
+        
+        if (!showingDemoData) {
+            // Indexed local query; no network round trip
+            queryLocalTickets();
+        } else {
             ticketAdapter.applyFilters(
                     currentStatusFilter, 
                     currentPriorityFilter, 
@@ -594,7 +683,7 @@ public class EnhancedTicketsFragment extends Fragment implements UnifiedDashboar
                     ApiResponse<Ticket> apiResponse = response.body();
                     if (apiResponse.isSuccess() && apiResponse.getData() != null) {
                         Ticket updatedTicket = apiResponse.getData();
-                        ticketAdapter.updateTicket(updatedTicket);
+                        onTicketChanged(updatedTicket);
                         if (getContext() != null) Toast.makeText(getContext(), "Ticket assigned to you successfully", Toast.LENGTH_SHORT).show();
                     } else {
                         showError(apiResponse.getMessage() != null ? apiResponse.getMessage() : "Failed to assign ticket");
@@ -686,7 +775,7 @@ public class EnhancedTicketsFragment extends Fragment implements UnifiedDashboar
                     ApiResponse<Ticket> apiResponse = response.body();
                     if (apiResponse.isSuccess() && apiResponse.getData() != null) {
                         Ticket updatedTicket = apiResponse.getData();
-                        ticketAdapter.updateTicket(updatedTicket);
+                        onTicketChanged(updatedTicket);
                         
                         String message = userId != null ? "Ticket assigned successfully" : "Ticket unassigned successfully";
                         if (getContext() != null) Toast.makeText(getContext(), message, Toast.LENGTH_SHORT).show();
@@ -732,7 +821,7 @@ public class EnhancedTicketsFragment extends Fragment implements UnifiedDashboar
                     ApiResponse<Ticket> apiResponse = response.body();
                     if (apiResponse.isSuccess() && apiResponse.getData() != null) {
                         Ticket updatedTicket = apiResponse.getData();
-                        ticketAdapter.updateTicket(updatedTicket);
+                        onTicketChanged(updatedTicket);
                         if (getContext() != null) Toast.makeText(getContext(), "Status updated successfully", Toast.LENGTH_SHORT).show();
                     } else {
                         showError(apiResponse.getMessage() != null ? apiResponse.getMessage() : "Failed to update status");
@@ -829,7 +918,7 @@ public class EnhancedTicketsFragment extends Fragment implements UnifiedDashboar
                         ApiResponse<Ticket> apiResponse = response.body();
                         if (apiResponse.isSuccess() && apiResponse.getData() != null) {
                             Ticket updatedTicket = apiResponse.getData();
-                            ticketAdapter.updateTicket(updatedTicket);
+                            onTicketChanged(updatedTicket);
                             if (getContext() != null) Toast.makeText(getContext(), "Ticket escalated successfully", Toast.LENGTH_SHORT).show();
                         } else {
                             showError(apiResponse.getMessage() != null ? apiResponse.getMessage() : "Failed to escalate ticket");
@@ -883,14 +972,6 @@ public class EnhancedTicketsFragment extends Fragment implements UnifiedDashboar
         }
     }
     
-    private void showOfflineBanner() {
-        if (getView() != null) {
-            Snackbar.make(getView(), "Showing offline data. Check your connection.", Snackbar.LENGTH_LONG)
-                .setAction("Retry", v -> loadTickets())
-                .show();
-        }
-    }
-
     private void showError(String message) {
         if (getContext() != null) {
             Toast.makeText(getContext(), message, Toast.LENGTH_LONG).show();
@@ -952,12 +1033,10 @@ public class EnhancedTicketsFragment extends Fragment implements UnifiedDashboar
     
     private void handleTicketCreated(com.google.gson.JsonObject data) {
         try {
-            com.google.gson.Gson gson = new com.google.gson.Gson();
-            Ticket newTicket = gson.fromJson(data.get("ticket"), Ticket.class);
+            Ticket newTicket = GsonProvider.getGson().fromJson(data.get("ticket"), Ticket.class);
             
-            if (newTicket != null && ticketMatchesCurrentFilters(newTicket)) {
-                ticketAdapter.addTicket(newTicket);
-                updateEmptyState();
+            if (newTicket != null) {
+                onTicketChanged(newTicket);
                 Log.d(TAG, "New ticket added via WebSocket: " + newTicket.getTicketId());
             }
         } catch (Exception e) {
@@ -967,11 +1046,10 @@ public class EnhancedTicketsFragment extends Fragment implements UnifiedDashboar
     
     private void handleTicketUpdated(com.google.gson.JsonObject data) {
         try {
-            com.google.gson.Gson gson = new com.google.gson.Gson();
-            Ticket updatedTicket = gson.fromJson(data.get("ticket"), Ticket.class);
+            Ticket updatedTicket = GsonProvider.getGson().fromJson(data.get("ticket"), Ticket.class);
             
             if (updatedTicket != null) {
-                ticketAdapter.updateTicket(updatedTicket);
+                onTicketChanged(updatedTicket);
                 Log.d(TAG, "Ticket updated via WebSocket: " + updatedTicket.getTicketId());
             }
         } catch (Exception e) {
@@ -981,11 +1059,10 @@ public class EnhancedTicketsFragment extends Fragment implements UnifiedDashboar
     
     private void handleTicketAssigned(com.google.gson.JsonObject data) {
         try {
-            com.google.gson.Gson gson = new com.google.gson.Gson();
-            Ticket assignedTicket = gson.fromJson(data.get("ticket"), Ticket.class);
+            Ticket assignedTicket = GsonProvider.getGson().fromJson(data.get("ticket"), Ticket.class);
             
             if (assignedTicket != null) {
-                ticketAdapter.updateTicket(assignedTicket);
+                onTicketChanged(assignedTicket);
                 
                 // Show notification if assigned to current user
                 if (currentUser != null && currentUser.getId().equals(assignedTicket.getAssignedTo()) && getContext() != null) {
@@ -1001,69 +1078,12 @@ public class EnhancedTicketsFragment extends Fragment implements UnifiedDashboar
         }
     }
     
-    private boolean ticketMatchesCurrentFilters(Ticket ticket) {
-        // Check status filter
-        if (!currentStatusFilter.equals("all")) {
-            String ticketStatus = ticket.getStatus() != null ? ticket.getStatus() : ticket.getLeadStatus();
-            if (!currentStatusFilter.equals(ticketStatus)) {
-                return false;
-            }
-        }
-        
-        // Check priority filter
-        if (!currentPriorityFilter.equals("all")) {
-            if (!currentPriorityFilter.equals(ticket.getPriority())) {
-                return false;
-            }
-        }
-        
-        // Check tab filter
-        if (!currentTabFilter.equals("all")) {
-            switch (currentTabFilter) {
-                case "my_tickets":
-                    if (currentUser == null || !currentUser.getId().equals(ticket.getAssignedTo())) {
-                        return false;
-                    }
-                    break;
-                case "open":
-                    String status = ticket.getStatus() != null ? ticket.getStatus() : ticket.getLeadStatus();
-                    if (!"open".equals(status) && !"new".equals(status)) {
-                        return false;
-                    }
-                    break;
-                case "in_progress":
-                    String progressStatus = ticket.getStatus() != null ? ticket.getStatus() : ticket.getLeadStatus();
-                    if (!"in_progress".equals(progressStatus) && !"contacted".equals(progressStatus)) {
-                        return false;
-                    }
-                    break;
-                case "high_priority":
-                    if (!"high".equals(ticket.getPriority()) && !"urgent".equals(ticket.getPriority())) {
-                        return false;
-                    }
-                    break;
-                case "overdue":
-                    // TODO: Check if ticket is overdue based on due date
-                    break;
-            }
-        }
-        
-        // Check role-based visibility
-        if (currentUser != null) {
-            if (currentUser.isAgent()) {
-                return currentUser.getId().equals(ticket.getAssignedTo());
-            } else if (currentUser.isManager()) {
-                return currentUser.getTeamIds() != null && 
-                       currentUser.getTeamIds().contains(ticket.getTeamId());
-            }
-        }
-        
-        return true;
-    }
-    
     @Override
     public void onDestroyView() {
         super.onDestroyView();
+        if (ticketsCall != null) {
+            ticketsCall.cancel();
+        }
         if (webSocketManager != null) {
             webSocketManager.removeEventListener("tickets");
         }
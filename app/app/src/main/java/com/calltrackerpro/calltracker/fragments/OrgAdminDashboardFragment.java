@@ -18,6 +18,7 @@ import com.calltrackerpro.calltracker.models.User;
 import com.calltrackerpro.calltracker.models.Organization;
 import com.calltrackerpro.calltracker.models.ApiResponse;
 import com.calltrackerpro.calltracker.services.ApiService;
+import com.calltrackerpro.calltracker.services.TicketRuleEngine;
 import com.calltrackerpro.calltracker.utils.PermissionManager;
 import com.calltrackerpro.calltracker.activities.UnifiedDashboardActivity;
 import com.calltrackerpro.calltracker.utils.RetrofitClient;
@@ -195,6 +196,10 @@ public class OrgAdminDashboardFragment extends Fragment implements UnifiedDashbo
                         if (response.isSuccessful() && response.body() != null) {
                             ApiResponse<Organization> apiResponse = response.body();
                             if (apiResponse.isSuccess() && apiResponse.getData() != null) {
+                                if (apiResponse.getData().getSettings() != null) {
+                                    // Freshest copy of the auto-ticket rules; no need to wait for the next refresh
+                                    TicketRuleEngine.getInstance(requireContext()).apply(apiResponse.getData().getSettings());
+                                }
                                 updateOrganizationUI(apiResponse.getData());
                                 isDataLoaded = true;
                             }
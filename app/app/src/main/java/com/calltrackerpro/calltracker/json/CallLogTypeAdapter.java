@@ -0,0 +1,154 @@
+package com.calltrackerpro.calltracker.json;
+
+import com.calltrackerpro.calltracker.models.CallLog;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.TimeZone;
+
+import static com.calltrackerpro.calltracker.json.JsonFields.*;
+
+/**
+ * Hand-written adapter for {@link CallLog}. Accepts both the snake_case and
+ * camelCase field names the API has used, and decodes "timestamp" (a number,
+ * a numeric string or an ISO-8601 date) straight into a primitive long.
+ */
+final class CallLogTypeAdapter extends TypeAdapter<CallLog> {
+
+    private static final ThreadLocal<SimpleDateFormat> ISO_FORMAT = new ThreadLocal<SimpleDateFormat>() {
+        @Override
+        protected SimpleDateFormat initialValue() {
+            SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'", Locale.US);
+            format.setTimeZone(TimeZone.getTimeZone("UTC"));
+            return format;
+        }
+    };
+
+    @Override
+    public CallLog read(JsonReader in) throws IOException {
+        CallLog callLog = new CallLog();
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "id":
+                case "_id":
+                    callLog.setId(nextString(in));
+                    break;
+                case "phone_number":
+                case "phoneNumber":
+                    callLog.setPhoneNumber(nextString(in));
+                    break;
+                case "call_type":
+                case "callType":
+                    callLog.setCallType(nextString(in));
+                    break;
+                case "duration":
+                    callLog.setDuration(nextLong(in));
+                    break;
+                case "timestamp":
+                    callLog.setTimestamp(readTimestamp(in));
+                    break;
+                case "contact_name":
+                case "contactName":
+                    callLog.setContactName(nextString(in));
+                    break;
+                case "call_status":
+                case "callStatus":
+                case "status":
+                    callLog.setCallStatus(nextString(in));
+                    break;
+                case "date":
+                case "callDate":
+                    callLog.setDate(nextString(in));
+                    break;
+                case "time":
+                    callLog.setTime(nextString(in));
+                    break;
+                case "user_id":
+                case "userId":
+                    callLog.setUserId(nextString(in));
+                    break;
+                case "created_at":
+                case "createdAt":
+                    callLog.setCreatedAt(nextString(in));
+                    break;
+                case "updated_at":
+                case "updatedAt":
+                    callLog.setUpdatedAt(nextString(in));
+                    break;
+                default:
+                    in.skipValue();
+                    break;
+            }
+        }
+        in.endObject();
+        return callLog;
+    }
+
+    @Override
+    public void write(JsonWriter out, CallLog callLog) throws IOException {
+        out.beginObject();
+        out.name("id").value(callLog.getId());
+        out.name("phone_number").value(callLog.getPhoneNumber());
+        out.name("call_type").value(callLog.getCallType());
+        out.name("duration").value(callLog.getDuration());
+        out.name("timestamp").value(callLog.getTimestamp());
+        out.name("contact_name").value(callLog.getContactName());
+        out.name("call_status").value(callLog.getCallStatus());
+        out.name("date").value(callLog.getDate());
+        out.name("time").value(callLog.getTime());
+        out.name("user_id").value(callLog.getUserId());
+        out.name("created_at").value(callLog.getCreatedAt());
+        out.name("updated_at").value(callLog.getUpdatedAt());
+        out.endObject();
+    }
+
+    private static long readTimestamp(JsonReader in) throws IOException {
+        JsonToken token = in.peek();
+        if (token == JsonToken.NUMBER) {
+            return in.nextLong();
+        }
+        if (token != JsonToken.STRING) {
+            in.skipValue();
+            return 0L;
+        }
+        return parseTimestamp(in.nextString());
+    }
+
+    /**
+     * Epoch millis from a numeric string or an ISO-8601 UTC date; 0 if neither
+     */
+    static long parseTimestamp(String value) {
+        if (value == null || value.isEmpty()) return 0L;
+        if (isDigits(value)) {
+            try {
+                return Long.parseLong(value);
+            } catch (NumberFormatException e) {
+                return 0L;
+            }
+        }
+        try {
+            Date date = ISO_FORMAT.get().parse(value);
+            return date != null ? date.getTime() : 0L;
+        } catch (ParseException e) {
+            return 0L;
+        }
+    }
+
+    private static boolean isDigits(String value) {
+        int start = value.charAt(0) == '-' ? 1 : 0;
+        if (start == value.length()) return false;
+        for (int i = start; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,213 @@
+package com.calltrackerpro.calltracker.json;
+
+import com.calltrackerpro.calltracker.models.Contact;
+import com.calltrackerpro.calltracker.models.User;
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.calltrackerpro.calltracker.json.JsonFields.*;
+
+/**
+ * Hand-written adapter for {@link Contact}, its address, custom fields and
+ * interaction history
+ */
+final class ContactTypeAdapter extends TypeAdapter<Contact> {
+
+    private final TypeAdapter<User> userAdapter;
+
+    ContactTypeAdapter(Gson gson) {
+        this.userAdapter = gson.getAdapter(User.class);
+    }
+
+    @Override
+    public Contact read(JsonReader in) throws IOException {
+        Contact contact = new Contact();
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "_id": contact.setId(nextString(in)); break;
+                case "first_name": contact.setFirstName(nextString(in)); break;
+                case "last_name": contact.setLastName(nextString(in)); break;
+                case "email": contact.setEmail(nextString(in)); break;
+                case "phone": contact.setPhone(nextString(in)); break;
+                case "organization_id": contact.setOrganizationId(nextString(in)); break;
+                case "team_id": contact.setTeamId(nextString(in)); break;
+                case "assigned_agent_id": contact.setAssignedAgentId(nextString(in)); break;
+                case "assigned_agent": contact.setAssignedAgent(userAdapter.read(in)); break;
+                case "status": contact.setStatus(nextString(in)); break;
+                case "source": contact.setSource(nextString(in)); break;
+                case "company": contact.setCompany(nextString(in)); break;
+                case "job_title": contact.setJobTitle(nextString(in)); break;
+                case "address": contact.setAddress(readAddress(in)); break;
+                case "tags": contact.setTags(nextStringList(in)); break;
+                case "custom_fields": contact.setCustomFields(readCustomFields(in)); break;
+                case "interactions": contact.setInteractions(readInteractions(in)); break;
+                case "created_at": contact.setCreatedAt(nextString(in)); break;
+                case "updated_at": contact.setUpdatedAt(nextString(in)); break;
+                case "last_contact_date": contact.setLastContactDate(nextString(in)); break;
+                default: in.skipValue(); break;
+            }
+        }
+        in.endObject();
+        return contact;
+    }
+
+    @Override
+    public void write(JsonWriter out, Contact contact) throws IOException {
+        out.beginObject();
+        out.name("_id").value(contact.getId());
+        out.name("first_name").value(contact.getFirstName());
+        out.name("last_name").value(contact.getLastName());
+        out.name("email").value(contact.getEmail());
+        out.name("phone").value(contact.getPhone());
+        out.name("organization_id").value(contact.getOrganizationId());
+        out.name("team_id").value(contact.getTeamId());
+        out.name("assigned_agent_id").value(contact.getAssignedAgentId());
+        out.name("assigned_agent");
+        userAdapter.write(out, contact.getAssignedAgent());
+        out.name("status").value(contact.getStatus());
+        out.name("source").value(contact.getSource());
+        out.name("company").value(contact.getCompany());
+        out.name("job_title").value(contact.getJobTitle());
+        out.name("address");
+        writeAddress(out, contact.getAddress());
+        writeStringList(out, "tags", contact.getTags());
+        out.name("custom_fields");
+        writeCustomFields(out, contact.getCustomFields());
+        out.name("interactions");
+        writeInteractions(out, contact.getInteractions());
+        out.name("created_at").value(contact.getCreatedAt());
+        out.name("updated_at").value(contact.getUpdatedAt());
+        out.name("last_contact_date").value(contact.getLastContactDate());
+        out.endObject();
+    }
+
+    private static Contact.Address readAddress(JsonReader in) throws IOException {
+        if (!beginObjectOrSkip(in)) return null;
+        Contact.Address address = new Contact.Address();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "street": address.setStreet(nextString(in)); break;
+                case "city": address.setCity(nextString(in)); break;
+                case "state": address.setState(nextString(in)); break;
+                case "zip_code": address.setZipCode(nextString(in)); break;
+                case "country": address.setCountry(nextString(in)); break;
+                default: in.skipValue(); break;
+            }
+        }
+        in.endObject();
+        return address;
+    }
+
+    private static void writeAddress(JsonWriter out, Contact.Address address) throws IOException {
+        if (address == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
+        out.name("street").value(address.getStreet());
+        out.name("city").value(address.getCity());
+        out.name("state").value(address.getState());
+        out.name("zip_code").value(address.getZipCode());
+        out.name("country").value(address.getCountry());
+        out.endObject();
+    }
+
+    private static Contact.CustomFields readCustomFields(JsonReader in) throws IOException {
+        if (!beginObjectOrSkip(in)) return null;
+        Contact.CustomFields fields = new Contact.CustomFields();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "priority": fields.setPriority(nextString(in)); break;
+                case "budget": fields.setBudget(nextString(in)); break;
+                case "timeline": fields.setTimeline(nextString(in)); break;
+                case "notes": fields.setNotes(nextString(in)); break;
+                default: in.skipValue(); break;
+            }
+        }
+        in.endObject();
+        return fields;
+    }
+
+    private static void writeCustomFields(JsonWriter out, Contact.CustomFields fields) throws IOException {
+        if (fields == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
+        out.name("priority").value(fields.getPriority());
+        out.name("budget").value(fields.getBudget());
+        out.name("timeline").value(fields.getTimeline());
+        out.name("notes").value(fields.getNotes());
+        out.endObject();
+    }
+
+    private List<Contact.Interaction> readInteractions(JsonReader in) throws IOException {
+        if (in.peek() != JsonToken.BEGIN_ARRAY) {
+            in.skipValue();
+            return null;
+        }
+        List<Contact.Interaction> interactions = new ArrayList<>();
+        in.beginArray();
+        while (in.hasNext()) {
+            interactions.add(readInteraction(in));
+        }
+        in.endArray();
+        return interactions;
+    }
+
+    private Contact.Interaction readInteraction(JsonReader in) throws IOException {
+        if (!beginObjectOrSkip(in)) return null;
+        Contact.Interaction interaction = new Contact.Interaction();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "_id": interaction.setId(nextString(in)); break;
+                case "type": interaction.setType(nextString(in)); break;
+                case "direction": interaction.setDirection(nextString(in)); break;
+                case "duration": interaction.setDuration(nextInt(in)); break;
+                case "notes": interaction.setNotes(nextString(in)); break;
+                case "outcome": interaction.setOutcome(nextString(in)); break;
+                case "agent_id": interaction.setAgentId(nextString(in)); break;
+                case "agent": interaction.setAgent(userAdapter.read(in)); break;
+                case "created_at": interaction.setCreatedAt(nextString(in)); break;
+                default: in.skipValue(); break;
+            }
+        }
+        in.endObject();
+        return interaction;
+    }
+
+    private void writeInteractions(JsonWriter out, List<Contact.Interaction> interactions) throws IOException {
+        if (interactions == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginArray();
+        for (Contact.Interaction interaction : interactions) {
+            if (interaction == null) {
+                out.nullValue();
+                continue;
+            }
+            out.beginObject();
+            out.name("_id").value(interaction.getId());
+            out.name("type").value(interaction.getType());
+            out.name("direction").value(interaction.getDirection());
+            out.name("duration").value(interaction.getDuration());
+            out.name("notes").value(interaction.getNotes());
+            out.name("outcome").value(interaction.getOutcome());
+            out.name("agent_id").value(interaction.getAgentId());
+            out.name("agent");
+            userAdapter.write(out, interaction.getAgent());
+            out.name("created_at").value(interaction.getCreatedAt());
+            out.endObject();
+        }
+        out.endArray();
+    }
+}
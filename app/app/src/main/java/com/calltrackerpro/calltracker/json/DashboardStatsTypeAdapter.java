@@ -0,0 +1,200 @@
+package com.calltrackerpro.calltracker.json;
+
+import com.calltrackerpro.calltracker.models.DashboardStats;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.calltrackerpro.calltracker.json.JsonFields.*;
+
+/**
+ * Hand-written adapter for {@link DashboardStats} and its sections
+ */
+final class DashboardStatsTypeAdapter extends TypeAdapter<DashboardStats> {
+
+    @Override
+    public DashboardStats read(JsonReader in) throws IOException {
+        DashboardStats stats = new DashboardStats();
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "user_stats": stats.setUserStats(readUserStats(in)); break;
+                case "organization_stats": stats.setOrganizationStats(readOrganizationStats(in)); break;
+                case "recent_activity": stats.setRecentActivity(readActivity(in)); break;
+                case "performance_metrics": stats.setPerformanceMetrics(readPerformance(in)); break;
+                default: in.skipValue(); break;
+            }
+        }
+        in.endObject();
+        return stats;
+    }
+
+    @Override
+    public void write(JsonWriter out, DashboardStats stats) throws IOException {
+        out.beginObject();
+
+        out.name("user_stats");
+        DashboardStats.UserStats user = stats.getUserStats();
+        if (user == null) {
+            out.nullValue();
+        } else {
+            out.beginObject();
+            out.name("total_calls").value(user.getTotalCalls());
+            out.name("calls_today").value(user.getCallsToday());
+            out.name("tickets_assigned").value(user.getTicketsAssigned());
+            out.name("tickets_resolved").value(user.getTicketsResolved());
+            out.name("success_rate").value(user.getSuccessRate());
+            out.name("active_hours").value(user.getActiveHours());
+            out.endObject();
+        }
+
+        out.name("organization_stats");
+        DashboardStats.OrganizationStats org = stats.getOrganizationStats();
+        if (org == null) {
+            out.nullValue();
+        } else {
+            out.beginObject();
+            out.name("total_users").value(org.getTotalUsers());
+            out.name("active_users").value(org.getActiveUsers());
+            out.name("total_tickets").value(org.getTotalTickets());
+            out.name("open_tickets").value(org.getOpenTickets());
+            out.name("resolved_tickets").value(org.getResolvedTickets());
+            out.name("subscription_status").value(org.getSubscriptionStatus());
+            out.name("organization_name").value(org.getOrganizationName());
+            out.endObject();
+        }
+
+        out.name("recent_activity");
+        List<DashboardStats.ActivityItem> activity = stats.getRecentActivity();
+        if (activity == null) {
+            out.nullValue();
+        } else {
+            out.beginArray();
+            for (DashboardStats.ActivityItem item : activity) {
+                if (item == null) {
+                    out.nullValue();
+                    continue;
+                }
+                out.beginObject();
+                out.name("id").value(item.getId());
+                out.name("type").value(item.getType());
+                out.name("title").value(item.getTitle());
+                out.name("description").value(item.getDescription());
+                out.name("timestamp").value(item.getTimestamp());
+                out.name("user_name").value(item.getUserName());
+                out.name("priority").value(item.getPriority());
+                out.name("status").value(item.getStatus());
+                out.endObject();
+            }
+            out.endArray();
+        }
+
+        out.name("performance_metrics");
+        DashboardStats.PerformanceMetrics performance = stats.getPerformanceMetrics();
+        if (performance == null) {
+            out.nullValue();
+        } else {
+            out.beginObject();
+            out.name("conversion_rate").value(performance.getConversionRate());
+            out.name("average_call_duration").value(performance.getAverageCallDuration());
+            out.name("response_time").value(performance.getResponseTime());
+            out.name("customer_satisfaction").value(performance.getCustomerSatisfaction());
+            out.name("sla_compliance").value(performance.getSlaCompliance());
+            out.endObject();
+        }
+
+        out.endObject();
+    }
+
+    private static DashboardStats.UserStats readUserStats(JsonReader in) throws IOException {
+        if (!beginObjectOrSkip(in)) return null;
+        DashboardStats.UserStats user = new DashboardStats.UserStats();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "total_calls": user.setTotalCalls(nextInt(in)); break;
+                case "calls_today": user.setCallsToday(nextInt(in)); break;
+                case "tickets_assigned": user.setTicketsAssigned(nextInt(in)); break;
+                case "tickets_resolved": user.setTicketsResolved(nextInt(in)); break;
+                case "success_rate": user.setSuccessRate(nextDouble(in)); break;
+                case "active_hours": user.setActiveHours(nextString(in)); break;
+                default: in.skipValue(); break;
+            }
+        }
+        in.endObject();
+        return user;
+    }
+
+    private static DashboardStats.OrganizationStats readOrganizationStats(JsonReader in) throws IOException {
+        if (!beginObjectOrSkip(in)) return null;
+        DashboardStats.OrganizationStats org = new DashboardStats.OrganizationStats();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "total_users": org.setTotalUsers(nextInt(in)); break;
+                case "active_users": org.setActiveUsers(nextInt(in)); break;
+                case "total_tickets": org.setTotalTickets(nextInt(in)); break;
+                case "open_tickets": org.setOpenTickets(nextInt(in)); break;
+                case "resolved_tickets": org.setResolvedTickets(nextInt(in)); break;
+                case "subscription_status": org.setSubscriptionStatus(nextString(in)); break;
+                case "organization_name": org.setOrganizationName(nextString(in)); break;
+                default: in.skipValue(); break;
+            }
+        }
+        in.endObject();
+        return org;
+    }
+
+    private static List<DashboardStats.ActivityItem> readActivity(JsonReader in) throws IOException {
+        if (in.peek() != JsonToken.BEGIN_ARRAY) {
+            in.skipValue();
+            return null;
+        }
+        List<DashboardStats.ActivityItem> items = new ArrayList<>();
+        in.beginArray();
+        while (in.hasNext()) {
+            if (!beginObjectOrSkip(in)) {
+                items.add(null);
+                continue;
+            }
+            DashboardStats.ActivityItem item = new DashboardStats.ActivityItem();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "id": item.setId(nextString(in)); break;
+                    case "type": item.setType(nextString(in)); break;
+                    case "title": item.setTitle(nextString(in)); break;
+                    case "description": item.setDescription(nextString(in)); break;
+                    case "timestamp": item.setTimestamp(nextString(in)); break;
+                    case "user_name": item.setUserName(nextString(in)); break;
+                    case "priority": item.setPriority(nextString(in)); break;
+                    case "status": item.setStatus(nextString(in)); break;
+                    default: in.skipValue(); break;
+                }
+            }
+            in.endObject();
+            items.add(item);
+        }
+        in.endArray();
+        return items;
+    }
+
+    private static DashboardStats.PerformanceMetrics readPerformance(JsonReader in) throws IOException {
+        if (!beginObjectOrSkip(in)) return null;
+        DashboardStats.PerformanceMetrics performance = new DashboardStats.PerformanceMetrics();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "conversion_rate": performance.setConversionRate(nextDouble(in)); break;
+                case "average_call_duration": performance.setAverageCallDuration(nextDouble(in)); break;
+                case "response_time": performance.setResponseTime(nextDouble(in)); break;
+                case "customer_satisfaction": performance.setCustomerSatisfaction(nextDouble(in)); break;
+                case "sla_compliance": performance.setSlaCompliance(nextDouble(in)); break;
+                default: in.skipValue(); break;
+            }
+        }
+        in.endObject();
+        return performance;
+    }
+}
@@ -0,0 +1,26 @@
+package com.calltrackerpro.calltracker.json;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+/**
+ * The app's single Gson instance.
+ *
+ * Gson caches adapters per instance, so creating one per call (or per
+ * real-time event) repeats the reflective type analysis every time. Use this
+ * instance everywhere, including Retrofit's converter; the core models
+ * (Ticket, CallLog, Contact, User, Organization, DashboardStats) are decoded
+ * by hand-written adapters instead of reflection.
+ */
+public final class GsonProvider {
+
+    private static final Gson GSON = new GsonBuilder()
+            .registerTypeAdapterFactory(new ModelTypeAdapterFactory())
+            .create();
+
+    private GsonProvider() {}
+
+    public static Gson getGson() {
+        return GSON;
+    }
+}
@@ -0,0 +1,185 @@
+package com.calltrackerpro.calltracker.json;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Null-tolerant read/write helpers shared by the model TypeAdapters.
+ *
+ * Readers accept the loose shapes the backend sends (quoted numbers, numeric
+ * strings, null for primitives) and skip values of an unexpected shape
+ * instead of failing the whole response. A malformed number, such as
+ * "n/a" or "", reads as 0.
+ */
+final class JsonFields {
+
+    private JsonFields() {}
+
+    static String nextString(JsonReader in) throws IOException {
+        switch (in.peek()) {
+            case STRING:
+            case NUMBER:
+                return in.nextString();
+            case BOOLEAN:
+                return in.nextBoolean() ? "true" : "false";
+            case NULL:
+                in.nextNull();
+                return null;
+            default:
+                // e.g. a populated object where an id was expected
+                in.skipValue();
+                return null;
+        }
+    }
+
+    /**
+     * Integral numbers, also quoted or written as a decimal (truncated);
+     * 0 for anything else, including values out of range
+     */
+    static int nextInt(JsonReader in) throws IOException {
+        long value = nextLong(in);
+        return value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE ? (int) value : 0;
+    }
+
+    static long nextLong(JsonReader in) throws IOException {
+        String value = nextNumeric(in);
+        if (value == null) return 0L;
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            // "12.0", "1e3", or not a number at all
+            double decimal = parseDouble(value);
+            return decimal >= Long.MIN_VALUE && decimal <= Long.MAX_VALUE ? (long) decimal : 0L;
+        }
+    }
+
+    static double nextDouble(JsonReader in) throws IOException {
+        String value = nextNumeric(in);
+        return value != null ? parseDouble(value) : 0d;
+    }
+
+    /**
+     * The text of a number or string value, consumed either way; null (and skipped) for other shapes
+     */
+    private static String nextNumeric(JsonReader in) throws IOException {
+        JsonToken token = in.peek();
+        if (token == JsonToken.NUMBER || token == JsonToken.STRING) {
+            return in.nextString().trim();
+        }
+        in.skipValue();
+        return null;
+    }
+
+    private static double parseDouble(String value) {
+        try {
+            double parsed = Double.parseDouble(value);
+            return Double.isNaN(parsed) || Double.isInfinite(parsed) ? 0d : parsed;
+        } catch (NumberFormatException e) {
+            return 0d;
+        }
+    }
+
+    static boolean nextBoolean(JsonReader in) throws IOException {
+        JsonToken token = in.peek();
+        if (token == JsonToken.BOOLEAN) {
+            return in.nextBoolean();
+        }
+        if (token == JsonToken.STRING) {
+            return "true".equalsIgnoreCase(in.nextString());
+        }
+        in.skipValue();
+        return false;
+    }
+
+    /**
+     * Null stays null, so an unset condition is told apart from 0
+     */
+    static Integer nextIntOrNull(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        return nextInt(in);
+    }
+
+    static Boolean nextBooleanOrNull(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        return nextBoolean(in);
+    }
+
+    static List<String> nextStringList(JsonReader in) throws IOException {
+        if (in.peek() != JsonToken.BEGIN_ARRAY) {
+            in.skipValue();
+            return null;
+        }
+        List<String> values = new ArrayList<>();
+        in.beginArray();
+        while (in.hasNext()) {
+            values.add(nextString(in));
+        }
+        in.endArray();
+        return values;
+    }
+
+    static <T> List<T> nextList(JsonReader in, TypeAdapter<T> itemAdapter) throws IOException {
+        if (in.peek() != JsonToken.BEGIN_ARRAY) {
+            in.skipValue();
+            return null;
+        }
+        List<T> values = new ArrayList<>();
+        in.beginArray();
+        while (in.hasNext()) {
+            values.add(itemAdapter.read(in));
+        }
+        in.endArray();
+        return values;
+    }
+
+    /**
+     * True if the next value is an object; otherwise consumes it (null or wrong shape)
+     */
+    static boolean beginObjectOrSkip(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.BEGIN_OBJECT) {
+            in.beginObject();
+            return true;
+        }
+        in.skipValue();
+        return false;
+    }
+
+    static void writeStringList(JsonWriter out, String name, List<String> values) throws IOException {
+        out.name(name);
+        if (values == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginArray();
+        for (String value : values) {
+            out.value(value);
+        }
+        out.endArray();
+    }
+
+    static <T> void writeList(JsonWriter out, String name, List<T> values,
+                              TypeAdapter<T> itemAdapter) throws IOException {
+        out.name(name);
+        if (values == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginArray();
+        for (T value : values) {
+            itemAdapter.write(out, value);
+        }
+        out.endArray();
+    }
+}
@@ -0,0 +1,42 @@
+package com.calltrackerpro.calltracker.json;
+
+import com.calltrackerpro.calltracker.models.CallLog;
+import com.calltrackerpro.calltracker.models.Contact;
+import com.calltrackerpro.calltracker.models.DashboardStats;
+import com.calltrackerpro.calltracker.models.Organization;
+import com.calltrackerpro.calltracker.models.Ticket;
+import com.calltrackerpro.calltracker.models.User;
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+
+/**
+ * Registers the hand-written adapters for the core models so Gson never
+ * falls back to reflection for them
+ */
+final class ModelTypeAdapterFactory implements TypeAdapterFactory {
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+        Class<? super T> rawType = type.getRawType();
+        TypeAdapter<?> adapter;
+        if (rawType == Ticket.class) {
+            adapter = new TicketTypeAdapter(gson);
+        } else if (rawType == CallLog.class) {
+            adapter = new CallLogTypeAdapter();
+        } else if (rawType == Contact.class) {
+            adapter = new ContactTypeAdapter(gson);
+        } else if (rawType == User.class) {
+            adapter = new UserTypeAdapter(gson);
+        } else if (rawType == Organization.class) {
+            adapter = new OrganizationTypeAdapter();
+        } else if (rawType == DashboardStats.class) {
+            adapter = new DashboardStatsTypeAdapter();
+        } else {
+            return null;
+        }
+        return (TypeAdapter<T>) adapter.nullSafe();
+    }
+}
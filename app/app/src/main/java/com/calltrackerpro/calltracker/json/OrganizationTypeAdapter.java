@@ -0,0 +1,217 @@
+package com.calltrackerpro.calltracker.json;
+
+import com.calltrackerpro.calltracker.models.Organization;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+import static com.calltrackerpro.calltracker.json.JsonFields.*;
+
+/**
+ * Hand-written adapter for {@link Organization} and its nested settings
+ */
+final class OrganizationTypeAdapter extends TypeAdapter<Organization> {
+
+    @Override
+    public Organization read(JsonReader in) throws IOException {
+        Organization organization = new Organization();
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "_id": organization.setId(nextString(in)); break;
+                case "name": organization.setName(nextString(in)); break;
+                case "domain": organization.setDomain(nextString(in)); break;
+                case "subscription": organization.setSubscription(readSubscription(in)); break;
+                case "settings": organization.setSettings(readSettings(in)); break;
+                case "created_at": organization.setCreatedAt(nextString(in)); break;
+                case "analytics": organization.setAnalytics(readAnalytics(in)); break;
+                default: in.skipValue(); break;
+            }
+        }
+        in.endObject();
+        return organization;
+    }
+
+    @Override
+    public void write(JsonWriter out, Organization organization) throws IOException {
+        out.beginObject();
+        out.name("_id").value(organization.getId());
+        out.name("name").value(organization.getName());
+        out.name("domain").value(organization.getDomain());
+        out.name("subscription");
+        writeSubscription(out, organization.getSubscription());
+        out.name("settings");
+        writeSettings(out, organization.getSettings());
+        out.name("created_at").value(organization.getCreatedAt());
+        out.name("analytics");
+        writeAnalytics(out, organization.getAnalytics());
+        out.endObject();
+    }
+
+    private static Organization.Subscription readSubscription(JsonReader in) throws IOException {
+        if (!beginObjectOrSkip(in)) return null;
+        Organization.Subscription subscription = new Organization.Subscription();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "plan": subscription.setPlan(nextString(in)); break;
+                case "status": subscription.setStatus(nextString(in)); break;
+                case "user_limit": subscription.setUserLimit(nextInt(in)); break;
+                case "call_limit": subscription.setCallLimit(nextInt(in)); break;
+                case "expires_at": subscription.setExpiresAt(nextString(in)); break;
+                default: in.skipValue(); break;
+            }
+        }
+        in.endObject();
+        return subscription;
+    }
+
+    private static void writeSubscription(JsonWriter out, Organization.Subscription subscription) throws IOException {
+        if (subscription == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
+        out.name("plan").value(subscription.getPlan());
+        out.name("status").value(subscription.getStatus());
+        out.name("user_limit").value(subscription.getUserLimit());
+        out.name("call_limit").value(subscription.getCallLimit());
+        out.name("expires_at").value(subscription.getExpiresAt());
+        out.endObject();
+    }
+
+    private static Organization.OrganizationSettings readSettings(JsonReader in) throws IOException {
+        if (!beginObjectOrSkip(in)) return null;
+        Organization.OrganizationSettings settings = new Organization.OrganizationSettings();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "call_recording_enabled": settings.setCallRecordingEnabled(nextBoolean(in)); break;
+                case "auto_sync_enabled": settings.setAutoSyncEnabled(nextBoolean(in)); break;
+                case "timezone": settings.setTimezone(nextString(in)); break;
+                case "business_hours": settings.setBusinessHours(readBusinessHours(in)); break;
+                case "ticket_rules": settings.setTicketRules(nextList(in, TICKET_RULE)); break;
+                default: in.skipValue(); break;
+            }
+        }
+        in.endObject();
+        return settings;
+    }
+
+    private static void writeSettings(JsonWriter out, Organization.OrganizationSettings settings) throws IOException {
+        if (settings == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
+        out.name("call_recording_enabled").value(settings.isCallRecordingEnabled());
+        out.name("auto_sync_enabled").value(settings.isAutoSyncEnabled());
+        out.name("timezone").value(settings.getTimezone());
+        out.name("business_hours");
+        Organization.BusinessHours hours = settings.getBusinessHours();
+        if (hours == null) {
+            out.nullValue();
+        } else {
+            out.beginObject();
+            out.name("start_time").value(hours.getStartTime());
+            out.name("end_time").value(hours.getEndTime());
+            writeStringList(out, "days", hours.getDays());
+            out.endObject();
+        }
+        writeList(out, "ticket_rules", settings.getTicketRules(), TICKET_RULE);
+        out.endObject();
+    }
+
+    private static final TypeAdapter<Organization.TicketRule> TICKET_RULE = new TypeAdapter<Organization.TicketRule>() {
+        @Override
+        public Organization.TicketRule read(JsonReader in) throws IOException {
+            if (!beginObjectOrSkip(in)) return null;
+            Organization.TicketRule rule = new Organization.TicketRule();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "set": rule.setField(nextString(in)); break;
+                    case "value": rule.setValue(nextString(in)); break;
+                    case "call_types": rule.setCallTypes(nextStringList(in)); break;
+                    case "min_duration": rule.setMinDuration(nextIntOrNull(in)); break;
+                    case "max_duration": rule.setMaxDuration(nextIntOrNull(in)); break;
+                    case "from_time": rule.setFromTime(nextString(in)); break;
+                    case "to_time": rule.setToTime(nextString(in)); break;
+                    case "business_hours": rule.setBusinessHours(nextBooleanOrNull(in)); break;
+                    case "known_contact": rule.setKnownContact(nextBooleanOrNull(in)); break;
+                    case "min_open_tickets": rule.setMinOpenTickets(nextIntOrNull(in)); break;
+                    case "max_open_tickets": rule.setMaxOpenTickets(nextIntOrNull(in)); break;
+                    case "priority": rule.setPriority(nextString(in)); break;
+                    default: in.skipValue(); break;
+                }
+            }
+            in.endObject();
+            return rule;
+        }
+
+        @Override
+        public void write(JsonWriter out, Organization.TicketRule rule) throws IOException {
+            if (rule == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            out.name("set").value(rule.getField());
+            out.name("value").value(rule.getValue());
+            writeStringList(out, "call_types", rule.getCallTypes());
+            out.name("min_duration").value(rule.getMinDuration());
+            out.name("max_duration").value(rule.getMaxDuration());
+            out.name("from_time").value(rule.getFromTime());
+            out.name("to_time").value(rule.getToTime());
+            out.name("business_hours").value(rule.getBusinessHours());
+            out.name("known_contact").value(rule.getKnownContact());
+            out.name("min_open_tickets").value(rule.getMinOpenTickets());
+            out.name("max_open_tickets").value(rule.getMaxOpenTickets());
+            out.name("priority").value(rule.getPriority());
+            out.endObject();
+        }
+    };
+
+    private static Organization.BusinessHours readBusinessHours(JsonReader in) throws IOException {
+        if (!beginObjectOrSkip(in)) return null;
+        Organization.BusinessHours hours = new Organization.BusinessHours();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "start_time": hours.setStartTime(nextString(in)); break;
+                case "end_time": hours.setEndTime(nextString(in)); break;
+                case "days": hours.setDays(nextStringList(in)); break;
+                default: in.skipValue(); break;
+            }
+        }
+        in.endObject();
+        return hours;
+    }
+
+    private static Organization.OrganizationAnalytics readAnalytics(JsonReader in) throws IOException {
+        if (!beginObjectOrSkip(in)) return null;
+        Organization.OrganizationAnalytics analytics = new Organization.OrganizationAnalytics();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "total_users": analytics.setTotalUsers(nextInt(in)); break;
+                case "total_calls": analytics.setTotalCalls(nextInt(in)); break;
+                case "active_users": analytics.setActiveUsers(nextInt(in)); break;
+                case "monthly_calls": analytics.setMonthlyCalls(nextInt(in)); break;
+                default: in.skipValue(); break;
+            }
+        }
+        in.endObject();
+        return analytics;
+    }
+
+    private static void writeAnalytics(JsonWriter out, Organization.OrganizationAnalytics analytics) throws IOException {
+        if (analytics == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
+        out.name("total_users").value(analytics.getTotalUsers());
+        out.name("total_calls").value(analytics.getTotalCalls());
+        out.name("active_users").value(analytics.getActiveUsers());
+        out.name("monthly_calls").value(analytics.getMonthlyCalls());
+        out.endObject();
+    }
+}
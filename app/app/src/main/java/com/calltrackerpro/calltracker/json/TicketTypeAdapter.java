@@ -0,0 +1,192 @@
+package com.calltrackerpro.calltracker.json;
+
+import com.calltrackerpro.calltracker.models.Ticket;
+import com.calltrackerpro.calltracker.models.TicketHistory;
+import com.calltrackerpro.calltracker.models.TicketNote;
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.Map;
+
+import static com.calltrackerpro.calltracker.json.JsonFields.*;
+
+/**
+ * Hand-written adapter for {@link Ticket}, the largest and most frequently
+ * decoded model. Notes, history and custom fields are rare and small, so
+ * they still go through Gson's own adapters.
+ */
+final class TicketTypeAdapter extends TypeAdapter<Ticket> {
+
+    private final TypeAdapter<TicketNote> noteAdapter;
+    private final TypeAdapter<TicketHistory> historyAdapter;
+    private final TypeAdapter<Map<String, Object>> customFieldsAdapter;
+
+    TicketTypeAdapter(Gson gson) {
+        this.noteAdapter = gson.getAdapter(TicketNote.class);
+        this.historyAdapter = gson.getAdapter(TicketHistory.class);
+        this.customFieldsAdapter = gson.getAdapter(new TypeToken<Map<String, Object>>() {});
+    }
+
+    @Override
+    public Ticket read(JsonReader in) throws IOException {
+        Ticket ticket = new Ticket();
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "_id": ticket.setId(nextString(in)); break;
+                case "ticketId": ticket.setTicketId(nextString(in)); break;
+                case "phoneNumber": ticket.setPhoneNumber(nextString(in)); break;
+                case "contactName": ticket.setContactName(nextString(in)); break;
+                case "alternatePhones": ticket.setAlternatePhones(nextStringList(in)); break;
+                case "email": ticket.setEmail(nextString(in)); break;
+                case "company": ticket.setCompany(nextString(in)); break;
+                case "jobTitle": ticket.setJobTitle(nextString(in)); break;
+                case "location": ticket.setLocation(readLocation(in)); break;
+                case "callLogId": ticket.setCallLogId(nextString(in)); break;
+                case "callDate": ticket.setCallDate(nextString(in)); break;
+                case "callDuration": ticket.setCallDuration(nextLong(in)); break;
+                case "callType": ticket.setCallType(nextString(in)); break;
+                case "callRecordingUrl": ticket.setCallRecordingUrl(nextString(in)); break;
+                case "callQuality": ticket.setCallQuality(nextInt(in)); break;
+                case "leadSource": ticket.setLeadSource(nextString(in)); break;
+                case "leadStatus": ticket.setLeadStatus(nextString(in)); break;
+                case "priority": ticket.setPriority(nextString(in)); break;
+                case "interestLevel": ticket.setInterestLevel(nextString(in)); break;
+                case "budgetRange": ticket.setBudgetRange(nextString(in)); break;
+                case "timeline": ticket.setTimeline(nextString(in)); break;
+                case "productsInterested": ticket.setProductsInterested(nextStringList(in)); break;
+                case "status": ticket.setStatus(nextString(in)); break;
+                case "category": ticket.setCategory(nextString(in)); break;
+                case "source": ticket.setSource(nextString(in)); break;
+                case "slaStatus": ticket.setSlaStatus(nextString(in)); break;
+                case "dueDate": ticket.setDueDate(nextString(in)); break;
+                case "escalatedAt": ticket.setEscalatedAt(nextString(in)); break;
+                case "escalatedTo": ticket.setEscalatedTo(nextString(in)); break;
+                case "resolutionTime": ticket.setResolutionTime(nextLong(in)); break;
+                case "assignedTo": ticket.setAssignedTo(nextString(in)); break;
+                case "assignedTeam": ticket.setAssignedTeam(nextString(in)); break;
+                case "previousAssignee": ticket.setPreviousAssignee(nextString(in)); break;
+                case "assignedAt": ticket.setAssignedAt(nextString(in)); break;
+                case "satisfactionRating": ticket.setSatisfactionRating(nextInt(in)); break;
+                case "satisfactionFeedback": ticket.setSatisfactionFeedback(nextString(in)); break;
+                case "satisfactionDate": ticket.setSatisfactionDate(nextString(in)); break;
+                case "stage": ticket.setStage(nextString(in)); break;
+                case "nextFollowUp": ticket.setNextFollowUp(nextString(in)); break;
+                case "followUpActions": ticket.setFollowUpActions(nextStringList(in)); break;
+                case "dealValue": ticket.setDealValue(nextDouble(in)); break;
+                case "conversionProbability": ticket.setConversionProbability(nextInt(in)); break;
+                case "agentNotes": ticket.setAgentNotes(nextList(in, noteAdapter)); break;
+                case "clientNotes": ticket.setClientNotes(nextList(in, noteAdapter)); break;
+                case "tags": ticket.setTags(nextStringList(in)); break;
+                case "customFields":
+                case "custom_fields": ticket.setCustomFields(customFieldsAdapter.read(in)); break;
+                case "organizationId": ticket.setOrganizationId(nextString(in)); break;
+                case "teamId": ticket.setTeamId(nextString(in)); break;
+                case "createdBy": ticket.setCreatedBy(nextString(in)); break;
+                case "createdAt": ticket.setCreatedAt(nextString(in)); break;
+                case "updatedBy": ticket.setUpdatedBy(nextString(in)); break;
+                case "updatedAt": ticket.setUpdatedAt(nextString(in)); break;
+                case "isActive": ticket.setActive(nextBoolean(in)); break;
+                case "ticketHistory": ticket.setTicketHistory(nextList(in, historyAdapter)); break;
+                default: in.skipValue(); break;
+            }
+        }
+        in.endObject();
+        return ticket;
+    }
+
+    @Override
+    public void write(JsonWriter out, Ticket ticket) throws IOException {
+        out.beginObject();
+        out.name("_id").value(ticket.getId());
+        out.name("ticketId").value(ticket.getTicketId());
+        out.name("phoneNumber").value(ticket.getPhoneNumber());
+        out.name("contactName").value(ticket.getContactName());
+        writeStringList(out, "alternatePhones", ticket.getAlternatePhones());
+        out.name("email").value(ticket.getEmail());
+        out.name("company").value(ticket.getCompany());
+        out.name("jobTitle").value(ticket.getJobTitle());
+        out.name("location");
+        writeLocation(out, ticket.getLocation());
+        out.name("callLogId").value(ticket.getCallLogId());
+        out.name("callDate").value(ticket.getCallDate());
+        out.name("callDuration").value(ticket.getCallDuration());
+        out.name("callType").value(ticket.getCallType());
+        out.name("callRecordingUrl").value(ticket.getCallRecordingUrl());
+        out.name("callQuality").value(ticket.getCallQuality());
+        out.name("leadSource").value(ticket.getLeadSource());
+        out.name("leadStatus").value(ticket.getLeadStatus());
+        out.name("priority").value(ticket.getPriority());
+        out.name("interestLevel").value(ticket.getInterestLevel());
+        out.name("budgetRange").value(ticket.getBudgetRange());
+        out.name("timeline").value(ticket.getTimeline());
+        writeStringList(out, "productsInterested", ticket.getProductsInterested());
+        out.name("status").value(ticket.getStatus());
+        out.name("category").value(ticket.getCategory());
+        out.name("source").value(ticket.getSource());
+        out.name("slaStatus").value(ticket.getSlaStatus());
+        out.name("dueDate").value(ticket.getDueDate());
+        out.name("escalatedAt").value(ticket.getEscalatedAt());
+        out.name("escalatedTo").value(ticket.getEscalatedTo());
+        out.name("resolutionTime").value(ticket.getResolutionTime());
+        out.name("assignedTo").value(ticket.getAssignedTo());
+        out.name("assignedTeam").value(ticket.getAssignedTeam());
+        out.name("previousAssignee").value(ticket.getPreviousAssignee());
+        out.name("assignedAt").value(ticket.getAssignedAt());
+        out.name("satisfactionRating").value(ticket.getSatisfactionRating());
+        out.name("satisfactionFeedback").value(ticket.getSatisfactionFeedback());
+        out.name("satisfactionDate").value(ticket.getSatisfactionDate());
+        out.name("stage").value(ticket.getStage());
+        out.name("nextFollowUp").value(ticket.getNextFollowUp());
+        writeStringList(out, "followUpActions", ticket.getFollowUpActions());
+        out.name("dealValue").value(ticket.getDealValue());
+        out.name("conversionProbability").value(ticket.getConversionProbability());
+        writeList(out, "agentNotes", ticket.getAgentNotes(), noteAdapter);
+        writeList(out, "clientNotes", ticket.getClientNotes(), noteAdapter);
+        writeStringList(out, "tags", ticket.getTags());
+        out.name("customFields");
+        customFieldsAdapter.write(out, ticket.getCustomFields());
+        out.name("organizationId").value(ticket.getOrganizationId());
+        out.name("teamId").value(ticket.getTeamId());
+        out.name("createdBy").value(ticket.getCreatedBy());
+        out.name("createdAt").value(ticket.getCreatedAt());
+        out.name("updatedBy").value(ticket.getUpdatedBy());
+        out.name("updatedAt").value(ticket.getUpdatedAt());
+        out.name("isActive").value(ticket.isActive());
+        writeList(out, "ticketHistory", ticket.getTicketHistory(), historyAdapter);
+        out.endObject();
+    }
+
+    private static Ticket.Location readLocation(JsonReader in) throws IOException {
+        if (!beginObjectOrSkip(in)) return null;
+        Ticket.Location location = new Ticket.Location();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "city": location.setCity(nextString(in)); break;
+                case "state": location.setState(nextString(in)); break;
+                case "country": location.setCountry(nextString(in)); break;
+                case "address": location.setAddress(nextString(in)); break;
+                default: in.skipValue(); break;
+            }
+        }
+        in.endObject();
+        return location;
+    }
+
+    private static void writeLocation(JsonWriter out, Ticket.Location location) throws IOException {
+        if (location == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
+        out.name("city").value(location.getCity());
+        out.name("state").value(location.getState());
+        out.name("country").value(location.getCountry());
+        out.name("address").value(location.getAddress());
+        out.endObject();
+    }
+}
@@ -0,0 +1,91 @@
+package com.calltrackerpro.calltracker.json;
+
+import com.calltrackerpro.calltracker.models.Organization;
+import com.calltrackerpro.calltracker.models.Team;
+import com.calltrackerpro.calltracker.models.User;
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+import static com.calltrackerpro.calltracker.json.JsonFields.*;
+
+/**
+ * Hand-written adapter for {@link User}; also used when the session user is
+ * persisted by TokenManager.
+ */
+final class UserTypeAdapter extends TypeAdapter<User> {
+
+    private final TypeAdapter<Organization> organizationAdapter;
+    private final TypeAdapter<Team> teamAdapter;
+
+    UserTypeAdapter(Gson gson) {
+        this.organizationAdapter = gson.getAdapter(Organization.class);
+        this.teamAdapter = gson.getAdapter(Team.class);
+    }
+
+    @Override
+    public User read(JsonReader in) throws IOException {
+        User user = new User();
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "id":
+                case "_id":
+                    user.setId(nextString(in));
+                    break;
+                case "email": user.setEmail(nextString(in)); break;
+                case "password": user.setPassword(nextString(in)); break;
+                case "first_name": user.setFirstName(nextString(in)); break;
+                case "last_name": user.setLastName(nextString(in)); break;
+                case "name": user.setName(nextString(in)); break;
+                case "phone": user.setPhone(nextString(in)); break;
+                case "created_at": user.setCreatedAt(nextString(in)); break;
+                case "updated_at": user.setUpdatedAt(nextString(in)); break;
+                case "role": user.setRole(nextString(in)); break;
+                case "call_count": user.setCallCount(nextInt(in)); break;
+                case "call_limit": user.setCallLimit(nextInt(in)); break;
+                case "organization_id": user.setOrganizationId(nextString(in)); break;
+                case "organizations": user.setOrganizations(nextList(in, organizationAdapter)); break;
+                case "current_organization": user.setCurrentOrganization(organizationAdapter.read(in)); break;
+                case "team_ids": user.setTeamIds(nextStringList(in)); break;
+                case "teams": user.setTeams(nextList(in, teamAdapter)); break;
+                case "permissions": user.setPermissions(nextStringList(in)); break;
+                case "is_active": user.setActive(nextBoolean(in)); break;
+                case "last_login": user.setLastLogin(nextString(in)); break;
+                default: in.skipValue(); break;
+            }
+        }
+        in.endObject();
+        return user;
+    }
+
+    @Override
+    public void write(JsonWriter out, User user) throws IOException {
+        out.beginObject();
+        out.name("id").value(user.getId());
+        out.name("email").value(user.getEmail());
+        out.name("password").value(user.getPassword());
+        out.name("first_name").value(user.getFirstName());
+        out.name("last_name").value(user.getLastName());
+        out.name("name").value(user.getName());
+        out.name("phone").value(user.getPhone());
+        out.name("created_at").value(user.getCreatedAt());
+        out.name("updated_at").value(user.getUpdatedAt());
+        out.name("role").value(user.getRole());
+        out.name("call_count").value(user.getCallCount());
+        out.name("call_limit").value(user.getCallLimit());
+        out.name("organization_id").value(user.getOrganizationId());
+        writeList(out, "organizations", user.getOrganizations(), organizationAdapter);
+        out.name("current_organization");
+        organizationAdapter.write(out, user.getCurrentOrganization());
+        writeStringList(out, "team_ids", user.getTeamIds());
+        writeList(out, "teams", user.getTeams(), teamAdapter);
+        writeStringList(out, "permissions", user.getPermissions());
+        out.name("is_active").value(user.isActive());
+        out.name("last_login").value(user.getLastLogin());
+        out.endObject();
+    }
+}
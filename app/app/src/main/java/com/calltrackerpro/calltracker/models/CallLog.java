@@ -19,7 +19,7 @@ public class CallLog implements Serializable {
     private long duration; // in seconds
 
     @SerializedName("timestamp")
-    private Object timestampRaw; // Unix timestamp - may arrive as long or String from API
+    private long timestamp; // Unix timestamp; numeric or string forms are normalized by CallLogTypeAdapter
 
     @SerializedName(value = "contact_name", alternate = {"contactName"})
     private String contactName;
@@ -49,7 +49,7 @@ public class CallLog implements Serializable {
         this.phoneNumber = phoneNumber;
         this.callType = callType;
         this.duration = duration;
-        this.timestampRaw = timestamp;
+        this.timestamp = timestamp;
     }
 
     // Getters and Setters
@@ -86,28 +86,11 @@ public class CallLog implements Serializable {
     }
 
     public long getTimestamp() {
-        if (timestampRaw instanceof Number) {
-            return ((Number) timestampRaw).longValue();
-        } else if (timestampRaw instanceof String) {
-            try {
-                return Long.parseLong((String) timestampRaw);
-            } catch (NumberFormatException e) {
-                try {
-                    java.text.SimpleDateFormat sdf = new java.text.SimpleDateFormat(
-                            "yyyy-MM-dd'T'HH:mm:ss.SSS'Z'", java.util.Locale.US);
-                    sdf.setTimeZone(java.util.TimeZone.getTimeZone("UTC"));
-                    java.util.Date date = sdf.parse((String) timestampRaw);
-                    return date != null ? date.getTime() : 0;
-                } catch (Exception ex) {
-                    return 0;
-                }
-            }
-        }
-        return 0;
+        return timestamp;
     }
 
     public void setTimestamp(long timestamp) {
-        this.timestampRaw = timestamp;
+        this.timestamp = timestamp;
     }
 
     public String getContactName() {
@@ -184,7 +167,7 @@ public class CallLog implements Serializable {
                 ", phoneNumber='" + phoneNumber + '\'' +
                 ", callType='" + callType + '\'' +
                 ", duration=" + duration +
-                ", timestamp=" + getTimestamp() +
+                ", timestamp=" + timestamp +
                 ", contactName='" + contactName + '\'' +
                 ", callStatus='" + callStatus + '\'' +
                 '}';
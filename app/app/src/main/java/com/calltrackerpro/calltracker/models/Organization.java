@@ -140,6 +140,9 @@ public class Organization {
         @SerializedName("business_hours")
         private BusinessHours businessHours;
 
+        @SerializedName("ticket_rules")
+        private List<TicketRule> ticketRules;
+
         // Getters and Setters
         public boolean isCallRecordingEnabled() { return callRecordingEnabled; }
         public void setCallRecordingEnabled(boolean callRecordingEnabled) { this.callRecordingEnabled = callRecordingEnabled; }
@@ -152,6 +155,91 @@ public class Organization {
 
         public BusinessHours getBusinessHours() { return businessHours; }
         public void setBusinessHours(BusinessHours businessHours) { this.businessHours = businessHours; }
+
+        public List<TicketRule> getTicketRules() { return ticketRules; }
+        public void setTicketRules(List<TicketRule> ticketRules) { this.ticketRules = ticketRules; }
+    }
+
+    /**
+     * One line of an organization's auto-ticket classification: set
+     * {@code field} to {@code value} when every condition given holds.
+     * Unset conditions match anything; for each field the first matching
+     * rule wins. Durations are in seconds, times are "HH:mm" in the
+     * organization's timezone.
+     */
+    public static class TicketRule {
+        @SerializedName("set")
+        private String field; // category, priority, interest_level or sla_hours
+
+        @SerializedName("value")
+        private String value;
+
+        @SerializedName("call_types")
+        private List<String> callTypes; // incoming, outgoing, missed
+
+        @SerializedName("min_duration")
+        private Integer minDuration;
+
+        @SerializedName("max_duration")
+        private Integer maxDuration;
+
+        @SerializedName("from_time")
+        private String fromTime;
+
+        @SerializedName("to_time")
+        private String toTime;
+
+        @SerializedName("business_hours")
+        private Boolean businessHours; // true inside business hours, false outside
+
+        @SerializedName("known_contact")
+        private Boolean knownContact;
+
+        @SerializedName("min_open_tickets")
+        private Integer minOpenTickets;
+
+        @SerializedName("max_open_tickets")
+        private Integer maxOpenTickets;
+
+        @SerializedName("priority")
+        private String priority; // sla_hours rules only: the priority already chosen
+
+        // Getters and Setters
+        public String getField() { return field; }
+        public void setField(String field) { this.field = field; }
+
+        public String getValue() { return value; }
+        public void setValue(String value) { this.value = value; }
+
+        public List<String> getCallTypes() { return callTypes; }
+        public void setCallTypes(List<String> callTypes) { this.callTypes = callTypes; }
+
+        public Integer getMinDuration() { return minDuration; }
+        public void setMinDuration(Integer minDuration) { this.minDuration = minDuration; }
+
+        public Integer getMaxDuration() { return maxDuration; }
+        public void setMaxDuration(Integer maxDuration) { this.maxDuration = maxDuration; }
+
+        public String getFromTime() { return fromTime; }
+        public void setFromTime(String fromTime) { this.fromTime = fromTime; }
+
+        public String getToTime() { return toTime; }
+        public void setToTime(String toTime) { this.toTime = toTime; }
+
+        public Boolean getBusinessHours() { return businessHours; }
+        public void setBusinessHours(Boolean businessHours) { this.businessHours = businessHours; }
+
+        public Boolean getKnownContact() { return knownContact; }
+        public void setKnownContact(Boolean knownContact) { this.knownContact = knownContact; }
+
+        public Integer getMinOpenTickets() { return minOpenTickets; }
+        public void setMinOpenTickets(Integer minOpenTickets) { this.minOpenTickets = minOpenTickets; }
+
+        public Integer getMaxOpenTickets() { return maxOpenTickets; }
+        public void setMaxOpenTickets(Integer maxOpenTickets) { this.maxOpenTickets = maxOpenTickets; }
+
+        public String getPriority() { return priority; }
+        public void setPriority(String priority) { this.priority = priority; }
     }
 
     public static class BusinessHours {
@@ -0,0 +1,144 @@
+package com.calltrackerpro.calltracker.network;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Call;
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+import retrofit2.Invocation;
+import retrofit2.http.Streaming;
+
+/**
+ * Timeouts learned from measured latency instead of fixed worst cases.
+ *
+ * Time to response headers is sampled per API endpoint (the ApiService
+ * method, or method + path for plain OkHttp calls) and connect time per
+ * connection. Deadlines are a multiple of the recent p99, clamped to sane
+ * bounds; until an endpoint has enough samples the cold defaults apply. A
+ * request stuck on a bad link therefore gives up its slot after a few
+ * times its usual latency rather than after a minute.
+ */
+public final class AdaptiveTimeouts implements Interceptor {
+
+    public static final String METRIC_CONNECT_MS = "http.latency.connect_ms";
+    public static final String METRIC_TIMEOUT_CONNECT_MS = "http.timeout.connect_ms";
+    public static final String METRIC_TIMEOUT_READ_MS = "http.timeout.read_ms";
+    public static final String METRIC_TIMEOUT_CALL_MS = "http.timeout.call_ms";
+    private static final String METRIC_LATENCY_PREFIX = "http.latency.";
+    private static final String METRIC_TIMEOUT_PREFIX = "http.timeout.";
+
+    // Deadline = P99_MULTIPLIER x p99, once MIN_SAMPLES have been seen
+    private static final int P99_MULTIPLIER = 4;
+    private static final int MIN_SAMPLES = 20;
+
+    private static final long CONNECT_MIN_MS = 2_000;
+    private static final long CONNECT_COLD_MS = 10_000;
+    private static final long CONNECT_MAX_MS = 10_000;
+
+    private static final long READ_MIN_MS = 5_000;
+    private static final long READ_COLD_MS = 20_000;
+    private static final long READ_MAX_MS = 30_000;
+
+    // Whole call: connect plus write and read, with room for one retry
+    private static final long CALL_MIN_MS = 10_000;
+    private static final long CALL_MAX_MS = 60_000;
+
+    private static final AdaptiveTimeouts instance = new AdaptiveTimeouts();
+
+    public static AdaptiveTimeouts getInstance() {
+        return instance;
+    }
+
+    private AdaptiveTimeouts() {}
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        String endpoint = endpointOf(request);
+        int connectMs = (int) connectTimeoutMs();
+        int readMs = (int) readTimeoutMs(endpoint);
+
+        long start = System.nanoTime();
+        Response response = chain
+                .withConnectTimeout(connectMs, TimeUnit.MILLISECONDS)
+                .withReadTimeout(readMs, TimeUnit.MILLISECONDS)
+                .withWriteTimeout(readMs, TimeUnit.MILLISECONDS)
+                .proceed(request);
+        // Headers are in; the body is read later under the same read timeout
+        if (response.networkResponse() != null) {
+            NetworkMetrics.recordSample(latencyMetric(endpoint),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        }
+        return response;
+    }
+
+    /**
+     * Apply the whole-call deadline; must happen before the call starts
+     */
+    public Call applyCallTimeout(Call call) {
+        Request request = call.request();
+        long callMs = isStreaming(request)
+                ? CALL_MAX_MS
+                : clamp(connectTimeoutMs() + 2 * readTimeoutMs(endpointOf(request)), CALL_MIN_MS, CALL_MAX_MS);
+        call.timeout().timeout(callMs, TimeUnit.MILLISECONDS);
+        NetworkMetrics.setGauge(METRIC_TIMEOUT_CALL_MS, callMs);
+        return call;
+    }
+
+    /**
+     * A new connection was established in {@code latencyMs}
+     */
+    public void recordConnect(long latencyMs) {
+        NetworkMetrics.recordSample(METRIC_CONNECT_MS, latencyMs);
+    }
+
+    public long connectTimeoutMs() {
+        long timeout = deadline(METRIC_CONNECT_MS, CONNECT_COLD_MS, CONNECT_MIN_MS, CONNECT_MAX_MS);
+        NetworkMetrics.setGauge(METRIC_TIMEOUT_CONNECT_MS, timeout);
+        return timeout;
+    }
+
+    public long readTimeoutMs(String endpoint) {
+        long timeout = deadline(latencyMetric(endpoint), READ_COLD_MS, READ_MIN_MS, READ_MAX_MS);
+        NetworkMetrics.setGauge(METRIC_TIMEOUT_READ_MS, timeout);
+        NetworkMetrics.setGauge(METRIC_TIMEOUT_PREFIX + metricKey(endpoint) + "_ms", timeout);
+        return timeout;
+    }
+
+    /**
+     * Key latencies are tracked under, e.g. "GET getTicket". Plain OkHttp
+     * calls are keyed by host only; their paths carry ids.
+     */
+    static String endpointOf(Request request) {
+        Invocation invocation = request.tag(Invocation.class);
+        String name = invocation != null ? invocation.method().getName() : request.url().host();
+        return request.method() + " " + name;
+    }
+
+    private static String metricKey(String endpoint) {
+        return endpoint.toLowerCase(Locale.US).replace(' ', '.');
+    }
+
+    private static String latencyMetric(String endpoint) {
+        return METRIC_LATENCY_PREFIX + metricKey(endpoint) + "_ms";
+    }
+
+    private static long deadline(String metric, long coldMs, long minMs, long maxMs) {
+        if (NetworkMetrics.sampleCount(metric) < MIN_SAMPLES) {
+            return coldMs;
+        }
+        return clamp(P99_MULTIPLIER * NetworkMetrics.percentile(metric, 99), minMs, maxMs);
+    }
+
+    private static long clamp(long value, long min, long max) {
+        return Math.max(min, Math.min(max, value));
+    }
+
+    private static boolean isStreaming(Request request) {
+        Invocation invocation = request.tag(Invocation.class);
+        return invocation != null && invocation.method().isAnnotationPresent(Streaming.class);
+    }
+}
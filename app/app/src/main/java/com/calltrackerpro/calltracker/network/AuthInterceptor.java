@@ -0,0 +1,52 @@
+package com.calltrackerpro.calltracker.network;
+
+import java.io.IOException;
+
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Adds the Authorization header from {@link AuthSession}.
+ *
+ * ApiService methods still declare an Authorization parameter; callers may
+ * pass null (Retrofit then omits the header) and this interceptor fills it in.
+ * A header built from a stale or missing token is replaced by the session token.
+ */
+public class AuthInterceptor implements Interceptor {
+    static final String HEADER_AUTHORIZATION = "Authorization";
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request original = chain.request();
+        if (isPublicEndpoint(original)) {
+            return chain.proceed(original);
+        }
+
+        String bearer = AuthSession.getBearerToken();
+        if (bearer != null) {
+            return chain.proceed(original.newBuilder()
+                    .header(HEADER_AUTHORIZATION, bearer)
+                    .build());
+        }
+
+        // No session token: drop headers like "Bearer null" built by older callers
+        String existing = original.header(HEADER_AUTHORIZATION);
+        if (existing != null && (existing.equals("Bearer null") || existing.trim().equals("Bearer"))) {
+            return chain.proceed(original.newBuilder()
+                    .removeHeader(HEADER_AUTHORIZATION)
+                    .build());
+        }
+        return chain.proceed(original);
+    }
+
+    /**
+     * Endpoints that must never carry (or refresh) a session token
+     */
+    static boolean isPublicEndpoint(Request request) {
+        String path = request.url().encodedPath();
+        return path.endsWith("/auth/login")
+                || path.endsWith("/auth/register")
+                || path.endsWith("/auth/forgot-password");
+    }
+}
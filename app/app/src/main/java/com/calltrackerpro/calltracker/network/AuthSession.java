@@ -0,0 +1,112 @@
+package com.calltrackerpro.calltracker.network;
+
+import android.content.Context;
+
+import com.calltrackerpro.calltracker.utils.TokenManager;
+
+/**
+ * In-memory copy of the current auth token.
+ *
+ * TokenManager seeds it from SharedPreferences once per process and keeps it
+ * in sync on login, refresh and logout, so the HTTP layer can read the token
+ * on every request without touching preferences.
+ */
+public final class AuthSession {
+
+    private static volatile boolean loaded = false;
+    private static volatile String token;
+    private static volatile long expiresAt;
+    private static volatile Context appContext;
+    private static volatile String userId;
+    private static volatile String organizationId;
+    private static volatile String role;
+
+    private AuthSession() {}
+
+    /**
+     * Seed the session from persisted auth data. Only the first call has any effect.
+     */
+    public static synchronized void load(Context context, String storedToken, long storedExpiresAt) {
+        if (loaded) return;
+        appContext = context.getApplicationContext();
+        token = storedToken;
+        expiresAt = storedExpiresAt;
+        loaded = true;
+    }
+
+    public static boolean isLoaded() {
+        return loaded;
+    }
+
+    public static synchronized void update(String newToken, long newExpiresAt) {
+        token = newToken;
+        expiresAt = newExpiresAt;
+        loaded = true;
+    }
+
+    public static synchronized void clear() {
+        token = null;
+        expiresAt = 0;
+        userId = null;
+        organizationId = null;
+        role = null;
+    }
+
+    /**
+     * Tenant context of the signed-in user; used to keep cached data per tenant
+     */
+    public static synchronized void setTenant(String newUserId, String newOrganizationId, String newRole) {
+        userId = newUserId;
+        organizationId = newOrganizationId;
+        role = newRole;
+    }
+
+    public static synchronized void setOrganizationId(String newOrganizationId) {
+        organizationId = newOrganizationId;
+    }
+
+    public static String getUserId() {
+        return userId;
+    }
+
+    public static String getOrganizationId() {
+        return organizationId;
+    }
+
+    public static String getRole() {
+        return role;
+    }
+
+    /**
+     * Stable key identifying user, organization and role, e.g. for cache partitioning
+     */
+    public static String getTenantScope() {
+        return userId + "|" + organizationId + "|" + role;
+    }
+
+    public static String getToken() {
+        return token;
+    }
+
+    public static long getExpiresAt() {
+        return expiresAt;
+    }
+
+    public static String getBearerToken() {
+        String current = token;
+        return current != null ? "Bearer " + current : null;
+    }
+
+    /**
+     * Persist a refreshed token. Goes through TokenManager so preferences and
+     * this cache stay consistent.
+     */
+    static void persistRefreshedToken(String newToken, long expiresInSeconds) {
+        Context context = appContext;
+        if (context != null) {
+            new TokenManager(context).refreshToken(newToken, expiresInSeconds);
+        } else {
+            update(newToken, System.currentTimeMillis() + (expiresInSeconds * 1000));
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.calltrackerpro.calltracker.network;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks an ApiService method whose calls run in the background lane
+ * (see {@link RequestLane}): uploads and sync work nobody is waiting on.
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Background {
+}
@@ -0,0 +1,367 @@
+package com.calltrackerpro.calltracker.network;
+
+import android.util.Log;
+
+import com.calltrackerpro.calltracker.models.ApiResponse;
+import com.calltrackerpro.calltracker.services.ApiService;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import retrofit2.Call;
+import retrofit2.Response;
+
+/**
+ * Uploads call logs in batches instead of one request per call.
+ *
+ * Logs are collected until either {@code maxBatchSize} are pending or the
+ * oldest has waited {@code maxAgeMs}, then sent to {@code call-logs/batch}
+ * as one gzip-compressed request. The server reports a result per item, so a
+ * rejected record fails on its own while the rest of the batch succeeds.
+ *
+ * The backend does not serve {@code call-logs/batch} yet, so the shared
+ * instance posts each item of a batch to {@code call-logs} in turn. An
+ * uploader created with the batch endpoint enabled falls back the same way
+ * if the server answers 404, 405 or 501, and stays on single posts from then on.
+ * A 404 is never treated as a final rejection: the call log is kept for a
+ * later attempt. A post whose response is lost after the request went out
+ * is not: the backend does not dedupe call logs, so sending it again could
+ * record the call twice ({@link #ERROR_OUTCOME_UNKNOWN}).
+ *
+ * Batches are sent one at a time, in order, on a single background thread;
+ * listener callbacks run on that thread too.
+ */
+public final class CallLogBatchUploader {
+    private static final String TAG = "CallLogBatchUploader";
+
+    public static final int DEFAULT_MAX_BATCH_SIZE = 25;
+    public static final long DEFAULT_MAX_AGE_MS = 3000;
+
+    public static final String METRIC_BATCHES = "calllog.batch.sent";
+    public static final String METRIC_ITEMS = "calllog.batch.items";
+    public static final String METRIC_ITEM_FAILURES = "calllog.batch.item_failed";
+    public static final String METRIC_BATCH_FAILURES = "calllog.batch.failed";
+    public static final String METRIC_SINGLE_POSTS = "calllog.single.sent";
+
+    /** Error for a call log the backend refused because the session is no longer valid; retryable */
+    public static final String ERROR_UNAUTHORIZED = "Session rejected (HTTP 401)";
+    /** Error for a call log that was sent but never answered; not retryable */
+    public static final String ERROR_OUTCOME_UNKNOWN = "Sent, but no response; not sent again";
+    // Prefix of errors for call logs that never reached the backend
+    private static final String ERROR_NETWORK = "Network error: ";
+
+    // Flip once the backend mounts POST /api/call-logs/batch
+    private static final boolean SERVER_HAS_BATCH_ENDPOINT = false;
+
+    public interface Listener {
+        void onUploaded(ApiService.CreateCallLogRequest request, ApiService.BatchCallLogResult result);
+
+        /**
+         * {@code retryable} is true when the same record may succeed if sent again
+         */
+        void onFailed(ApiService.CreateCallLogRequest request, String error, boolean retryable);
+    }
+
+    private static volatile CallLogBatchUploader instance;
+
+    private final ApiService apiService;
+    private final int maxBatchSize;
+    private final long maxAgeMs;
+    private final ScheduledExecutorService scheduler;
+    // Cleared for good once the server says it has no batch endpoint; send thread only
+    private boolean batchEndpoint;
+
+    private final Object lock = new Object();
+    private List<Pending> pending = new ArrayList<>();
+    private ScheduledFuture<?> ageFlush;
+
+    public static CallLogBatchUploader getInstance() {
+        if (instance == null) {
+            synchronized (CallLogBatchUploader.class) {
+                if (instance == null) {
+                    instance = new CallLogBatchUploader(HttpClientFactory.getApiService(),
+                            DEFAULT_MAX_BATCH_SIZE, DEFAULT_MAX_AGE_MS, SERVER_HAS_BATCH_ENDPOINT,
+                            Executors.newSingleThreadScheduledExecutor(runnable -> {
+                                Thread thread = new Thread(runnable, "CallLog-Batch");
+                                thread.setDaemon(true);
+                                return thread;
+                            }));
+                }
+            }
+        }
+        return instance;
+    }
+
+    public CallLogBatchUploader(ApiService apiService, int maxBatchSize, long maxAgeMs,
+                                boolean batchEndpoint, ScheduledExecutorService scheduler) {
+        this.apiService = apiService;
+        this.maxBatchSize = maxBatchSize;
+        this.maxAgeMs = maxAgeMs;
+        this.batchEndpoint = batchEndpoint;
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Queue a call log for the next batch. A client id is assigned if the
+     * request has none; it is how the result is matched back to the request.
+     */
+    public void enqueue(ApiService.CreateCallLogRequest request, Listener listener) {
+        if (request.getClient_id() == null) {
+            request.setClient_id(UUID.randomUUID().toString());
+        }
+
+        List<Pending> full = null;
+        synchronized (lock) {
+            pending.add(new Pending(request, listener));
+            if (pending.size() >= maxBatchSize) {
+                full = drainLocked();
+            } else if (ageFlush == null) {
+                ageFlush = scheduler.schedule(this::flushNow, maxAgeMs, TimeUnit.MILLISECONDS);
+            }
+        }
+        if (full != null) {
+            List<Pending> batch = full;
+            scheduler.execute(() -> send(batch));
+        }
+    }
+
+    /**
+     * Send whatever is pending without waiting for the batch to fill up
+     */
+    public void flush() {
+        scheduler.execute(this::flushNow);
+    }
+
+    public int getPendingCount() {
+        synchronized (lock) {
+            return pending.size();
+        }
+    }
+
+    private void flushNow() {
+        List<Pending> batch;
+        synchronized (lock) {
+            batch = drainLocked();
+        }
+        if (!batch.isEmpty()) {
+            send(batch);
+        }
+    }
+
+    private List<Pending> drainLocked() {
+        if (ageFlush != null) {
+            ageFlush.cancel(false);
+            ageFlush = null;
+        }
+        List<Pending> batch = pending;
+        pending = new ArrayList<>();
+        return batch;
+    }
+
+    private void send(List<Pending> batch) {
+        if (!batchEndpoint) {
+            sendEach(batch);
+            return;
+        }
+
+        List<ApiService.CreateCallLogRequest> items = new ArrayList<>(batch.size());
+        for (Pending entry : batch) {
+            items.add(entry.request);
+        }
+        NetworkMetrics.increment(METRIC_BATCHES);
+        NetworkMetrics.add(METRIC_ITEMS, items.size());
+
+        RequestProgress progress = new RequestProgress();
+        Call<ApiResponse<ApiService.BatchCallLogResponse>> call = apiService.createCallLogsBatch(
+                ApiService.SESSION_AUTH, progress, new ApiService.BatchCallLogRequest(items));
+        Response<ApiResponse<ApiService.BatchCallLogResponse>> response;
+        try {
+            response = call.execute();
+        } catch (IOException e) {
+            Log.w(TAG, "📦 Batch of " + items.size() + " call logs failed: " + e.getMessage());
+            if (RequestProgress.canResend(progress, call.request())) {
+                failAll(batch, ERROR_NETWORK + e.getMessage(), true);
+            } else {
+                failAll(batch, ERROR_OUTCOME_UNKNOWN, false);
+            }
+            return;
+        }
+
+        ApiResponse<ApiService.BatchCallLogResponse> body = response.body();
+        if (!response.isSuccessful() || body == null) {
+            int code = response.code();
+            if (code == 404 || code == 405 || code == 501) {
+                Log.w(TAG, "📦 Server has no batch endpoint (HTTP " + code + "); posting call logs one by one");
+                batchEndpoint = false;
+                sendEach(batch);
+                return;
+            }
+            boolean retryable = isRetryable(code);
+            Log.w(TAG, "📦 Batch of " + items.size() + " call logs rejected: HTTP " + code);
+            failAll(batch, errorFor(code, response.message()), retryable);
+            return;
+        }
+        if (body.getData() == null || body.getData().getResults() == null) {
+            // A well-formed rejection is final; a success without results is not
+            failAll(batch, body.getErrorMessage(), body.isSuccess());
+            return;
+        }
+
+        Map<String, ApiService.BatchCallLogResult> byClientId = new HashMap<>();
+        List<ApiService.BatchCallLogResult> results = body.getData().getResults();
+        for (ApiService.BatchCallLogResult result : results) {
+            if (result != null && result.getClient_id() != null) {
+                byClientId.put(result.getClient_id(), result);
+            }
+        }
+
+        int failed = 0;
+        for (int i = 0; i < batch.size(); i++) {
+            Pending entry = batch.get(i);
+            ApiService.BatchCallLogResult result = byClientId.get(entry.request.getClient_id());
+            if (result == null && byClientId.isEmpty() && i < results.size()) {
+                // Server did not echo client ids; fall back to position
+                result = results.get(i);
+            }
+
+            if (result == null) {
+                failed++;
+                notifyFailed(entry, "No result for call log", true);
+            } else if (result.isSuccess()) {
+                notifyUploaded(entry, result);
+            } else {
+                failed++;
+                notifyFailed(entry, result.getError(), result.isRetryable());
+            }
+        }
+        NetworkMetrics.add(METRIC_ITEM_FAILURES, failed);
+        Log.d(TAG, "📦 Uploaded batch: " + (batch.size() - failed) + "/" + batch.size() + " call logs accepted");
+    }
+
+    /**
+     * One {@code POST call-logs} per item, in order. After a failure that may
+     * pass on a later attempt the rest are failed the same way without being sent.
+     */
+    private void sendEach(List<Pending> batch) {
+        int failed = 0;
+        for (int i = 0; i < batch.size(); i++) {
+            Pending entry = batch.get(i);
+            NetworkMetrics.increment(METRIC_SINGLE_POSTS);
+            RequestProgress progress = new RequestProgress();
+            Call<ApiResponse<ApiService.CallLogWithTicketResponse>> call =
+                    apiService.createCallLogWithTicket(ApiService.SESSION_AUTH, progress, entry.request);
+            Response<ApiResponse<ApiService.CallLogWithTicketResponse>> response;
+            try {
+                response = call.execute();
+            } catch (IOException e) {
+                Log.w(TAG, "Call log upload failed: " + e.getMessage());
+                if (!RequestProgress.canResend(progress, call.request())) {
+                    NetworkMetrics.increment(METRIC_ITEM_FAILURES);
+                    notifyFailed(entry, ERROR_OUTCOME_UNKNOWN, false);
+                    i++;
+                }
+                failRest(batch, i, ERROR_NETWORK + e.getMessage());
+                return;
+            }
+
+            ApiResponse<ApiService.CallLogWithTicketResponse> body = response.body();
+            if (response.isSuccessful() && body != null && body.isSuccess()) {
+                notifyUploaded(entry, resultOf(entry.request, body.getData()));
+                continue;
+            }
+            int code = response.code();
+            if (!response.isSuccessful() && isRetryable(code)) {
+                Log.w(TAG, "Call log upload deferred: HTTP " + code);
+                failRest(batch, i, errorFor(code, response.message()));
+                return;
+            }
+            failed++;
+            NetworkMetrics.increment(METRIC_ITEM_FAILURES);
+            notifyFailed(entry, body != null ? body.getErrorMessage() : "HTTP " + code + ": " + response.message(), false);
+        }
+        if (failed > 0) {
+            Log.d(TAG, "Uploaded " + (batch.size() - failed) + "/" + batch.size() + " call logs");
+        }
+    }
+
+    private void failRest(List<Pending> batch, int from, String error) {
+        if (from < batch.size()) {
+            failAll(batch.subList(from, batch.size()), error, true);
+        }
+    }
+
+    private static ApiService.BatchCallLogResult resultOf(ApiService.CreateCallLogRequest request,
+                                                          ApiService.CallLogWithTicketResponse data) {
+        ApiService.BatchCallLogResult result = new ApiService.BatchCallLogResult();
+        result.setClient_id(request.getClient_id());
+        result.setSuccess(true);
+        if (data != null) {
+            result.setCall_log(data.getCall_log());
+            result.setTicket(data.getTicket());
+        }
+        return result;
+    }
+
+    /**
+     * May pass if sent again later. A 404 counts: the data is the user's, and a
+     * missing route is a deployment problem, not a verdict on the record. So
+     * does a 401, which says the session has ended, not that the record is bad.
+     */
+    private static boolean isRetryable(int code) {
+        return code >= 500 || code == 401 || code == 404 || code == 408 || code == 429;
+    }
+
+    /**
+     * Whether {@code error} says the call log never reached the backend, so
+     * the failure says nothing about the record itself
+     */
+    public static boolean isNetworkError(String error) {
+        return error != null && error.startsWith(ERROR_NETWORK);
+    }
+
+    private static String errorFor(int code, String message) {
+        return code == 401 ? ERROR_UNAUTHORIZED : "HTTP " + code + ": " + message;
+    }
+
+    private void failAll(List<Pending> batch, String error, boolean retryable) {
+        NetworkMetrics.increment(METRIC_BATCH_FAILURES);
+        NetworkMetrics.add(METRIC_ITEM_FAILURES, batch.size());
+        for (Pending entry : batch) {
+            notifyFailed(entry, error, retryable);
+        }
+    }
+
+    private static void notifyUploaded(Pending entry, ApiService.BatchCallLogResult result) {
+        try {
+            entry.listener.onUploaded(entry.request, result);
+        } catch (RuntimeException e) {
+            Log.e(TAG, "Call log listener failed", e);
+        }
+    }
+
+    private static void notifyFailed(Pending entry, String error, boolean retryable) {
+        try {
+            entry.listener.onFailed(entry.request, error != null ? error : "Unknown error", retryable);
+        } catch (RuntimeException e) {
+            Log.e(TAG, "Call log listener failed", e);
+        }
+    }
+
+    private static final class Pending {
+        final ApiService.CreateCallLogRequest request;
+        final Listener listener;
+
+        Pending(ApiService.CreateCallLogRequest request, Listener listener) {
+            this.request = request;
+            this.listener = listener;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.calltrackerpro.calltracker.network;
+
+/**
+ * Closed / open / half-open state for one group of backend endpoints.
+ *
+ * Consecutive failures open the circuit; while open, calls are refused
+ * without touching the network. Once the open period has passed, a single
+ * probe is let through (half-open): success closes the circuit, failure
+ * re-opens it for twice as long, up to {@link #MAX_OPEN_MS}.
+ */
+public final class CircuitBreaker {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    static final int FAILURE_THRESHOLD = 3;
+    static final long BASE_OPEN_MS = 15_000;
+    static final long MAX_OPEN_MS = 120_000;
+
+    private final String group;
+    private State state = State.CLOSED;
+    private int consecutiveFailures = 0;
+    private long openMs = BASE_OPEN_MS;
+    private long openedAt;
+    private boolean probeInFlight = false;
+
+    CircuitBreaker(String group) {
+        this.group = group;
+    }
+
+    public String getGroup() {
+        return group;
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * Whether a call may go to the network now; a true answer in the
+     * half-open state makes the caller the probe
+     */
+    synchronized boolean tryAcquire(long now) {
+        switch (state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if (now - openedAt < openMs) {
+                    return false;
+                }
+                state = State.HALF_OPEN;
+                probeInFlight = true;
+                return true;
+            default:
+                if (probeInFlight) {
+                    return false;
+                }
+                probeInFlight = true;
+                return true;
+        }
+    }
+
+    /**
+     * @return the previous state
+     */
+    synchronized State onSuccess() {
+        State previous = state;
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+        openMs = BASE_OPEN_MS;
+        probeInFlight = false;
+        return previous;
+    }
+
+    /**
+     * @return the previous state
+     */
+    synchronized State onFailure(long now) {
+        State previous = state;
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN) {
+            openMs = Math.min(MAX_OPEN_MS, openMs * 2);
+            open(now);
+        } else if (state == State.CLOSED && consecutiveFailures >= FAILURE_THRESHOLD) {
+            open(now);
+        }
+        return previous;
+    }
+
+    /**
+     * The call went out but ended without a verdict (e.g. cancelled)
+     */
+    synchronized void onAbandoned() {
+        probeInFlight = false;
+    }
+
+    private void open(long now) {
+        state = State.OPEN;
+        openedAt = now;
+        probeInFlight = false;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return group + "=" + state + (consecutiveFailures > 0 ? " (" + consecutiveFailures + " failures)" : "");
+    }
+}
@@ -0,0 +1,184 @@
+package com.calltrackerpro.calltracker.network;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import okhttp3.CacheControl;
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Circuit breakers for the backend, one per endpoint group (the first path
+ * segment under /api/: "tickets", "call-logs", "contacts", ...).
+ *
+ * The interceptor sits in front of every ApiService call. While a group's
+ * circuit is open, GETs are answered from the HTTP cache, even stale, if an
+ * entry exists, and everything else fails fast with
+ * {@link CircuitOpenException}; callers that queue work (the call-log
+ * uploader) keep it for later. Screens do not track connectivity
+ * themselves: they listen here, through the dashboard's connectivity
+ * banner.
+ */
+public final class CircuitBreakerRegistry {
+    private static final String TAG = "CircuitBreaker";
+
+    public static final String METRIC_REJECTED = "http.circuit.rejected";
+    public static final String METRIC_CACHE_FALLBACKS = "http.circuit.cache_fallbacks";
+    public static final String METRIC_OPENED = "http.circuit.opened";
+    public static final String METRIC_OPEN_GROUPS = "http.circuit.open_groups";
+
+    private static final String API_PREFIX = "/api/";
+
+    public interface Listener {
+        /**
+         * Called on the main thread whenever a group opens or closes;
+         * {@code openGroups} is empty once the backend is reachable again
+         */
+        void onBackendStateChanged(List<String> openGroups);
+    }
+
+    private static final CircuitBreakerRegistry instance = new CircuitBreakerRegistry();
+
+    private final Map<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    public static CircuitBreakerRegistry getInstance() {
+        return instance;
+    }
+
+    private CircuitBreakerRegistry() {}
+
+    public Interceptor interceptor() {
+        return this::intercept;
+    }
+
+    /**
+     * Register for state changes; the listener is told the current state right away
+     */
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+        List<String> open = getOpenGroups();
+        mainHandler.post(() -> listener.onBackendStateChanged(open));
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Groups currently refusing calls (open or probing), sorted
+     */
+    public List<String> getOpenGroups() {
+        TreeSet<String> open = new TreeSet<>();
+        for (CircuitBreaker breaker : breakers.values()) {
+            if (breaker.getState() != CircuitBreaker.State.CLOSED) {
+                open.add(breaker.getGroup());
+            }
+        }
+        return new ArrayList<>(open);
+    }
+
+    public CircuitBreaker.State getState(String group) {
+        CircuitBreaker breaker = breakers.get(group);
+        return breaker != null ? breaker.getState() : CircuitBreaker.State.CLOSED;
+    }
+
+    public String getStats() {
+        return breakers.values().toString();
+    }
+
+    private Response intercept(Interceptor.Chain chain) throws IOException {
+        Request request = chain.request();
+        String group = groupOf(request);
+        CircuitBreaker breaker = breakers.computeIfAbsent(group, CircuitBreaker::new);
+
+        if (!breaker.tryAcquire(System.currentTimeMillis())) {
+            return fallback(chain, request, group);
+        }
+
+        Response response;
+        try {
+            response = chain.proceed(request);
+        } catch (IOException e) {
+            if (chain.call().isCanceled()) {
+                breaker.onAbandoned();
+            } else {
+                onFailure(breaker);
+            }
+            throw e;
+        } catch (RuntimeException e) {
+            breaker.onAbandoned();
+            throw e;
+        }
+
+        if (response.code() >= 500) {
+            onFailure(breaker);
+        } else {
+            CircuitBreaker.State previous = breaker.onSuccess();
+            if (previous != CircuitBreaker.State.CLOSED) {
+                Log.i(TAG, "✅ Circuit closed for " + group);
+                notifyChanged();
+            }
+        }
+        return response;
+    }
+
+    private Response fallback(Interceptor.Chain chain, Request request, String group) throws IOException {
+        if ("GET".equals(request.method())) {
+            Response cached = chain.proceed(request.newBuilder()
+                    .cacheControl(CacheControl.FORCE_CACHE)
+                    .build());
+            if (cached.isSuccessful()) {
+                NetworkMetrics.increment(METRIC_CACHE_FALLBACKS);
+                return cached;
+            }
+            // 504 from only-if-cached: nothing stored for this request
+            cached.close();
+        }
+        NetworkMetrics.increment(METRIC_REJECTED);
+        throw new CircuitOpenException(group);
+    }
+
+    private void onFailure(CircuitBreaker breaker) {
+        CircuitBreaker.State previous = breaker.onFailure(System.currentTimeMillis());
+        if (previous != CircuitBreaker.State.OPEN && breaker.getState() == CircuitBreaker.State.OPEN) {
+            if (previous == CircuitBreaker.State.CLOSED) {
+                NetworkMetrics.increment(METRIC_OPENED);
+                Log.w(TAG, "⚡ Circuit opened for " + breaker.getGroup());
+            }
+            notifyChanged();
+        }
+    }
+
+    private void notifyChanged() {
+        List<String> open = getOpenGroups();
+        NetworkMetrics.setGauge(METRIC_OPEN_GROUPS, open.size());
+        mainHandler.post(() -> {
+            for (Listener listener : listeners) {
+                listener.onBackendStateChanged(open);
+            }
+        });
+    }
+
+    static String groupOf(Request request) {
+        String path = request.url().encodedPath();
+        int start = path.indexOf(API_PREFIX);
+        if (start < 0) {
+            return request.url().host();
+        }
+        start += API_PREFIX.length();
+        int end = path.indexOf('/', start);
+        return end < 0 ? path.substring(start) : path.substring(start, end);
+    }
+}
@@ -0,0 +1,21 @@
+package com.calltrackerpro.calltracker.network;
+
+import java.io.IOException;
+
+/**
+ * A call was refused locally because its endpoint group's circuit is open.
+ * It is an IOException so existing onFailure paths treat it like any other
+ * network failure (and queued work stays retryable).
+ */
+public class CircuitOpenException extends IOException {
+    private final String group;
+
+    public CircuitOpenException(String group) {
+        super("Backend unavailable (" + group + "), failing fast");
+        this.group = group;
+    }
+
+    public String getGroup() {
+        return group;
+    }
+}
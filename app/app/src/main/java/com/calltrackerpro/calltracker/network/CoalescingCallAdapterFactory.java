@@ -0,0 +1,237 @@
+package com.calltrackerpro.calltracker.network;
+
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import okhttp3.Request;
+import okio.Timeout;
+import retrofit2.Call;
+import retrofit2.CallAdapter;
+import retrofit2.Callback;
+import retrofit2.Response;
+import retrofit2.Retrofit;
+import retrofit2.http.GET;
+import retrofit2.http.Streaming;
+
+/**
+ * Coalesces identical in-flight GET requests made through ApiService.
+ *
+ * When several screens enqueue the same GET (same URL and tenant) while one
+ * is already on the wire, they all wait for that single network call and
+ * receive the same parsed response. Each caller can still cancel on its own;
+ * the shared call is only cancelled once every waiter has gone.
+ *
+ * Sits in front of Retrofit's default adapter, so callbacks are still
+ * delivered on the main thread. Synchronous execute() and {@code @Streaming}
+ * calls (whose body can only be read once) are not coalesced.
+ * Waiters share the parsed body, so treat it as read-only.
+ */
+public final class CoalescingCallAdapterFactory extends CallAdapter.Factory {
+
+    public static final String METRIC_FLIGHTS = "http.coalesce.flights";
+    public static final String METRIC_SAVED = "http.coalesce.saved";
+
+    private final Map<String, Flight<?>> inFlight = new HashMap<>();
+
+    @Override
+    public CallAdapter<?, ?> get(Type returnType, Annotation[] annotations, Retrofit retrofit) {
+        if (getRawType(returnType) != Call.class || !isGet(annotations) || isStreaming(annotations)) {
+            return null;
+        }
+
+        @SuppressWarnings("unchecked")
+        final CallAdapter<Object, Object> delegate =
+                (CallAdapter<Object, Object>) retrofit.nextCallAdapter(this, returnType, annotations);
+
+        return new CallAdapter<Object, Object>() {
+            @Override
+            public Type responseType() {
+                return delegate.responseType();
+            }
+
+            @Override
+            public Object adapt(Call<Object> call) {
+                return delegate.adapt(new CoalescingCall<>(call));
+            }
+        };
+    }
+
+    private static boolean isGet(Annotation[] annotations) {
+        for (Annotation annotation : annotations) {
+            if (annotation instanceof GET) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isStreaming(Annotation[] annotations) {
+        for (Annotation annotation : annotations) {
+            if (annotation instanceof Streaming) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String keyOf(Request request) {
+        return request.url() + "#" + AuthSession.getTenantScope();
+    }
+
+    /**
+     * One network call and the callers waiting on it
+     */
+    private final class Flight<T> implements Callback<T> {
+        private final String key;
+        private final Call<T> networkCall;
+        private final List<CoalescingCall<T>> waiters = new ArrayList<>();
+
+        Flight(String key, Call<T> networkCall) {
+            this.key = key;
+            this.networkCall = networkCall;
+        }
+
+        @Override
+        public void onResponse(Call<T> call, Response<T> response) {
+            for (CoalescingCall<T> waiter : complete()) {
+                waiter.deliver(response, null);
+            }
+        }
+
+        @Override
+        public void onFailure(Call<T> call, Throwable t) {
+            for (CoalescingCall<T> waiter : complete()) {
+                waiter.deliver(null, t);
+            }
+        }
+
+        private List<CoalescingCall<T>> complete() {
+            synchronized (inFlight) {
+                if (inFlight.get(key) == this) {
+                    inFlight.remove(key);
+                }
+                List<CoalescingCall<T>> delivered = new ArrayList<>(waiters);
+                waiters.clear();
+                return delivered;
+            }
+        }
+    }
+
+    /**
+     * Per-caller view of a possibly shared network call
+     */
+    private final class CoalescingCall<T> implements Call<T> {
+        private final Call<T> delegate;
+        private volatile boolean executed = false;
+        private volatile boolean canceled = false;
+        private Callback<T> callback;
+        private Flight<T> flight;
+
+        CoalescingCall(Call<T> delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public Response<T> execute() throws IOException {
+            executed = true;
+            return delegate.execute();
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void enqueue(Callback<T> callback) {
+            if (executed) throw new IllegalStateException("Already executed.");
+            executed = true;
+            this.callback = callback;
+
+            String key = keyOf(delegate.request());
+            boolean leader = false;
+            synchronized (inFlight) {
+                Flight<T> existing = (Flight<T>) inFlight.get(key);
+                if (existing == null) {
+                    existing = new Flight<>(key, delegate);
+                    inFlight.put(key, existing);
+                    leader = true;
+                }
+                existing.waiters.add(this);
+                flight = existing;
+            }
+
+            if (leader) {
+                NetworkMetrics.increment(METRIC_FLIGHTS);
+                delegate.enqueue(flight);
+            } else {
+                NetworkMetrics.increment(METRIC_SAVED);
+            }
+        }
+
+        void deliver(Response<T> response, Throwable failure) {
+            if (response != null) {
+                callback.onResponse(this, response);
+            } else {
+                callback.onFailure(this, failure);
+            }
+        }
+
+        @Override
+        public boolean isExecuted() {
+            return executed;
+        }
+
+        @Override
+        public void cancel() {
+            Flight<T> current = flight;
+            if (current == null) {
+                canceled = true;
+                delegate.cancel();
+                return;
+            }
+
+            boolean wasWaiting;
+            boolean lastWaiter;
+            synchronized (inFlight) {
+                wasWaiting = current.waiters.remove(this);
+                lastWaiter = wasWaiting && current.waiters.isEmpty();
+                if (lastWaiter && inFlight.get(current.key) == current) {
+                    inFlight.remove(current.key);
+                }
+            }
+            if (!wasWaiting) {
+                // Response already handed out
+                return;
+            }
+
+            canceled = true;
+            if (lastWaiter) {
+                current.networkCall.cancel();
+            }
+            // Same contract as a plain Retrofit call: a cancelled call fails with "Canceled"
+            callback.onFailure(this, new IOException("Canceled"));
+        }
+
+        @Override
+        public boolean isCanceled() {
+            return canceled;
+        }
+
+        @Override
+        public Call<T> clone() {
+            return new CoalescingCall<>(delegate.clone());
+        }
+
+        @Override
+        public Request request() {
+            return delegate.request();
+        }
+
+        @Override
+        public Timeout timeout() {
+            return delegate.timeout();
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package com.calltrackerpro.calltracker.network;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.net.ConnectivityManager;
+import android.net.Network;
+import android.util.Log;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Dns;
+
+/**
+ * Caching {@link Dns} that keeps answers in memory and on disk.
+ *
+ * A fresh entry is returned straight away. A stale one is still returned,
+ * and a single background lookup refreshes it, so DNS is not on the
+ * critical path of a request once a host has been seen, not even after a
+ * cold start (entries survive on disk) or a network change (entries are
+ * marked stale and refreshed, not dropped). Only a host that has never been
+ * resolved blocks on the system resolver.
+ *
+ * The platform resolver does not expose record TTLs, so a fixed freshness
+ * window is used and entries are served stale for at most a day.
+ */
+public final class DnsCache implements Dns {
+    private static final String TAG = "DnsCache";
+    private static final String PREFS_NAME = "dns_cache";
+
+    private static final long FRESH_MS = TimeUnit.MINUTES.toMillis(5);
+    private static final long MAX_STALE_MS = TimeUnit.HOURS.toMillis(24);
+
+    public static final String METRIC_HITS = "dns.cache.hits";
+    public static final String METRIC_STALE_HITS = "dns.cache.stale_hits";
+    public static final String METRIC_MISSES = "dns.cache.misses";
+    public static final String METRIC_REFRESHES = "dns.refreshes";
+    public static final String METRIC_REFRESH_FAILURES = "dns.refresh_failures";
+    public static final String METRIC_LOOKUP_MS = "dns.lookup_ms";
+
+    private static volatile DnsCache instance;
+
+    private final Dns upstream;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<String, Boolean> refreshing = new ConcurrentHashMap<>();
+    private final ExecutorService refresher = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "CallTracker-DnsRefresh");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile SharedPreferences prefs;
+
+    public static DnsCache getInstance() {
+        if (instance == null) {
+            synchronized (DnsCache.class) {
+                if (instance == null) {
+                    instance = new DnsCache(Dns.SYSTEM);
+                }
+            }
+        }
+        return instance;
+    }
+
+    DnsCache(Dns upstream) {
+        this.upstream = upstream;
+    }
+
+    /**
+     * Load persisted entries and follow default-network changes. Call once
+     * from Application.onCreate(); without it the cache is memory-only.
+     */
+    public synchronized void init(Context context) {
+        if (prefs != null) return;
+        Context appContext = context.getApplicationContext();
+        prefs = appContext.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        loadFromDisk();
+
+        ConnectivityManager cm = (ConnectivityManager) appContext.getSystemService(Context.CONNECTIVITY_SERVICE);
+        if (cm != null) {
+            try {
+                cm.registerDefaultNetworkCallback(new ConnectivityManager.NetworkCallback() {
+                    @Override
+                    public void onAvailable(Network network) {
+                        onNetworkChanged();
+                    }
+                });
+            } catch (RuntimeException e) {
+                Log.w(TAG, "Could not watch network changes: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Resolve hosts in the background so the first request finds them cached
+     */
+    public void preResolve(String... hosts) {
+        for (String host : hosts) {
+            Entry entry = entries.get(host);
+            if (entry == null || !entry.isFresh(System.currentTimeMillis())) {
+                refreshAsync(host);
+            }
+        }
+    }
+
+    @Override
+    public List<InetAddress> lookup(String hostname) throws UnknownHostException {
+        long now = System.currentTimeMillis();
+        Entry entry = entries.get(hostname);
+        if (entry != null && entry.isFresh(now)) {
+            NetworkMetrics.increment(METRIC_HITS);
+            return entry.addresses;
+        }
+        if (entry != null && now - entry.resolvedAt < MAX_STALE_MS) {
+            NetworkMetrics.increment(METRIC_STALE_HITS);
+            refreshAsync(hostname);
+            return entry.addresses;
+        }
+
+        NetworkMetrics.increment(METRIC_MISSES);
+        return resolve(hostname);
+    }
+
+    /**
+     * Keep the addresses but revalidate every host on next use
+     */
+    public void onNetworkChanged() {
+        for (Map.Entry<String, Entry> item : entries.entrySet()) {
+            item.setValue(item.getValue().asStale());
+        }
+        Log.d(TAG, "🌐 Network changed, refreshing " + entries.size() + " cached hosts");
+        preResolve(entries.keySet().toArray(new String[0]));
+    }
+
+    private List<InetAddress> resolve(String hostname) throws UnknownHostException {
+        long start = System.nanoTime();
+        List<InetAddress> addresses = upstream.lookup(hostname);
+        NetworkMetrics.setGauge(METRIC_LOOKUP_MS, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        if (!addresses.isEmpty()) {
+            Entry entry = new Entry(Collections.unmodifiableList(new ArrayList<>(addresses)),
+                    System.currentTimeMillis());
+            entries.put(hostname, entry);
+            persist(hostname, entry);
+        }
+        return addresses;
+    }
+
+    private void refreshAsync(String hostname) {
+        if (refreshing.putIfAbsent(hostname, Boolean.TRUE) != null) {
+            return;
+        }
+        refresher.execute(() -> {
+            try {
+                NetworkMetrics.increment(METRIC_REFRESHES);
+                resolve(hostname);
+            } catch (UnknownHostException | RuntimeException e) {
+                // Keep serving the stale entry; EndpointSelector covers a dead primary
+                NetworkMetrics.increment(METRIC_REFRESH_FAILURES);
+                Log.w(TAG, "DNS refresh failed for " + hostname + ": " + e.getMessage());
+            } finally {
+                refreshing.remove(hostname);
+            }
+        });
+    }
+
+    private void loadFromDisk() {
+        long now = System.currentTimeMillis();
+        for (Map.Entry<String, ?> item : prefs.getAll().entrySet()) {
+            Entry entry = Entry.decode(item.getKey(), String.valueOf(item.getValue()));
+            if (entry != null && now - entry.resolvedAt < MAX_STALE_MS) {
+                entries.put(item.getKey(), entry);
+            }
+        }
+        Log.d(TAG, "Loaded " + entries.size() + " cached DNS entries");
+    }
+
+    private void persist(String hostname, Entry entry) {
+        SharedPreferences current = prefs;
+        if (current != null) {
+            current.edit().putString(hostname, entry.encode()).apply();
+        }
+    }
+
+    /**
+     * One host's addresses; stored as "resolvedAtMillis;ip,ip,..."
+     */
+    private static final class Entry {
+        final List<InetAddress> addresses;
+        final long resolvedAt;
+
+        Entry(List<InetAddress> addresses, long resolvedAt) {
+            this.addresses = addresses;
+            this.resolvedAt = resolvedAt;
+        }
+
+        boolean isFresh(long now) {
+            return now - resolvedAt < FRESH_MS;
+        }
+
+        Entry asStale() {
+            return new Entry(addresses, Math.min(resolvedAt, System.currentTimeMillis() - FRESH_MS));
+        }
+
+        String encode() {
+            StringBuilder value = new StringBuilder().append(resolvedAt).append(';');
+            for (int i = 0; i < addresses.size(); i++) {
+                if (i > 0) value.append(',');
+                value.append(addresses.get(i).getHostAddress());
+            }
+            return value.toString();
+        }
+
+        static Entry decode(String hostname, String value) {
+            int separator = value.indexOf(';');
+            if (separator <= 0) return null;
+            try {
+                long resolvedAt = Long.parseLong(value.substring(0, separator));
+                List<InetAddress> addresses = new ArrayList<>();
+                for (String ip : value.substring(separator + 1).split(",")) {
+                    if (ip.isEmpty()) continue;
+                    // IP literals parse without a lookup; keep the hostname for TLS logs
+                    InetAddress literal = InetAddress.getByName(ip);
+                    addresses.add(InetAddress.getByAddress(hostname, literal.getAddress()));
+                }
+                return addresses.isEmpty() ? null : new Entry(Collections.unmodifiableList(addresses), resolvedAt);
+            } catch (NumberFormatException | UnknownHostException e) {
+                return null;
+            }
+        }
+    }
+}
@@ -0,0 +1,287 @@
+package com.calltrackerpro.calltracker.network;
+
+import android.util.Log;
+
+import com.calltrackerpro.calltracker.services.ApiService;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import okhttp3.Dns;
+import okhttp3.HttpUrl;
+
+/**
+ * Fails over between the backend's addresses: whatever DNS returns for the
+ * primary host, plus the fixed fallback IPs from {@link ApiService}.
+ *
+ * Failover happens at the address level rather than by rewriting URLs, so
+ * TLS still validates the certificate (and sends SNI) for the real hostname.
+ * The lookup (normally answered by {@link DnsCache}) is raced against a short
+ * budget; if it is slow, the last good answer or the fallback IPs are used
+ * while it finishes in the background. Each endpoint keeps a rolling connect
+ * latency and health score fed by the client's event listener, and addresses
+ * are returned best first, which is the order OkHttp tries them in.
+ */
+public final class EndpointSelector implements Dns {
+    private static final String TAG = "EndpointSelector";
+
+    public static final String PRIMARY = "primary";
+
+    public static final String METRIC_FAILOVERS = "http.endpoint.failovers";
+    public static final String METRIC_DNS_TIMEOUTS = "http.endpoint.dns_timeouts";
+    private static final String METRIC_PREFIX = "http.endpoint.";
+
+    // How long a request waits for DNS before trying the fallbacks
+    private static final long DNS_BUDGET_MS = 2000;
+    private static final long DNS_BUDGET_DEGRADED_MS = 300;
+
+    // Rolling averages: weight of the newest sample
+    private static final double LATENCY_ALPHA = 0.3;
+    private static final double HEALTH_ALPHA = 0.2;
+
+    private static final int FAILURES_BEFORE_COOLDOWN = 3;
+    private static final long COOLDOWN_MS = 30_000;
+
+    private static volatile EndpointSelector instance;
+
+    private final Dns upstream;
+    private final String primaryHost;
+    private final Endpoint primary;
+    private final List<Endpoint> endpoints = new ArrayList<>();
+    private final ExecutorService resolver = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "CallTracker-Dns");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile List<InetAddress> lastResolved = Collections.emptyList();
+    private volatile Future<List<InetAddress>> pendingLookup;
+    private volatile String selected;
+
+    public static EndpointSelector getInstance() {
+        if (instance == null) {
+            synchronized (EndpointSelector.class) {
+                if (instance == null) {
+                    instance = new EndpointSelector(DnsCache.getInstance(), ApiService.BASE_URL,
+                            ApiService.FALLBACK_URL_IP, ApiService.FALLBACK_URL_IP2);
+                }
+            }
+        }
+        return instance;
+    }
+
+    EndpointSelector(Dns upstream, String baseUrl, String... fallbackUrls) {
+        this.upstream = upstream;
+        this.primaryHost = HttpUrl.get(baseUrl).host();
+        // Unknown endpoints start out assuming the primary is fastest
+        this.primary = new Endpoint(PRIMARY, null, 200);
+        endpoints.add(primary);
+        for (String url : fallbackUrls) {
+            String host = HttpUrl.get(url).host();
+            try {
+                // IP literals: no lookup happens here
+                endpoints.add(new Endpoint(host, InetAddress.getByName(host), 400));
+            } catch (UnknownHostException e) {
+                Log.w(TAG, "Ignoring fallback endpoint " + url + ": " + e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public List<InetAddress> lookup(String hostname) throws UnknownHostException {
+        if (!primaryHost.equalsIgnoreCase(hostname)) {
+            return upstream.lookup(hostname);
+        }
+
+        List<InetAddress> resolved = resolvePrimary(hostname);
+        List<Endpoint> ranked = rank();
+        List<InetAddress> addresses = new ArrayList<>();
+        for (Endpoint endpoint : ranked) {
+            if (endpoint == primary) {
+                addresses.addAll(resolved);
+            } else {
+                addresses.add(endpoint.address);
+            }
+        }
+        if (addresses.isEmpty()) {
+            throw new UnknownHostException("No reachable endpoint for " + hostname);
+        }
+
+        String best = endpointFor(addresses.get(0)).name;
+        String previous = selected;
+        if (previous != null && !previous.equals(best)) {
+            NetworkMetrics.increment(METRIC_FAILOVERS);
+            Log.w(TAG, "🔀 Failing over from " + previous + " to " + best);
+        }
+        selected = best;
+        NetworkMetrics.increment(METRIC_PREFIX + best + ".selected");
+        return addresses;
+    }
+
+    public String getPrimaryHost() {
+        return primaryHost;
+    }
+
+    /**
+     * Name of the endpoint new connections currently go to first
+     */
+    public String getSelectedEndpoint() {
+        String current = selected;
+        return current != null ? current : PRIMARY;
+    }
+
+    /**
+     * A connection to {@code address} was established in {@code latencyMs}
+     */
+    public void recordConnectSuccess(InetAddress address, long latencyMs) {
+        Endpoint endpoint = endpointFor(address);
+        endpoint.recordSuccess(latencyMs);
+        publish(endpoint);
+    }
+
+    /**
+     * A connection attempt to, or a call over, {@code address} failed
+     */
+    public void recordFailure(InetAddress address) {
+        Endpoint endpoint = endpointFor(address);
+        endpoint.recordFailure();
+        publish(endpoint);
+    }
+
+    /**
+     * One line per endpoint, best first, for logs and the debug screen
+     */
+    public String getEndpointStats() {
+        StringBuilder stats = new StringBuilder();
+        for (Endpoint endpoint : rank()) {
+            if (stats.length() > 0) stats.append("; ");
+            stats.append(endpoint);
+        }
+        return stats.toString();
+    }
+
+    private List<InetAddress> resolvePrimary(String hostname) {
+        Future<List<InetAddress>> lookup = pendingLookup;
+        if (lookup == null || lookup.isDone()) {
+            lookup = resolver.submit(() -> {
+                List<InetAddress> result = upstream.lookup(hostname);
+                lastResolved = result;
+                return result;
+            });
+            pendingLookup = lookup;
+        }
+
+        // Don't make every request wait on a lookup that has been failing
+        long budget = primary.isDegraded() ? DNS_BUDGET_DEGRADED_MS : DNS_BUDGET_MS;
+        try {
+            return lookup.get(budget, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // Keep it running; the result is picked up via lastResolved
+            NetworkMetrics.increment(METRIC_DNS_TIMEOUTS);
+            Log.w(TAG, "⏱️ DNS for " + hostname + " slower than " + budget + "ms, using fallbacks");
+            return lastResolved;
+        } catch (ExecutionException e) {
+            Log.w(TAG, "DNS lookup for " + hostname + " failed: " + e.getCause());
+            primary.recordFailure();
+            publish(primary);
+            return lastResolved;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return lastResolved;
+        }
+    }
+
+    private List<Endpoint> rank() {
+        List<Endpoint> ranked = new ArrayList<>(endpoints);
+        long now = System.currentTimeMillis();
+        Collections.sort(ranked, (a, b) -> Double.compare(a.score(now), b.score(now)));
+        return ranked;
+    }
+
+    private Endpoint endpointFor(InetAddress address) {
+        for (Endpoint endpoint : endpoints) {
+            if (endpoint.address != null && endpoint.address.equals(address)) {
+                return endpoint;
+            }
+        }
+        return primary;
+    }
+
+    private static void publish(Endpoint endpoint) {
+        NetworkMetrics.setGauge(METRIC_PREFIX + endpoint.name + ".latency_ms", endpoint.getLatencyMs());
+        NetworkMetrics.setGauge(METRIC_PREFIX + endpoint.name + ".health_pct", endpoint.getHealthPercent());
+    }
+
+    /**
+     * Rolling connect latency and success rate of one endpoint
+     */
+    private static final class Endpoint {
+        final String name;
+        final InetAddress address; // null for the DNS-resolved primary
+
+        private double latencyMs;
+        private double health = 1.0;
+        private int consecutiveFailures = 0;
+        private long cooldownUntil = 0;
+
+        Endpoint(String name, InetAddress address, double initialLatencyMs) {
+            this.name = name;
+            this.address = address;
+            this.latencyMs = initialLatencyMs;
+        }
+
+        synchronized void recordSuccess(long sampleMs) {
+            latencyMs += LATENCY_ALPHA * (sampleMs - latencyMs);
+            health += HEALTH_ALPHA * (1.0 - health);
+            consecutiveFailures = 0;
+            cooldownUntil = 0;
+        }
+
+        synchronized void recordFailure() {
+            health -= HEALTH_ALPHA * health;
+            consecutiveFailures++;
+            if (consecutiveFailures >= FAILURES_BEFORE_COOLDOWN) {
+                cooldownUntil = System.currentTimeMillis() + COOLDOWN_MS;
+            }
+        }
+
+        synchronized boolean isDegraded() {
+            return consecutiveFailures > 0;
+        }
+
+        /**
+         * Lower is better: latency inflated by recent failures; endpoints
+         * cooling down after repeated failures go last
+         */
+        synchronized double score(long now) {
+            double score = latencyMs * (1 + 4 * (1 - health));
+            if (now < cooldownUntil) {
+                score += 1_000_000;
+            }
+            return score;
+        }
+
+        synchronized long getLatencyMs() {
+            return Math.round(latencyMs);
+        }
+
+        synchronized long getHealthPercent() {
+            return Math.round(health * 100);
+        }
+
+        @Override
+        public synchronized String toString() {
+            return name + " " + Math.round(latencyMs) + "ms " + Math.round(health * 100) + "%"
+                    + (consecutiveFailures > 0 ? " failures=" + consecutiveFailures : "");
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.calltrackerpro.calltracker.network;
+
+import java.io.IOException;
+
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.GzipSink;
+import okio.Okio;
+
+/**
+ * Compresses request bodies of calls that declare "Content-Encoding: gzip"
+ * (e.g. via Retrofit's {@code @Headers}). The compressed body is buffered so
+ * its length is known and the request can be replayed by retries and the
+ * authenticator.
+ */
+public final class GzipRequestInterceptor implements Interceptor {
+
+    public static final String METRIC_BYTES_IN = "http.gzip.bytes_in";
+    public static final String METRIC_BYTES_OUT = "http.gzip.bytes_out";
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        RequestBody body = request.body();
+        if (body == null || !"gzip".equalsIgnoreCase(request.header("Content-Encoding"))
+                || body instanceof CompressedBody) {
+            return chain.proceed(request);
+        }
+
+        Buffer raw = new Buffer();
+        body.writeTo(raw);
+        long rawBytes = raw.size();
+
+        Buffer compressed = new Buffer();
+        BufferedSink gzip = Okio.buffer(new GzipSink(compressed));
+        gzip.writeAll(raw);
+        gzip.close();
+
+        NetworkMetrics.add(METRIC_BYTES_IN, rawBytes);
+        NetworkMetrics.add(METRIC_BYTES_OUT, compressed.size());
+        return chain.proceed(request.newBuilder()
+                .method(request.method(), new CompressedBody(body.contentType(), compressed))
+                .build());
+    }
+
+    private static final class CompressedBody extends RequestBody {
+        private final MediaType contentType;
+        private final Buffer compressed;
+
+        CompressedBody(MediaType contentType, Buffer compressed) {
+            this.contentType = contentType;
+            this.compressed = compressed;
+        }
+
+        @Override
+        public MediaType contentType() {
+            return contentType;
+        }
+
+        @Override
+        public long contentLength() {
+            return compressed.size();
+        }
+
+        @Override
+        public void writeTo(BufferedSink sink) throws IOException {
+            sink.write(compressed.snapshot());
+        }
+    }
+}
@@ -0,0 +1,344 @@
+package com.calltrackerpro.calltracker.network;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.calltrackerpro.calltracker.json.GsonProvider;
+import com.calltrackerpro.calltracker.services.ApiService;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.Call;
+import okhttp3.Connection;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.EventListener;
+import okhttp3.Handshake;
+import okhttp3.Interceptor;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.logging.HttpLoggingInterceptor;
+import retrofit2.Invocation;
+import retrofit2.Retrofit;
+import retrofit2.converter.gson.GsonConverterFactory;
+import retrofit2.http.Streaming;
+
+/**
+ * Single process-wide HTTP client stack.
+ *
+ * Every Retrofit/OkHttp user in the app goes through here so they share one
+ * connection pool, one dispatcher thread pool and one TLS session cache.
+ * Callers that need different settings derive a client with
+ * {@link #newClientBuilder()}, which keeps those shared resources.
+ */
+public final class HttpClientFactory {
+    private static final String TAG = "HttpClientFactory";
+
+    // Almost all traffic goes to one backend host over HTTP/2, so a handful
+    // of idle connections is plenty; keep them warm across screen changes.
+    private static final int MAX_IDLE_CONNECTIONS = 8;
+    private static final long KEEP_ALIVE_MINUTES = 5;
+    private static final int MAX_REQUESTS = 64;
+    private static final int MAX_REQUESTS_PER_HOST = 16;
+    // Background lane: enough to keep uploads moving, never enough to crowd the UI
+    private static final int MAX_BACKGROUND_REQUESTS = 4;
+    private static final int MAX_BACKGROUND_REQUESTS_PER_HOST = 2;
+
+    private static final String NETWORK_THREAD_PREFIX = "CallTracker-Http-";
+
+    public static final String METRIC_CALLS = "http.calls";
+    public static final String METRIC_CONNECTIONS_ACQUIRED = "http.connections.acquired";
+    public static final String METRIC_CONNECTIONS_CREATED = "http.connections.created";
+    public static final String METRIC_CONNECTIONS_REUSED = "http.connections.reused";
+    public static final String METRIC_CONNECT_FAILURES = "http.connections.failed";
+    public static final String METRIC_TLS_HANDSHAKES = "http.tls.handshakes";
+    public static final String METRIC_HTTP2_CONNECTIONS = "http.connections.h2";
+
+    // Shared across every Retrofit instance so identical GETs coalesce app-wide
+    private static final CoalescingCallAdapterFactory COALESCING_ADAPTER = new CoalescingCallAdapterFactory();
+
+    private static volatile HttpResponseCache responseCache;
+    private static volatile OkHttpClient baseClient;
+    private static volatile Dispatcher backgroundDispatcher;
+    private static volatile Retrofit retrofit;
+    private static volatile ApiService apiService;
+
+    private HttpClientFactory() {}
+
+    /**
+     * Attach app storage (response cache). Call once from Application.onCreate(),
+     * before the first request; without it the client simply runs uncached.
+     */
+    public static synchronized void init(Context context) {
+        if (responseCache == null && baseClient == null) {
+            responseCache = new HttpResponseCache(context.getApplicationContext().getCacheDir());
+        }
+    }
+
+    public static HttpResponseCache getResponseCache() {
+        return responseCache;
+    }
+
+    /**
+     * Shared base client. Do not add per-caller interceptors to this one -
+     * use {@link #newClientBuilder()} instead.
+     */
+    public static OkHttpClient getBaseClient() {
+        if (baseClient == null) {
+            synchronized (HttpClientFactory.class) {
+                if (baseClient == null) {
+                    baseClient = createBaseClient();
+                }
+            }
+        }
+        return baseClient;
+    }
+
+    /**
+     * Builder derived from the shared client. Clients built from it reuse the
+     * shared connection pool, dispatcher and event listener.
+     */
+    public static OkHttpClient.Builder newClientBuilder() {
+        return getBaseClient().newBuilder();
+    }
+
+    /**
+     * Shared Retrofit instance bound to the base client and {@link ApiService#BASE_URL}
+     */
+    public static Retrofit getRetrofit() {
+        if (retrofit == null) {
+            synchronized (HttpClientFactory.class) {
+                if (retrofit == null) {
+                    retrofit = newRetrofit(getBaseClient());
+                }
+            }
+        }
+        return retrofit;
+    }
+
+    /**
+     * Shared ApiService proxy
+     */
+    public static ApiService getApiService() {
+        if (apiService == null) {
+            synchronized (HttpClientFactory.class) {
+                if (apiService == null) {
+                    apiService = getRetrofit().create(ApiService.class);
+                }
+            }
+        }
+        return apiService;
+    }
+
+    /**
+     * Retrofit for a derived client, e.g. one with extra headers. Calls are
+     * dispatched in their {@link RequestLane}; {@code client} serves the
+     * interactive lane.
+     */
+    public static Retrofit newRetrofit(OkHttpClient client) {
+        return new Retrofit.Builder()
+                .baseUrl(ApiService.BASE_URL)
+                .callFactory(new LaneCallFactory(client, getBackgroundDispatcher()))
+                .addCallAdapterFactory(COALESCING_ADAPTER)
+                .addConverterFactory(GsonConverterFactory.create(GsonProvider.getGson()))
+                .build();
+    }
+
+    private static Dispatcher getBackgroundDispatcher() {
+        // Created together with the base client
+        getBaseClient();
+        return backgroundDispatcher;
+    }
+
+    public static int getIdleConnectionCount() {
+        return getBaseClient().connectionPool().idleConnectionCount();
+    }
+
+    public static int getConnectionCount() {
+        return getBaseClient().connectionPool().connectionCount();
+    }
+
+    /**
+     * Short summary of connection reuse, for logs and the debug screen
+     */
+    public static String getConnectionStats() {
+        long acquired = NetworkMetrics.get(METRIC_CONNECTIONS_ACQUIRED);
+        long reused = NetworkMetrics.get(METRIC_CONNECTIONS_REUSED);
+        int reusePercent = acquired > 0 ? (int) (reused * 100 / acquired) : 0;
+        return "calls=" + NetworkMetrics.get(METRIC_CALLS)
+                + ", acquired=" + acquired
+                + ", created=" + NetworkMetrics.get(METRIC_CONNECTIONS_CREATED)
+                + ", reused=" + reused + " (" + reusePercent + "%)"
+                + ", tls=" + NetworkMetrics.get(METRIC_TLS_HANDSHAKES)
+                + ", h2=" + NetworkMetrics.get(METRIC_HTTP2_CONNECTIONS)
+                + ", pool=" + getIdleConnectionCount() + "/" + getConnectionCount()
+                + ", endpoint=" + EndpointSelector.getInstance().getSelectedEndpoint()
+                + ", failovers=" + NetworkMetrics.get(EndpointSelector.METRIC_FAILOVERS)
+                + ", wait p95 ui/bg=" + NetworkMetrics.percentile(RequestLane.INTERACTIVE.queueWaitMetric(), 95)
+                + "/" + NetworkMetrics.percentile(RequestLane.BACKGROUND.queueWaitMetric(), 95) + "ms"
+                + ", timeouts connect/read=" + NetworkMetrics.getGauge(AdaptiveTimeouts.METRIC_TIMEOUT_CONNECT_MS)
+                + "/" + NetworkMetrics.getGauge(AdaptiveTimeouts.METRIC_TIMEOUT_READ_MS) + "ms"
+                + ", retries=" + NetworkMetrics.get(RetryBudget.METRIC_RETRIES)
+                + " (denied " + NetworkMetrics.get(RetryBudget.METRIC_DENIED) + ")"
+                + ", circuits open=" + CircuitBreakerRegistry.getInstance().getOpenGroups();
+    }
+
+    private static OkHttpClient createBaseClient() {
+        // Body logging buffers the whole response, so streamed lists only log headers
+        HttpLoggingInterceptor bodyLogging = new HttpLoggingInterceptor();
+        bodyLogging.setLevel(HttpLoggingInterceptor.Level.BODY);
+        HttpLoggingInterceptor headerLogging = new HttpLoggingInterceptor();
+        headerLogging.setLevel(HttpLoggingInterceptor.Level.HEADERS);
+        Interceptor logging = chain -> isStreaming(chain.request())
+                ? headerLogging.intercept(chain)
+                : bodyLogging.intercept(chain);
+
+        // One thread pool; each lane's dispatcher enforces its own limits on it
+        ExecutorService executor = new ThreadPoolExecutor(
+                0, Integer.MAX_VALUE, 60, TimeUnit.SECONDS,
+                new SynchronousQueue<>(), new NetworkThreadFactory());
+        Dispatcher dispatcher = new Dispatcher(executor);
+        dispatcher.setMaxRequests(MAX_REQUESTS);
+        dispatcher.setMaxRequestsPerHost(MAX_REQUESTS_PER_HOST);
+        Dispatcher background = new Dispatcher(executor);
+        background.setMaxRequests(MAX_BACKGROUND_REQUESTS);
+        background.setMaxRequestsPerHost(MAX_BACKGROUND_REQUESTS_PER_HOST);
+        backgroundDispatcher = background;
+
+        OkHttpClient.Builder builder = new OkHttpClient.Builder()
+                .connectionPool(new ConnectionPool(MAX_IDLE_CONNECTIONS, KEEP_ALIVE_MINUTES, TimeUnit.MINUTES))
+                .dispatcher(dispatcher)
+                .protocols(Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1))
+                .eventListenerFactory(call -> new ConnectionMetricsListener())
+                .dns(EndpointSelector.getInstance())
+                .addInterceptor(LaneCallFactory.queueWaitInterceptor())
+                .addInterceptor(CircuitBreakerRegistry.getInstance().interceptor())
+                .addInterceptor(new IdempotencyKeyInterceptor())
+                .addInterceptor(new RetryInterceptor())
+                .addInterceptor(AdaptiveTimeouts.getInstance())
+                .addInterceptor(new AuthInterceptor());
+
+        HttpResponseCache cache = responseCache;
+        if (cache != null) {
+            builder.cache(cache.getCache())
+                    .addInterceptor(cache.applicationInterceptor())
+                    .addNetworkInterceptor(cache.networkInterceptor());
+        }
+
+        OkHttpClient client = builder
+                .addInterceptor(new GzipRequestInterceptor())
+                .addInterceptor(logging)
+                .authenticator(new TokenAuthenticator())
+                // Ceilings only: AdaptiveTimeouts sets tighter per-call values from measured latency
+                .connectTimeout(10, TimeUnit.SECONDS)
+                .readTimeout(30, TimeUnit.SECONDS)
+                .writeTimeout(30, TimeUnit.SECONDS)
+                .callTimeout(60, TimeUnit.SECONDS)
+                // Retries are budgeted by RetryInterceptor instead
+                .retryOnConnectionFailure(false)
+                .build();
+
+        Log.d(TAG, "🌐 Shared HTTP client created");
+        return client;
+    }
+
+    private static boolean isStreaming(Request request) {
+        Invocation invocation = request.tag(Invocation.class);
+        return invocation != null && invocation.method().isAnnotationPresent(Streaming.class);
+    }
+
+    /**
+     * Per-call listener feeding the connection reuse counters and the
+     * endpoint scores, and marking {@link RequestProgress} tags. A call that acquires a connection without having
+     * opened a socket first got it from the pool (or multiplexed onto an
+     * HTTP/2 connection).
+     */
+    private static final class ConnectionMetricsListener extends EventListener {
+        private boolean openedConnection = false;
+        private long connectStartNanos;
+        private InetSocketAddress connectedAddress;
+
+        @Override
+        public void callStart(Call call) {
+            NetworkMetrics.increment(METRIC_CALLS);
+        }
+
+        @Override
+        public void connectStart(Call call, InetSocketAddress inetSocketAddress, Proxy proxy) {
+            openedConnection = true;
+            connectStartNanos = System.nanoTime();
+            NetworkMetrics.increment(METRIC_CONNECTIONS_CREATED);
+        }
+
+        @Override
+        public void connectEnd(Call call, InetSocketAddress inetSocketAddress, Proxy proxy, Protocol protocol) {
+            long latencyMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - connectStartNanos);
+            EndpointSelector.getInstance().recordConnectSuccess(inetSocketAddress.getAddress(), latencyMs);
+            AdaptiveTimeouts.getInstance().recordConnect(latencyMs);
+        }
+
+        @Override
+        public void secureConnectEnd(Call call, Handshake handshake) {
+            NetworkMetrics.increment(METRIC_TLS_HANDSHAKES);
+        }
+
+        @Override
+        public void connectFailed(Call call, InetSocketAddress inetSocketAddress, Proxy proxy,
+                                  Protocol protocol, IOException ioe) {
+            NetworkMetrics.increment(METRIC_CONNECT_FAILURES);
+            EndpointSelector.getInstance().recordFailure(inetSocketAddress.getAddress());
+        }
+
+        @Override
+        public void connectionAcquired(Call call, Connection connection) {
+            NetworkMetrics.increment(METRIC_CONNECTIONS_ACQUIRED);
+            connectedAddress = connection.route().socketAddress();
+            if (!openedConnection) {
+                NetworkMetrics.increment(METRIC_CONNECTIONS_REUSED);
+            } else if (connection.protocol() == Protocol.HTTP_2) {
+                NetworkMetrics.increment(METRIC_HTTP2_CONNECTIONS);
+            }
+        }
+
+        @Override
+        public void requestBodyEnd(Call call, long byteCount) {
+            RequestProgress.onBodySent(call.request());
+        }
+
+        @Override
+        public void callFailed(Call call, IOException ioe) {
+            // Failures after connecting (e.g. read timeouts) count against that endpoint
+            if (connectedAddress != null && !call.isCanceled()) {
+                EndpointSelector.getInstance().recordFailure(connectedAddress.getAddress());
+            }
+        }
+    }
+
+    /**
+     * Whether {@code thread} runs calls for the dispatchers, so must not block waiting on one
+     */
+    static boolean isNetworkThread(Thread thread) {
+        return thread.getName().startsWith(NETWORK_THREAD_PREFIX);
+    }
+
+    private static final class NetworkThreadFactory implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, NETWORK_THREAD_PREFIX + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
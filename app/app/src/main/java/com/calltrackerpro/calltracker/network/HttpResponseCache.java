@@ -0,0 +1,192 @@
+package com.calltrackerpro.calltracker.network;
+
+import android.util.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import okhttp3.Cache;
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+import okio.ByteString;
+
+/**
+ * On-disk HTTP cache for the read-heavy list endpoints.
+ *
+ * The backend does not send caching headers, so a network interceptor stamps
+ * each cacheable GET with a per-endpoint max-age. Once that expires OkHttp
+ * revalidates with If-None-Match / If-Modified-Since and an unchanged list
+ * costs a 304 instead of the full body.
+ *
+ * Entries are partitioned by tenant: every cacheable request carries a hashed
+ * user/organization/role scope header and responses are marked
+ * "Vary" on it, so one tenant's cached lists are never served to another.
+ */
+public final class HttpResponseCache {
+    private static final String TAG = "HttpResponseCache";
+
+    static final String SCOPE_HEADER = "X-Cache-Scope";
+    private static final long CACHE_SIZE_BYTES = 10L * 1024 * 1024;
+    private static final String API_PREFIX = "/api/";
+
+    // Freshness per endpoint (path below /api/), in seconds
+    private static final Map<String, Integer> MAX_AGE_SECONDS;
+    static {
+        Map<String, Integer> policies = new HashMap<>();
+        policies.put("tickets", 30);
+        policies.put("dashboard/stats", 60);
+        policies.put("teams", 300);
+        policies.put("users", 300);
+        policies.put("organizations", 600);
+        MAX_AGE_SECONDS = Collections.unmodifiableMap(policies);
+    }
+
+    private final Cache cache;
+    private String lastTenantScope;
+    private String lastScopeHash;
+
+    public HttpResponseCache(File cacheDir) {
+        this.cache = new Cache(new File(cacheDir, "http"), CACHE_SIZE_BYTES);
+    }
+
+    public Cache getCache() {
+        return cache;
+    }
+
+    /**
+     * Application interceptor: adds the tenant scope, records hit/miss/revalidate
+     * metrics and evicts a resource's cached lists after a successful write to it.
+     */
+    public Interceptor applicationInterceptor() {
+        return chain -> {
+            Request request = chain.request();
+            String endpoint = endpointOf(request);
+            boolean cacheable = isCacheable(request, endpoint);
+
+            if (cacheable) {
+                request = request.newBuilder()
+                        .header(SCOPE_HEADER, scopeHash())
+                        .build();
+            }
+
+            Response response = chain.proceed(request);
+
+            if (cacheable) {
+                recordOutcome(endpoint, response);
+            } else if (!"GET".equals(request.method()) && response.isSuccessful() && endpoint != null) {
+                invalidateGroup(groupOf(endpoint));
+            }
+            return response;
+        };
+    }
+
+    /**
+     * Network interceptor: applies the freshness policy to cacheable responses
+     */
+    public Interceptor networkInterceptor() {
+        return chain -> {
+            Request request = chain.request();
+            Response response = chain.proceed(request);
+            String endpoint = endpointOf(request);
+            if (!isCacheable(request, endpoint)
+                    || !(response.isSuccessful() || response.code() == 304)) {
+                return response;
+            }
+            return response.newBuilder()
+                    .removeHeader("Pragma")
+                    .header("Cache-Control", "private, max-age=" + MAX_AGE_SECONDS.get(endpoint))
+                    .header("Vary", mergeVary(response.header("Vary")))
+                    .build();
+        };
+    }
+
+    /**
+     * Drop every cached response under a resource group, e.g. "tickets".
+     * Dashboard stats aggregate every resource, so they are dropped too.
+     */
+    public void invalidateGroup(String group) {
+        if (group == null) return;
+        try {
+            Iterator<String> urls = cache.urls();
+            while (urls.hasNext()) {
+                String endpoint = endpointOf(urls.next());
+                if (endpoint != null && (groupOf(endpoint).equals(group) || endpoint.startsWith("dashboard/"))) {
+                    urls.remove();
+                }
+            }
+        } catch (IOException e) {
+            Log.w(TAG, "Cache invalidation failed for " + group + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Remove everything, e.g. on logout
+     */
+    public void clear() {
+        try {
+            cache.evictAll();
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to clear HTTP cache: " + e.getMessage());
+        }
+    }
+
+    private static boolean isCacheable(Request request, String endpoint) {
+        return "GET".equals(request.method()) && endpoint != null && MAX_AGE_SECONDS.containsKey(endpoint);
+    }
+
+    private static void recordOutcome(String endpoint, Response response) {
+        String outcome;
+        Response network = response.networkResponse();
+        if (network == null) {
+            outcome = response.cacheResponse() != null ? "hit" : "unsatisfiable";
+        } else if (network.code() == 304) {
+            outcome = "revalidated";
+        } else {
+            outcome = "miss";
+        }
+        NetworkMetrics.increment("http.cache." + endpoint + "." + outcome);
+    }
+
+    private synchronized String scopeHash() {
+        String scope = AuthSession.getTenantScope();
+        if (!scope.equals(lastTenantScope)) {
+            lastTenantScope = scope;
+            lastScopeHash = ByteString.encodeUtf8(scope).sha256().hex().substring(0, 16);
+        }
+        return lastScopeHash;
+    }
+
+    private static String mergeVary(String vary) {
+        if (vary == null || vary.trim().isEmpty()) {
+            return SCOPE_HEADER;
+        }
+        if (vary.toLowerCase().contains(SCOPE_HEADER.toLowerCase())) {
+            return vary;
+        }
+        return vary + ", " + SCOPE_HEADER;
+    }
+
+    static String endpointOf(Request request) {
+        return endpointOf(request.url().encodedPath());
+    }
+
+    private static String endpointOf(String urlOrPath) {
+        int index = urlOrPath.indexOf(API_PREFIX);
+        if (index < 0) return null;
+        String endpoint = urlOrPath.substring(index + API_PREFIX.length());
+        int query = endpoint.indexOf('?');
+        if (query >= 0) endpoint = endpoint.substring(0, query);
+        if (endpoint.endsWith("/")) endpoint = endpoint.substring(0, endpoint.length() - 1);
+        return endpoint;
+    }
+
+    private static String groupOf(String endpoint) {
+        int slash = endpoint.indexOf('/');
+        return slash < 0 ? endpoint : endpoint.substring(0, slash);
+    }
+}
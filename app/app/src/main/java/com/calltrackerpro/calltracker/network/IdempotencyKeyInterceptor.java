@@ -0,0 +1,45 @@
+package com.calltrackerpro.calltracker.network;
+
+import java.io.IOException;
+import java.util.UUID;
+
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Gives every mutating request (POST, PUT, PATCH, DELETE) an
+ * {@code Idempotency-Key} header. Only routes marked {@link Idempotent}
+ * collapse repeats of a key; the rest of the backend ignores it today.
+ *
+ * The key is generated once per call, in front of {@link RetryInterceptor},
+ * so every retry of that call carries the same key. A caller that replays
+ * the same logical write in a new call (e.g. from a persisted queue) can
+ * set the header itself; an existing key is never replaced.
+ */
+public final class IdempotencyKeyInterceptor implements Interceptor {
+    public static final String HEADER = "Idempotency-Key";
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        if (isMutating(request.method()) && request.header(HEADER) == null) {
+            request = request.newBuilder()
+                    .header(HEADER, UUID.randomUUID().toString())
+                    .build();
+        }
+        return chain.proceed(request);
+    }
+
+    static boolean isMutating(String method) {
+        switch (method) {
+            case "POST":
+            case "PUT":
+            case "PATCH":
+            case "DELETE":
+                return true;
+            default:
+                return false;
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.calltrackerpro.calltracker.network;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks an ApiService write that may be sent again after a lost response:
+ * the backend applies it at most once per {@code Idempotency-Key}, or it
+ * sets absolute values, so applying it twice leaves the same result.
+ * {@link RetryInterceptor} and the outbox repeat only such writes. Only
+ * add it when that really holds: a retried write to any other route is
+ * applied twice.
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Idempotent {
+}
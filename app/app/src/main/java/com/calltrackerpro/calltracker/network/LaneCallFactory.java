@@ -0,0 +1,178 @@
+package com.calltrackerpro.calltracker.network;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.Dispatcher;
+import okhttp3.Interceptor;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okio.Timeout;
+
+/**
+ * Retrofit call factory that dispatches each request in its
+ * {@link RequestLane}.
+ *
+ * Both lanes use the same client configuration, connection pool and
+ * threads; only the dispatcher differs, and with it the limit on how many
+ * calls may run at once. Each call also gets its deadline from
+ * {@link AdaptiveTimeouts} here, before it starts. Creation time is tagged onto every request so
+ * {@link #queueWaitInterceptor()} can record how long it sat in its lane's
+ * queue before it started.
+ *
+ * A dispatcher only limits calls it is handed by {@code enqueue()}; a
+ * synchronous {@code execute()} runs on the caller's thread whatever the
+ * limit. Background calls are the ones made with {@code execute()} (the
+ * call log uploader, the outbox, the caller prefetch), so theirs is turned
+ * into an enqueue and a wait, and they queue for a background slot like
+ * any other. Called from an HTTP thread, for example an authenticator, a
+ * call still runs directly: that thread may hold the slot it would wait for.
+ */
+public final class LaneCallFactory implements Call.Factory {
+
+    private final OkHttpClient interactiveClient;
+    private final OkHttpClient backgroundClient;
+
+    /**
+     * @param client               client for interactive calls
+     * @param backgroundDispatcher dispatcher shared by every background lane
+     */
+    public LaneCallFactory(OkHttpClient client, Dispatcher backgroundDispatcher) {
+        this.interactiveClient = client;
+        this.backgroundClient = client.newBuilder().dispatcher(backgroundDispatcher).build();
+    }
+
+    @Override
+    public Call newCall(Request request) {
+        RequestLane lane = RequestLane.of(request);
+        Request tagged = request.newBuilder()
+                .tag(RequestLane.class, lane)
+                .tag(QueuedAt.class, new QueuedAt(System.nanoTime()))
+                .build();
+        if (lane == RequestLane.BACKGROUND) {
+            return new BackgroundCall(AdaptiveTimeouts.getInstance().applyCallTimeout(backgroundClient.newCall(tagged)));
+        }
+        return AdaptiveTimeouts.getInstance().applyCallTimeout(interactiveClient.newCall(tagged));
+    }
+
+    /**
+     * Application interceptor (add it first) recording per-lane queue wait
+     */
+    public static Interceptor queueWaitInterceptor() {
+        return new QueueWaitInterceptor();
+    }
+
+    private static final class QueuedAt {
+        final long nanos;
+
+        QueuedAt(long nanos) {
+            this.nanos = nanos;
+        }
+    }
+
+    private static final class QueueWaitInterceptor implements Interceptor {
+        @Override
+        public Response intercept(Chain chain) throws IOException {
+            Request request = chain.request();
+            QueuedAt queuedAt = request.tag(QueuedAt.class);
+            if (queuedAt != null) {
+                RequestLane lane = RequestLane.of(request);
+                NetworkMetrics.increment(lane.callsMetric());
+                NetworkMetrics.recordSample(lane.queueWaitMetric(),
+                        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - queuedAt.nanos));
+            }
+            return chain.proceed(request);
+        }
+    }
+
+    /**
+     * Background call whose {@code execute()} waits for a slot in the background dispatcher
+     */
+    private static final class BackgroundCall implements Call {
+        private final Call delegate;
+
+        BackgroundCall(Call delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public Request request() {
+            return delegate.request();
+        }
+
+        @Override
+        public Response execute() throws IOException {
+            if (HttpClientFactory.isNetworkThread(Thread.currentThread())) {
+                return delegate.execute();
+            }
+            BlockingCallback callback = new BlockingCallback();
+            delegate.enqueue(callback);
+            try {
+                return callback.await();
+            } catch (InterruptedException e) {
+                delegate.cancel();
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted waiting for " + delegate.request().url());
+            }
+        }
+
+        @Override
+        public void enqueue(Callback responseCallback) {
+            delegate.enqueue(responseCallback);
+        }
+
+        @Override
+        public void cancel() {
+            delegate.cancel();
+        }
+
+        @Override
+        public boolean isExecuted() {
+            return delegate.isExecuted();
+        }
+
+        @Override
+        public boolean isCanceled() {
+            return delegate.isCanceled();
+        }
+
+        @Override
+        public Timeout timeout() {
+            return delegate.timeout();
+        }
+
+        @Override
+        public Call clone() {
+            return new BackgroundCall(AdaptiveTimeouts.getInstance().applyCallTimeout(delegate.clone()));
+        }
+    }
+
+    private static final class BlockingCallback implements Callback {
+        private final CountDownLatch done = new CountDownLatch(1);
+        private Response response;
+        private IOException failure;
+
+        @Override
+        public void onResponse(Call call, Response response) {
+            this.response = response;
+            done.countDown();
+        }
+
+        @Override
+        public void onFailure(Call call, IOException e) {
+            this.failure = e;
+            done.countDown();
+        }
+
+        Response await() throws IOException, InterruptedException {
+            done.await();
+            if (failure != null) throw failure;
+            return response;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.calltrackerpro.calltracker.network;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Process-wide counters, gauges and sampled timings for the HTTP stack.
+ * Names are dotted strings (e.g. "http.connections.reused") so every
+ * networking component can publish into the same registry.
+ */
+public final class NetworkMetrics {
+
+    private static final Map<String, AtomicLong> counters = new ConcurrentHashMap<>();
+    private static final Map<String, AtomicLong> gauges = new ConcurrentHashMap<>();
+    private static final Map<String, Samples> samples = new ConcurrentHashMap<>();
+
+    // Percentiles are taken over the most recent samples only
+    private static final int SAMPLE_WINDOW = 256;
+
+    private NetworkMetrics() {}
+
+    public static void increment(String name) {
+        add(name, 1);
+    }
+
+    public static void add(String name, long delta) {
+        AtomicLong counter = counters.get(name);
+        if (counter == null) {
+            counter = counters.computeIfAbsent(name, k -> new AtomicLong());
+        }
+        counter.addAndGet(delta);
+    }
+
+    public static long get(String name) {
+        AtomicLong counter = counters.get(name);
+        return counter != null ? counter.get() : 0;
+    }
+
+    public static void setGauge(String name, long value) {
+        AtomicLong gauge = gauges.get(name);
+        if (gauge == null) {
+            gauge = gauges.computeIfAbsent(name, k -> new AtomicLong());
+        }
+        gauge.set(value);
+    }
+
+    public static long getGauge(String name) {
+        AtomicLong gauge = gauges.get(name);
+        return gauge != null ? gauge.get() : 0;
+    }
+
+    /**
+     * Record one timing sample, e.g. a latency in ms
+     */
+    public static void recordSample(String name, long value) {
+        Samples window = samples.get(name);
+        if (window == null) {
+            window = samples.computeIfAbsent(name, k -> new Samples());
+        }
+        window.add(value);
+    }
+
+    /**
+     * Percentile (0-100) of the recent samples for {@code name}, or 0 if none
+     */
+    public static long percentile(String name, int percent) {
+        Samples window = samples.get(name);
+        return window != null ? window.percentile(percent) : 0;
+    }
+
+    /**
+     * Number of samples currently in the window for {@code name}
+     */
+    public static int sampleCount(String name) {
+        Samples window = samples.get(name);
+        return window != null ? window.size() : 0;
+    }
+
+    /**
+     * Sorted copy of all counters, gauges and sample p50/p95, for debug screens and logging
+     */
+    public static Map<String, Long> snapshot() {
+        Map<String, Long> snapshot = new TreeMap<>();
+        for (Map.Entry<String, AtomicLong> entry : counters.entrySet()) {
+            snapshot.put(entry.getKey(), entry.getValue().get());
+        }
+        for (Map.Entry<String, AtomicLong> entry : gauges.entrySet()) {
+            snapshot.put(entry.getKey(), entry.getValue().get());
+        }
+        for (Map.Entry<String, Samples> entry : samples.entrySet()) {
+            snapshot.put(entry.getKey() + ".p50", entry.getValue().percentile(50));
+            snapshot.put(entry.getKey() + ".p95", entry.getValue().percentile(95));
+        }
+        return snapshot;
+    }
+
+    public static void reset() {
+        counters.clear();
+        gauges.clear();
+        samples.clear();
+    }
+
+    /**
+     * Ring buffer of the last {@link #SAMPLE_WINDOW} values
+     */
+    private static final class Samples {
+        private final long[] values = new long[SAMPLE_WINDOW];
+        private int count = 0;
+        private int next = 0;
+
+        synchronized void add(long value) {
+            values[next] = value;
+            next = (next + 1) % values.length;
+            if (count < values.length) count++;
+        }
+
+        synchronized int size() {
+            return count;
+        }
+
+        synchronized long percentile(int percent) {
+            if (count == 0) return 0;
+            long[] sorted = Arrays.copyOf(values, count);
+            Arrays.sort(sorted);
+            int index = (int) Math.ceil(percent / 100.0 * count) - 1;
+            return sorted[Math.max(0, Math.min(index, count - 1))];
+        }
+    }
+}
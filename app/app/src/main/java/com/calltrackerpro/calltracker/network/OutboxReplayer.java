@@ -0,0 +1,503 @@
+package com.calltrackerpro.calltracker.network;
+
+import android.content.Context;
+import android.net.ConnectivityManager;
+import android.net.Network;
+import android.util.Log;
+
+import com.calltrackerpro.calltracker.data.Outbox;
+import com.calltrackerpro.calltracker.json.GsonProvider;
+import com.calltrackerpro.calltracker.models.ApiResponse;
+import com.calltrackerpro.calltracker.models.Ticket;
+import com.calltrackerpro.calltracker.services.ApiService;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import retrofit2.Call;
+import retrofit2.Response;
+
+/**
+ * Sends {@link Outbox} entries to the backend, oldest first.
+ *
+ * Runs of call logs go out through {@link CallLogBatchUploader}, which
+ * posts them one by one until the backend serves a batch endpoint; tickets
+ * and repeat-call updates one request each, under the entry's idempotency
+ * key. An entry is acked once the backend accepts it or rejects it for
+ * good. A retryable failure stops the drain (later entries wait their turn)
+ * and schedules another pass with jittered backoff; a new network or a
+ * circuit closing again triggers a pass straight away. Call logs still
+ * with the uploader when a pass stops waiting for them are not handed to
+ * it again; their callbacks ack them whenever they finish.
+ *
+ * Failures the backend answers (5xx, 404, 408, 429) count against the
+ * entry; after {@link #MAX_ATTEMPTS} of them, or {@link #MAX_FAILING_MS}
+ * after the first, it is rejected so the entries behind it can move.
+ * Failures to reach the backend at all do not count, so a long time
+ * offline loses nothing.
+ *
+ * Delivery is at least once only for writes that are safe to repeat
+ * ({@link Idempotent} routes, such as the repeat-calls update). The
+ * backend ignores the idempotency key elsewhere, so a ticket or call log
+ * whose request went out in full but whose response was lost is rejected
+ * as of unknown outcome rather than sent again: it may be on the server
+ * already, and a second post would create a duplicate.
+ *
+ * Only the signed-in user's entries for the current organization are sent
+ * (see {@link Outbox#peek}). A 401 means the session is gone, so replay
+ * parks until {@link #onSignedIn}; sign-out drops the outbox ({@link #clear}).
+ *
+ * Callbacks run on the replay thread, and only in the process that
+ * submitted the entry; entries reloaded after a restart are delivered
+ * silently.
+ */
+public final class OutboxReplayer implements Outbox.Listener {
+    private static final String TAG = "OutboxReplayer";
+
+    public static final String METRIC_DELIVERED = "outbox.delivered";
+    public static final String METRIC_REJECTED = "outbox.rejected";
+    public static final String METRIC_RETRIES = "outbox.replay_retries";
+    public static final String METRIC_DRAIN_RATE = "outbox.drain_per_s";
+    public static final String METRIC_GAVE_UP = "outbox.gave_up";
+    public static final String METRIC_OUTCOME_UNKNOWN = "outbox.outcome_unknown";
+
+    private static final long BACKOFF_MIN_MS = 5_000;
+    private static final long BACKOFF_MAX_MS = 5 * 60_000;
+    private static final long BATCH_WAIT_MS = 2 * 60_000;
+    // With backoff capped at 5 minutes, 20 attempts span about an hour
+    static final int MAX_ATTEMPTS = 20;
+    static final long MAX_FAILING_MS = 24 * 60 * 60_000L;
+
+    // Outcomes of a send besides the number of entries acked
+    private static final int RETRY = -1;
+    private static final int PARKED = -2;
+
+    public interface Callback<T> {
+        void onDelivered(T result);
+
+        /**
+         * The backend refused the mutation; it will not be retried
+         */
+        void onRejected(String error);
+    }
+
+    private static volatile OutboxReplayer instance;
+
+    private final Outbox outbox;
+    private final ApiService apiService;
+    private final CallLogBatchUploader uploader;
+    private final ScheduledExecutorService scheduler;
+    private final Gson gson = GsonProvider.getGson();
+    private final Map<String, Callback<?>> callbacks = new ConcurrentHashMap<>();
+    private final AtomicBoolean drainQueued = new AtomicBoolean(false);
+    // Seqs of call logs handed to the uploader and not yet answered
+    private final Set<Long> inFlight = ConcurrentHashMap.newKeySet();
+
+    private long backoffMs = 0;
+    private volatile long retryAt = 0;
+    // The backend answered 401; nothing is sent until the next sign-in
+    private volatile boolean unauthorized = false;
+
+    public static OutboxReplayer getInstance() {
+        if (instance == null) {
+            synchronized (OutboxReplayer.class) {
+                if (instance == null) {
+                    instance = new OutboxReplayer(Outbox.getInstance(), HttpClientFactory.getApiService(),
+                            CallLogBatchUploader.getInstance(),
+                            Executors.newSingleThreadScheduledExecutor(runnable -> {
+                                Thread thread = new Thread(runnable, "CallTracker-Replay");
+                                thread.setDaemon(true);
+                                return thread;
+                            }));
+                }
+            }
+        }
+        return instance;
+    }
+
+    OutboxReplayer(Outbox outbox, ApiService apiService, CallLogBatchUploader uploader,
+                   ScheduledExecutorService scheduler) {
+        this.outbox = outbox;
+        this.apiService = apiService;
+        this.uploader = uploader;
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Start draining, now and whenever connectivity returns. Call once from
+     * Application.onCreate(), after {@link Outbox#init}.
+     */
+    public void init(Context context) {
+        outbox.setListener(this);
+
+        ConnectivityManager cm = (ConnectivityManager) context.getApplicationContext()
+                .getSystemService(Context.CONNECTIVITY_SERVICE);
+        if (cm != null) {
+            try {
+                cm.registerDefaultNetworkCallback(new ConnectivityManager.NetworkCallback() {
+                    @Override
+                    public void onAvailable(Network network) {
+                        drainNow();
+                    }
+                });
+            } catch (RuntimeException e) {
+                Log.w(TAG, "Could not watch network changes: " + e.getMessage());
+            }
+        }
+        CircuitBreakerRegistry.getInstance().addListener(openGroups -> {
+            if (openGroups.isEmpty()) drainNow();
+        });
+
+        drainNow();
+    }
+
+    public void submitCallLog(ApiService.CreateCallLogRequest request, Callback<ApiService.BatchCallLogResult> callback) {
+        // client_id matches an upload result to its request, and the entry's callback to both
+        String key = request.getClient_id() != null ? request.getClient_id() : UUID.randomUUID().toString();
+        request.setClient_id(key);
+        submit(Outbox.TYPE_CALL_LOG, key, gson.toJson(request), callback);
+    }
+
+    public void submitTicket(Ticket ticket, Callback<Ticket> callback) {
+        submit(Outbox.TYPE_TICKET, UUID.randomUUID().toString(), gson.toJson(ticket), callback);
+    }
+
+    public void submitRepeatCalls(String ticketId, ApiService.RepeatCallsUpdate update, Callback<Ticket> callback) {
+        submit(Outbox.TYPE_REPEAT_CALLS, UUID.randomUUID().toString(),
+                gson.toJson(new RepeatCallsPayload(ticketId, update)), callback);
+    }
+
+    @Override
+    public void onEntriesAvailable() {
+        // New work honours an active backoff; the retry pass will pick it up
+        if (System.currentTimeMillis() >= retryAt) {
+            scheduleDrain();
+        }
+    }
+
+    /**
+     * Drain immediately, ignoring any backoff
+     */
+    public void drainNow() {
+        retryAt = 0;
+        scheduleDrain();
+    }
+
+    /**
+     * A session was established or renewed, or the organization changed;
+     * resume a replay parked by a 401 and send what the session owns
+     */
+    public void onSignedIn() {
+        unauthorized = false;
+        drainNow();
+    }
+
+    /**
+     * Sign-out: drop every queued mutation and its callback, unsent
+     */
+    public void clear() {
+        callbacks.clear();
+        inFlight.clear();
+        unauthorized = false;
+        outbox.clear();
+    }
+
+    private void submit(String type, String key, String payload, Callback<?> callback) {
+        String userId = AuthSession.getUserId();
+        if (userId == null) {
+            // Nobody could send it, and the next user must not
+            Log.w(TAG, "Not signed in; dropping " + type);
+            if (callback != null) {
+                callback.onRejected("Not signed in");
+            }
+            return;
+        }
+        if (callback != null) {
+            callbacks.put(key, callback);
+        }
+        outbox.append(type, key, payload, userId, AuthSession.getOrganizationId());
+    }
+
+    private void scheduleDrain() {
+        if (drainQueued.compareAndSet(false, true)) {
+            scheduler.execute(this::drain);
+        }
+    }
+
+    private void drain() {
+        drainQueued.set(false);
+        long start = System.nanoTime();
+        int done = 0;
+
+        while (!unauthorized) {
+            String userId = AuthSession.getUserId();
+            if (userId == null) break;
+            List<Outbox.Entry> head = outbox.peek(CallLogBatchUploader.DEFAULT_MAX_BATCH_SIZE,
+                    userId, AuthSession.getOrganizationId());
+            if (head.isEmpty()) {
+                backoffMs = 0;
+                break;
+            }
+
+            int acked;
+            if (Outbox.TYPE_CALL_LOG.equals(head.get(0).type)) {
+                acked = sendCallLogs(leadingCallLogs(head));
+            } else {
+                acked = sendOne(head.get(0));
+            }
+            if (acked == PARKED) {
+                unauthorized = true;
+                Log.w(TAG, "🔒 Session rejected; outbox replay parked until sign-in, " + outbox.size() + " pending");
+                break;
+            }
+            if (acked == RETRY) {
+                scheduleRetry();
+                break;
+            }
+            done += acked;
+        }
+
+        if (done > 0) {
+            long elapsedMs = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            NetworkMetrics.setGauge(METRIC_DRAIN_RATE, done * 1000L / elapsedMs);
+            Log.d(TAG, "📤 Drained " + done + " outbox entries in " + elapsedMs + "ms, "
+                    + outbox.size() + " left");
+        }
+    }
+
+    private static List<Outbox.Entry> leadingCallLogs(List<Outbox.Entry> head) {
+        List<Outbox.Entry> run = new ArrayList<>();
+        for (Outbox.Entry entry : head) {
+            if (!Outbox.TYPE_CALL_LOG.equals(entry.type)) break;
+            run.add(entry);
+        }
+        return run;
+    }
+
+    /**
+     * @return entries acked, or {@link #RETRY} if any of them must be retried
+     * later, or {@link #PARKED} if the session was rejected
+     */
+    private int sendCallLogs(List<Outbox.Entry> run) {
+        List<Outbox.Entry> fresh = new ArrayList<>(run.size());
+        for (Outbox.Entry entry : run) {
+            if (!inFlight.contains(entry.seq)) fresh.add(entry);
+        }
+        if (fresh.isEmpty()) {
+            // All still with the uploader from a pass that stopped waiting
+            return RETRY;
+        }
+
+        CountDownLatch finished = new CountDownLatch(fresh.size());
+        AtomicInteger acked = new AtomicInteger();
+        // Errors of the call logs to retry, by seq
+        Map<Long, String> retryErrors = new ConcurrentHashMap<>();
+        AtomicBoolean parked = new AtomicBoolean(false);
+
+        for (Outbox.Entry entry : fresh) {
+            ApiService.CreateCallLogRequest request = decode(entry, ApiService.CreateCallLogRequest.class);
+            if (request == null) {
+                finished.countDown();
+                acked.incrementAndGet();
+                continue;
+            }
+            inFlight.add(entry.seq);
+            uploader.enqueue(request, new CallLogBatchUploader.Listener() {
+                @Override
+                public void onUploaded(ApiService.CreateCallLogRequest request, ApiService.BatchCallLogResult result) {
+                    inFlight.remove(entry.seq);
+                    delivered(entry, result);
+                    acked.incrementAndGet();
+                    finished.countDown();
+                }
+
+                @Override
+                public void onFailed(ApiService.CreateCallLogRequest request, String error, boolean retryable) {
+                    inFlight.remove(entry.seq);
+                    if (CallLogBatchUploader.ERROR_UNAUTHORIZED.equals(error)) {
+                        parked.set(true);
+                    } else if (retryable) {
+                        retryErrors.put(entry.seq, error);
+                    } else {
+                        rejected(entry, error);
+                        acked.incrementAndGet();
+                    }
+                    finished.countDown();
+                }
+            });
+        }
+        uploader.flush();
+
+        try {
+            if (!finished.await(BATCH_WAIT_MS, TimeUnit.MILLISECONDS)) {
+                return RETRY;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return RETRY;
+        }
+        if (parked.get()) return PARKED;
+        if (retryErrors.isEmpty()) return acked.get();
+
+        // The uploader stops at the first failure, so only that call log was answered
+        for (Outbox.Entry entry : fresh) {
+            String error = retryErrors.get(entry.seq);
+            if (error == null) continue;
+            if (CallLogBatchUploader.isNetworkError(error) || retryLater(entry, error)) {
+                return RETRY;
+            }
+            return acked.get() + 1;
+        }
+        return RETRY;
+    }
+
+    private int sendOne(Outbox.Entry entry) {
+        RequestProgress progress = new RequestProgress();
+        Call<? extends ApiResponse<?>> call;
+        if (Outbox.TYPE_TICKET.equals(entry.type)) {
+            Ticket ticket = decode(entry, Ticket.class);
+            if (ticket == null) return 1;
+            call = apiService.createTicket(ApiService.SESSION_AUTH, entry.key, progress, ticket);
+        } else if (Outbox.TYPE_REPEAT_CALLS.equals(entry.type)) {
+            RepeatCallsPayload payload = decode(entry, RepeatCallsPayload.class);
+            if (payload == null) return 1;
+            call = apiService.updateRepeatCalls(ApiService.SESSION_AUTH, entry.key, progress,
+                    payload.ticketId, payload.update);
+        } else {
+            rejected(entry, "Unknown outbox entry type " + entry.type);
+            return 1;
+        }
+
+        try {
+            Response<? extends ApiResponse<?>> response = call.execute();
+            ApiResponse<?> body = response.body();
+            if (response.isSuccessful() && body != null && body.isSuccess()) {
+                delivered(entry, body.getData());
+                return 1;
+            }
+            if (response.code() == 401) {
+                return PARKED;
+            }
+            if (isRetryable(response.code())) {
+                return retryLater(entry, "HTTP " + response.code()) ? RETRY : 1;
+            }
+            rejected(entry, body != null ? body.getErrorMessage() : "HTTP " + response.code() + ": " + response.message());
+            return 1;
+        } catch (IOException e) {
+            if (!progress.isBodySent()) {
+                Log.w(TAG, "Outbox " + entry.type + " #" + entry.seq + " deferred: " + e.getMessage());
+                return RETRY;
+            }
+            if (!RequestProgress.canResend(progress, call.request())) {
+                NetworkMetrics.increment(METRIC_OUTCOME_UNKNOWN);
+                rejected(entry, "Sent, but no response (" + e.getMessage() + "); not sent again");
+                return 1;
+            }
+            // Reached the backend and safe to repeat, but counted, so one that always times out ends
+            return retryLater(entry, e.getMessage()) ? RETRY : 1;
+        }
+    }
+
+    /**
+     * Count a failed attempt against {@code entry} and decide whether it gets
+     * another; once it has used up its attempts it is rejected
+     *
+     * @return true to retry later, false if the entry was given up on (and acked)
+     */
+    private boolean retryLater(Outbox.Entry entry, String error) {
+        outbox.recordFailure(entry);
+        int attempts = entry.getAttempts();
+        long failingMs = System.currentTimeMillis() - entry.getFirstFailedAt();
+        if (attempts < MAX_ATTEMPTS && failingMs < MAX_FAILING_MS) {
+            Log.w(TAG, "Outbox " + entry.type + " #" + entry.seq + " deferred (attempt " + attempts + "): " + error);
+            return true;
+        }
+        NetworkMetrics.increment(METRIC_GAVE_UP);
+        rejected(entry, "Gave up after " + attempts + " attempts over "
+                + TimeUnit.MILLISECONDS.toMinutes(failingMs) + " min: " + error);
+        return false;
+    }
+
+    /**
+     * Worth sending again later, within {@link #MAX_ATTEMPTS}: the backend
+     * was unreachable or overloaded. A 404 is a route this deployment does
+     * not serve, not a verdict on the user's data, so that is kept too until
+     * the entry runs out of attempts. A 401 parks replay instead.
+     */
+    private static boolean isRetryable(int code) {
+        return code >= 500 || code == 404 || code == 408 || code == 429;
+    }
+
+    private <T> T decode(Outbox.Entry entry, Class<T> type) {
+        try {
+            return gson.fromJson(entry.payload, type);
+        } catch (JsonParseException e) {
+            rejected(entry, "Unreadable outbox entry: " + e.getMessage());
+            return null;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void delivered(Outbox.Entry entry, Object result) {
+        outbox.ack(entry.seq);
+        NetworkMetrics.increment(METRIC_DELIVERED);
+        Callback<Object> callback = (Callback<Object>) callbacks.remove(entry.key);
+        if (callback != null) {
+            try {
+                callback.onDelivered(result);
+            } catch (RuntimeException e) {
+                Log.e(TAG, "Outbox callback failed", e);
+            }
+        }
+    }
+
+    private void rejected(Outbox.Entry entry, String error) {
+        outbox.ack(entry.seq);
+        NetworkMetrics.increment(METRIC_REJECTED);
+        Log.e(TAG, "❌ Outbox " + entry.type + " #" + entry.seq + " rejected: " + error);
+        Callback<?> callback = callbacks.remove(entry.key);
+        if (callback != null) {
+            try {
+                callback.onRejected(error != null ? error : "Rejected");
+            } catch (RuntimeException e) {
+                Log.e(TAG, "Outbox callback failed", e);
+            }
+        }
+    }
+
+    private void scheduleRetry() {
+        backoffMs = backoffMs == 0 ? BACKOFF_MIN_MS : Math.min(BACKOFF_MAX_MS, backoffMs * 2);
+        long delayMs = backoffMs / 2 + ThreadLocalRandom.current().nextLong(backoffMs / 2 + 1);
+        retryAt = System.currentTimeMillis() + delayMs;
+        NetworkMetrics.increment(METRIC_RETRIES);
+        Log.d(TAG, "⏳ Outbox replay paused for " + delayMs + "ms, " + outbox.size() + " pending");
+        scheduler.schedule(this::scheduleDrain, delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stored form of a repeat-calls update
+     */
+    private static final class RepeatCallsPayload {
+        final String ticketId;
+        final ApiService.RepeatCallsUpdate update;
+
+        RepeatCallsPayload(String ticketId, ApiService.RepeatCallsUpdate update) {
+            this.ticketId = ticketId;
+            this.update = update;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.calltrackerpro.calltracker.network;
+
+import okhttp3.Request;
+import retrofit2.Invocation;
+
+/**
+ * Priority lane a request is dispatched in. Each lane has its own
+ * dispatcher and concurrency limit (see {@link LaneCallFactory}), so bulk
+ * background work can never take the slots a user-visible request needs.
+ */
+public enum RequestLane {
+    /** Something on screen is waiting for the answer (the default) */
+    INTERACTIVE("interactive"),
+    /** Uploads and sync; may queue behind interactive work */
+    BACKGROUND("background");
+
+    private final String metricName;
+
+    RequestLane(String metricName) {
+        this.metricName = metricName;
+    }
+
+    /**
+     * Counter of calls dispatched in this lane
+     */
+    public String callsMetric() {
+        return "http.lane." + metricName + ".calls";
+    }
+
+    /**
+     * Sampled time calls spent queued before they started, in ms
+     */
+    public String queueWaitMetric() {
+        return "http.lane." + metricName + ".queue_wait_ms";
+    }
+
+    /**
+     * Lane for a request: an explicit {@code RequestLane} tag wins, then a
+     * {@link Background} annotation on the ApiService method
+     */
+    public static RequestLane of(Request request) {
+        RequestLane tagged = request.tag(RequestLane.class);
+        if (tagged != null) {
+            return tagged;
+        }
+        Invocation invocation = request.tag(Invocation.class);
+        if (invocation != null && invocation.method().isAnnotationPresent(Background.class)) {
+            return BACKGROUND;
+        }
+        return INTERACTIVE;
+    }
+}
@@ -0,0 +1,37 @@
+package com.calltrackerpro.calltracker.network;
+
+import okhttp3.Request;
+
+/**
+ * How far a write got, for a caller that must decide whether to send it
+ * again after an IOException. Pass one per call as a Retrofit
+ * {@code @Tag}; the client's event listener marks it once the whole
+ * request body has been handed to the connection. A write that failed
+ * before that cannot have been applied; one that failed after it may have
+ * been, and only routes marked {@link Idempotent} may then be repeated.
+ */
+public final class RequestProgress {
+    private volatile boolean bodySent;
+
+    public boolean isBodySent() {
+        return bodySent;
+    }
+
+    /**
+     * Mark {@code request}'s progress tag, if it has one, as fully sent
+     */
+    static void onBodySent(Request request) {
+        RequestProgress progress = request.tag(RequestProgress.class);
+        if (progress != null) {
+            progress.bodySent = true;
+        }
+    }
+
+    /**
+     * Whether a write that failed with an IOException may be sent again:
+     * it never fully left the device, or its route dedupes repeats
+     */
+    public static boolean canResend(RequestProgress progress, Request request) {
+        return !progress.isBodySent() || RetryInterceptor.isRetrySafe(request);
+    }
+}
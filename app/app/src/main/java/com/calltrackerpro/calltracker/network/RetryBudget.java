@@ -0,0 +1,70 @@
+package com.calltrackerpro.calltracker.network;
+
+/**
+ * Process-wide cap on retries as a fraction of traffic.
+ *
+ * Token bucket: every first attempt deposits {@link #RETRY_RATIO} of a
+ * token and every retry withdraws a whole one, so over time at most that
+ * fraction of requests are retries. The bucket starts full, giving a small
+ * reserve for the first failures after start-up. When the backend is down,
+ * the budget runs dry after a handful of retries and calls fail fast
+ * instead of multiplying the load.
+ */
+public final class RetryBudget {
+
+    public static final String METRIC_RETRIES = "http.retry.attempts";
+    public static final String METRIC_DENIED = "http.retry.denied";
+    public static final String METRIC_BALANCE = "http.retry.budget_tokens_x100";
+    public static final String METRIC_USED_PCT = "http.retry.budget_used_pct";
+
+    // At most ~10% of requests are retries, with a reserve of 10
+    private static final double RETRY_RATIO = 0.1;
+    private static final double MAX_TOKENS = 10;
+
+    private static final RetryBudget instance = new RetryBudget(RETRY_RATIO, MAX_TOKENS);
+
+    private final double ratio;
+    private final double maxTokens;
+    private double tokens;
+
+    public static RetryBudget getInstance() {
+        return instance;
+    }
+
+    RetryBudget(double ratio, double maxTokens) {
+        this.ratio = ratio;
+        this.maxTokens = maxTokens;
+        this.tokens = maxTokens;
+    }
+
+    /**
+     * A request is about to be sent for the first time
+     */
+    public synchronized void onRequest() {
+        tokens = Math.min(maxTokens, tokens + ratio);
+        publish();
+    }
+
+    /**
+     * Take one retry from the budget; false means give up now
+     */
+    public synchronized boolean tryAcquireRetry() {
+        if (tokens < 1) {
+            NetworkMetrics.increment(METRIC_DENIED);
+            return false;
+        }
+        tokens -= 1;
+        NetworkMetrics.increment(METRIC_RETRIES);
+        publish();
+        return true;
+    }
+
+    public synchronized double getBalance() {
+        return tokens;
+    }
+
+    private void publish() {
+        NetworkMetrics.setGauge(METRIC_BALANCE, Math.round(tokens * 100));
+        NetworkMetrics.setGauge(METRIC_USED_PCT, Math.round((1 - tokens / maxTokens) * 100));
+    }
+}
@@ -0,0 +1,77 @@
+package com.calltrackerpro.calltracker.network;
+
+import android.util.Log;
+
+import java.io.IOException;
+
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+import retrofit2.Invocation;
+
+/**
+ * Retries attempts that failed on the way to the server within the
+ * {@link RetryBudget}; replaces OkHttp's unbounded retryOnConnectionFailure.
+ *
+ * Only requests that are safe to repeat are retried: reads (GET, HEAD,
+ * OPTIONS), and writes whose ApiService method is marked
+ * {@link Idempotent} because the backend dedupes them on
+ * {@code Idempotency-Key}. The backend ignores the key everywhere else,
+ * so any other write whose response was lost would be applied twice; it
+ * surfaces as a failure and is left to its caller.
+ *
+ * The retry follows at once, without a backoff: this runs on a
+ * dispatcher or caller thread, and sleeping there would hold the lane
+ * slot. Only I/O failures are retried here, and the next attempt goes to
+ * the next address, because OkHttp postpones routes that just failed.
+ * Overloaded or unavailable responses (408, 429, 503) are returned as
+ * they are, for the outbox and the call log uploader to retry on their
+ * own schedules.
+ */
+public final class RetryInterceptor implements Interceptor {
+    private static final String TAG = "RetryInterceptor";
+
+    private static final int MAX_ATTEMPTS = 2;
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        RetryBudget budget = RetryBudget.getInstance();
+        budget.onRequest();
+        boolean retrySafe = isRetrySafe(request);
+
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return chain.proceed(request);
+            } catch (IOException e) {
+                if (!canRetry(chain, retrySafe, attempt, budget)) {
+                    throw e;
+                }
+                Log.w(TAG, "🔁 Retrying " + describe(request) + " (attempt " + (attempt + 1) + "): " + e);
+            }
+        }
+    }
+
+    static boolean isRetrySafe(Request request) {
+        switch (request.method()) {
+            case "GET":
+            case "HEAD":
+            case "OPTIONS":
+                return true;
+            default:
+                Invocation invocation = request.tag(Invocation.class);
+                return invocation != null && invocation.method().isAnnotationPresent(Idempotent.class);
+        }
+    }
+
+    private static boolean canRetry(Chain chain, boolean retrySafe, int attempt, RetryBudget budget) {
+        return retrySafe
+                && attempt < MAX_ATTEMPTS
+                && !chain.call().isCanceled()
+                && budget.tryAcquireRetry();
+    }
+
+    private static String describe(Request request) {
+        return request.method() + " " + request.url().encodedPath();
+    }
+}
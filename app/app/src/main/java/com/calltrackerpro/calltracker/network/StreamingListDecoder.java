@@ -0,0 +1,118 @@
+package com.calltrackerpro.calltracker.network;
+
+import com.calltrackerpro.calltracker.models.ApiResponse;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Incremental decoder for list responses of the form
+ * {"success": true, "message": "...", "data": [ ... ]}.
+ *
+ * Items of the "data" array are read one by one with Gson's JsonReader and
+ * handed to the consumer in chunks, so the first rows can be shown while the
+ * rest of the page is still arriving and the decoder never holds more than
+ * one chunk. Envelope fields are returned as an ApiResponse whose data is the
+ * number of items decoded.
+ */
+public final class StreamingListDecoder {
+
+    public interface ChunkConsumer<T> {
+        /**
+         * Called with each chunk of decoded items; return false to stop decoding
+         */
+        boolean onChunk(List<T> items);
+    }
+
+    private StreamingListDecoder() {}
+
+    public static <T> ApiResponse<Integer> decode(Reader source, TypeAdapter<T> itemAdapter,
+                                                  int chunkSize, ChunkConsumer<T> consumer) throws IOException {
+        ApiResponse<Integer> envelope = new ApiResponse<>();
+        envelope.setData(0);
+
+        JsonReader reader = new JsonReader(source);
+        reader.setLenient(true);
+        try {
+            if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+                throw new IOException("Expected JSON object but was " + reader.peek());
+            }
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String name = reader.nextName();
+                if (reader.peek() == JsonToken.NULL) {
+                    reader.nextNull();
+                    continue;
+                }
+                switch (name) {
+                    case "success":
+                        envelope.setSuccess(reader.nextBoolean());
+                        break;
+                    case "message":
+                        envelope.setMessage(reader.nextString());
+                        break;
+                    case "error":
+                        envelope.setError(reader.nextString());
+                        break;
+                    case "code":
+                        envelope.setCode(reader.nextInt());
+                        break;
+                    case "data":
+                        if (reader.peek() != JsonToken.BEGIN_ARRAY) {
+                            reader.skipValue();
+                            break;
+                        }
+                        Progress progress = readItems(reader, itemAdapter, chunkSize, consumer);
+                        envelope.setData(progress.count);
+                        if (progress.stopped) {
+                            // Consumer is done; the rest of the body is not needed
+                            return envelope;
+                        }
+                        break;
+                    default:
+                        reader.skipValue();
+                        break;
+                }
+            }
+            reader.endObject();
+        } finally {
+            reader.close();
+        }
+        return envelope;
+    }
+
+    private static final class Progress {
+        int count = 0;
+        boolean stopped = false;
+    }
+
+    private static <T> Progress readItems(JsonReader reader, TypeAdapter<T> itemAdapter,
+                                          int chunkSize, ChunkConsumer<T> consumer) throws IOException {
+        Progress progress = new Progress();
+        List<T> chunk = new ArrayList<>(chunkSize);
+        reader.beginArray();
+        while (reader.hasNext()) {
+            T item = itemAdapter.read(reader);
+            if (item == null) continue;
+            chunk.add(item);
+            progress.count++;
+            if (chunk.size() >= chunkSize) {
+                if (!consumer.onChunk(chunk)) {
+                    progress.stopped = true;
+                    return progress;
+                }
+                chunk = new ArrayList<>(chunkSize);
+            }
+        }
+        reader.endArray();
+        if (!chunk.isEmpty() && !consumer.onChunk(chunk)) {
+            progress.stopped = true;
+        }
+        return progress;
+    }
+}
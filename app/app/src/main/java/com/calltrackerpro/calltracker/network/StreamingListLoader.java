@@ -0,0 +1,97 @@
+package com.calltrackerpro.calltracker.network;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.calltrackerpro.calltracker.json.GsonProvider;
+import com.calltrackerpro.calltracker.models.ApiResponse;
+import com.google.gson.TypeAdapter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import okhttp3.ResponseBody;
+import retrofit2.Call;
+import retrofit2.Response;
+
+/**
+ * Runs a {@code @Streaming} list call and delivers decoded items to the main
+ * thread chunk by chunk (see {@link StreamingListDecoder}).
+ *
+ * The body is read on a background thread; cancelling the returned call
+ * stops both the download and any further callbacks.
+ */
+public final class StreamingListLoader {
+    private static final String TAG = "StreamingListLoader";
+
+    public static final int DEFAULT_CHUNK_SIZE = 25;
+
+    private static final ExecutorService executor = Executors.newFixedThreadPool(2);
+    private static final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    public interface Listener<T> {
+        /**
+         * A chunk of decoded items; {@code first} is true for the first chunk of the page
+         */
+        void onChunk(List<T> items, boolean first);
+
+        /**
+         * Whole page decoded; {@code summary.getData()} is the item count
+         */
+        void onComplete(ApiResponse<Integer> summary);
+
+        void onError(String error);
+    }
+
+    private StreamingListLoader() {}
+
+    public static <T> Call<ResponseBody> load(Call<ResponseBody> call, Class<T> itemType, Listener<T> listener) {
+        return load(call, itemType, DEFAULT_CHUNK_SIZE, listener);
+    }
+
+    public static <T> Call<ResponseBody> load(Call<ResponseBody> call, Class<T> itemType,
+                                              int chunkSize, Listener<T> listener) {
+        TypeAdapter<T> adapter = GsonProvider.getGson().getAdapter(itemType);
+        executor.execute(() -> {
+            try {
+                Response<ResponseBody> response = call.execute();
+                if (!response.isSuccessful() || response.body() == null) {
+                    postError(call, listener, "HTTP " + response.code() + ": " + response.message());
+                    if (response.errorBody() != null) response.errorBody().close();
+                    return;
+                }
+
+                final boolean[] first = {true};
+                ApiResponse<Integer> summary;
+                try (ResponseBody body = response.body()) {
+                    summary = StreamingListDecoder.decode(body.charStream(), adapter, chunkSize, items -> {
+                        if (call.isCanceled()) return false;
+                        boolean isFirst = first[0];
+                        first[0] = false;
+                        mainHandler.post(() -> {
+                            if (!call.isCanceled()) listener.onChunk(items, isFirst);
+                        });
+                        return true;
+                    });
+                }
+
+                mainHandler.post(() -> {
+                    if (!call.isCanceled()) listener.onComplete(summary);
+                });
+            } catch (IOException | RuntimeException e) {
+                Log.e(TAG, "Streaming list load failed", e);
+                postError(call, listener, "Network error: " + e.getMessage());
+            }
+        });
+        return call;
+    }
+
+    private static <T> void postError(Call<ResponseBody> call, Listener<T> listener, String error) {
+        mainHandler.post(() -> {
+            if (!call.isCanceled()) listener.onError(error);
+        });
+    }
+}
@@ -0,0 +1,107 @@
+package com.calltrackerpro.calltracker.network;
+
+import android.util.Log;
+
+import com.calltrackerpro.calltracker.models.AuthResponse;
+
+import java.io.IOException;
+
+import okhttp3.Authenticator;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.Route;
+
+/**
+ * Refreshes the auth token when the backend answers 401.
+ *
+ * Refreshing is single-flight: the first request to see a 401 calls
+ * auth/refresh while the others block on the same lock. When they get the
+ * lock the session token has already changed, so they are replayed with the
+ * new token without another refresh call.
+ */
+public class TokenAuthenticator implements Authenticator {
+    private static final String TAG = "TokenAuthenticator";
+
+    public static final String METRIC_REFRESH_ATTEMPTS = "auth.refresh.attempts";
+    public static final String METRIC_REFRESH_SUCCESS = "auth.refresh.success";
+    public static final String METRIC_REFRESH_FAILED = "auth.refresh.failed";
+    public static final String METRIC_REFRESH_COALESCED = "auth.refresh.coalesced";
+
+    private final Object refreshLock = new Object();
+    // Token whose refresh was already rejected; avoids retrying it for every queued 401
+    private String lastRejectedToken;
+
+    @Override
+    public Request authenticate(Route route, Response response) throws IOException {
+        Request request = response.request();
+        if (AuthInterceptor.isPublicEndpoint(request) || isRefreshEndpoint(request)) {
+            return null;
+        }
+        if (response.priorResponse() != null) {
+            // Already replayed once with a fresh token; give up
+            return null;
+        }
+
+        String failedToken = tokenFrom(request);
+
+        synchronized (refreshLock) {
+            String current = AuthSession.getToken();
+            if (current == null) {
+                return null;
+            }
+            if (!current.equals(failedToken)) {
+                NetworkMetrics.increment(METRIC_REFRESH_COALESCED);
+                return withToken(request, current);
+            }
+            if (current.equals(lastRejectedToken)) {
+                return null;
+            }
+
+            String refreshed = refresh(current);
+            if (refreshed == null) {
+                lastRejectedToken = current;
+                return null;
+            }
+            return withToken(request, refreshed);
+        }
+    }
+
+    private String refresh(String currentToken) {
+        NetworkMetrics.increment(METRIC_REFRESH_ATTEMPTS);
+        try {
+            retrofit2.Response<AuthResponse> refreshResponse = HttpClientFactory.getApiService()
+                    .refreshToken("Bearer " + currentToken)
+                    .execute();
+            AuthResponse body = refreshResponse.body();
+            if (refreshResponse.isSuccessful() && body != null && body.getToken() != null) {
+                AuthSession.persistRefreshedToken(body.getToken(), body.getExpiresIn());
+                NetworkMetrics.increment(METRIC_REFRESH_SUCCESS);
+                Log.d(TAG, "🔄 Token refreshed after 401");
+                return body.getToken();
+            }
+            Log.w(TAG, "Token refresh rejected: HTTP " + refreshResponse.code());
+        } catch (IOException e) {
+            Log.e(TAG, "Token refresh failed: " + e.getMessage());
+        }
+        NetworkMetrics.increment(METRIC_REFRESH_FAILED);
+        return null;
+    }
+
+    private static boolean isRefreshEndpoint(Request request) {
+        return request.url().encodedPath().endsWith("/auth/refresh");
+    }
+
+    private static String tokenFrom(Request request) {
+        String header = request.header(AuthInterceptor.HEADER_AUTHORIZATION);
+        if (header != null && header.startsWith("Bearer ")) {
+            return header.substring(7);
+        }
+        return null;
+    }
+
+    private static Request withToken(Request request, String token) {
+        return request.newBuilder()
+                .header(AuthInterceptor.HEADER_AUTHORIZATION, "Bearer " + token)
+                .build();
+    }
+}
@@ -5,15 +5,19 @@ import android.content.Context;
 import android.content.Intent;
 import android.telephony.TelephonyManager;
 import android.util.Log;
-import com.calltrackerpro.calltracker.services.CallReceiverService;
-import com.calltrackerpro.calltracker.services.EnhancedCallService;
+import com.calltrackerpro.calltracker.services.CallEvent;
+import com.calltrackerpro.calltracker.services.CallEventPipeline;
 
+/**
+ * Hands telephony broadcasts to the {@link CallEventPipeline}, which keeps
+ * the call state and decides what each broadcast means
+ */
 public class CallReceiver extends BroadcastReceiver {
     private static final String TAG = "CallReceiver";
-    private static String lastState = TelephonyManager.EXTRA_STATE_IDLE;
-    private static String incomingPhoneNumber = "";
-    private static boolean isIncoming = false;
-    private static boolean wasRinging = false;
+
+    // SubscriptionManager.EXTRA_SUBSCRIPTION_INDEX (API 30), and the extra older dual-SIM builds used
+    private static final String EXTRA_SUBSCRIPTION_INDEX = "android.telephony.extra.SUBSCRIPTION_INDEX";
+    private static final String EXTRA_SUBSCRIPTION_LEGACY = "subscription";
 
     @Override
     public void onReceive(Context context, Intent intent) {
@@ -21,132 +25,23 @@ public class CallReceiver extends BroadcastReceiver {
         Log.d(TAG, "Received broadcast: " + action);
 
         if (TelephonyManager.ACTION_PHONE_STATE_CHANGED.equals(action)) {
-            handlePhoneStateChange(context, intent);
+            String state = intent.getStringExtra(TelephonyManager.EXTRA_STATE);
+            if (state == null) return;
+            String phoneNumber = intent.getStringExtra(TelephonyManager.EXTRA_INCOMING_NUMBER);
+            Log.d(TAG, "Phone state changed: " + state + ", Number: " + phoneNumber);
+            CallEventPipeline.getInstance(context).onPhoneState(subscriptionId(intent), state, phoneNumber);
         } else if (Intent.ACTION_NEW_OUTGOING_CALL.equals(action)) {
-            handleOutgoingCall(context, intent);
+            String phoneNumber = intent.getStringExtra(Intent.EXTRA_PHONE_NUMBER);
+            Log.d(TAG, "Outgoing call initiated: " + phoneNumber);
+            CallEventPipeline.getInstance(context).onOutgoingCall(subscriptionId(intent), phoneNumber);
         }
     }
 
-    private void handlePhoneStateChange(Context context, Intent intent) {
-        String state = intent.getStringExtra(TelephonyManager.EXTRA_STATE);
-        if (state == null) return;
-        String phoneNumber = intent.getStringExtra(TelephonyManager.EXTRA_INCOMING_NUMBER);
-
-        Log.d(TAG, "Phone state changed: " + state + ", Number: " + phoneNumber);
-
-        if (phoneNumber != null && !phoneNumber.isEmpty()) {
-            incomingPhoneNumber = phoneNumber;
-        }
-
-        if (TelephonyManager.EXTRA_STATE_RINGING.equals(state)) {
-            // Incoming call ringing
-            isIncoming = true;
-            wasRinging = true;
-            Log.d(TAG, "Incoming call ringing: " + incomingPhoneNumber);
-            
-            // Start service to prepare for call processing
-            Intent serviceIntent = new Intent(context, CallReceiverService.class);
-            serviceIntent.setAction(CallReceiverService.ACTION_CALL_RINGING);
-            serviceIntent.putExtra("phoneNumber", incomingPhoneNumber);
-            serviceIntent.putExtra("callType", "incoming");
-            context.startForegroundService(serviceIntent);
-            
-            // NEW: Start enhanced call service for call history and preparation
-            Intent enhancedServiceIntent = new Intent(context, EnhancedCallService.class);
-            enhancedServiceIntent.setAction(EnhancedCallService.ACTION_CALL_STARTED);
-            enhancedServiceIntent.putExtra("phoneNumber", incomingPhoneNumber);
-            enhancedServiceIntent.putExtra("callType", "inbound");
-            context.startService(enhancedServiceIntent);
-
-        } else if (TelephonyManager.EXTRA_STATE_OFFHOOK.equals(state)) {
-            // Call answered
-            if (wasRinging && isIncoming) {
-                Log.d(TAG, "Incoming call answered: " + incomingPhoneNumber);
-                
-                Intent serviceIntent = new Intent(context, CallReceiverService.class);
-                serviceIntent.setAction(CallReceiverService.ACTION_CALL_ANSWERED);
-                serviceIntent.putExtra("phoneNumber", incomingPhoneNumber);
-                serviceIntent.putExtra("callType", "incoming");
-                context.startForegroundService(serviceIntent);
-            }
-
-        } else if (TelephonyManager.EXTRA_STATE_IDLE.equals(state)) {
-            // Call ended
-            if (wasRinging && isIncoming) {
-                if (TelephonyManager.EXTRA_STATE_OFFHOOK.equals(lastState)) {
-                    // Call was answered and now ended
-                    Log.d(TAG, "Incoming call ended (was answered): " + incomingPhoneNumber);
-                    
-                    Intent serviceIntent = new Intent(context, CallReceiverService.class);
-                    serviceIntent.setAction(CallReceiverService.ACTION_CALL_ENDED);
-                    serviceIntent.putExtra("phoneNumber", incomingPhoneNumber);
-                    serviceIntent.putExtra("callType", "incoming");
-                    serviceIntent.putExtra("callStatus", "completed");
-                    context.startForegroundService(serviceIntent);
-                    
-                    // NEW: Enhanced call service for automatic ticket creation
-                    Intent enhancedServiceIntent = new Intent(context, EnhancedCallService.class);
-                    enhancedServiceIntent.setAction(EnhancedCallService.ACTION_CALL_ENDED);
-                    enhancedServiceIntent.putExtra("phoneNumber", incomingPhoneNumber);
-                    enhancedServiceIntent.putExtra("callType", "inbound");
-                    enhancedServiceIntent.putExtra("duration", 0); // TODO: Calculate actual duration
-                    enhancedServiceIntent.putExtra("status", "completed");
-                    context.startService(enhancedServiceIntent);
-                    
-                } else {
-                    // Call was missed
-                    Log.d(TAG, "Incoming call missed: " + incomingPhoneNumber);
-                    
-                    Intent serviceIntent = new Intent(context, CallReceiverService.class);
-                    serviceIntent.setAction(CallReceiverService.ACTION_CALL_ENDED);
-                    serviceIntent.putExtra("phoneNumber", incomingPhoneNumber);
-                    serviceIntent.putExtra("callType", "missed");
-                    serviceIntent.putExtra("callStatus", "missed");
-                    context.startForegroundService(serviceIntent);
-                    
-                    // NEW: Enhanced call service for automatic ticket creation
-                    Intent enhancedServiceIntent = new Intent(context, EnhancedCallService.class);
-                    enhancedServiceIntent.setAction(EnhancedCallService.ACTION_CALL_ENDED);
-                    enhancedServiceIntent.putExtra("phoneNumber", incomingPhoneNumber);
-                    enhancedServiceIntent.putExtra("callType", "inbound");
-                    enhancedServiceIntent.putExtra("duration", 0);
-                    enhancedServiceIntent.putExtra("status", "missed");
-                    context.startService(enhancedServiceIntent);
-                }
-            }
-
-            // Reset state
-            resetCallState();
+    private static int subscriptionId(Intent intent) {
+        int id = intent.getIntExtra(EXTRA_SUBSCRIPTION_INDEX, CallEvent.NO_SUBSCRIPTION);
+        if (id == CallEvent.NO_SUBSCRIPTION) {
+            id = intent.getIntExtra(EXTRA_SUBSCRIPTION_LEGACY, CallEvent.NO_SUBSCRIPTION);
         }
-
-        lastState = state;
-    }
-
-    private void handleOutgoingCall(Context context, Intent intent) {
-        String phoneNumber = intent.getStringExtra(Intent.EXTRA_PHONE_NUMBER);
-        Log.d(TAG, "Outgoing call initiated: " + phoneNumber);
-
-        isIncoming = false;
-        incomingPhoneNumber = phoneNumber;
-
-        Intent serviceIntent = new Intent(context, CallReceiverService.class);
-        serviceIntent.setAction(CallReceiverService.ACTION_OUTGOING_CALL);
-        serviceIntent.putExtra("phoneNumber", phoneNumber);
-        serviceIntent.putExtra("callType", "outgoing");
-        context.startForegroundService(serviceIntent);
-        
-        // NEW: Enhanced call service for outgoing calls
-        Intent enhancedServiceIntent = new Intent(context, EnhancedCallService.class);
-        enhancedServiceIntent.setAction(EnhancedCallService.ACTION_CALL_STARTED);
-        enhancedServiceIntent.putExtra("phoneNumber", phoneNumber);
-        enhancedServiceIntent.putExtra("callType", "outbound");
-        context.startService(enhancedServiceIntent);
-    }
-
-    private void resetCallState() {
-        lastState = TelephonyManager.EXTRA_STATE_IDLE;
-        incomingPhoneNumber = "";
-        isIncoming = false;
-        wasRinging = false;
+        return id;
     }
-}
\ No newline at end of file
+}
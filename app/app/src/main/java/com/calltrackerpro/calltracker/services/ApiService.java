@@ -11,21 +11,27 @@ import com.calltrackerpro.calltracker.models.Ticket;
 import com.calltrackerpro.calltracker.models.TicketNote;
 import com.calltrackerpro.calltracker.models.DashboardStats;
 
-import okhttp3.OkHttpClient;
-import okhttp3.logging.HttpLoggingInterceptor;
+import com.calltrackerpro.calltracker.json.GsonProvider;
+import com.calltrackerpro.calltracker.network.Background;
+import com.calltrackerpro.calltracker.network.HttpClientFactory;
+import com.calltrackerpro.calltracker.network.Idempotent;
+import com.calltrackerpro.calltracker.network.RequestProgress;
+
+import com.google.gson.JsonObject;
+
+import okhttp3.ResponseBody;
 import retrofit2.Call;
-import retrofit2.Retrofit;
-import retrofit2.converter.gson.GsonConverterFactory;
 import retrofit2.http.Body;
 import retrofit2.http.DELETE;
 import retrofit2.http.GET;
 import retrofit2.http.Header;
+import retrofit2.http.Headers;
 import retrofit2.http.POST;
 import retrofit2.http.PUT;
 import retrofit2.http.Path;
 import retrofit2.http.Query;
-
-import java.util.concurrent.TimeUnit;
+import retrofit2.http.Streaming;
+import retrofit2.http.Tag;
 
 public interface ApiService {
 
@@ -35,6 +41,13 @@ public interface ApiService {
     String FALLBACK_URL_IP2 = "https://64.29.17.131/api/"; // Alternative IP address
     // String BASE_URL = "http://192.168.1.XXX:5000/api/"; // For real device - replace XXX with your IP
 
+    /**
+     * Authorization headers are optional: pass SESSION_AUTH (null, so Retrofit
+     * omits the header) and AuthInterceptor attaches the current session token.
+     * A 401 triggers a single shared token refresh via TokenAuthenticator.
+     */
+    String SESSION_AUTH = null;
+
     /**
      * Test API connection - WORKING ✅
      */
@@ -56,14 +69,30 @@ public interface ApiService {
     /**
      * Create/sync a call log - WORKING ✅
      */
+    @Background
     @POST("call-logs")
     Call<ApiResponse<CallLog>> createCallLog(@Header("Authorization") String token, @Body CallLog callLog);
 
     /**
      * Create call log with automatic ticket creation - NEW ✅
      */
+    @Background
     @POST("call-logs")
-    Call<ApiResponse<CallLogWithTicketResponse>> createCallLogWithTicket(@Header("Authorization") String token, @Body CreateCallLogRequest request);
+    Call<ApiResponse<CallLogWithTicketResponse>> createCallLogWithTicket(@Header("Authorization") String token,
+                                                                         @Tag RequestProgress progress,
+                                                                         @Body CreateCallLogRequest request);
+
+    /**
+     * Create several call logs in one gzip-compressed request; results are
+     * reported per item (see CallLogBatchUploader). Not served by the current
+     * backend, which only has POST call-logs.
+     */
+    @Background
+    @Headers("Content-Encoding: gzip")
+    @POST("call-logs/batch")
+    Call<ApiResponse<BatchCallLogResponse>> createCallLogsBatch(@Header("Authorization") String token,
+                                                                @Tag RequestProgress progress,
+                                                                @Body BatchCallLogRequest request);
 
     /**
      * Get call history for a phone number - NEW ✅
@@ -71,6 +100,13 @@ public interface ApiService {
     @GET("call-logs/history/{phoneNumber}")
     Call<ApiResponse<CallHistoryResponse>> getCallHistory(@Header("Authorization") String token, @Path("phoneNumber") String phoneNumber);
 
+    /**
+     * Call history fetched ahead of a call (CallerContextCache pre-warm)
+     */
+    @Background
+    @GET("call-logs/history/{phoneNumber}")
+    Call<ApiResponse<CallHistoryResponse>> prefetchCallHistory(@Header("Authorization") String token, @Path("phoneNumber") String phoneNumber);
+
     /**
      * Get call analytics/stats - NEW ✅
      */
@@ -135,6 +171,13 @@ public interface ApiService {
     @GET("organizations/{id}")
     Call<ApiResponse<Organization>> getOrganization(@Header("Authorization") String token, @Path("id") String organizationId);
 
+    /**
+     * Organization settings re-read for the auto-ticket rules (TicketRuleEngine)
+     */
+    @Background
+    @GET("organizations/{id}")
+    Call<ApiResponse<Organization>> refreshOrganization(@Header("Authorization") String token, @Path("id") String organizationId);
+
     /**
      * Update organization settings (org_admin only)
      */
@@ -319,6 +362,16 @@ public interface ApiService {
     @POST("tickets")
     Call<ApiResponse<Ticket>> createTicket(@Header("Authorization") String token, @Body Ticket ticket);
 
+    /**
+     * Create a ticket under a caller-chosen idempotency key (outbox replay)
+     */
+    @Background
+    @POST("tickets")
+    Call<ApiResponse<Ticket>> createTicket(@Header("Authorization") String token,
+                                           @Header("Idempotency-Key") String idempotencyKey,
+                                           @Tag RequestProgress progress,
+                                           @Body Ticket ticket);
+
     /**
      * Get tickets with enhanced filtering and pagination
      */
@@ -334,6 +387,22 @@ public interface ApiService {
                                                           @Query("page") int page,
                                                           @Query("limit") int limit);
 
+    /**
+     * Streaming variant of getTickets - decode with StreamingListLoader
+     */
+    @Streaming
+    @GET("tickets")
+    Call<ResponseBody> streamTickets(@Header("Authorization") String token,
+                                     @Query("organization_id") String organizationId,
+                                     @Query("team_id") String teamId,
+                                     @Query("assigned_to") String assignedTo,
+                                     @Query("status") String status,
+                                     @Query("category") String category,
+                                     @Query("priority") String priority,
+                                     @Query("sla_status") String slaStatus,
+                                     @Query("page") int page,
+                                     @Query("limit") int limit);
+
     /**
      * Get specific ticket details
      */
@@ -346,6 +415,19 @@ public interface ApiService {
     @PUT("tickets/{id}")
     Call<ApiResponse<Ticket>> updateTicket(@Header("Authorization") String token, @Path("id") String ticketId, @Body Ticket ticket);
 
+    /**
+     * Record a ticket's repeat calls under a caller-chosen idempotency key
+     * (outbox replay). The body holds totals, so sending it twice is harmless.
+     */
+    @Idempotent
+    @Background
+    @PUT("tickets/{id}")
+    Call<ApiResponse<Ticket>> updateRepeatCalls(@Header("Authorization") String token,
+                                                @Header("Idempotency-Key") String idempotencyKey,
+                                                @Tag RequestProgress progress,
+                                                @Path("id") String ticketId,
+                                                @Body RepeatCallsUpdate update);
+
     /**
      * Delete ticket (org_admin only)
      */
@@ -516,27 +598,8 @@ public interface ApiService {
         }
 
         private static ApiService createApiService() {
-            // Create logging interceptor for debugging
-            HttpLoggingInterceptor logging = new HttpLoggingInterceptor();
-            logging.setLevel(HttpLoggingInterceptor.Level.BODY);
-
-            // Create OkHttp client with enhanced DNS and network handling
-            OkHttpClient client = new OkHttpClient.Builder()
-                    .addInterceptor(logging)
-                    .connectTimeout(45, TimeUnit.SECONDS)  // Increased timeout for DNS resolution
-                    .readTimeout(45, TimeUnit.SECONDS)
-                    .writeTimeout(45, TimeUnit.SECONDS)
-                    .callTimeout(60, TimeUnit.SECONDS)     // Overall call timeout
-                    .retryOnConnectionFailure(true)        // Retry on connection failures
-                    .build();
-
-            // Create Retrofit instance
-            return new Retrofit.Builder()
-                    .baseUrl(BASE_URL)
-                    .client(client)
-                    .addConverterFactory(GsonConverterFactory.create())
-                    .build()
-                    .create(ApiService.class);
+            // Shares the process-wide connection pool, dispatcher and TLS sessions
+            return HttpClientFactory.getApiService();
         }
     }
 
@@ -795,6 +858,26 @@ public interface ApiService {
         public void setAssignmentNote(String assignmentNote) { this.assignmentNote = assignmentNote; }
     }
 
+    /**
+     * The calls a ticket's caller made after the one that opened it, kept in
+     * the ticket's custom_fields column. PUT tickets/{id} replaces that whole
+     * column, so the update carries the ticket's other custom fields too.
+     */
+    class RepeatCallsUpdate {
+        private JsonObject custom_fields;
+
+        public RepeatCallsUpdate(java.util.Map<String, Object> existing, int repeatCalls, String lastCallAt, String lastCall) {
+            this.custom_fields = existing != null
+                    ? GsonProvider.getGson().toJsonTree(existing).getAsJsonObject()
+                    : new JsonObject();
+            custom_fields.addProperty("repeat_calls", repeatCalls);
+            custom_fields.addProperty("last_call_at", lastCallAt);
+            custom_fields.addProperty("last_call", lastCall);
+        }
+
+        public JsonObject getCustom_fields() { return custom_fields; }
+    }
+
     class UpdateTicketStatusRequest {
         private String status;
         private String category;
@@ -1188,6 +1271,7 @@ public interface ApiService {
         private String caller_name;
         private String notes;
         private boolean auto_create_ticket; // NEW: triggers automatic ticket creation
+        private String client_id; // Client-generated id, matches batch results to requests
         
         public CreateCallLogRequest(String phoneNumber, String type, int duration, String status, String callerName, String notes, boolean autoCreateTicket) {
             this.phone_number = phoneNumber;
@@ -1220,6 +1304,68 @@ public interface ApiService {
         
         public boolean isAuto_create_ticket() { return auto_create_ticket; }
         public void setAuto_create_ticket(boolean auto_create_ticket) { this.auto_create_ticket = auto_create_ticket; }
+        
+        public String getClient_id() { return client_id; }
+        public void setClient_id(String client_id) { this.client_id = client_id; }
+    }
+    
+    class BatchCallLogRequest {
+        private java.util.List<CreateCallLogRequest> call_logs;
+        
+        public BatchCallLogRequest(java.util.List<CreateCallLogRequest> callLogs) {
+            this.call_logs = callLogs;
+        }
+        
+        public java.util.List<CreateCallLogRequest> getCall_logs() { return call_logs; }
+        public void setCall_logs(java.util.List<CreateCallLogRequest> call_logs) { this.call_logs = call_logs; }
+    }
+    
+    class BatchCallLogResponse {
+        private java.util.List<BatchCallLogResult> results; // One entry per submitted call log
+        private int accepted;
+        private int rejected;
+        
+        // Getters and Setters
+        public java.util.List<BatchCallLogResult> getResults() { return results; }
+        public void setResults(java.util.List<BatchCallLogResult> results) { this.results = results; }
+        
+        public int getAccepted() { return accepted; }
+        public void setAccepted(int accepted) { this.accepted = accepted; }
+        
+        public int getRejected() { return rejected; }
+        public void setRejected(int rejected) { this.rejected = rejected; }
+    }
+    
+    class BatchCallLogResult {
+        private int index; // Position in the submitted batch
+        private String client_id;
+        private boolean success;
+        private boolean retryable; // Failure was transient (e.g. timeout), safe to resend
+        private String error;
+        private CallLog call_log;
+        private Ticket ticket; // Created ticket if auto_create_ticket was true
+        
+        // Getters and Setters
+        public int getIndex() { return index; }
+        public void setIndex(int index) { this.index = index; }
+        
+        public String getClient_id() { return client_id; }
+        public void setClient_id(String client_id) { this.client_id = client_id; }
+        
+        public boolean isSuccess() { return success; }
+        public void setSuccess(boolean success) { this.success = success; }
+        
+        public boolean isRetryable() { return retryable; }
+        public void setRetryable(boolean retryable) { this.retryable = retryable; }
+        
+        public String getError() { return error; }
+        public void setError(String error) { this.error = error; }
+        
+        public CallLog getCall_log() { return call_log; }
+        public void setCall_log(CallLog call_log) { this.call_log = call_log; }
+        
+        public Ticket getTicket() { return ticket; }
+        public void setTicket(Ticket ticket) { this.ticket = ticket; }
     }
     
     class CallLogWithTicketResponse {
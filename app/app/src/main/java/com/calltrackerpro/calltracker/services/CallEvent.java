@@ -0,0 +1,66 @@
+package com.calltrackerpro.calltracker.services;
+
+/**
+ * One transition of one call, as emitted by {@link CallStateMachine}.
+ * Every call gets exactly one RINGING or OUTGOING event and exactly one
+ * ENDED or MISSED event, all carrying the same {@link #callId}.
+ */
+public final class CallEvent {
+
+    public enum Type {
+        RINGING,
+        OUTGOING,
+        ANSWERED,
+        ENDED,
+        MISSED
+    }
+
+    // Same values as the CallReconciler directions
+    public static final String DIRECTION_INCOMING = "incoming";
+    public static final String DIRECTION_OUTGOING = "outgoing";
+
+    // SubscriptionManager.INVALID_SUBSCRIPTION_ID
+    public static final int NO_SUBSCRIPTION = -1;
+
+    public final Type type;
+    public final String callId;
+    public final String phoneNumber;
+    public final String direction;
+    // The SIM the call is on, or NO_SUBSCRIPTION when the broadcast did not say
+    public final int subscriptionId;
+    public final long startedAt;
+    public final long answeredAt;
+    public final long endedAt;
+
+    CallEvent(Type type, String callId, String phoneNumber, String direction, int subscriptionId,
+              long startedAt, long answeredAt, long endedAt) {
+        this.type = type;
+        this.callId = callId;
+        this.phoneNumber = phoneNumber;
+        this.direction = direction;
+        this.subscriptionId = subscriptionId;
+        this.startedAt = startedAt;
+        this.answeredAt = answeredAt;
+        this.endedAt = endedAt;
+    }
+
+    public boolean isIncoming() {
+        return DIRECTION_INCOMING.equals(direction);
+    }
+
+    public boolean isTerminal() {
+        return type == Type.ENDED || type == Type.MISSED;
+    }
+
+    /**
+     * Seconds between answer (or dial) and hang-up, as seen by the broadcasts
+     */
+    public long durationSeconds() {
+        return answeredAt > 0 && endedAt > answeredAt ? (endedAt - answeredAt) / 1000 : 0;
+    }
+
+    @Override
+    public String toString() {
+        return type + " " + callId + " " + phoneNumber;
+    }
+}
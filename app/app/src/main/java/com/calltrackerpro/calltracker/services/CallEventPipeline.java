@@ -0,0 +1,184 @@
+package com.calltrackerpro.calltracker.services;
+
+import android.content.Context;
+import android.content.Intent;
+import android.telephony.TelephonyManager;
+import android.util.Log;
+
+import com.calltrackerpro.calltracker.network.NetworkMetrics;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The one path from telephony broadcasts to call handling. CallReceiver
+ * feeds every broadcast to the {@link CallStateMachine} of the SIM it is
+ * about; their events go in-process to one consumer,
+ * {@link CallReceiverService}. The service is started only when no
+ * consumer is attached, and events raised in the meantime are held until
+ * it attaches.
+ *
+ * The outgoing-call broadcast rarely says which SIM dials, so the dial is
+ * held until a SIM goes off hook and handed to that SIM's machine.
+ *
+ * Main thread only: broadcasts and service lifecycle callbacks both run there.
+ */
+public final class CallEventPipeline implements CallStateMachine.Consumer {
+    private static final String TAG = "CallEventPipeline";
+
+    public static final String METRIC_EVENTS = "callevents.emitted";
+    public static final String METRIC_DUPLICATES = "callevents.duplicates";
+
+    // A few calls' worth; more only piles up if the service cannot start at all
+    private static final int MAX_PENDING = 32;
+    // A dial that has not gone off hook by then was cancelled
+    private static final long DIAL_TIMEOUT_MS = 30 * 1000;
+
+    private static volatile CallEventPipeline instance;
+
+    private final Context context;
+    private final Map<Integer, CallStateMachine> machines = new HashMap<>();
+    private final ArrayDeque<CallEvent> pending = new ArrayDeque<>();
+    private long duplicates = 0;
+    // An outgoing-call broadcast waiting for its SIM to go off hook
+    private String dialNumber;
+    private long dialAt = 0;
+    private CallStateMachine.Consumer consumer;
+    private boolean serviceStarting = false;
+
+    public static CallEventPipeline getInstance(Context context) {
+        if (instance == null) {
+            synchronized (CallEventPipeline.class) {
+                if (instance == null) {
+                    instance = new CallEventPipeline(context.getApplicationContext());
+                }
+            }
+        }
+        return instance;
+    }
+
+    private CallEventPipeline(Context context) {
+        this.context = context;
+    }
+
+    /**
+     * A PHONE_STATE broadcast: one of the TelephonyManager.EXTRA_STATE_*
+     * values, for {@code subscriptionId} or {@link CallEvent#NO_SUBSCRIPTION}
+     */
+    public void onPhoneState(int subscriptionId, String state, String phoneNumber) {
+        CallStateMachine.PhoneState next;
+        if (TelephonyManager.EXTRA_STATE_RINGING.equals(state)) {
+            next = CallStateMachine.PhoneState.RINGING;
+        } else if (TelephonyManager.EXTRA_STATE_OFFHOOK.equals(state)) {
+            next = CallStateMachine.PhoneState.OFFHOOK;
+        } else if (TelephonyManager.EXTRA_STATE_IDLE.equals(state)) {
+            next = CallStateMachine.PhoneState.IDLE;
+        } else {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        CallStateMachine machine = machine(subscriptionId);
+        if (next == CallStateMachine.PhoneState.OFFHOOK && machine.getState() == CallStateMachine.PhoneState.IDLE
+                && dialAt > 0) {
+            if (now - dialAt <= DIAL_TIMEOUT_MS) {
+                machine.onOutgoingCall(dialNumber, dialAt);
+            }
+            dialNumber = null;
+            dialAt = 0;
+        }
+        machine.onPhoneState(next, phoneNumber, now);
+        countDuplicates();
+    }
+
+    public void onOutgoingCall(int subscriptionId, String phoneNumber) {
+        long now = System.currentTimeMillis();
+        CallStateMachine machine = subscriptionId != CallEvent.NO_SUBSCRIPTION
+                ? machine(subscriptionId) : offHookMachine();
+        if (machine != null) {
+            machine.onOutgoingCall(phoneNumber, now);
+            countDuplicates();
+        } else if (dialAt > 0 && now - dialAt <= DIAL_TIMEOUT_MS && phoneNumber != null
+                && phoneNumber.equals(dialNumber)) {
+            NetworkMetrics.increment(METRIC_DUPLICATES);
+        } else {
+            dialNumber = phoneNumber;
+            dialAt = now;
+        }
+    }
+
+    private CallStateMachine machine(int subscriptionId) {
+        CallStateMachine machine = machines.get(subscriptionId);
+        if (machine == null) {
+            machine = new CallStateMachine(subscriptionId, this);
+            machines.put(subscriptionId, machine);
+        }
+        return machine;
+    }
+
+    /**
+     * The SIM already in a call, which a late outgoing-call broadcast belongs to
+     */
+    private CallStateMachine offHookMachine() {
+        for (CallStateMachine machine : machines.values()) {
+            if (machine.getState() == CallStateMachine.PhoneState.OFFHOOK) return machine;
+        }
+        return null;
+    }
+
+    /**
+     * Route events to {@code consumer}, starting with any held while it was away
+     */
+    public void attach(CallStateMachine.Consumer consumer) {
+        this.consumer = consumer;
+        serviceStarting = false;
+        while (!pending.isEmpty() && this.consumer == consumer) {
+            consumer.onCallEvent(pending.poll());
+        }
+    }
+
+    public void detach(CallStateMachine.Consumer consumer) {
+        if (this.consumer == consumer) {
+            this.consumer = null;
+        }
+    }
+
+    @Override
+    public void onCallEvent(CallEvent event) {
+        NetworkMetrics.increment(METRIC_EVENTS);
+        Log.d(TAG, "📞 " + event);
+        if (consumer != null) {
+            consumer.onCallEvent(event);
+            return;
+        }
+        if (pending.size() == MAX_PENDING) {
+            Log.w(TAG, "Dropping undelivered call event: " + pending.poll());
+        }
+        pending.add(event);
+        startConsumer();
+    }
+
+    private void startConsumer() {
+        if (serviceStarting) return;
+        serviceStarting = true;
+        Intent serviceIntent = new Intent(context, CallReceiverService.class);
+        serviceIntent.setAction(CallReceiverService.ACTION_START_SERVICE);
+        try {
+            context.startForegroundService(serviceIntent);
+        } catch (RuntimeException e) {
+            serviceStarting = false;
+            Log.e(TAG, "Could not start CallReceiverService: " + e.getMessage());
+        }
+    }
+
+    private void countDuplicates() {
+        long total = 0;
+        for (CallStateMachine machine : machines.values()) {
+            total += machine.getDuplicates();
+        }
+        if (total != duplicates) {
+            NetworkMetrics.add(METRIC_DUPLICATES, total - duplicates);
+            duplicates = total;
+        }
+    }
+}
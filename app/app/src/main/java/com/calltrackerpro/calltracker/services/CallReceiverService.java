@@ -5,50 +5,66 @@ import android.app.NotificationChannel;
 import android.app.NotificationManager;
 import android.app.PendingIntent;
 import android.app.Service;
-import android.content.ContentResolver;
 import android.content.Context;
 import android.content.Intent;
-import android.database.Cursor;
-import android.net.Uri;
 import android.os.Build;
 import android.os.Handler;
 import android.os.IBinder;
 import android.os.Looper;
-import android.provider.CallLog;
-import android.provider.ContactsContract;
 import android.util.Log;
+import android.widget.Toast;
 import androidx.annotation.Nullable;
 import androidx.core.app.NotificationCompat;
 
 import com.calltrackerpro.calltracker.DashboardRouterActivity;
 import com.calltrackerpro.calltracker.R;
+import com.calltrackerpro.calltracker.data.CallerContextCache;
+import com.calltrackerpro.calltracker.data.ContactNameCache;
+import com.calltrackerpro.calltracker.data.TicketStore;
+import com.calltrackerpro.calltracker.models.CallLog;
 import com.calltrackerpro.calltracker.models.Ticket;
+import com.calltrackerpro.calltracker.network.NetworkMetrics;
+import com.calltrackerpro.calltracker.network.OutboxReplayer;
 import com.calltrackerpro.calltracker.utils.TokenManager;
 import com.calltrackerpro.calltracker.utils.PreferenceManager;
 
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
-import java.util.HashMap;
+import java.util.List;
 import java.util.Locale;
-import java.util.Map;
+import java.util.TimeZone;
 
-public class CallReceiverService extends Service {
+/**
+ * The single consumer of call events from {@link CallEventPipeline}: tracks
+ * each call by its id in the {@link CallSessionRegistry}, shows the
+ * caller's context while it rings, and once the call log confirms how it
+ * went, records it exactly once (a call log entry keyed by the call id,
+ * plus a ticket). Calls left unrecorded by a killed process, or whose end
+ * was never broadcast, are recorded from what the registry kept.
+ */
+public class CallReceiverService extends Service implements CallStateMachine.Consumer, CallSessionRegistry.Listener {
     private static final String TAG = "CallReceiverService";
     private static final String CHANNEL_ID = "CallReceiverChannel";
     private static final int NOTIFICATION_ID = 1001;
 
+    // The dialer writes a call's row within seconds of hang-up
+    private static final long RECONCILE_TIMEOUT_MS = 60 * 1000;
+    // A call recovered after a restart may still be going on; its row comes when it ends
+    private static final long RECOVERED_TIMEOUT_MS = 2 * 60 * 60 * 1000;
+
     // Action constants
     public static final String ACTION_START_SERVICE = "START_SERVICE";
-    public static final String ACTION_CALL_RINGING = "CALL_RINGING";
-    public static final String ACTION_CALL_ANSWERED = "CALL_ANSWERED";
-    public static final String ACTION_CALL_ENDED = "CALL_ENDED";
-    public static final String ACTION_OUTGOING_CALL = "OUTGOING_CALL";
 
     private Handler handler;
-    private Map<String, CallSession> activeCalls = new HashMap<>();
+    private CallSessionRegistry sessions;
     private TicketService ticketService;
     private TokenManager tokenManager;
     private PreferenceManager preferenceManager;
+    // Reused for every call; main thread only
+    private final TicketRuleTable.Classification classification = new TicketRuleTable.Classification();
+    private final SimpleDateFormat utcFormat = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'", Locale.US);
 
     @Override
     public void onCreate() {
@@ -56,45 +72,26 @@ public class CallReceiverService extends Service {
         Log.d(TAG, "Service created");
         
         handler = new Handler(Looper.getMainLooper());
+        utcFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
         ticketService = new TicketService(this);
         tokenManager = new TokenManager(this);
         preferenceManager = new PreferenceManager(this);
+        // Permission may have been granted since launch; start() is a no-op once running
+        ContactNameCache.getInstance(this).start();
+        CallerContextCache.getInstance(this).prewarm();
+        TicketRuleEngine.getInstance(this).refresh(false);
         
         createNotificationChannel();
         startForeground(NOTIFICATION_ID, createNotification("CallTracker Pro is monitoring calls"));
+        sessions = CallSessionRegistry.getInstance(this);
+        sessions.setListener(this);
+        CallEventPipeline.getInstance(this).attach(this);
     }
 
     @Override
     public int onStartCommand(Intent intent, int flags, int startId) {
-        if (intent != null && intent.getAction() != null) {
-            String action = intent.getAction();
-            String phoneNumber = intent.getStringExtra("phoneNumber");
-            String callType = intent.getStringExtra("callType");
-
-            Log.d(TAG, "Service command: " + action + ", Phone: " + phoneNumber + ", Type: " + callType);
-
-            switch (action) {
-                case ACTION_START_SERVICE:
-                    Log.d(TAG, "Service started and ready to monitor calls");
-                    break;
-                    
-                case ACTION_CALL_RINGING:
-                    handleCallRinging(phoneNumber, callType);
-                    break;
-                    
-                case ACTION_CALL_ANSWERED:
-                    handleCallAnswered(phoneNumber, callType);
-                    break;
-                    
-                case ACTION_CALL_ENDED:
-                    String callStatus = intent.getStringExtra("callStatus");
-                    handleCallEnded(phoneNumber, callType, callStatus);
-                    break;
-                    
-                case ACTION_OUTGOING_CALL:
-                    handleOutgoingCall(phoneNumber);
-                    break;
-            }
+        if (intent != null && ACTION_START_SERVICE.equals(intent.getAction())) {
+            Log.d(TAG, "Service started and ready to monitor calls");
         }
 
         return START_STICKY; // Service will be restarted if killed
@@ -106,115 +103,257 @@ public class CallReceiverService extends Service {
         return null;
     }
 
-    private void handleCallRinging(String phoneNumber, String callType) {
-        Log.d(TAG, "Call ringing: " + phoneNumber);
+    @Override
+    public void onCallEvent(CallEvent event) {
+        switch (event.type) {
+            case RINGING:
+            case OUTGOING:
+                handleCallStarted(event);
+                break;
+            case ANSWERED:
+                handleCallAnswered(event);
+                break;
+            case ENDED:
+            case MISSED:
+                handleCallEnded(event);
+                break;
+        }
+    }
+
+    private void handleCallStarted(CallEvent event) {
+        String phoneNumber = event.phoneNumber;
+        Log.d(TAG, "Call started: " + phoneNumber + " (" + event.direction + ")");
         
-        CallSession session = new CallSession(phoneNumber, callType);
-        activeCalls.put(phoneNumber, session);
+        CallSession session = sessions.open(event);
         
-        // Resolve contact name
-        String contactName = resolveContactName(phoneNumber);
-        session.contactName = contactName;
+        updateNotification((event.isIncoming() ? "Incoming call from " : "Outgoing call to ") + label(phoneNumber));
+        if (phoneNumber == null) return;
         
-        updateNotification("Incoming call from " + (contactName != null ? contactName : phoneNumber));
+        // Answered from memory when cached; otherwise looked up off the main thread
+        ContactNameCache.getInstance(this).resolve(phoneNumber, contactName -> {
+            if (contactName == null || sessions.get(event.callId) != session) return;
+            session.contactName = contactName;
+            sessions.touch(session, session.lastEventAt);
+            if (event.isIncoming() && !session.isAnswered) {
+                updateNotification("Incoming call from " + contactName);
+            }
+        });
+        
+        // Show call history for this number, usually pre-fetched before it rang
+        if (tokenManager.isLoggedIn()) {
+            showCallerContext(phoneNumber, event.startedAt);
+            // Picks up rule changes long before this call needs a ticket
+            TicketRuleEngine.getInstance(this).refresh(false);
+        }
     }
 
-    private void handleCallAnswered(String phoneNumber, String callType) {
-        Log.d(TAG, "Call answered: " + phoneNumber);
+    private void handleCallAnswered(CallEvent event) {
+        Log.d(TAG, "Call answered: " + event.phoneNumber);
         
-        CallSession session = activeCalls.get(phoneNumber);
+        CallSession session = sessions.get(event.callId);
         if (session != null) {
-            session.startTime = System.currentTimeMillis();
+            session.startTime = event.answeredAt;
             session.isAnswered = true;
+            sessions.touch(session, event.answeredAt);
         }
         
-        updateNotification("Call in progress with " + phoneNumber);
+        updateNotification("Call in progress with " + label(event.phoneNumber));
     }
 
-    private void handleCallEnded(String phoneNumber, String callType, String callStatus) {
-        Log.d(TAG, "Call ended: " + phoneNumber + ", Status: " + callStatus);
+    private void handleCallEnded(CallEvent event) {
+        boolean missed = event.type == CallEvent.Type.MISSED;
+        Log.d(TAG, "Call ended: " + event.phoneNumber + ", Status: " + (missed ? "missed" : "completed"));
         
-        CallSession session = activeCalls.get(phoneNumber);
-        if (session != null) {
-            session.endTime = System.currentTimeMillis();
-            session.callStatus = callStatus;
-            
-            // Calculate duration
-            if (session.startTime > 0) {
-                session.duration = (session.endTime - session.startTime) / 1000; // in seconds
-            }
-            
-            // Create ticket automatically
-            createTicketFromCall(session);
-            
-            // Remove from active calls
-            activeCalls.remove(phoneNumber);
+        CallSession session = sessions.get(event.callId);
+        if (session == null) {
+            if (sessions.isFinished(event.callId)) return;
+            session = new CallSession(event);
+        } else if (session.isEnded) {
+            // Already closed as abandoned and being recorded
+            return;
         }
+        session.phoneNumber = event.phoneNumber;
+        session.startTime = event.answeredAt;
+        session.endTime = event.endedAt;
+        session.lastEventAt = event.endedAt;
+        // Estimate from broadcasts; replaced by the call log's figures once its row lands
+        session.duration = event.durationSeconds();
+        session.callStatus = missed ? "missed" : "completed";
+        if (missed) session.callType = "missed";
+        sessions.markEnded(session);
         
-        updateNotification("CallTracker Pro is monitoring calls");
+        if (sessions.openCount() == 0) {
+            updateNotification("CallTracker Pro is monitoring calls");
+        }
+        if (session.phoneNumber != null) {
+            CallerContextCache.getInstance(this).invalidate(session.phoneNumber);
+        }
+        reconcile(session, RECONCILE_TIMEOUT_MS);
     }
 
-    private void handleOutgoingCall(String phoneNumber) {
-        Log.d(TAG, "Outgoing call: " + phoneNumber);
-        
-        CallSession session = new CallSession(phoneNumber, "outgoing");
-        session.contactName = resolveContactName(phoneNumber);
-        session.startTime = System.currentTimeMillis();
-        
-        activeCalls.put(phoneNumber, session);
-        
-        updateNotification("Outgoing call to " + phoneNumber);
+    @Override
+    public void onSessionsRecovered(List<CallSession> recovered) {
+        Log.d(TAG, "Recording " + recovered.size() + " calls left over from before a restart");
+        for (CallSession session : recovered) {
+            reconcile(session, RECOVERED_TIMEOUT_MS);
+        }
+    }
+
+    @Override
+    public void onSessionAbandoned(CallSession session) {
+        close(session);
+        if (sessions.openCount() == 0) {
+            updateNotification("CallTracker Pro is monitoring calls");
+        }
+        reconcile(session, RECONCILE_TIMEOUT_MS);
+    }
+
+    /**
+     * End a call whose end we never saw, at the last moment we heard of it;
+     * the call log, if it has the row, corrects the figures
+     */
+    private void close(CallSession session) {
+        session.endTime = session.lastEventAt;
+        session.duration = session.isAnswered && session.endTime > session.startTime
+                ? (session.endTime - session.startTime) / 1000 : 0;
+        boolean missed = !session.isAnswered && CallEvent.DIRECTION_INCOMING.equals(session.direction);
+        session.callStatus = missed ? "missed" : "completed";
+        if (missed) session.callType = "missed";
+        sessions.markEnded(session);
+    }
+
+    /**
+     * Wait for the call log to confirm an ended call, then record it
+     */
+    private void reconcile(CallSession ended, long timeoutMs) {
+        if (ended.phoneNumber == null) {
+            Log.w(TAG, "Call " + ended.callId + " ended without a number; not recorded");
+            sessions.finish(ended.callId);
+            return;
+        }
+        if (!tokenManager.isLoggedIn()) {
+            Log.w(TAG, "User not logged in, not recording call");
+            sessions.finish(ended.callId);
+            return;
+        }
         
-        // For outgoing calls, we'll create the ticket after a delay to get duration from call log
-        handler.postDelayed(() -> {
-            processOutgoingCallEnd(phoneNumber);
-        }, 5000); // Wait 5 seconds then check call log
+        CallReconciler.getInstance(this).expect(ended.callId, ended.phoneNumber, ended.direction,
+                ended.createdAt, timeoutMs, new CallReconciler.Callback() {
+            @Override
+            public void onReconciled(CallLog row) {
+                ended.duration = row.getDuration();
+                ended.callStatus = row.getCallStatus();
+                if ("missed".equals(ended.callStatus) && CallEvent.DIRECTION_INCOMING.equals(ended.direction)) {
+                    ended.callType = "missed";
+                }
+                if (ended.contactName == null) {
+                    ended.contactName = knownName(row);
+                }
+                recordCall(ended);
+            }
+
+            @Override
+            public void onUnmatched() {
+                recordCall(ended);
+            }
+        });
     }
 
-    private void processOutgoingCallEnd(String phoneNumber) {
-        // Query call log for the most recent call to this number
-        String[] projection = {
-            CallLog.Calls.DURATION,
-            CallLog.Calls.DATE,
-            CallLog.Calls.TYPE
-        };
+    /**
+     * One call log entry and one ticket per call. The entry's client_id is
+     * the call id, which matches its upload result back to it, and it asks
+     * for no server-side ticket since the ticket is created here. Both go
+     * through the outbox, which keeps them from there on, so the session is
+     * done once the ticket is submitted.
+     */
+    private void recordCall(CallSession session) {
+        if (sessions.get(session.callId) != session) return;
+        createTicketFromCall(session);
         
-        String selection = CallLog.Calls.NUMBER + " = ?";
-        String[] selectionArgs = {phoneNumber};
-        String sortOrder = CallLog.Calls.DATE + " DESC";
+        ApiService.CreateCallLogRequest request = new ApiService.CreateCallLogRequest(
+            session.phoneNumber,
+            CallEvent.DIRECTION_INCOMING.equals(session.direction) ? "inbound" : "outbound",
+            (int) session.duration,
+            session.callStatus,
+            session.contactName != null ? session.contactName : "Unknown",
+            "",
+            false
+        );
+        request.setClient_id(session.callId);
         
-        try {
-            Cursor cursor = getContentResolver().query(
-                CallLog.Calls.CONTENT_URI,
-                projection,
-                selection,
-                selectionArgs,
-                sortOrder
-            );
-            
-            if (cursor != null && cursor.moveToFirst()) {
-                long duration = cursor.getLong(cursor.getColumnIndexOrThrow(CallLog.Calls.DURATION));
-                long date = cursor.getLong(cursor.getColumnIndexOrThrow(CallLog.Calls.DATE));
-                int type = cursor.getInt(cursor.getColumnIndexOrThrow(CallLog.Calls.TYPE));
-                
-                CallSession session = activeCalls.get(phoneNumber);
-                if (session != null) {
-                    session.duration = duration;
-                    session.endTime = date;
-                    session.callStatus = duration > 0 ? "completed" : "missed";
-                    
-                    createTicketFromCall(session);
-                    activeCalls.remove(phoneNumber);
-                }
+        // Journaled first, then uploaded in a batch with other recent calls; survives restarts and outages
+        OutboxReplayer.getInstance().submitCallLog(request, new OutboxReplayer.Callback<ApiService.BatchCallLogResult>() {
+            @Override
+            public void onDelivered(ApiService.BatchCallLogResult result) {
+                Log.d(TAG, "Call logged successfully");
+                broadcastCallLogged(result.getCall_log());
             }
             
-            if (cursor != null) {
-                cursor.close();
+            @Override
+            public void onRejected(String error) {
+                Log.e(TAG, "Failed to log call: " + error);
             }
-            
-        } catch (Exception e) {
-            Log.e(TAG, "Error querying call log", e);
+        });
+    }
+
+    private void broadcastCallLogged(CallLog callLog) {
+        // Broadcast success for UI updates
+        Intent broadcastIntent = new Intent("com.calltrackerpro.CALL_LOGGED");
+        if (callLog != null) {
+            broadcastIntent.putExtra("callLogId", callLog.getId());
+            broadcastIntent.putExtra("phoneNumber", callLog.getPhoneNumber());
+            broadcastIntent.putExtra("callType", callLog.getCallType());
+            broadcastIntent.putExtra("duration", callLog.getDuration());
         }
+        sendBroadcast(broadcastIntent);
+    }
+
+    /**
+     * Broadcast the caller's context: from the cache at once when it has it,
+     * and again once revalidated
+     */
+    private void showCallerContext(String phoneNumber, long ringAt) {
+        boolean[] shown = {false};
+        CallerContextCache.getInstance(this).get(phoneNumber, (data, fresh) -> {
+            if (!shown[0]) {
+                shown[0] = true;
+                long latency = Math.max(0, System.currentTimeMillis() - ringAt);
+                NetworkMetrics.recordSample(CallerContextCache.METRIC_RING_TO_CONTEXT_MS, latency);
+                Log.d(TAG, "Caller context for " + phoneNumber + " shown " + latency + "ms after ring"
+                        + (fresh ? "" : " (cached, revalidating)"));
+            }
+            broadcastCallHistory(phoneNumber, data);
+        });
+    }
+    
+    private void broadcastCallHistory(String phoneNumber, ApiService.CallHistoryResponse data) {
+        int callCount = data.getCall_history() != null ? data.getCall_history().size() : 0;
+        int ticketCount = data.getRelated_tickets() != null ? data.getRelated_tickets().size() : 0;
+        
+        // Broadcast call history for UI display
+        Intent broadcastIntent = new Intent("com.calltrackerpro.CALL_HISTORY_RECEIVED");
+        broadcastIntent.putExtra("phoneNumber", phoneNumber);
+        // Contact info (if available)
+        if (data.getContact() != null) {
+            broadcastIntent.putExtra("contactExists", true);
+            broadcastIntent.putExtra("contactName", data.getContact().getFullName());
+            broadcastIntent.putExtra("contactStatus", data.getContact().getStatus());
+            broadcastIntent.putExtra("contactCompany", data.getContact().getCompany());
+        } else {
+            broadcastIntent.putExtra("contactExists", false);
+        }
+        broadcastIntent.putExtra("callHistoryCount", callCount);
+        broadcastIntent.putExtra("relatedTicketsCount", ticketCount);
+        sendBroadcast(broadcastIntent);
+    }
+
+    private static String knownName(CallLog row) {
+        String name = row.getContactName();
+        return name != null && !"Unknown".equals(name) ? name : null;
+    }
+
+    private static String label(String phoneNumber) {
+        return phoneNumber != null ? phoneNumber : "unknown number";
     }
 
     private void createTicketFromCall(CallSession session) {
@@ -223,10 +362,99 @@ public class CallReceiverService extends Service {
         // Only create tickets if user is logged in
         if (!tokenManager.isLoggedIn()) {
             Log.w(TAG, "User not logged in, skipping ticket creation");
+            sessions.finish(session.callId);
+            return;
+        }
+        
+        // A caller who rang again soon after their last call adds to that call's ticket
+        long callAt = callAt(session);
+        RepeatCallerWindow.Entry repeat = RepeatCallerIndex.getInstance(this)
+                .find(preferenceManager.getOrganizationId(), session.phoneNumber, callAt);
+        if (repeat != null) {
+            attachToTicket(session, repeat, callAt);
             return;
         }
         
+        // Rules may look at the caller's open tickets; the local store answers without a round trip
+        TicketStore.getInstance(this).countOpen(preferenceManager.getOrganizationId(), session.phoneNumber,
+                openTickets -> submitTicketFromCall(session, openTickets, Collections.<CallSession>emptyList()));
+    }
+
+    private static long callAt(CallSession session) {
+        return session.endTime > 0 ? session.endTime : session.createdAt;
+    }
+
+    /**
+     * Count a repeat call on the ticket its caller's earlier call opened
+     */
+    private void attachToTicket(CallSession session, RepeatCallerWindow.Entry repeat, long callAt) {
+        try {
+            if (RepeatCallerIndex.getInstance(this).attach(repeat, callAt, session.copy())) {
+                submitRepeatCalls(repeat.getTicketId(), repeat.getCalls(), session);
+                Log.d(TAG, "Repeat call from " + session.phoneNumber + " added to ticket " + repeat.getTicketId());
+            } else {
+                Log.d(TAG, "Repeat call from " + session.phoneNumber + " waiting for its ticket to be delivered");
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Error attaching repeat call to ticket", e);
+        } finally {
+            sessions.finish(session.callId);
+        }
+    }
+
+    private static String describeRepeatCall(CallSession session, int calls) {
+        String kind = "missed".equals(session.callType) ? "Missed"
+                : CallEvent.DIRECTION_INCOMING.equals(session.direction) ? "Incoming" : "Outgoing";
+        StringBuilder text = new StringBuilder(kind).append(" call #").append(calls)
+                .append(" from ").append(session.contactName != null ? session.contactName : label(session.phoneNumber));
+        if (session.duration > 0) {
+            text.append(", ").append(session.duration).append("s");
+        }
+        return text.toString();
+    }
+
+    /**
+     * Store the ticket's repeat-call total and its latest call on the ticket.
+     * The update replaces the ticket's custom fields, so it starts from the
+     * ones in the stored copy of the ticket.
+     */
+    private void submitRepeatCalls(String ticketId, int calls, CallSession last) {
+        String lastCallAt = isoUtc(callAt(last));
+        String lastCall = describeRepeatCall(last, calls);
+        TicketStore.getInstance(this).get(ticketId, stored -> {
+            ApiService.RepeatCallsUpdate update = new ApiService.RepeatCallsUpdate(
+                    stored != null ? stored.getCustomFields() : null, calls - 1, lastCallAt, lastCall);
+            // Journaled like the ticket itself, so the update survives being offline
+            OutboxReplayer.getInstance().submitRepeatCalls(ticketId, update, new OutboxReplayer.Callback<Ticket>() {
+                @Override
+                public void onDelivered(Ticket result) {
+                    Log.d(TAG, "Repeat calls recorded on ticket " + ticketId);
+                    TicketStore.getInstance(CallReceiverService.this).put(result);
+                }
+
+                @Override
+                public void onRejected(String error) {
+                    Log.e(TAG, "Failed to record repeat calls on ticket " + ticketId + ": " + error);
+                }
+            });
+        });
+    }
+
+    private String isoUtc(long millis) {
+        return utcFormat.format(new Date(millis));
+    }
+
+    /**
+     * Open a ticket for {@code session}; {@code repeats} are later calls from
+     * the same caller that count on it once it is delivered
+     */
+    private void submitTicketFromCall(CallSession session, int openTickets, List<CallSession> repeats) {
         try {
+            long callAt = callAt(session);
+            TicketRuleTable.Classification rules = classification;
+            TicketRuleEngine.getInstance(this).table().classify(callTypeOf(session), session.duration,
+                    callAt, session.contactName != null, openTickets, rules);
+            
             Ticket ticket = new Ticket();
             
             // Basic contact information
@@ -236,24 +464,23 @@ public class CallReceiverService extends Service {
             // Call details
             ticket.setCallType(session.callType);
             ticket.setCallDuration(session.duration);
-            ticket.setCallDate(new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'", Locale.getDefault()).format(new Date()));
+            ticket.setCallDate(isoUtc(callAt));
             
             // Enhanced backend schema - Set default values for new ticket lifecycle
             ticket.setStatus("open");
-            ticket.setCategory(determineCategoryFromCall(session));
-            ticket.setPriority(determinePriorityFromCall(session));
+            ticket.setCategory(rules.category);
+            ticket.setPriority(rules.priority);
             ticket.setSource("phone");
             
-            // SLA management - set due date based on priority
-            String dueDate = calculateDueDate(ticket.getPriority());
-            ticket.setDueDate(dueDate);
+            // SLA management - due date from the organization's SLA for this priority
+            ticket.setDueDate(isoUtc(System.currentTimeMillis() + rules.slaMs));
             ticket.setSlaStatus("on_track");
             
             // Legacy CRM fields (maintained for compatibility)
             ticket.setLeadSource("cold_call");
             ticket.setLeadStatus("new");
             ticket.setStage("prospect");
-            ticket.setInterestLevel(determineInterestLevel(session));
+            ticket.setInterestLevel(rules.interestLevel);
             
             // Multi-tenant context
             String organizationId = preferenceManager.getOrganizationId();
@@ -271,53 +498,66 @@ public class CallReceiverService extends Service {
             }
             
             // Set audit trail
-            String currentTime = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'", Locale.getDefault()).format(new Date());
+            String currentTime = isoUtc(System.currentTimeMillis());
             ticket.setCreatedAt(currentTime);
             ticket.setUpdatedAt(currentTime);
             ticket.setActive(true);
             
-            // Create ticket via enhanced API
-            ticketService.createTicket(ticket, new TicketService.TicketCallback<Ticket>() {
+            // Calls from this number until the ticket is delivered wait for it rather than open their own
+            RepeatCallerIndex repeatCallers = RepeatCallerIndex.getInstance(this);
+            RepeatCallerWindow.Entry opened = repeatCallers.open(organizationId, session.phoneNumber, callAt);
+            if (opened != null) {
+                for (CallSession repeat : repeats) {
+                    repeatCallers.attach(opened, callAt(repeat), repeat);
+                }
+            }
+            
+            // Journaled before the first attempt, so an offline call still becomes a ticket later
+            ticketService.submitTicket(ticket, new TicketService.TicketCallback<Ticket>() {
                 @Override
                 public void onSuccess(Ticket createdTicket) {
                     Log.d(TAG, "Enhanced ticket created successfully: " + createdTicket.getTicketId());
+                    // Stored first, so repeat calls keep the custom fields the backend gave it
+                    TicketStore.getInstance(CallReceiverService.this).put(createdTicket);
+                    if (opened != null) {
+                        List<CallSession> waiting = repeatCallers.delivered(opened, createdTicket.getId());
+                        if (!waiting.isEmpty()) {
+                            submitRepeatCalls(createdTicket.getId(), opened.getCalls(), waiting.get(waiting.size() - 1));
+                        }
+                    }
                     showEnhancedTicketCreatedNotification(createdTicket);
+                    showTicketPopup(createdTicket);
                 }
                 
                 @Override
                 public void onError(String error) {
+                    // Only permanent rejections land here; network failures are retried by the outbox
                     Log.e(TAG, "Failed to create enhanced ticket: " + error);
-                    // Store call data for manual ticket creation later
-                    storeFailedCallForRetry(session, error);
+                    if (opened != null) {
+                        List<CallSession> waiting = repeatCallers.rejected(opened);
+                        if (!waiting.isEmpty()) {
+                            // Those calls still need a ticket: the first one opens it and the rest count on it
+                            Log.w(TAG, waiting.size() + " repeat calls were waiting on the rejected ticket; opening one for them");
+                            CallSession first = waiting.get(0);
+                            List<CallSession> rest = new ArrayList<>(waiting.subList(1, waiting.size()));
+                            TicketStore.getInstance(CallReceiverService.this).countOpen(organizationId, first.phoneNumber,
+                                    openTickets -> submitTicketFromCall(first, openTickets, rest));
+                        }
+                    }
                 }
             });
             
         } catch (Exception e) {
             Log.e(TAG, "Error creating ticket from call", e);
+        } finally {
+            sessions.finish(session.callId);
         }
     }
 
-    private String resolveContactName(String phoneNumber) {
-        if (phoneNumber == null || phoneNumber.isEmpty()) return null;
-        
-        try {
-            Uri uri = Uri.withAppendedPath(ContactsContract.PhoneLookup.CONTENT_FILTER_URI, Uri.encode(phoneNumber));
-            String[] projection = {ContactsContract.PhoneLookup.DISPLAY_NAME};
-            
-            Cursor cursor = getContentResolver().query(uri, projection, null, null, null);
-            if (cursor != null) {
-                if (cursor.moveToFirst()) {
-                    String contactName = cursor.getString(0);
-                    cursor.close();
-                    return contactName;
-                }
-                cursor.close();
-            }
-        } catch (Exception e) {
-            Log.e(TAG, "Error resolving contact name", e);
-        }
-        
-        return null;
+    private static int callTypeOf(CallSession session) {
+        if ("missed".equals(session.callType)) return TicketRuleTable.CALL_MISSED;
+        return CallEvent.DIRECTION_INCOMING.equals(session.direction)
+                ? TicketRuleTable.CALL_INCOMING : TicketRuleTable.CALL_OUTGOING;
     }
 
     private void createNotificationChannel() {
@@ -361,70 +601,6 @@ public class CallReceiverService extends Service {
         }
     }
 
-    // Enhanced helper methods for ticket creation
-    private String determineCategoryFromCall(CallSession session) {
-        // Logic to determine category based on call characteristics
-        if (session.duration > 300) { // Calls longer than 5 minutes might be support
-            return "support";
-        } else if (session.callType.equals("outgoing")) {
-            return "sales";
-        } else {
-            return "sales"; // Default to sales for incoming calls
-        }
-    }
-    
-    private String determinePriorityFromCall(CallSession session) {
-        // Logic to determine priority based on call characteristics
-        if (session.callType.equals("missed")) {
-            return "high"; // Missed calls get high priority
-        } else if (session.duration < 30) {
-            return "medium"; // Short calls get medium priority
-        } else {
-            return "low"; // Normal calls get low priority
-        }
-    }
-    
-    private String determineInterestLevel(CallSession session) {
-        // Logic to determine interest level
-        if (session.duration > 180) { // Calls longer than 3 minutes
-            return "hot";
-        } else if (session.duration > 60) {
-            return "warm";
-        } else {
-            return "cold";
-        }
-    }
-    
-    private String calculateDueDate(String priority) {
-        long currentTime = System.currentTimeMillis();
-        long dueTime;
-        
-        switch (priority) {
-            case "urgent":
-                dueTime = currentTime + (2 * 60 * 60 * 1000); // 2 hours
-                break;
-            case "high":
-                dueTime = currentTime + (4 * 60 * 60 * 1000); // 4 hours
-                break;
-            case "medium":
-                dueTime = currentTime + (24 * 60 * 60 * 1000); // 24 hours
-                break;
-            case "low":
-            default:
-                dueTime = currentTime + (3 * 24 * 60 * 60 * 1000); // 3 days
-                break;
-        }
-        
-        return new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'", Locale.getDefault()).format(new Date(dueTime));
-    }
-    
-    private void storeFailedCallForRetry(CallSession session, String error) {
-        // Store call information for manual retry later
-        // This could be implemented with a local database or shared preferences
-        Log.w(TAG, "Storing failed call for retry: " + session.phoneNumber + ", Error: " + error);
-        // TODO: Implement local storage for failed ticket creation attempts
-    }
-    
     private void showEnhancedTicketCreatedNotification(Ticket ticket) {
         // Create enhanced notification with more details
         String ticketInfo = String.format("Category: %s | Priority: %s | Duration: %s", 
@@ -460,26 +636,31 @@ public class CallReceiverService extends Service {
         }
     }
 
+    private void showTicketPopup(Ticket ticket) {
+        // Send broadcast to display ticket popup with essential data
+        Intent popupIntent = new Intent("com.calltrackerpro.SHOW_TICKET_POPUP");
+        popupIntent.putExtra("ticketId", ticket.getTicketId());
+        popupIntent.putExtra("customerPhone", ticket.getPhoneNumber());
+        popupIntent.putExtra("callType", ticket.getCallType());
+        popupIntent.putExtra("priority", ticket.getPriority());
+        popupIntent.putExtra("status", ticket.getStatus());
+        popupIntent.putExtra("description", ticket.getContactName() != null ? ticket.getContactName() : "Auto-created from call");
+        popupIntent.putExtra("mode", "auto_created");
+        
+        try {
+            sendBroadcast(popupIntent);
+            handler.post(() -> Toast.makeText(this, "Ticket created: " + ticket.getTicketId(), Toast.LENGTH_LONG).show());
+            Log.d(TAG, "Sent ticket popup broadcast for: " + ticket.getTicketId());
+        } catch (Exception e) {
+            Log.e(TAG, "Error showing ticket popup: " + e.getMessage());
+        }
+    }
+
     @Override
     public void onDestroy() {
+        CallEventPipeline.getInstance(this).detach(this);
+        sessions.setListener(null);
         super.onDestroy();
         Log.d(TAG, "Service destroyed");
     }
-
-    // Inner class to track call sessions
-    private static class CallSession {
-        String phoneNumber;
-        String callType;
-        String contactName;
-        long startTime = 0;
-        long endTime = 0;
-        long duration = 0;
-        boolean isAnswered = false;
-        String callStatus = "unknown";
-
-        CallSession(String phoneNumber, String callType) {
-            this.phoneNumber = phoneNumber;
-            this.callType = callType;
-        }
-    }
 }
\ No newline at end of file
@@ -0,0 +1,251 @@
+package com.calltrackerpro.calltracker.services;
+
+import android.Manifest;
+import android.content.Context;
+import android.content.pm.PackageManager;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.core.content.ContextCompat;
+
+import com.calltrackerpro.calltracker.data.DeviceCallLogStore;
+import com.calltrackerpro.calltracker.models.CallLog;
+import com.calltrackerpro.calltracker.network.NetworkMetrics;
+import com.calltrackerpro.calltracker.utils.PhoneNumbers;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Matches calls we saw happen (from phone-state broadcasts) to the rows the
+ * dialer writes into the call log, to learn their real duration and status.
+ *
+ * Nothing polls: the dialer writes its row when the call ends, the
+ * {@link DeviceCallLogStore} observer ingests it, and every waiting call is
+ * matched against the whole batch at once, by number, direction and how
+ * close the row's start time is to the one we saw. Rows that arrive before
+ * anyone asks for them are kept briefly. A call that never gets a row
+ * (permission missing, dialer did not log it) falls back to what the caller
+ * measured itself once its timeout passes.
+ *
+ * All methods and callbacks run on the main thread.
+ */
+public final class CallReconciler implements DeviceCallLogStore.Listener {
+    private static final String TAG = "CallReconciler";
+
+    public static final String DIRECTION_INCOMING = "incoming";
+    public static final String DIRECTION_OUTGOING = "outgoing";
+
+    public static final String METRIC_MATCHED = "calllog.reconcile.matched";
+    public static final String METRIC_UNMATCHED = "calllog.reconcile.unmatched";
+    public static final String METRIC_LAG_MS = "calllog.reconcile.lag_ms";
+
+    // How far a row's start may be from the start we observed
+    private static final long MATCH_WINDOW_MS = 2 * 60 * 1000;
+    // Rows nobody asked for yet are kept this long for a late expect()
+    private static final long RECENT_ROW_TTL_MS = 10 * 60 * 1000;
+    private static final int MAX_RECENT_ROWS = 50;
+
+    public interface Callback {
+        /**
+         * The dialer's row for this call: duration, status and call type as logged
+         */
+        void onReconciled(CallLog row);
+
+        /**
+         * No row turned up before the timeout; use the caller's own figures
+         */
+        void onUnmatched();
+    }
+
+    private static CallReconciler instance;
+
+    private final Context context;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final List<Pending> pending = new ArrayList<>();
+    private final ArrayDeque<Row> recentRows = new ArrayDeque<>();
+
+    public static synchronized CallReconciler getInstance(Context context) {
+        if (instance == null) {
+            instance = new CallReconciler(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    private CallReconciler(Context context) {
+        this.context = context;
+        DeviceCallLogStore.getInstance(context).addListener(this);
+    }
+
+    /**
+     * Wait for the call-log row of call {@code callId} to {@code phoneNumber}
+     * in {@code direction} that started at {@code startedAt}. {@code timeoutMs}
+     * should cover the rest of the call if it is still in progress. A call
+     * that is already waiting is not registered again, so it can only claim
+     * one row and is only called back once.
+     */
+    public void expect(String callId, String phoneNumber, String direction, long startedAt, long timeoutMs,
+                       Callback callback) {
+        for (Pending waiting : pending) {
+            if (waiting.callId.equals(callId)) {
+                Log.w(TAG, "Call " + callId + " is already waiting for its call log row");
+                return;
+            }
+        }
+        String key = PhoneNumbers.canonical(phoneNumber);
+        if (!hasPermission() || key == null) {
+            NetworkMetrics.increment(METRIC_UNMATCHED);
+            callback.onUnmatched();
+            return;
+        }
+        DeviceCallLogStore.getInstance(context).start();
+
+        Pending call = new Pending(callId, key, direction, startedAt, callback);
+        pruneRecentRows();
+        Row early = bestRow(call, recentRows);
+        if (early != null) {
+            recentRows.remove(early);
+            deliver(call, early);
+            return;
+        }
+
+        pending.add(call);
+        call.timeout = () -> {
+            if (pending.remove(call)) {
+                Log.w(TAG, "No call log row for " + direction + " call to " + phoneNumber);
+                NetworkMetrics.increment(METRIC_UNMATCHED);
+                callback.onUnmatched();
+            }
+        };
+        handler.postDelayed(call.timeout, timeoutMs);
+    }
+
+    @Override
+    public void onCallsIngested(List<CallLog> added) {
+        List<Row> rows = new ArrayList<>(added.size());
+        for (CallLog call : added) {
+            rows.add(new Row(call));
+        }
+
+        if (!pending.isEmpty()) {
+            // Pair each waiting call with its closest row, closest pairs first, across the whole batch
+            List<Candidate> candidates = new ArrayList<>();
+            for (Pending call : pending) {
+                for (Row row : rows) {
+                    if (matches(call, row)) {
+                        candidates.add(new Candidate(call, row, Math.abs(row.call.getTimestamp() - call.startedAt)));
+                    }
+                }
+            }
+            Collections.sort(candidates, (a, b) -> Long.compare(a.distance, b.distance));
+            for (Candidate candidate : candidates) {
+                if (candidate.row.claimed || !pending.contains(candidate.call)) continue;
+                candidate.row.claimed = true;
+                pending.remove(candidate.call);
+                handler.removeCallbacks(candidate.call.timeout);
+                deliver(candidate.call, candidate.row);
+            }
+        }
+
+        for (Row row : rows) {
+            if (!row.claimed) recentRows.addLast(row);
+        }
+        pruneRecentRows();
+    }
+
+    @Override
+    public void onIngestFailed(RuntimeException error) {
+        // Waiting calls fall back to their own timing when their timeout fires
+    }
+
+    private void deliver(Pending call, Row row) {
+        long endedAt = row.call.getTimestamp() + row.call.getDuration() * 1000;
+        long lag = Math.max(0, System.currentTimeMillis() - endedAt);
+        NetworkMetrics.increment(METRIC_MATCHED);
+        NetworkMetrics.recordSample(METRIC_LAG_MS, lag);
+        Log.d(TAG, "🔗 Reconciled " + call.direction + " call: " + row.call.getDuration() + "s, "
+                + row.call.getCallStatus() + " (" + lag + "ms after it ended)");
+        call.callback.onReconciled(row.call);
+    }
+
+    private Row bestRow(Pending call, Iterable<Row> rows) {
+        Row best = null;
+        long bestDistance = Long.MAX_VALUE;
+        for (Row row : rows) {
+            if (!matches(call, row)) continue;
+            long distance = Math.abs(row.call.getTimestamp() - call.startedAt);
+            if (distance < bestDistance) {
+                best = row;
+                bestDistance = distance;
+            }
+        }
+        return best;
+    }
+
+    private void pruneRecentRows() {
+        long cutoff = System.currentTimeMillis() - RECENT_ROW_TTL_MS;
+        for (Iterator<Row> it = recentRows.iterator(); it.hasNext(); ) {
+            if (it.next().receivedAt < cutoff) it.remove();
+        }
+        while (recentRows.size() > MAX_RECENT_ROWS) {
+            recentRows.removeFirst();
+        }
+    }
+
+    private static boolean matches(Pending call, Row row) {
+        if (Math.abs(row.call.getTimestamp() - call.startedAt) > MATCH_WINDOW_MS) return false;
+        boolean outgoingRow = DIRECTION_OUTGOING.equals(row.call.getCallType());
+        if (outgoingRow != DIRECTION_OUTGOING.equals(call.direction)) return false;
+        return PhoneNumbers.matchesCanonical(call.key, row.key);
+    }
+
+    private boolean hasPermission() {
+        return ContextCompat.checkSelfPermission(context, Manifest.permission.READ_CALL_LOG)
+                == PackageManager.PERMISSION_GRANTED;
+    }
+
+    private static final class Pending {
+        final String callId;
+        final String key;
+        final String direction;
+        final long startedAt;
+        final Callback callback;
+        Runnable timeout;
+
+        Pending(String callId, String key, String direction, long startedAt, Callback callback) {
+            this.callId = callId;
+            this.key = key;
+            this.direction = direction;
+            this.startedAt = startedAt;
+            this.callback = callback;
+        }
+    }
+
+    private static final class Row {
+        final CallLog call;
+        final String key;
+        final long receivedAt = System.currentTimeMillis();
+        boolean claimed;
+
+        Row(CallLog call) {
+            this.call = call;
+            this.key = PhoneNumbers.canonical(call.getPhoneNumber());
+        }
+    }
+
+    private static final class Candidate {
+        final Pending call;
+        final Row row;
+        final long distance;
+
+        Candidate(Pending call, Row row, long distance) {
+            this.call = call;
+            this.row = row;
+            this.distance = distance;
+        }
+    }
+}
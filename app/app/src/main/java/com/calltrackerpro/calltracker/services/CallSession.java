@@ -0,0 +1,56 @@
+package com.calltrackerpro.calltracker.services;
+
+/**
+ * What {@link CallReceiverService} knows about one call, from its first
+ * event until it is recorded. Kept in {@link CallSessionRegistry} and saved
+ * with it, so fields are plain values.
+ */
+final class CallSession {
+    String callId;
+    String phoneNumber;
+    String callType;
+    String direction;
+    int subscriptionId;
+    String contactName;
+    long createdAt;
+    long startTime = 0;
+    long endTime = 0;
+    long duration = 0;
+    boolean isAnswered = false;
+    // Ended: waiting on the call log to confirm it before it is recorded
+    boolean isEnded = false;
+    String callStatus = "unknown";
+    long lastEventAt;
+
+    CallSession() {
+    }
+
+    CallSession(CallEvent event) {
+        this.callId = event.callId;
+        this.phoneNumber = event.phoneNumber;
+        this.callType = event.direction;
+        this.direction = event.direction;
+        this.subscriptionId = event.subscriptionId;
+        this.createdAt = event.startedAt;
+        this.lastEventAt = event.startedAt;
+    }
+
+    CallSession copy() {
+        CallSession copy = new CallSession();
+        copy.callId = callId;
+        copy.phoneNumber = phoneNumber;
+        copy.callType = callType;
+        copy.direction = direction;
+        copy.subscriptionId = subscriptionId;
+        copy.contactName = contactName;
+        copy.createdAt = createdAt;
+        copy.startTime = startTime;
+        copy.endTime = endTime;
+        copy.duration = duration;
+        copy.isAnswered = isAnswered;
+        copy.isEnded = isEnded;
+        copy.callStatus = callStatus;
+        copy.lastEventAt = lastEventAt;
+        return copy;
+    }
+}
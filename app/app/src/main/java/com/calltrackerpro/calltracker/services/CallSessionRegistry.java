@@ -0,0 +1,304 @@
+package com.calltrackerpro.calltracker.services;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.calltrackerpro.calltracker.json.GsonProvider;
+import com.calltrackerpro.calltracker.network.NetworkMetrics;
+import com.calltrackerpro.calltracker.utils.TimingWheel;
+import com.google.gson.reflect.TypeToken;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Every call {@link CallReceiverService} is tracking, keyed by the call id
+ * from {@link CallStateMachine}, so held, waiting, merged and dual-SIM
+ * calls, even from the same number, each keep their own session.
+ *
+ * Sessions are written to disk on every change. If Android kills the
+ * process before an ended call is recorded, the restarted service gets it
+ * back through {@link Listener#onSessionsRecovered} and still records it.
+ * A call that was still in progress is tracked again from its last event,
+ * since it may not be over yet. A session that hears nothing for
+ * {@link #ABANDON_AFTER_MS} (the idle broadcast was lost) is expired by a
+ * timing wheel and handed to {@link Listener#onSessionAbandoned}.
+ *
+ * Readable from any thread; sessions are changed on the main thread only.
+ */
+public final class CallSessionRegistry {
+    private static final String TAG = "CallSessionRegistry";
+
+    public static final String METRIC_OPEN = "callsessions.open";
+    public static final String METRIC_RECOVERED = "callsessions.recovered";
+    public static final String METRIC_ABANDONED = "callsessions.abandoned";
+
+    private static final String FILE_NAME = "call_sessions.json";
+    // Longer than any real call; the idle broadcast for it went missing
+    private static final long ABANDON_AFTER_MS = TimeUnit.HOURS.toMillis(4);
+    private static final long TICK_MS = TimeUnit.MINUTES.toMillis(1);
+    private static final int SLOTS = 64;
+    // Recently recorded ids, so a late end event does not record a call twice
+    private static final int MAX_FINISHED = 64;
+
+    interface Listener {
+        /**
+         * Ended sessions saved by a previous process that it did not get to record; main thread
+         */
+        void onSessionsRecovered(List<CallSession> sessions);
+
+        /**
+         * An open session nothing has been heard about for too long; main thread
+         */
+        void onSessionAbandoned(CallSession session);
+    }
+
+    private static volatile CallSessionRegistry instance;
+
+    private final File file;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "CallTracker-CallSessions");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean saveQueued = new AtomicBoolean(false);
+    private volatile List<CallSession> pendingSnapshot = Collections.emptyList();
+    private final Runnable tick = () -> tick(System.currentTimeMillis());
+
+    private final ConcurrentHashMap<String, CallSession> sessions = new ConcurrentHashMap<>();
+    // Main thread only
+    private final TimingWheel<String> expiry = new TimingWheel<>(TICK_MS, SLOTS);
+    private final Set<String> finished = new LinkedHashSet<>();
+    private Listener listener;
+    // Recovered before anyone was listening
+    private List<CallSession> unclaimed = Collections.emptyList();
+    private boolean ticking = false;
+
+    public static CallSessionRegistry getInstance(Context context) {
+        if (instance == null) {
+            synchronized (CallSessionRegistry.class) {
+                if (instance == null) {
+                    instance = new CallSessionRegistry(context.getApplicationContext());
+                }
+            }
+        }
+        return instance;
+    }
+
+    private CallSessionRegistry(Context context) {
+        this(new File(context.getFilesDir(), FILE_NAME));
+        // Queued ahead of any save, so the previous process's sessions are read before being overwritten
+        executor.execute(() -> {
+            List<CallSession> saved = load(file);
+            mainHandler.post(() -> recover(saved));
+        });
+    }
+
+    CallSessionRegistry(File file) {
+        this.file = file;
+    }
+
+    /**
+     * Start delivering recovered and abandoned sessions to {@code listener};
+     * recovered ones go to the first listener only
+     */
+    void setListener(Listener listener) {
+        this.listener = listener;
+        if (listener == null) {
+            mainHandler.removeCallbacks(tick);
+            ticking = false;
+            return;
+        }
+        if (!unclaimed.isEmpty()) {
+            List<CallSession> recovered = unclaimed;
+            unclaimed = Collections.emptyList();
+            listener.onSessionsRecovered(recovered);
+        }
+        scheduleTick();
+    }
+
+    /**
+     * The session for a call that just started; the existing one if it was already opened
+     */
+    CallSession open(CallEvent event) {
+        CallSession session = new CallSession(event);
+        CallSession existing = sessions.putIfAbsent(event.callId, session);
+        if (existing != null) return existing;
+        expiry.schedule(event.callId, event.startedAt + ABANDON_AFTER_MS);
+        scheduleTick();
+        changed();
+        return session;
+    }
+
+    CallSession get(String callId) {
+        return sessions.get(callId);
+    }
+
+    /**
+     * Save a change to an open session and push its expiry back
+     */
+    void touch(CallSession session, long at) {
+        session.lastEventAt = at;
+        if (!session.isEnded && sessions.containsKey(session.callId)) {
+            expiry.schedule(session.callId, at + ABANDON_AFTER_MS);
+        }
+        changed();
+    }
+
+    /**
+     * The call is over and waits only to be recorded; it no longer expires
+     */
+    void markEnded(CallSession session) {
+        session.isEnded = true;
+        sessions.put(session.callId, session);
+        expiry.cancel(session.callId);
+        changed();
+    }
+
+    /**
+     * Recorded, or handed to the outbox which will; forget it
+     */
+    void finish(String callId) {
+        expiry.cancel(callId);
+        if (sessions.remove(callId) == null) return;
+        finished.add(callId);
+        if (finished.size() > MAX_FINISHED) {
+            finished.remove(finished.iterator().next());
+        }
+        changed();
+    }
+
+    boolean isFinished(String callId) {
+        return finished.contains(callId);
+    }
+
+    /**
+     * Calls still in progress (not yet ended)
+     */
+    public int openCount() {
+        int open = 0;
+        for (CallSession session : sessions.values()) {
+            if (!session.isEnded) open++;
+        }
+        return open;
+    }
+
+    public int size() {
+        return sessions.size();
+    }
+
+    /**
+     * Take back a previous process's sessions: ended ones go to the listener
+     * to be recorded, open ones expire as if the process had never stopped
+     */
+    void recover(List<CallSession> saved) {
+        List<CallSession> recovered = new ArrayList<>();
+        int open = 0;
+        for (CallSession session : saved) {
+            if (session.callId == null || sessions.putIfAbsent(session.callId, session) != null) continue;
+            if (session.isEnded) {
+                recovered.add(session);
+            } else {
+                expiry.schedule(session.callId, session.lastEventAt + ABANDON_AFTER_MS);
+                open++;
+            }
+        }
+        if (recovered.isEmpty() && open == 0) return;
+        NetworkMetrics.add(METRIC_RECOVERED, recovered.size() + open);
+        Log.d(TAG, "📂 Recovered " + recovered.size() + " unrecorded and " + open + " open call sessions");
+        changed();
+        scheduleTick();
+        if (recovered.isEmpty()) return;
+        if (listener != null) {
+            listener.onSessionsRecovered(recovered);
+        } else {
+            unclaimed = recovered;
+        }
+    }
+
+    private void scheduleTick() {
+        if (ticking || listener == null || expiry.isEmpty()) return;
+        ticking = true;
+        mainHandler.postDelayed(tick, TICK_MS);
+    }
+
+    /**
+     * Hand the open sessions due by {@code now} to the listener as abandoned
+     */
+    void tick(long now) {
+        ticking = false;
+        for (String callId : expiry.advance(now)) {
+            CallSession session = sessions.get(callId);
+            if (session == null || session.isEnded) continue;
+            NetworkMetrics.increment(METRIC_ABANDONED);
+            Log.w(TAG, "Call " + callId + " has had no events since " + session.lastEventAt + "; closing it");
+            if (listener != null) {
+                listener.onSessionAbandoned(session);
+            }
+        }
+        scheduleTick();
+    }
+
+    private void changed() {
+        NetworkMetrics.setGauge(METRIC_OPEN, openCount());
+        // Copied here, on the thread that changes sessions, and written off it
+        List<CallSession> snapshot = new ArrayList<>(sessions.size());
+        for (CallSession session : sessions.values()) {
+            snapshot.add(session.copy());
+        }
+        pendingSnapshot = snapshot;
+        if (saveQueued.compareAndSet(false, true)) {
+            executor.execute(this::save);
+        }
+    }
+
+    private void save() {
+        saveQueued.set(false);
+        save(file, pendingSnapshot);
+    }
+
+    static void save(File file, List<CallSession> snapshot) {
+        File tmp = new File(file.getPath() + ".tmp");
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(tmp), StandardCharsets.UTF_8)) {
+            GsonProvider.getGson().toJson(snapshot, writer);
+        } catch (IOException e) {
+            Log.e(TAG, "Could not save call sessions", e);
+            return;
+        }
+        if (!tmp.renameTo(file)) {
+            Log.e(TAG, "Could not replace " + file);
+        }
+    }
+
+    static List<CallSession> load(File file) {
+        if (!file.exists()) return Collections.emptyList();
+        try (Reader reader = new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8)) {
+            List<CallSession> saved = GsonProvider.getGson().fromJson(reader,
+                    new TypeToken<List<CallSession>>() {}.getType());
+            return saved != null ? saved : Collections.<CallSession>emptyList();
+        } catch (IOException | RuntimeException e) {
+            Log.w(TAG, "Discarding unreadable call sessions: " + e.getMessage());
+            return Collections.emptyList();
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package com.calltrackerpro.calltracker.services;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+
+/**
+ * Turns the phone's coarse state broadcasts (IDLE, RINGING, OFFHOOK) and
+ * outgoing-call broadcasts into typed {@link CallEvent}s for one consumer.
+ *
+ * Android repeats broadcasts: with call log access every state arrives
+ * twice, once without the number, in either order. A repeated state only
+ * fills in a missing number; each call emits each event type at most once,
+ * keyed by its call id. A call ringing while another is off hook (call
+ * waiting, or a conference being built up) is tracked as its own call,
+ * and they all end together when the phone goes idle.
+ *
+ * One machine follows one SIM; dual-SIM devices report each SIM's state
+ * separately and get a machine each.
+ *
+ * Not thread-safe; feed it from one thread. No Android dependencies, so
+ * it can be replayed in tests.
+ */
+public final class CallStateMachine {
+
+    public enum PhoneState {
+        IDLE,
+        RINGING,
+        OFFHOOK
+    }
+
+    public interface Consumer {
+        void onCallEvent(CallEvent event);
+    }
+
+    private final Consumer consumer;
+    private final int subscriptionId;
+
+    private PhoneState state = PhoneState.IDLE;
+    // Open calls, oldest first; more than one while calls wait, are held or are merged
+    private final List<Call> calls = new ArrayList<>(2);
+    private long sequence = 0;
+    private long duplicates = 0;
+
+    public CallStateMachine(Consumer consumer) {
+        this(CallEvent.NO_SUBSCRIPTION, consumer);
+    }
+
+    public CallStateMachine(int subscriptionId, Consumer consumer) {
+        this.subscriptionId = subscriptionId;
+        this.consumer = consumer;
+    }
+
+    public PhoneState getState() {
+        return state;
+    }
+
+    /**
+     * Broadcasts that changed nothing: repeats, or numbers already known
+     */
+    public long getDuplicates() {
+        return duplicates;
+    }
+
+    public void onPhoneState(PhoneState next, String number, long at) {
+        if (number != null && number.isEmpty()) number = null;
+
+        if (next == state) {
+            Call call = state == PhoneState.IDLE ? null : newest();
+            if (call == null || !fillNumber(call, number)) {
+                duplicates++;
+            }
+            return;
+        }
+
+        switch (next) {
+            case RINGING:
+                if (state != PhoneState.OFFHOOK || calls.isEmpty()) {
+                    finish(at);
+                }
+                Call ringing = open(number, CallEvent.DIRECTION_INCOMING, at);
+                announceIfNumbered(ringing);
+                break;
+
+            case OFFHOOK:
+                Call call = newest();
+                if (call == null) {
+                    // No outgoing-call broadcast (deprecated since Android 10): the dialler went off hook
+                    call = open(number, CallEvent.DIRECTION_OUTGOING, at);
+                } else {
+                    // A waiting call's answer and decline look the same here; the call log tells them apart
+                    fillNumber(call, number);
+                }
+                answer(call, at);
+                break;
+
+            case IDLE:
+                finish(at);
+                break;
+        }
+        state = next;
+    }
+
+    public void onOutgoingCall(String number, long at) {
+        if (number != null && number.isEmpty()) number = null;
+
+        Call newest = newest();
+        if (state == PhoneState.IDLE) {
+            if (newest != null && newest.answeredAt == 0 && !newest.isIncoming()
+                    && (newest.number == null || number == null || newest.number.equals(number))) {
+                if (!fillNumber(newest, number)) duplicates++;
+                return;
+            }
+            // A dial that never went off hook (cancelled, or redirected by another app)
+            finish(at);
+            announceIfNumbered(open(number, CallEvent.DIRECTION_OUTGOING, at));
+        } else if (newest != null && !newest.isIncoming()) {
+            if (!fillNumber(newest, number)) duplicates++;
+        } else {
+            duplicates++;
+        }
+    }
+
+    private Call open(String number, String direction, long at) {
+        Call call = new Call(nextId(at), number, direction, at);
+        calls.add(call);
+        return call;
+    }
+
+    private Call newest() {
+        return calls.isEmpty() ? null : calls.get(calls.size() - 1);
+    }
+
+    private boolean fillNumber(Call call, String number) {
+        if (number == null || call.number != null) return false;
+        call.number = number;
+        announceIfNumbered(call);
+        return true;
+    }
+
+    private void announceIfNumbered(Call call) {
+        if (call.number != null) announce(call);
+    }
+
+    private void announce(Call call) {
+        emit(call, call.isIncoming() ? CallEvent.Type.RINGING : CallEvent.Type.OUTGOING, 0);
+    }
+
+    private void answer(Call call, long at) {
+        announce(call);
+        if (call.answeredAt == 0) {
+            call.answeredAt = at;
+            emit(call, CallEvent.Type.ANSWERED, 0);
+        }
+    }
+
+    /**
+     * End every open call: answered ones as ENDED, the rest as MISSED
+     */
+    private void finish(long at) {
+        for (int i = calls.size() - 1; i >= 0; i--) {
+            end(calls.get(i), at);
+        }
+        calls.clear();
+    }
+
+    private void end(Call call, long at) {
+        announce(call);
+        boolean missed = call.isIncoming() && call.answeredAt == 0;
+        emit(call, missed ? CallEvent.Type.MISSED : CallEvent.Type.ENDED, at);
+    }
+
+    private void emit(Call call, CallEvent.Type type, long endedAt) {
+        if (!call.emitted.add(type)) return;
+        consumer.onCallEvent(new CallEvent(type, call.id, call.number, call.direction, subscriptionId,
+                call.startedAt, call.answeredAt, endedAt));
+    }
+
+    private String nextId(long at) {
+        String id = "call-" + at + "-" + (++sequence);
+        return subscriptionId == CallEvent.NO_SUBSCRIPTION ? id : id + "-sim" + subscriptionId;
+    }
+
+    private static final class Call {
+        final String id;
+        final String direction;
+        final long startedAt;
+        final EnumSet<CallEvent.Type> emitted = EnumSet.noneOf(CallEvent.Type.class);
+        String number;
+        long answeredAt = 0;
+
+        Call(String id, String number, String direction, long startedAt) {
+            this.id = id;
+            this.number = number;
+            this.direction = direction;
+            this.startedAt = startedAt;
+        }
+
+        boolean isIncoming() {
+            return CallEvent.DIRECTION_INCOMING.equals(direction);
+        }
+    }
+}
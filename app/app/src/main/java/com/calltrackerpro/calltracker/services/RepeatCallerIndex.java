@@ -0,0 +1,238 @@
+package com.calltrackerpro.calltracker.services;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.calltrackerpro.calltracker.json.GsonProvider;
+import com.calltrackerpro.calltracker.network.NetworkMetrics;
+import com.calltrackerpro.calltracker.utils.PhoneNumbers;
+import com.google.gson.reflect.TypeToken;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Which open ticket a repeat caller's calls go to. A call from a number
+ * that already produced a ticket in the same organization within
+ * {@link #WINDOW_MS} of its last call is counted on that ticket by
+ * {@link CallReceiverService} instead of opening another one.
+ *
+ * Entries for delivered tickets are kept on disk, so a restarted process
+ * still attaches repeat calls. A ticket that is still in the outbox has no
+ * server id to attach to; repeat calls meanwhile wait in its entry and are
+ * handed back by {@link #delivered} once it arrives. Those entries are not
+ * saved, since the outbox does not call back into a new process.
+ *
+ * Main thread only.
+ */
+public final class RepeatCallerIndex {
+    private static final String TAG = "RepeatCallerIndex";
+
+    public static final String METRIC_HITS = "ticketdedup.hits";
+    public static final String METRIC_MISSES = "ticketdedup.misses";
+    public static final String METRIC_ENTRIES = "ticketdedup.entries";
+
+    private static final String FILE_NAME = "repeat_callers.json";
+    private static final long WINDOW_MS = TimeUnit.MINUTES.toMillis(30);
+    private static final long BUCKET_MS = TimeUnit.MINUTES.toMillis(1);
+
+    private static volatile RepeatCallerIndex instance;
+
+    private final File file;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "CallTracker-RepeatCallers");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean saveQueued = new AtomicBoolean(false);
+    private volatile List<RepeatCallerWindow.Entry> pendingSnapshot = Collections.emptyList();
+
+    private final RepeatCallerWindow window = new RepeatCallerWindow(WINDOW_MS, BUCKET_MS);
+    // Bumped by clear(), so a load that was already under way does not bring entries back
+    private int generation = 0;
+
+    public static RepeatCallerIndex getInstance(Context context) {
+        if (instance == null) {
+            synchronized (RepeatCallerIndex.class) {
+                if (instance == null) {
+                    instance = new RepeatCallerIndex(context.getApplicationContext());
+                }
+            }
+        }
+        return instance;
+    }
+
+    private RepeatCallerIndex(Context context) {
+        this.file = new File(context.getFilesDir(), FILE_NAME);
+        // Queued ahead of any save, so the previous process's entries are read before being overwritten
+        executor.execute(() -> {
+            List<RepeatCallerWindow.Entry> saved = load();
+            mainHandler.post(() -> restore(saved, 0));
+        });
+    }
+
+    /**
+     * Organization and canonical number; null if the number is unknown and the call can't be matched
+     */
+    static String key(String organizationId, String phoneNumber) {
+        String canonical = PhoneNumbers.canonical(phoneNumber);
+        if (canonical == null) return null;
+        return (organizationId != null ? organizationId : "") + '|' + canonical;
+    }
+
+    /**
+     * The ticket a call at {@code at} repeats, or null if it should open one
+     */
+    RepeatCallerWindow.Entry find(String organizationId, String phoneNumber, long at) {
+        RepeatCallerWindow.Entry entry = window.find(key(organizationId, phoneNumber), at);
+        NetworkMetrics.increment(entry != null ? METRIC_HITS : METRIC_MISSES);
+        return entry;
+    }
+
+    /**
+     * A call at {@code at} is opening a ticket; later calls go to it once {@link #delivered}.
+     * Null if the number can't be matched.
+     */
+    RepeatCallerWindow.Entry open(String organizationId, String phoneNumber, long at) {
+        String key = key(organizationId, phoneNumber);
+        if (key == null) return null;
+        RepeatCallerWindow.Entry entry = window.open(key, at);
+        NetworkMetrics.setGauge(METRIC_ENTRIES, window.size());
+        return entry;
+    }
+
+    /**
+     * Count a repeat call against {@code entry}. True if its ticket should be
+     * updated now; false if {@code call} was kept until the ticket is delivered.
+     */
+    boolean attach(RepeatCallerWindow.Entry entry, long at, CallSession call) {
+        window.repeat(entry, at);
+        if (entry.isPending()) {
+            if (entry.pending == null) entry.pending = new ArrayList<>();
+            entry.pending.add(call);
+            return false;
+        }
+        changed();
+        return true;
+    }
+
+    /**
+     * The ticket {@code entry} was opened for has its server id; returns the
+     * repeat calls that waited for it, oldest first
+     */
+    List<CallSession> delivered(RepeatCallerWindow.Entry entry, String ticketId) {
+        List<CallSession> waiting = entry.pending != null ? entry.pending : Collections.<CallSession>emptyList();
+        entry.pending = null;
+        if (ticketId == null) {
+            // Nothing to attach them to
+            rejected(entry);
+            return Collections.emptyList();
+        }
+        entry.ticketId = ticketId;
+        if (window.isCurrent(entry)) changed();
+        return waiting;
+    }
+
+    /**
+     * The ticket {@code entry} was opened for will never exist; the next call opens another.
+     * Returns the repeat calls that waited for it, oldest first.
+     */
+    List<CallSession> rejected(RepeatCallerWindow.Entry entry) {
+        List<CallSession> waiting = entry.pending != null ? entry.pending : Collections.<CallSession>emptyList();
+        entry.pending = null;
+        if (window.isCurrent(entry)) {
+            window.remove(entry.key);
+            NetworkMetrics.setGauge(METRIC_ENTRIES, window.size());
+        }
+        return waiting;
+    }
+
+    /**
+     * The ticket was resolved or closed; the caller's next call opens a new one
+     */
+    public void forget(String ticketId) {
+        if (window.removeTicket(ticketId) != null) {
+            Log.d(TAG, "Ticket " + ticketId + " closed; no longer collecting repeat calls");
+            changed();
+        }
+    }
+
+    public void clear() {
+        generation++;
+        window.clear();
+        changed();
+    }
+
+    private void restore(List<RepeatCallerWindow.Entry> saved, int loadedAt) {
+        if (loadedAt != generation) return;
+        long now = System.currentTimeMillis();
+        for (RepeatCallerWindow.Entry entry : saved) {
+            if (entry.ticketId != null) window.restore(entry, now);
+        }
+        NetworkMetrics.setGauge(METRIC_ENTRIES, window.size());
+    }
+
+    private void changed() {
+        NetworkMetrics.setGauge(METRIC_ENTRIES, window.size());
+        // Copied here, on the thread that changes entries, and written off it
+        List<RepeatCallerWindow.Entry> snapshot = new ArrayList<>(window.size());
+        for (RepeatCallerWindow.Entry entry : window.entries()) {
+            if (entry.isPending()) continue;
+            RepeatCallerWindow.Entry copy = new RepeatCallerWindow.Entry();
+            copy.key = entry.key;
+            copy.ticketId = entry.ticketId;
+            copy.firstCallAt = entry.firstCallAt;
+            copy.lastCallAt = entry.lastCallAt;
+            copy.calls = entry.calls;
+            snapshot.add(copy);
+        }
+        pendingSnapshot = snapshot;
+        if (saveQueued.compareAndSet(false, true)) {
+            executor.execute(this::save);
+        }
+    }
+
+    private void save() {
+        saveQueued.set(false);
+        List<RepeatCallerWindow.Entry> snapshot = pendingSnapshot;
+        File tmp = new File(file.getPath() + ".tmp");
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(tmp), StandardCharsets.UTF_8)) {
+            GsonProvider.getGson().toJson(snapshot, writer);
+        } catch (IOException e) {
+            Log.e(TAG, "Could not save repeat callers", e);
+            return;
+        }
+        if (!tmp.renameTo(file)) {
+            Log.e(TAG, "Could not replace " + file);
+        }
+    }
+
+    private List<RepeatCallerWindow.Entry> load() {
+        if (!file.exists()) return Collections.emptyList();
+        try (Reader reader = new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8)) {
+            List<RepeatCallerWindow.Entry> saved = GsonProvider.getGson().fromJson(reader,
+                    new TypeToken<List<RepeatCallerWindow.Entry>>() {}.getType());
+            return saved != null ? saved : Collections.<RepeatCallerWindow.Entry>emptyList();
+        } catch (IOException | RuntimeException e) {
+            Log.w(TAG, "Discarding unreadable repeat callers: " + e.getMessage());
+            return Collections.emptyList();
+        }
+    }
+}
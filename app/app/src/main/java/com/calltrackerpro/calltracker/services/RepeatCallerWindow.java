@@ -0,0 +1,183 @@
+package com.calltrackerpro.calltracker.services;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The ticket each recent caller's calls go to, for {@link #windowMs} after
+ * their last call, keyed by organization and canonical number.
+ *
+ * Entries are looked up in a hash map; expiry is by time bucket. Each
+ * entry sits in the bucket of its last call, and a bucket that falls out of
+ * the window is dropped whole, so expiring costs nothing per lookup.
+ *
+ * Not thread safe; {@link RepeatCallerIndex} uses it from the main thread.
+ */
+public final class RepeatCallerWindow {
+
+    public static final class Entry {
+        String key;
+        // Server id; null until the ticket the first call created is delivered
+        String ticketId;
+        long firstCallAt;
+        long lastCallAt;
+        int calls = 1;
+        // Repeat calls heard while the ticket was still in the outbox
+        List<CallSession> pending;
+
+        public String getTicketId() {
+            return ticketId;
+        }
+
+        public int getCalls() {
+            return calls;
+        }
+
+        public boolean isPending() {
+            return ticketId == null;
+        }
+    }
+
+    private final long windowMs;
+    private final long bucketMs;
+    private final List<Set<String>> buckets;
+    private final Map<String, Entry> entries = new HashMap<>();
+    private long headBucket = Long.MIN_VALUE;
+
+    /**
+     * @param windowMs how long after a caller's last call another call still counts as a repeat
+     * @param bucketMs expiry granularity; a bucket is dropped once all of it is out of the window
+     */
+    public RepeatCallerWindow(long windowMs, long bucketMs) {
+        if (windowMs <= 0 || bucketMs <= 0) throw new IllegalArgumentException("windowMs and bucketMs must be positive");
+        this.windowMs = windowMs;
+        this.bucketMs = bucketMs;
+        int count = (int) ((windowMs + bucketMs - 1) / bucketMs) + 1;
+        this.buckets = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            buckets.add(new HashSet<>());
+        }
+    }
+
+    /**
+     * The entry a call at {@code now} repeats, or null if the caller has not called within the window
+     */
+    public Entry find(String key, long now) {
+        if (key == null) return null;
+        advance(now);
+        Entry entry = entries.get(key);
+        if (entry == null || now - entry.lastCallAt > windowMs) return null;
+        return entry;
+    }
+
+    /**
+     * A call at {@code at} that created a new ticket; replaces any entry for {@code key}
+     */
+    public Entry open(String key, long at) {
+        Entry entry = new Entry();
+        entry.key = key;
+        entry.firstCallAt = at;
+        entry.lastCallAt = at;
+        put(entry);
+        return entry;
+    }
+
+    /**
+     * Another call for {@code entry}'s ticket; restarts its window
+     */
+    public void repeat(Entry entry, long at) {
+        entry.calls++;
+        if (at <= entry.lastCallAt) return;
+        boolean current = isCurrent(entry);
+        if (current) bucketOf(entry.lastCallAt).remove(entry.key);
+        entry.lastCallAt = at;
+        if (current) put(entry);
+    }
+
+    /**
+     * Put back an entry read from disk, unless it has already expired at {@code now}
+     */
+    public void restore(Entry entry, long now) {
+        if (entry.key == null || now - entry.lastCallAt > windowMs) return;
+        Entry current = entries.get(entry.key);
+        if (current != null && current.lastCallAt >= entry.lastCallAt) return;
+        put(entry);
+    }
+
+    public boolean isCurrent(Entry entry) {
+        return entries.get(entry.key) == entry;
+    }
+
+    public Entry remove(String key) {
+        Entry entry = entries.remove(key);
+        if (entry != null) bucketOf(entry.lastCallAt).remove(key);
+        return entry;
+    }
+
+    /**
+     * Drop the entry for a ticket that is no longer open
+     */
+    public Entry removeTicket(String ticketId) {
+        if (ticketId == null) return null;
+        for (Entry entry : entries.values()) {
+            if (ticketId.equals(entry.ticketId)) return remove(entry.key);
+        }
+        return null;
+    }
+
+    public Collection<Entry> entries() {
+        return entries.values();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public void clear() {
+        entries.clear();
+        for (Set<String> bucket : buckets) {
+            bucket.clear();
+        }
+    }
+
+    private void put(Entry entry) {
+        Entry previous = entries.put(entry.key, entry);
+        if (previous != null && previous != entry) bucketOf(previous.lastCallAt).remove(entry.key);
+        advance(entry.lastCallAt);
+        bucketOf(entry.lastCallAt).add(entry.key);
+    }
+
+    /**
+     * Drop the buckets that have fallen out of the window by {@code now}
+     */
+    private void advance(long now) {
+        long current = Math.floorDiv(now, bucketMs);
+        if (headBucket == Long.MIN_VALUE) {
+            headBucket = current;
+            return;
+        }
+        if (current <= headBucket) return;
+        long steps = Math.min(current - headBucket, buckets.size());
+        for (long i = 1; i <= steps; i++) {
+            Set<String> expired = buckets.get(slot(headBucket + i));
+            for (String key : expired) {
+                entries.remove(key);
+            }
+            expired.clear();
+        }
+        headBucket = current;
+    }
+
+    private Set<String> bucketOf(long at) {
+        return buckets.get(slot(Math.floorDiv(at, bucketMs)));
+    }
+
+    private int slot(long bucket) {
+        return (int) Math.floorMod(bucket, (long) buckets.size());
+    }
+}
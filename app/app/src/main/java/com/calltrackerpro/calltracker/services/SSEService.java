@@ -3,6 +3,7 @@ package com.calltrackerpro.calltracker.services;
 import android.content.Context;
 import android.util.Log;
 
+import com.calltrackerpro.calltracker.json.GsonProvider;
 import com.calltrackerpro.calltracker.models.Ticket;
 import com.calltrackerpro.calltracker.utils.TokenManager;
 import com.google.gson.Gson;
@@ -163,7 +164,7 @@ public class SSEService {
         if (listener == null) return;
 
         try {
-            Gson gson = new Gson();
+            Gson gson = GsonProvider.getGson();
             JsonObject jsonData = JsonParser.parseString(data).getAsJsonObject();
 
             switch (eventType) {
@@ -174,7 +175,10 @@ public class SSEService {
 
                 case "ticket-updated":
                     Ticket updatedTicket = gson.fromJson(jsonData.get("ticket"), Ticket.class);
-                    mainHandler.post(() -> listener.onTicketUpdate(updatedTicket));
+                    mainHandler.post(() -> {
+                        forgetIfClosed(updatedTicket);
+                        listener.onTicketUpdate(updatedTicket);
+                    });
                     break;
 
                 case "ticket-assigned":
@@ -188,7 +192,10 @@ public class SSEService {
                     Ticket statusChangedTicket = gson.fromJson(jsonData.get("ticket"), Ticket.class);
                     String previousStatus = jsonData.has("previousStatus") ?
                         jsonData.get("previousStatus").getAsString() : null;
-                    mainHandler.post(() -> listener.onTicketStatusChanged(statusChangedTicket, previousStatus));
+                    mainHandler.post(() -> {
+                        forgetIfClosed(statusChangedTicket);
+                        listener.onTicketStatusChanged(statusChangedTicket, previousStatus);
+                    });
                     break;
 
                 case "ticket-escalated":
@@ -203,6 +210,11 @@ public class SSEService {
                     mainHandler.post(() -> listener.onNotificationReceived(title, message, ticketId));
                     break;
 
+                case "organization-updated":
+                    // Settings changed on the server: pick up new auto-ticket rules now
+                    TicketRuleEngine.getInstance(context).refresh(true);
+                    break;
+
                 case "ping":
                     Log.d(TAG, "Received keep-alive ping");
                     break;
@@ -219,6 +231,15 @@ public class SSEService {
         }
     }
 
+    /**
+     * Repeat calls from the caller start a new ticket once this one is done
+     */
+    private void forgetIfClosed(Ticket ticket) {
+        if (ticket != null && ("resolved".equals(ticket.getStatus()) || "closed".equals(ticket.getStatus()))) {
+            RepeatCallerIndex.getInstance(context).forget(ticket.getId());
+        }
+    }
+
     public void disconnect() {
         boolean wasConnected = isConnected;
         isConnected = false;
@@ -0,0 +1,189 @@
+package com.calltrackerpro.calltracker.services;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.calltrackerpro.calltracker.json.GsonProvider;
+import com.calltrackerpro.calltracker.models.ApiResponse;
+import com.calltrackerpro.calltracker.models.Organization;
+import com.calltrackerpro.calltracker.models.User;
+import com.calltrackerpro.calltracker.network.NetworkMetrics;
+import com.calltrackerpro.calltracker.utils.TokenManager;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+/**
+ * The current organization's auto-ticket rules, compiled into a
+ * {@link TicketRuleTable}. Until they are known the built-in defaults
+ * apply.
+ *
+ * The settings are kept on disk, so rules apply from the first call after
+ * a restart, and re-read from the server at most every
+ * {@link #REFRESH_INTERVAL_MS} (the response cache makes an unchanged
+ * read a 304). An organization-updated event or a settings save applies
+ * the new rules at once. Each change compiles a new table and swaps it in;
+ * calls being classified keep the table they started with.
+ */
+public final class TicketRuleEngine {
+    private static final String TAG = "TicketRuleEngine";
+
+    public static final String METRIC_RULES = "ticketrules.rules";
+    public static final String METRIC_COMPILE_US = "ticketrules.compile_us";
+
+    private static final String FILE_NAME = "ticket_rules.json";
+    private static final long REFRESH_INTERVAL_MS = TimeUnit.MINUTES.toMillis(15);
+
+    private static volatile TicketRuleEngine instance;
+
+    private final Context context;
+    private final File file;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "CallTracker-TicketRules");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile TicketRuleTable table = TicketRuleTable.defaults();
+    // Bumped by every apply(), so a slow disk load never replaces newer rules; guarded by this
+    private int generation = 0;
+    private volatile long lastRefreshAt = 0;
+
+    public static TicketRuleEngine getInstance(Context context) {
+        if (instance == null) {
+            synchronized (TicketRuleEngine.class) {
+                if (instance == null) {
+                    instance = new TicketRuleEngine(context.getApplicationContext());
+                }
+            }
+        }
+        return instance;
+    }
+
+    private TicketRuleEngine(Context context) {
+        this.context = context;
+        this.file = new File(context.getFilesDir(), FILE_NAME);
+        executor.execute(this::load);
+    }
+
+    /**
+     * The rules in force; never null
+     */
+    public TicketRuleTable table() {
+        return table;
+    }
+
+    /**
+     * Re-read the organization's settings if the last read is older than
+     * {@link #REFRESH_INTERVAL_MS}, or now if {@code force}
+     */
+    public void refresh(boolean force) {
+        long now = System.currentTimeMillis();
+        if (!force && now - lastRefreshAt < REFRESH_INTERVAL_MS) return;
+        TokenManager tokenManager = new TokenManager(context);
+        User user = tokenManager.getUser();
+        if (!tokenManager.isLoggedIn() || user == null || user.getOrganizationId() == null) return;
+        lastRefreshAt = now;
+
+        ApiService.getInstance().refreshOrganization(ApiService.SESSION_AUTH, user.getOrganizationId())
+                .enqueue(new Callback<ApiResponse<Organization>>() {
+                    @Override
+                    public void onResponse(Call<ApiResponse<Organization>> call, Response<ApiResponse<Organization>> response) {
+                        ApiResponse<Organization> body = response.body();
+                        if (response.isSuccessful() && body != null && body.isSuccess() && body.getData() != null) {
+                            apply(body.getData().getSettings());
+                        }
+                    }
+
+                    @Override
+                    public void onFailure(Call<ApiResponse<Organization>> call, Throwable t) {
+                        // Keep the rules we have; the next refresh tries again
+                        lastRefreshAt = 0;
+                        Log.w(TAG, "Could not refresh ticket rules: " + t.getMessage());
+                    }
+                });
+    }
+
+    /**
+     * Compile and switch to {@code settings}' rules, e.g. after they were
+     * saved or pushed; null goes back to the defaults
+     */
+    public synchronized void apply(Organization.OrganizationSettings settings) {
+        generation++;
+        install(settings);
+        executor.execute(() -> save(settings));
+    }
+
+    /**
+     * Back to the defaults and forget the saved rules, e.g. on logout
+     */
+    public synchronized void clear() {
+        generation++;
+        table = TicketRuleTable.defaults();
+        lastRefreshAt = 0;
+        NetworkMetrics.setGauge(METRIC_RULES, 0);
+        executor.execute(() -> {
+            if (file.exists() && !file.delete()) {
+                Log.w(TAG, "Could not delete " + file);
+            }
+        });
+    }
+
+    private void install(Organization.OrganizationSettings settings) {
+        long start = System.nanoTime();
+        TicketRuleTable compiled = TicketRuleTable.compile(settings);
+        table = compiled;
+        NetworkMetrics.recordSample(METRIC_COMPILE_US, (System.nanoTime() - start) / 1000);
+        NetworkMetrics.setGauge(METRIC_RULES, compiled.getCustomRuleCount());
+        Log.d(TAG, "📐 Compiled " + compiled.getCustomRuleCount() + " ticket rules");
+    }
+
+    private void save(Organization.OrganizationSettings settings) {
+        File tmp = new File(file.getPath() + ".tmp");
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(tmp), StandardCharsets.UTF_8)) {
+            Organization holder = new Organization();
+            holder.setSettings(settings);
+            GsonProvider.getGson().toJson(holder, Organization.class, writer);
+        } catch (IOException e) {
+            Log.e(TAG, "Could not save ticket rules", e);
+            return;
+        }
+        if (!tmp.renameTo(file)) {
+            Log.e(TAG, "Could not replace " + file);
+        }
+    }
+
+    private void load() {
+        if (!file.exists()) return;
+        int before;
+        synchronized (this) {
+            before = generation;
+        }
+        Organization saved;
+        try (Reader reader = new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8)) {
+            saved = GsonProvider.getGson().fromJson(reader, Organization.class);
+        } catch (IOException | RuntimeException e) {
+            Log.w(TAG, "Discarding unreadable ticket rules: " + e.getMessage());
+            return;
+        }
+        synchronized (this) {
+            if (saved != null && generation == before) {
+                install(saved.getSettings());
+            }
+        }
+    }
+}
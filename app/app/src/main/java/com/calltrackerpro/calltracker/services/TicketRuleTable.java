@@ -0,0 +1,359 @@
+package com.calltrackerpro.calltracker.services;
+
+import com.calltrackerpro.calltracker.models.Organization;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An organization's auto-ticket rules compiled into a decision table: one
+ * row per rule, one primitive array per condition, rows grouped by the
+ * field they set with that field's built-in defaults last. Classifying a
+ * call walks each field's rows and stops at the first whose conditions all
+ * hold, comparing numbers and bit masks only; values are the strings the
+ * rules were compiled with, so nothing is allocated.
+ *
+ * Immutable once compiled; share it across threads and swap in a new one
+ * when the rules change. No Android dependencies, so it can be tested.
+ */
+public final class TicketRuleTable {
+
+    public static final int CALL_INCOMING = 1;
+    public static final int CALL_OUTGOING = 1 << 1;
+    public static final int CALL_MISSED = 1 << 2;
+    private static final int ANY_CALL = CALL_INCOMING | CALL_OUTGOING | CALL_MISSED;
+
+    // The fields a rule can set, in evaluation order: SLA rules may look at the priority
+    static final int CATEGORY = 0;
+    static final int PRIORITY = 1;
+    static final int INTEREST_LEVEL = 2;
+    static final int SLA_HOURS = 3;
+    private static final String[] FIELD_NAMES = {"category", "priority", "interest_level", "sla_hours"};
+
+    // Tri-state conditions
+    private static final byte ANY = -1;
+    private static final byte NO = 0;
+    private static final byte YES = 1;
+
+    private static final int MINUTES_PER_DAY = 24 * 60;
+    private static final long MS_PER_DAY = TimeUnit.DAYS.toMillis(1);
+
+    /**
+     * Where {@link #classify} writes its answer; reuse one per caller
+     */
+    public static final class Classification {
+        public String category;
+        public String priority;
+        public String interestLevel;
+        public long slaMs;
+    }
+
+    private final int[] fieldStart = new int[FIELD_NAMES.length + 1];
+    private final int[] callTypes;
+    private final long[] minDuration;
+    private final long[] maxDuration;
+    // Minute of day; fromMinute < 0 means any time
+    private final int[] fromMinute;
+    private final int[] toMinute;
+    private final byte[] inBusinessHours;
+    private final byte[] knownContact;
+    private final int[] minOpenTickets;
+    private final int[] maxOpenTickets;
+    private final String[] priority;
+    private final String[] value;
+    private final long[] slaMs;
+
+    private final TimeZone timeZone;
+    private final int businessFrom;
+    private final int businessTo;
+    // Bit 0 is Monday; 0 means the organization has no business hours
+    private final int businessDays;
+    private final int customRules;
+
+    private TicketRuleTable(List<Row> rows, TimeZone timeZone, int businessFrom, int businessTo,
+                            int businessDays, int customRules) {
+        int size = rows.size();
+        callTypes = new int[size];
+        minDuration = new long[size];
+        maxDuration = new long[size];
+        fromMinute = new int[size];
+        toMinute = new int[size];
+        inBusinessHours = new byte[size];
+        knownContact = new byte[size];
+        minOpenTickets = new int[size];
+        maxOpenTickets = new int[size];
+        priority = new String[size];
+        value = new String[size];
+        slaMs = new long[size];
+
+        int i = 0;
+        for (int field = 0; field < FIELD_NAMES.length; field++) {
+            fieldStart[field] = i;
+            for (Row row : rows) {
+                if (row.field != field) continue;
+                callTypes[i] = row.callTypes;
+                minDuration[i] = row.minDuration;
+                maxDuration[i] = row.maxDuration;
+                fromMinute[i] = row.fromMinute;
+                toMinute[i] = row.toMinute;
+                inBusinessHours[i] = row.inBusinessHours;
+                knownContact[i] = row.knownContact;
+                minOpenTickets[i] = row.minOpenTickets;
+                maxOpenTickets[i] = row.maxOpenTickets;
+                priority[i] = row.priority;
+                value[i] = row.value;
+                slaMs[i] = row.slaMs;
+                i++;
+            }
+        }
+        fieldStart[FIELD_NAMES.length] = i;
+
+        this.timeZone = timeZone;
+        this.businessFrom = businessFrom;
+        this.businessTo = businessTo;
+        this.businessDays = businessDays;
+        this.customRules = customRules;
+    }
+
+    /**
+     * The built-in classification alone, as used before an organization's rules are known
+     */
+    public static TicketRuleTable defaults() {
+        return compile(null);
+    }
+
+    /**
+     * Compile {@code settings}' rules ahead of the defaults. Rules that are
+     * malformed (unknown field, unreadable time or SLA) are skipped.
+     */
+    public static TicketRuleTable compile(Organization.OrganizationSettings settings) {
+        List<Row> rows = new ArrayList<>();
+        int customRules = 0;
+        if (settings != null && settings.getTicketRules() != null) {
+            for (Organization.TicketRule rule : settings.getTicketRules()) {
+                Row row = Row.of(rule);
+                if (row != null) {
+                    rows.add(row);
+                    customRules++;
+                }
+            }
+        }
+        addDefaults(rows);
+
+        TimeZone zone = TimeZone.getDefault();
+        if (settings != null && settings.getTimezone() != null && !settings.getTimezone().isEmpty()) {
+            zone = TimeZone.getTimeZone(settings.getTimezone());
+        }
+        int businessFrom = -1;
+        int businessTo = -1;
+        int businessDays = 0;
+        Organization.BusinessHours hours = settings != null ? settings.getBusinessHours() : null;
+        if (hours != null) {
+            businessFrom = minuteOfDay(hours.getStartTime());
+            businessTo = minuteOfDay(hours.getEndTime());
+            businessDays = dayMask(hours.getDays());
+            if (businessFrom < 0 || businessTo < 0) businessDays = 0;
+        }
+        return new TicketRuleTable(rows, zone, businessFrom, businessTo, businessDays, customRules);
+    }
+
+    /**
+     * Rules from the organization's settings, not counting the defaults
+     */
+    public int getCustomRuleCount() {
+        return customRules;
+    }
+
+    /**
+     * Classify a call. {@code callType} is one of the CALL_* bits,
+     * {@code at} the epoch millis the call happened.
+     */
+    public void classify(int callType, long durationSeconds, long at, boolean isKnownContact,
+                         int openTickets, Classification out) {
+        long local = at + timeZone.getOffset(at);
+        int minute = (int) (Math.floorMod(local, MS_PER_DAY) / 60_000);
+        // 1970-01-01 was a Thursday: day 0 is Monday's index 3
+        int day = (int) Math.floorMod(Math.floorDiv(local, MS_PER_DAY) + 3, 7L);
+        boolean businessHours = businessDays != 0 && (businessDays & (1 << day)) != 0
+                && within(minute, businessFrom, businessTo);
+        byte known = isKnownContact ? YES : NO;
+        byte inHours = businessHours ? YES : NO;
+
+        out.category = value[match(CATEGORY, callType, durationSeconds, minute, inHours, known, openTickets, null)];
+        out.priority = value[match(PRIORITY, callType, durationSeconds, minute, inHours, known, openTickets, null)];
+        out.interestLevel = value[match(INTEREST_LEVEL, callType, durationSeconds, minute, inHours, known,
+                openTickets, null)];
+        out.slaMs = slaMs[match(SLA_HOURS, callType, durationSeconds, minute, inHours, known, openTickets,
+                out.priority)];
+    }
+
+    private int match(int field, int callType, long duration, int minute, byte inHours, byte known,
+                      int openTickets, String chosenPriority) {
+        int end = fieldStart[field + 1];
+        for (int i = fieldStart[field]; i < end; i++) {
+            if ((callTypes[i] & callType) == 0) continue;
+            if (duration < minDuration[i] || duration > maxDuration[i]) continue;
+            if (fromMinute[i] >= 0 && !within(minute, fromMinute[i], toMinute[i])) continue;
+            if (inBusinessHours[i] != ANY && inBusinessHours[i] != inHours) continue;
+            if (knownContact[i] != ANY && knownContact[i] != known) continue;
+            if (openTickets < minOpenTickets[i] || openTickets > maxOpenTickets[i]) continue;
+            if (priority[i] != null && !priority[i].equals(chosenPriority)) continue;
+            return i;
+        }
+        // The last default row of every field has no conditions
+        return end - 1;
+    }
+
+    /**
+     * [from, to), wrapping past midnight when to is earlier than from
+     */
+    private static boolean within(int minute, int from, int to) {
+        return from <= to ? minute >= from && minute < to : minute >= from || minute < to;
+    }
+
+    /**
+     * The classification CallReceiverService hard-coded before rules were configurable
+     */
+    private static void addDefaults(List<Row> rows) {
+        rows.add(Row.of(CATEGORY, "support").minDuration(301));
+        rows.add(Row.of(CATEGORY, "sales"));
+
+        rows.add(Row.of(PRIORITY, "high").callTypes(CALL_MISSED));
+        rows.add(Row.of(PRIORITY, "medium").maxDuration(29));
+        rows.add(Row.of(PRIORITY, "low"));
+
+        rows.add(Row.of(INTEREST_LEVEL, "hot").minDuration(181));
+        rows.add(Row.of(INTEREST_LEVEL, "warm").minDuration(61));
+        rows.add(Row.of(INTEREST_LEVEL, "cold"));
+
+        rows.add(Row.of(SLA_HOURS, "2").priority("urgent"));
+        rows.add(Row.of(SLA_HOURS, "4").priority("high"));
+        rows.add(Row.of(SLA_HOURS, "24").priority("medium"));
+        rows.add(Row.of(SLA_HOURS, "72"));
+    }
+
+    static int minuteOfDay(String time) {
+        if (time == null) return -1;
+        int colon = time.indexOf(':');
+        if (colon <= 0) return -1;
+        try {
+            int hours = Integer.parseInt(time.substring(0, colon).trim());
+            int minutes = Integer.parseInt(time.substring(colon + 1).trim());
+            if (hours < 0 || hours > 24 || minutes < 0 || minutes > 59) return -1;
+            return Math.min(hours * 60 + minutes, MINUTES_PER_DAY);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static int dayMask(List<String> days) {
+        if (days == null) return 0;
+        int mask = 0;
+        for (String day : days) {
+            if (day == null || day.length() < 3) continue;
+            switch (day.substring(0, 3).toLowerCase(Locale.US)) {
+                case "mon": mask |= 1; break;
+                case "tue": mask |= 1 << 1; break;
+                case "wed": mask |= 1 << 2; break;
+                case "thu": mask |= 1 << 3; break;
+                case "fri": mask |= 1 << 4; break;
+                case "sat": mask |= 1 << 5; break;
+                case "sun": mask |= 1 << 6; break;
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * One rule on its way into the table
+     */
+    private static final class Row {
+        int field;
+        String value;
+        long slaMs;
+        int callTypes = ANY_CALL;
+        long minDuration = 0;
+        long maxDuration = Long.MAX_VALUE;
+        int fromMinute = -1;
+        int toMinute = -1;
+        byte inBusinessHours = ANY;
+        byte knownContact = ANY;
+        int minOpenTickets = 0;
+        int maxOpenTickets = Integer.MAX_VALUE;
+        String priority;
+
+        static Row of(int field, String value) {
+            Row row = new Row();
+            row.field = field;
+            row.value = value;
+            if (field == SLA_HOURS) {
+                row.slaMs = TimeUnit.HOURS.toMillis(Long.parseLong(value));
+            }
+            return row;
+        }
+
+        static Row of(Organization.TicketRule rule) {
+            int field = -1;
+            for (int i = 0; i < FIELD_NAMES.length; i++) {
+                if (FIELD_NAMES[i].equals(rule.getField())) field = i;
+            }
+            if (field < 0 || rule.getValue() == null) return null;
+
+            Row row = new Row();
+            row.field = field;
+            row.value = rule.getValue().intern();
+            if (field == SLA_HOURS) {
+                try {
+                    row.slaMs = (long) (Double.parseDouble(rule.getValue()) * TimeUnit.HOURS.toMillis(1));
+                } catch (NumberFormatException e) {
+                    return null;
+                }
+            }
+            if (rule.getCallTypes() != null && !rule.getCallTypes().isEmpty()) {
+                row.callTypes = 0;
+                for (String type : rule.getCallTypes()) {
+                    if ("incoming".equals(type) || "inbound".equals(type)) row.callTypes |= CALL_INCOMING;
+                    else if ("outgoing".equals(type) || "outbound".equals(type)) row.callTypes |= CALL_OUTGOING;
+                    else if ("missed".equals(type)) row.callTypes |= CALL_MISSED;
+                }
+                if (row.callTypes == 0) return null;
+            }
+            if (rule.getMinDuration() != null) row.minDuration = rule.getMinDuration();
+            if (rule.getMaxDuration() != null) row.maxDuration = rule.getMaxDuration();
+            if (rule.getFromTime() != null || rule.getToTime() != null) {
+                row.fromMinute = minuteOfDay(rule.getFromTime() != null ? rule.getFromTime() : "00:00");
+                row.toMinute = minuteOfDay(rule.getToTime() != null ? rule.getToTime() : "24:00");
+                if (row.fromMinute < 0 || row.toMinute < 0) return null;
+            }
+            if (rule.getBusinessHours() != null) row.inBusinessHours = rule.getBusinessHours() ? YES : NO;
+            if (rule.getKnownContact() != null) row.knownContact = rule.getKnownContact() ? YES : NO;
+            if (rule.getMinOpenTickets() != null) row.minOpenTickets = rule.getMinOpenTickets();
+            if (rule.getMaxOpenTickets() != null) row.maxOpenTickets = rule.getMaxOpenTickets();
+            if (rule.getPriority() != null) row.priority = rule.getPriority().intern();
+            return row;
+        }
+
+        Row callTypes(int callTypes) {
+            this.callTypes = callTypes;
+            return this;
+        }
+
+        Row minDuration(long seconds) {
+            this.minDuration = seconds;
+            return this;
+        }
+
+        Row maxDuration(long seconds) {
+            this.maxDuration = seconds;
+            return this;
+        }
+
+        Row priority(String priority) {
+            this.priority = priority;
+            return this;
+        }
+    }
+}
@@ -1,11 +1,14 @@
 package com.calltrackerpro.calltracker.services;
 
 import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
 import android.util.Log;
 
 import com.calltrackerpro.calltracker.models.ApiResponse;
 import com.calltrackerpro.calltracker.models.Ticket;
 import com.calltrackerpro.calltracker.models.TicketNote;
+import com.calltrackerpro.calltracker.network.OutboxReplayer;
 import com.calltrackerpro.calltracker.utils.TokenManager;
 
 import java.util.List;
@@ -19,6 +22,7 @@ public class TicketService {
     private final ApiService apiService;
     private final TokenManager tokenManager;
     private final Context context;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
 
     public TicketService(Context context) {
         this.context = context;
@@ -34,9 +38,7 @@ public class TicketService {
 
     // Create a new ticket
     public void createTicket(Ticket ticket, TicketCallback<Ticket> callback) {
-        String token = "Bearer " + tokenManager.getToken();
-        
-        Call<ApiResponse<Ticket>> call = apiService.createTicket(token, ticket);
+        Call<ApiResponse<Ticket>> call = apiService.createTicket(ApiService.SESSION_AUTH, ticket);
         call.enqueue(new Callback<ApiResponse<Ticket>>() {
             @Override
             public void onResponse(Call<ApiResponse<Ticket>> call, Response<ApiResponse<Ticket>> response) {
@@ -65,14 +67,30 @@ public class TicketService {
         });
     }
 
+    // Create a ticket through the durable outbox: queued on disk first and retried
+    // until the backend answers, so callbacks may arrive long after this returns
+    public void submitTicket(Ticket ticket, TicketCallback<Ticket> callback) {
+        OutboxReplayer.getInstance().submitTicket(ticket, new OutboxReplayer.Callback<Ticket>() {
+            @Override
+            public void onDelivered(Ticket result) {
+                Log.d(TAG, "Queued ticket delivered");
+                mainHandler.post(() -> callback.onSuccess(result));
+            }
+
+            @Override
+            public void onRejected(String error) {
+                Log.e(TAG, "Queued ticket rejected: " + error);
+                mainHandler.post(() -> callback.onError(error));
+            }
+        });
+    }
+
     // Get tickets with enhanced filtering
     public void getTickets(String organizationId, String teamId, String assignedTo, 
                           String status, String category, String priority, String slaStatus,
                           int page, int limit, TicketCallback<List<Ticket>> callback) {
-        String token = "Bearer " + tokenManager.getToken();
-        
         Call<ApiResponse<List<Ticket>>> call = apiService.getTickets(
-            token, organizationId, teamId, assignedTo, status, category, priority, slaStatus, page, limit
+            ApiService.SESSION_AUTH, organizationId, teamId, assignedTo, status, category, priority, slaStatus, page, limit
         );
         
         call.enqueue(new Callback<ApiResponse<List<Ticket>>>() {
@@ -105,9 +123,7 @@ public class TicketService {
 
     // Get a specific ticket by ID
     public void getTicket(String ticketId, TicketCallback<Ticket> callback) {
-        String token = "Bearer " + tokenManager.getToken();
-        
-        Call<ApiResponse<Ticket>> call = apiService.getTicket(token, ticketId);
+        Call<ApiResponse<Ticket>> call = apiService.getTicket(ApiService.SESSION_AUTH, ticketId);
         call.enqueue(new Callback<ApiResponse<Ticket>>() {
             @Override
             public void onResponse(Call<ApiResponse<Ticket>> call, Response<ApiResponse<Ticket>> response) {
@@ -138,9 +154,7 @@ public class TicketService {
 
     // Update a ticket
     public void updateTicket(String ticketId, Ticket ticket, TicketCallback<Ticket> callback) {
-        String token = "Bearer " + tokenManager.getToken();
-        
-        Call<ApiResponse<Ticket>> call = apiService.updateTicket(token, ticketId, ticket);
+        Call<ApiResponse<Ticket>> call = apiService.updateTicket(ApiService.SESSION_AUTH, ticketId, ticket);
         call.enqueue(new Callback<ApiResponse<Ticket>>() {
             @Override
             public void onResponse(Call<ApiResponse<Ticket>> call, Response<ApiResponse<Ticket>> response) {
@@ -171,10 +185,8 @@ public class TicketService {
 
     // Assign ticket to agent with enhanced assignment tracking
     public void assignTicket(String ticketId, String assignedTo, String assignedTeam, String assignmentNote, TicketCallback<Ticket> callback) {
-        String token = "Bearer " + tokenManager.getToken();
-        
         ApiService.AssignTicketRequest request = new ApiService.AssignTicketRequest(assignedTo, assignedTeam, assignmentNote);
-        Call<ApiResponse<Ticket>> call = apiService.assignTicket(token, ticketId, request);
+        Call<ApiResponse<Ticket>> call = apiService.assignTicket(ApiService.SESSION_AUTH, ticketId, request);
         
         call.enqueue(new Callback<ApiResponse<Ticket>>() {
             @Override
@@ -206,10 +218,8 @@ public class TicketService {
 
     // Update ticket status with enhanced status management
     public void updateTicketStatus(String ticketId, String status, String category, String priority, String statusNote, TicketCallback<Ticket> callback) {
-        String token = "Bearer " + tokenManager.getToken();
-        
         ApiService.UpdateTicketStatusRequest request = new ApiService.UpdateTicketStatusRequest(status, category, priority, statusNote);
-        Call<ApiResponse<Ticket>> call = apiService.updateTicketStatus(token, ticketId, request);
+        Call<ApiResponse<Ticket>> call = apiService.updateTicketStatus(ApiService.SESSION_AUTH, ticketId, request);
         
         call.enqueue(new Callback<ApiResponse<Ticket>>() {
             @Override
@@ -241,9 +251,7 @@ public class TicketService {
 
     // Add note to ticket
     public void addTicketNote(String ticketId, TicketNote note, TicketCallback<TicketNote> callback) {
-        String token = "Bearer " + tokenManager.getToken();
-        
-        Call<ApiResponse<TicketNote>> call = apiService.addTicketNote(token, ticketId, note);
+        Call<ApiResponse<TicketNote>> call = apiService.addTicketNote(ApiService.SESSION_AUTH, ticketId, note);
         call.enqueue(new Callback<ApiResponse<TicketNote>>() {
             @Override
             public void onResponse(Call<ApiResponse<TicketNote>> call, Response<ApiResponse<TicketNote>> response) {
@@ -274,9 +282,7 @@ public class TicketService {
 
     // Get ticket notes
     public void getTicketNotes(String ticketId, TicketCallback<List<TicketNote>> callback) {
-        String token = "Bearer " + tokenManager.getToken();
-        
-        Call<ApiResponse<List<TicketNote>>> call = apiService.getTicketNotes(token, ticketId);
+        Call<ApiResponse<List<TicketNote>>> call = apiService.getTicketNotes(ApiService.SESSION_AUTH, ticketId);
         call.enqueue(new Callback<ApiResponse<List<TicketNote>>>() {
             @Override
             public void onResponse(Call<ApiResponse<List<TicketNote>>> call, Response<ApiResponse<List<TicketNote>>> response) {
@@ -307,9 +313,7 @@ public class TicketService {
 
     // Delete ticket (admin only)
     public void deleteTicket(String ticketId, TicketCallback<String> callback) {
-        String token = "Bearer " + tokenManager.getToken();
-        
-        Call<ApiResponse<String>> call = apiService.deleteTicket(token, ticketId);
+        Call<ApiResponse<String>> call = apiService.deleteTicket(ApiService.SESSION_AUTH, ticketId);
         call.enqueue(new Callback<ApiResponse<String>>() {
             @Override
             public void onResponse(Call<ApiResponse<String>> call, Response<ApiResponse<String>> response) {
@@ -340,10 +344,8 @@ public class TicketService {
 
     // Escalate ticket to higher priority/manager
     public void escalateTicket(String ticketId, String escalatedTo, String escalationReason, String priority, TicketCallback<Ticket> callback) {
-        String token = "Bearer " + tokenManager.getToken();
-        
         ApiService.EscalateTicketRequest request = new ApiService.EscalateTicketRequest(escalatedTo, escalationReason, priority);
-        Call<ApiResponse<Ticket>> call = apiService.escalateTicket(token, ticketId, request);
+        Call<ApiResponse<Ticket>> call = apiService.escalateTicket(ApiService.SESSION_AUTH, ticketId, request);
         
         call.enqueue(new Callback<ApiResponse<Ticket>>() {
             @Override
@@ -375,10 +377,8 @@ public class TicketService {
 
     // Submit customer satisfaction rating
     public void submitSatisfactionRating(String ticketId, int rating, String feedback, TicketCallback<Ticket> callback) {
-        String token = "Bearer " + tokenManager.getToken();
-        
         ApiService.SatisfactionRatingRequest request = new ApiService.SatisfactionRatingRequest(rating, feedback);
-        Call<ApiResponse<Ticket>> call = apiService.submitSatisfactionRating(token, ticketId, request);
+        Call<ApiResponse<Ticket>> call = apiService.submitSatisfactionRating(ApiService.SESSION_AUTH, ticketId, request);
         
         call.enqueue(new Callback<ApiResponse<Ticket>>() {
             @Override
@@ -410,9 +410,7 @@ public class TicketService {
 
     // Get ticket statistics
     public void getTicketStats(String organizationId, String teamId, String userId, String period, TicketCallback<ApiService.TicketStatsResponse> callback) {
-        String token = "Bearer " + tokenManager.getToken();
-        
-        Call<ApiResponse<ApiService.TicketStatsResponse>> call = apiService.getTicketStats(token, organizationId, teamId, userId, period);
+        Call<ApiResponse<ApiService.TicketStatsResponse>> call = apiService.getTicketStats(ApiService.SESSION_AUTH, organizationId, teamId, userId, period);
         call.enqueue(new Callback<ApiResponse<ApiService.TicketStatsResponse>>() {
             @Override
             public void onResponse(Call<ApiResponse<ApiService.TicketStatsResponse>> call, Response<ApiResponse<ApiService.TicketStatsResponse>> response) {
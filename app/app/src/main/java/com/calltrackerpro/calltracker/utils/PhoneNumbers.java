@@ -0,0 +1,226 @@
+package com.calltrackerpro.calltracker.utils;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Canonical keys for phone numbers, so "+1 (555) 123-4567", "1-555-123-4567"
+ * and "555.123.4567" all become "+15551234567".
+ *
+ * National numbers are placed in the device's country (see
+ * {@link #setDefaultRegion}) after dropping that country's trunk prefix
+ * (0, 1 in North America, 8 in Russia, ...). Where the trunk is a digit a
+ * national number can itself start with, it is only dropped from numbers
+ * of the dialled length. International numbers keep
+ * their country code; a "(0)" written after it is dropped. Country codes
+ * are prefix-free, so the code length is read off a 1000-entry table
+ * indexed by the first three digits: the country-code trie flattened to
+ * its leaves. Canonicalizing is one pass over the input into a per-thread
+ * buffer and allocates only the result.
+ */
+public final class PhoneNumbers {
+
+    // Fewer digits than this is a short code (voicemail, 911), kept as dialled
+    private static final int MIN_NATIONAL_DIGITS = 7;
+    // E.164 caps numbers at 15 digits; leave room for a trunk and an IDD prefix
+    private static final int MAX_DIGITS = 20;
+
+    // Every 1- and 2-digit country code; any other three digits begin a 3-digit code
+    private static final String SHORT_COUNTRY_CODES = "1 7 20 27 30 31 32 33 34 36 39 40 41 43 44 45 46 47 48 49 "
+            + "51 52 53 54 55 56 57 58 60 61 62 63 64 65 66 81 82 84 86 90 91 92 93 94 95 98";
+    // Trunk prefixes other than "0"; an empty one means national numbers keep their leading 0
+    private static final String TRUNK_EXCEPTIONS = "1:1 7:8 36:06 30: 34: 39: 45: 47: 48: 52: 351: 352: 354: 356: 376: 378:";
+    // Digits in a national number dialled with these trunk prefixes; shorter or longer ones keep their first digit
+    private static final String TRUNK_DIALLED_LENGTHS = "1:11 7:11";
+    private static final String REGION_CODES = "US1 CA1 PR1 RU7 KZ7 EG20 ZA27 GR30 NL31 BE32 FR33 ES34 HU36 IT39 RO40 "
+            + "CH41 AT43 GB44 DK45 SE46 NO47 PL48 DE49 PE51 MX52 CU53 AR54 BR55 CL56 CO57 VE58 MY60 AU61 ID62 "
+            + "PH63 NZ64 SG65 TH66 JP81 KR82 VN84 CN86 TR90 IN91 PK92 AF93 LK94 MM95 IR98 MA212 DZ213 TN216 "
+            + "NG234 GH233 KE254 TZ255 UG256 ET251 PT351 LU352 IE353 IS354 MT356 CY357 FI358 BG359 LT370 LV371 "
+            + "EE372 UA380 RS381 HR385 SI386 CZ420 SK421 HK852 TW886 BD880 AE971 IL972 SA966 QA974 KW965 JO962 LB961 NP977";
+
+    private static final byte[] CODE_LENGTH = new byte[1000];
+    private static final String[] TRUNK_PREFIX = new String[1000];
+    private static final byte[] TRUNK_DIALLED_LENGTH = new byte[1000];
+    private static final Map<String, Integer> REGIONS = new HashMap<>();
+
+    static {
+        Arrays.fill(CODE_LENGTH, (byte) 3);
+        for (String code : SHORT_COUNTRY_CODES.split(" ")) {
+            int value = Integer.parseInt(code);
+            int span = code.length() == 1 ? 100 : 10;
+            Arrays.fill(CODE_LENGTH, value * span, value * span + span, (byte) code.length());
+        }
+        Arrays.fill(TRUNK_PREFIX, "0");
+        for (String exception : TRUNK_EXCEPTIONS.split(" ")) {
+            int colon = exception.indexOf(':');
+            TRUNK_PREFIX[Integer.parseInt(exception.substring(0, colon))] = exception.substring(colon + 1);
+        }
+        for (String length : TRUNK_DIALLED_LENGTHS.split(" ")) {
+            int colon = length.indexOf(':');
+            TRUNK_DIALLED_LENGTH[Integer.parseInt(length.substring(0, colon))] = Byte.parseByte(length.substring(colon + 1));
+        }
+        for (String region : REGION_CODES.split(" ")) {
+            REGIONS.put(region.substring(0, 2), Integer.parseInt(region.substring(2)));
+        }
+    }
+
+    private static final ThreadLocal<char[]> BUFFER = new ThreadLocal<char[]>() {
+        @Override
+        protected char[] initialValue() {
+            return new char[MAX_DIGITS + 4];
+        }
+    };
+
+    // 0 until known; national numbers are then keyed by their digits alone
+    private static volatile int defaultCountryCode = 0;
+
+    private PhoneNumbers() {}
+
+    /**
+     * ISO 3166 region (e.g. "GB") whose numbering plan national numbers
+     * follow; returns its country code, or 0 if the region is unknown
+     */
+    public static int setDefaultRegion(String region) {
+        Integer code = region != null ? REGIONS.get(region.toUpperCase(Locale.ROOT)) : null;
+        defaultCountryCode = code != null ? code : 0;
+        return defaultCountryCode;
+    }
+
+    public static int getDefaultCountryCode() {
+        return defaultCountryCode;
+    }
+
+    /**
+     * Canonical key in the default country, or null if there are no digits
+     */
+    public static String canonical(String raw) {
+        return canonical(raw, defaultCountryCode);
+    }
+
+    /**
+     * "+" country code and national number; bare digits for short codes, and
+     * for national numbers when {@code defaultCountryCode} is 0 (unknown).
+     * Anything after an extension or pause marker is dropped.
+     */
+    public static String canonical(String raw, int defaultCountryCode) {
+        if (raw == null) return null;
+        char[] digits = BUFFER.get();
+        int count = 0;
+        boolean plus = false;
+        for (int i = 0, length = raw.length(); i < length; i++) {
+            char c = raw.charAt(i);
+            if (c >= '0' && c <= '9') {
+                if (count == MAX_DIGITS) return null;
+                digits[count++] = c;
+            } else if (c == '+' && count == 0) {
+                plus = true;
+            } else if (c == 'x' || c == 'X' || c == ',' || c == ';' || c == '#') {
+                break;
+            }
+        }
+        if (count == 0) return null;
+
+        int at;
+        if (plus) {
+            at = 0;
+        } else if (defaultCountryCode == 1 && startsWith(digits, count, 0, "011")) {
+            at = 3;
+        } else if (startsWith(digits, count, 0, "00")) {
+            at = 2;
+        } else if (count < MIN_NATIONAL_DIGITS) {
+            return new String(digits, 0, count);
+        } else {
+            return national(digits, count, defaultCountryCode);
+        }
+        if (count - at < MIN_NATIONAL_DIGITS) {
+            return new String(digits, at, count - at);
+        }
+
+        int codeLength = countryCodeLength(digits, at);
+        int code = parse(digits, at, codeLength);
+        int rest = at + codeLength;
+        // "+44 (0)20 ..." style: the trunk prefix written after the country code
+        if (rest < count && digits[rest] == '0' && "0".equals(TRUNK_PREFIX[code])) {
+            rest++;
+        }
+        return join(code, digits, rest, count);
+    }
+
+    /**
+     * Whether two raw numbers are the same line. Numbers that could only be
+     * keyed nationally (default country unknown) match a placed number
+     * ending in the same digits.
+     */
+    public static boolean matches(String a, String b) {
+        if (a == null || b == null) return false;
+        if (a.equals(b)) return true;
+        return matchesCanonical(canonical(a), canonical(b));
+    }
+
+    /**
+     * {@link #matches} for keys already produced by {@link #canonical};
+     * allocation-free, for hot loops
+     */
+    public static boolean matchesCanonical(String keyA, String keyB) {
+        if (keyA == null || keyB == null) return false;
+        if (keyA.equals(keyB)) return true;
+
+        boolean placedA = keyA.charAt(0) == '+';
+        boolean placedB = keyB.charAt(0) == '+';
+        if (placedA == placedB) return false;
+        String national = placedA ? keyB : keyA;
+        String placed = placedA ? keyA : keyB;
+        if (national.length() < MIN_NATIONAL_DIGITS) return false;
+        int from = national.charAt(0) == '0' ? 1 : 0; // a trunk 0 we could not strip
+        return placed.regionMatches(placed.length() - (national.length() - from), national, from, national.length() - from);
+    }
+
+    private static String national(char[] digits, int count, int defaultCountryCode) {
+        if (defaultCountryCode == 0) {
+            return new String(digits, 0, count);
+        }
+        String trunk = TRUNK_PREFIX[defaultCountryCode];
+        int from = 0;
+        if (!trunk.isEmpty() && startsWith(digits, count, 0, trunk)) {
+            // "1" in North America and "8" in Russia also begin national numbers
+            int dialledLength = TRUNK_DIALLED_LENGTH[defaultCountryCode];
+            if (dialledLength == 0 || count == dialledLength) {
+                from = trunk.length();
+            }
+        }
+        return join(defaultCountryCode, digits, from, count);
+    }
+
+    private static String join(int code, char[] digits, int from, int count) {
+        int codeDigits = code >= 100 ? 3 : code >= 10 ? 2 : 1;
+        char[] out = new char[1 + codeDigits + count - from];
+        out[0] = '+';
+        for (int i = codeDigits, value = code; i >= 1; i--, value /= 10) {
+            out[i] = (char) ('0' + value % 10);
+        }
+        System.arraycopy(digits, from, out, 1 + codeDigits, count - from);
+        return new String(out);
+    }
+
+    private static int countryCodeLength(char[] digits, int at) {
+        return CODE_LENGTH[parse(digits, at, 3)];
+    }
+
+    private static int parse(char[] digits, int at, int length) {
+        int value = 0;
+        for (int i = at; i < at + length; i++) {
+            value = value * 10 + (digits[i] - '0');
+        }
+        return value;
+    }
+
+    private static boolean startsWith(char[] digits, int count, int at, String prefix) {
+        if (count - at < prefix.length()) return false;
+        for (int i = 0; i < prefix.length(); i++) {
+            if (digits[at + i] != prefix.charAt(i)) return false;
+        }
+        return true;
+    }
+}
@@ -1,84 +1,70 @@
 package com.calltrackerpro.calltracker.utils;
 
+import com.calltrackerpro.calltracker.network.HttpClientFactory;
 import com.calltrackerpro.calltracker.services.ApiService;
 import okhttp3.OkHttpClient;
-import okhttp3.logging.HttpLoggingInterceptor;
 import retrofit2.Retrofit;
-import retrofit2.converter.gson.GsonConverterFactory;
 import java.util.concurrent.TimeUnit;
 
 public class RetrofitClient {
-    private static final String BASE_URL = "https://calltrackerpro-backend.vercel.app/api/";
-    private static volatile Retrofit retrofit = null;
-    private static volatile ApiService apiService = null;
+    // Published as one immutable pair, so a reader never gets a client built for another token
+    private static volatile AuthenticatedClient authenticated = null;
 
-    public static Retrofit getClient() {
-        if (retrofit == null) {
-            synchronized (RetrofitClient.class) {
-                if (retrofit == null) {
-                    // Create logging interceptor
-                    HttpLoggingInterceptor loggingInterceptor = new HttpLoggingInterceptor();
-                    loggingInterceptor.setLevel(HttpLoggingInterceptor.Level.BODY);
-
-                    // Create OkHttp client with interceptors
-                    OkHttpClient okHttpClient = new OkHttpClient.Builder()
-                            .addInterceptor(loggingInterceptor)
-                            .connectTimeout(30, TimeUnit.SECONDS)
-                            .readTimeout(30, TimeUnit.SECONDS)
-                            .writeTimeout(30, TimeUnit.SECONDS)
-                            .build();
+    private static final class AuthenticatedClient {
+        final String token;
+        final Retrofit retrofit;
 
-                    retrofit = new Retrofit.Builder()
-                            .baseUrl(BASE_URL)
-                            .client(okHttpClient)
-                            .addConverterFactory(GsonConverterFactory.create())
-                            .build();
-                }
-            }
+        AuthenticatedClient(String token, Retrofit retrofit) {
+            this.token = token;
+            this.retrofit = retrofit;
         }
-        return retrofit;
+    }
+
+    public static Retrofit getClient() {
+        return HttpClientFactory.getRetrofit();
     }
 
     public static ApiService getApiService() {
-        if (apiService == null) {
-            synchronized (RetrofitClient.class) {
-                if (apiService == null) {
-                    apiService = getClient().create(ApiService.class);
-                }
-            }
-        }
-        return apiService;
+        return HttpClientFactory.getApiService();
     }
 
     /**
-     * Create authenticated client with token
+     * Create authenticated client with token.
+     * Derived from the shared client, so it reuses its connection pool and
+     * dispatcher; the Retrofit instance is cached until the token changes.
      */
     public static Retrofit getAuthenticatedClient(String token) {
-        HttpLoggingInterceptor loggingInterceptor = new HttpLoggingInterceptor();
-        loggingInterceptor.setLevel(HttpLoggingInterceptor.Level.BODY);
+        AuthenticatedClient cached = authenticated;
+        if (cached != null && token != null && token.equals(cached.token)) {
+            return cached.retrofit;
+        }
 
-        OkHttpClient authenticatedClient = new OkHttpClient.Builder()
-                .addInterceptor(chain -> {
-                    okhttp3.Request original = chain.request();
-                    okhttp3.Request.Builder requestBuilder = original.newBuilder()
-                            .header("Authorization", "Bearer " + token)
-                            .header("Accept", "application/json")
-                            .header("Content-Type", "application/json");
+        synchronized (RetrofitClient.class) {
+            cached = authenticated;
+            if (cached != null && token != null && token.equals(cached.token)) {
+                return cached.retrofit;
+            }
+
+            OkHttpClient authenticatedClient = HttpClientFactory.newClientBuilder()
+                    .addInterceptor(chain -> {
+                        okhttp3.Request original = chain.request();
+                        okhttp3.Request.Builder requestBuilder = original.newBuilder()
+                                .header("Authorization", "Bearer " + token)
+                                .header("Accept", "application/json")
+                                .header("Content-Type", "application/json");
 
-                    okhttp3.Request request = requestBuilder.build();
-                    return chain.proceed(request);
-                })
-                .addInterceptor(loggingInterceptor)
-                .connectTimeout(30, TimeUnit.SECONDS)
-                .readTimeout(30, TimeUnit.SECONDS)
-                .writeTimeout(30, TimeUnit.SECONDS)
-                .build();
+                        okhttp3.Request request = requestBuilder.build();
+                        return chain.proceed(request);
+                    })
+                    .connectTimeout(30, TimeUnit.SECONDS)
+                    .readTimeout(30, TimeUnit.SECONDS)
+                    .writeTimeout(30, TimeUnit.SECONDS)
+                    .build();
 
-        return new Retrofit.Builder()
-                .baseUrl(BASE_URL)
-                .client(authenticatedClient)
-                .addConverterFactory(GsonConverterFactory.create())
-                .build();
+            AuthenticatedClient built = new AuthenticatedClient(token, HttpClientFactory.newRetrofit(authenticatedClient));
+            authenticated = built;
+            return built.retrofit;
+        }
     }
 
     /**
@@ -87,4 +73,4 @@ public class RetrofitClient {
     public static ApiService getAuthenticatedApiService(String token) {
         return getAuthenticatedClient(token).create(ApiService.class);
     }
-}
\ No newline at end of file
+}
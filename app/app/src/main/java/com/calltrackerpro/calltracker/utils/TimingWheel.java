@@ -0,0 +1,113 @@
+package com.calltrackerpro.calltracker.utils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Deadlines for many keys at a fixed resolution, in the manner of a hashed
+ * timing wheel: a key lands in the slot its deadline falls into, modulo the
+ * wheel size, so scheduling, rescheduling and cancelling are constant time,
+ * and each tick looks only at the one slot it reaches. Deadlines further
+ * out than one turn wait in their slot until the turn they are due.
+ *
+ * Time is whatever the caller passes in, so it can be driven by a handler
+ * or by a test. Not thread-safe.
+ */
+public final class TimingWheel<K> {
+
+    private final long tickMs;
+    private final List<LinkedHashSet<K>> slots;
+    private final Map<K, Entry> deadlines = new HashMap<>();
+    // The last tick advance() has read
+    private long tick = -1;
+
+    public TimingWheel(long tickMs, int slotCount) {
+        if (tickMs <= 0 || slotCount <= 0) {
+            throw new IllegalArgumentException("tickMs and slotCount must be positive");
+        }
+        this.tickMs = tickMs;
+        this.slots = new ArrayList<>(slotCount);
+        for (int i = 0; i < slotCount; i++) {
+            slots.add(new LinkedHashSet<>());
+        }
+    }
+
+    /**
+     * Expire {@code key} at {@code deadline}, replacing any deadline it had
+     */
+    public void schedule(K key, long deadline) {
+        cancel(key);
+        // Already past: due on the next tick rather than a turn from now
+        int slot = slotOf(Math.max(deadline / tickMs, tick + 1));
+        deadlines.put(key, new Entry(deadline, slot));
+        slots.get(slot).add(key);
+    }
+
+    public boolean cancel(K key) {
+        Entry entry = deadlines.remove(key);
+        if (entry == null) return false;
+        slots.get(entry.slot).remove(key);
+        return true;
+    }
+
+    public boolean contains(K key) {
+        return deadlines.containsKey(key);
+    }
+
+    public int size() {
+        return deadlines.size();
+    }
+
+    public boolean isEmpty() {
+        return deadlines.isEmpty();
+    }
+
+    public long getTickMs() {
+        return tickMs;
+    }
+
+    /**
+     * Remove and return the keys due by {@code now}, at most one tick late:
+     * a slot is read once the whole tick it covers has passed
+     */
+    public List<K> advance(long now) {
+        long target = Math.floorDiv(now, tickMs) - 1;
+        List<K> expired = new ArrayList<>();
+        if (deadlines.isEmpty()) {
+            tick = target;
+            return expired;
+        }
+        // A gap of a full turn or more (the device slept) visits every slot once
+        long from = tick < 0 || target - tick > slots.size() ? target - slots.size() + 1 : tick + 1;
+        for (long t = from; t <= target; t++) {
+            for (Iterator<K> it = slots.get(slotOf(t)).iterator(); it.hasNext(); ) {
+                K key = it.next();
+                if (deadlines.get(key).deadline <= now) {
+                    it.remove();
+                    deadlines.remove(key);
+                    expired.add(key);
+                }
+            }
+        }
+        tick = Math.max(tick, target);
+        return expired;
+    }
+
+    private int slotOf(long tick) {
+        return (int) Math.floorMod(tick, (long) slots.size());
+    }
+
+    private static final class Entry {
+        final long deadline;
+        final int slot;
+
+        Entry(long deadline, int slot) {
+            this.deadline = deadline;
+            this.slot = slot;
+        }
+    }
+}
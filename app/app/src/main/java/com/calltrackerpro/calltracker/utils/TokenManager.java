@@ -3,7 +3,16 @@ package com.calltrackerpro.calltracker.utils;
 import android.content.Context;
 import android.content.SharedPreferences;
 import android.util.Log;
+import com.calltrackerpro.calltracker.data.CallerContextCache;
+import com.calltrackerpro.calltracker.data.TicketStore;
+import com.calltrackerpro.calltracker.json.GsonProvider;
 import com.calltrackerpro.calltracker.models.User;
+import com.calltrackerpro.calltracker.network.AuthSession;
+import com.calltrackerpro.calltracker.network.HttpClientFactory;
+import com.calltrackerpro.calltracker.network.HttpResponseCache;
+import com.calltrackerpro.calltracker.network.OutboxReplayer;
+import com.calltrackerpro.calltracker.services.RepeatCallerIndex;
+import com.calltrackerpro.calltracker.services.TicketRuleEngine;
 import com.google.gson.Gson;
 
 public class TokenManager {
@@ -16,12 +25,20 @@ public class TokenManager {
     private static final String KEY_SELECTED_ORG_DATA = "selected_org_data";
     private static final String TAG = "TokenManager";
 
+    private final Context context;
     private final SharedPreferences preferences;
     private final Gson gson;
 
     public TokenManager(Context context) {
+        this.context = context.getApplicationContext();
         preferences = context.getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE);
-        gson = new Gson();
+        gson = GsonProvider.getGson();
+
+        // Seed the in-memory session once per process so the HTTP layer never reads preferences
+        if (!AuthSession.isLoaded()) {
+            AuthSession.load(context, preferences.getString(KEY_TOKEN, null), preferences.getLong(KEY_EXPIRES_AT, 0));
+            updateSessionTenant(getUser());
+        }
     }
 
     /**
@@ -38,6 +55,10 @@ public class TokenManager {
                 .putLong(KEY_EXPIRES_AT, expiresAt)
                 .putLong(KEY_LOGIN_TIME, System.currentTimeMillis())
                 .apply();
+            AuthSession.update(token, expiresAt);
+            updateSessionTenant(user);
+            // Mutations this user queued before, and any parked by an expired session
+            OutboxReplayer.getInstance().onSignedIn();
 
             Log.d(TAG, "✅ Auth data saved successfully for user: " + user.getEmail());
         } catch (Exception e) {
@@ -46,19 +67,10 @@ public class TokenManager {
     }
 
     /**
-     * Get stored authentication token
+     * Get stored authentication token (served from the in-memory session)
      */
     public String getToken() {
-        try {
-            String token = preferences.getString(KEY_TOKEN, null);
-            if (token != null) {
-                Log.d(TAG, "Token retrieved successfully");
-            }
-            return token;
-        } catch (Exception e) {
-            Log.e(TAG, "❌ Error retrieving token: " + e.getMessage());
-            return null;
-        }
+        return AuthSession.getToken();
     }
 
     /**
@@ -102,7 +114,7 @@ public class TokenManager {
      * Check if token is expired
      */
     public boolean isTokenExpired() {
-        long expiresAt = preferences.getLong(KEY_EXPIRES_AT, 0);
+        long expiresAt = AuthSession.getExpiresAt();
 
         if (expiresAt == 0) {
             // No expiration time set, consider it expired
@@ -137,7 +149,7 @@ public class TokenManager {
      * Get token expiration time
      */
     public long getExpirationTime() {
-        return preferences.getLong(KEY_EXPIRES_AT, 0);
+        return AuthSession.getExpiresAt();
     }
 
     /**
@@ -152,11 +164,25 @@ public class TokenManager {
     }
 
     /**
-     * Clear all authentication data (logout)
+     * Clear all authentication data (logout), and everything cached or
+     * queued for the signed-out user, so the next one starts clean whichever
+     * screen they logged out from. Call on the main thread.
      */
     public void clearAuthData() {
         try {
             preferences.edit().clear().apply();
+            AuthSession.clear();
+            // Queued mutations were made under this session; nobody else may send them
+            OutboxReplayer.getInstance().clear();
+            TicketStore.getInstance(context).clear();
+            CallerContextCache.getInstance(context).clear();
+            TicketRuleEngine.getInstance(context).clear();
+            RepeatCallerIndex.getInstance(context).clear();
+            // Cached GETs hold the user's data; dropped before anyone else can sign in and read them
+            HttpResponseCache responseCache = HttpClientFactory.getResponseCache();
+            if (responseCache != null) {
+                responseCache.clear();
+            }
             Log.d(TAG, "🔐 All auth data and organization context cleared");
         } catch (Exception e) {
             Log.e(TAG, "❌ Error clearing auth data: " + e.getMessage());
@@ -177,6 +203,7 @@ public class TokenManager {
         try {
             String userJson = gson.toJson(user);
             preferences.edit().putString(KEY_USER, userJson).apply();
+            updateSessionTenant(user);
             Log.d(TAG, "✅ User data updated for: " + user.getEmail());
         } catch (Exception e) {
             Log.e(TAG, "❌ Error updating user data: " + e.getMessage());
@@ -194,6 +221,8 @@ public class TokenManager {
                 .putString(KEY_TOKEN, newToken)
                 .putLong(KEY_EXPIRES_AT, expiresAt)
                 .apply();
+            AuthSession.update(newToken, expiresAt);
+            OutboxReplayer.getInstance().onSignedIn();
 
             Log.d(TAG, "🔄 Token refreshed successfully");
         } catch (Exception e) {
@@ -220,6 +249,9 @@ public class TokenManager {
                 editor.putString(KEY_SELECTED_ORG_DATA, orgJson);
             }
             editor.apply();
+            AuthSession.setOrganizationId(organizationId);
+            // Entries queued in this organization before can go out again
+            OutboxReplayer.getInstance().onSignedIn();
             Log.d(TAG, "✅ Current organization saved: " + organizationId);
         } catch (Exception e) {
             Log.e(TAG, "❌ Error saving current organization: " + e.getMessage());
@@ -265,6 +297,8 @@ public class TokenManager {
                 .remove(KEY_CURRENT_ORG_ID)
                 .remove(KEY_SELECTED_ORG_DATA)
                 .apply();
+            User user = getUser();
+            AuthSession.setOrganizationId(user != null ? user.getOrganizationId() : null);
             Log.d(TAG, "🗑️ Organization context cleared");
         } catch (Exception e) {
             Log.e(TAG, "❌ Error clearing organization context: " + e.getMessage());
@@ -301,4 +335,15 @@ public class TokenManager {
         User user = getUser();
         return user != null && user.hasPermission(permission);
     }
-}
\ No newline at end of file
+
+    /**
+     * Mirror the user's tenant context into the in-memory session
+     */
+    private void updateSessionTenant(User user) {
+        if (user == null) return;
+        String organizationId = getCurrentOrganizationId();
+        AuthSession.setTenant(user.getId(),
+                organizationId != null ? organizationId : user.getOrganizationId(),
+                user.getRole());
+    }
+}
@@ -4,6 +4,7 @@ import android.content.Context;
 import android.os.Handler;
 import android.os.Looper;
 import android.util.Log;
+import com.calltrackerpro.calltracker.json.GsonProvider;
 import com.google.gson.Gson;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
@@ -41,7 +42,7 @@ public class WebSocketManager {
     private WebSocketManager(Context context) {
         tokenManager = new TokenManager(context);
         mainHandler = new Handler(Looper.getMainLooper());
-        gson = new Gson();
+        gson = GsonProvider.getGson();
     }
     
     public static synchronized WebSocketManager getInstance(Context context) {
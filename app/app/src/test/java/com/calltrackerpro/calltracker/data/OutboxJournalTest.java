@@ -0,0 +1,209 @@
+package com.calltrackerpro.calltracker.data;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * What survives a reopen of the outbox journal: checksummed records up to
+ * the first bad one, appends made after a torn tail was cut, only the
+ * live entries of a compacted file, and the failed attempts counted
+ * against each.
+ */
+public class OutboxJournalTest {
+
+    private File dir;
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("outbox").toFile();
+        file = new File(dir, "journal.bin");
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File child : files) {
+                child.delete();
+            }
+        }
+        dir.delete();
+    }
+
+    @Test
+    public void aRecordFailingItsChecksumEndsTheReplay() throws Exception {
+        OutboxJournal journal = open(new Replayed());
+        journal.appendEnqueue(entry(1), null);
+        journal.sync(5_000);
+        long firstRecordEnd = file.length();
+        journal.appendEnqueue(entry(2), null);
+        journal.appendEnqueue(entry(3), null);
+        journal.sync(5_000);
+
+        // One flipped bit inside the second record's body
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            long at = firstRecordEnd + 8 + 4;
+            raf.seek(at);
+            int b = raf.read();
+            raf.seek(at);
+            raf.write(b ^ 0x01);
+        }
+
+        Replayed replayed = new Replayed();
+        open(replayed);
+        assertEquals(Arrays.asList(1L), replayed.seqs());
+        assertEquals(firstRecordEnd, file.length());
+    }
+
+    @Test
+    public void appendsAfterATornTailSurviveTheNextOpen() throws Exception {
+        OutboxJournal journal = open(new Replayed());
+        journal.appendEnqueue(entry(1), null);
+        journal.sync(5_000);
+        long goodLength = file.length();
+
+        // A crash part way through the next record's header
+        try (FileOutputStream out = new FileOutputStream(file, true)) {
+            out.write(new byte[] {0, 0, 1});
+        }
+
+        Replayed afterCrash = new Replayed();
+        OutboxJournal reopened = open(afterCrash);
+        assertEquals(Arrays.asList(1L), afterCrash.seqs());
+        assertEquals(goodLength, file.length());
+
+        reopened.appendEnqueue(entry(2), null);
+        reopened.appendAck(1);
+        reopened.sync(5_000);
+
+        Replayed replayed = new Replayed();
+        open(replayed);
+        assertEquals(Arrays.asList(2L), replayed.seqs());
+    }
+
+    @Test
+    public void compactionKeepsOnlyLiveEntriesAndTheirOwners() throws Exception {
+        OutboxJournal journal = open(new Replayed());
+        List<Outbox.Entry> written = new ArrayList<>();
+        for (long seq = 1; seq <= 50; seq++) {
+            Outbox.Entry entry = entry(seq);
+            written.add(entry);
+            journal.appendEnqueue(entry, null);
+        }
+        for (long seq = 1; seq <= 48; seq++) {
+            journal.appendAck(seq);
+        }
+        journal.sync(5_000);
+        long before = file.length();
+
+        Outbox.Entry orgless = new Outbox.Entry(51, Outbox.TYPE_TICKET, "k-51", "{}", 51, "user-2", null);
+        journal.compact(Arrays.asList(written.get(48), written.get(49), orgless));
+        journal.sync(5_000);
+        assertTrue(file.length() < before);
+
+        Replayed replayed = new Replayed();
+        open(replayed);
+        assertEquals(Arrays.asList(49L, 50L, 51L), replayed.seqs());
+        Outbox.Entry restored = replayed.entries.get(50L);
+        assertEquals("k-50", restored.key);
+        assertEquals("{\"n\":50}", restored.payload);
+        assertEquals("user-1", restored.userId);
+        assertEquals("org-1", restored.organizationId);
+        assertNull(replayed.entries.get(51L).organizationId);
+    }
+
+    @Test
+    public void clearEmptiesTheFileAndLaterAppendsStillReplay() throws Exception {
+        OutboxJournal journal = open(new Replayed());
+        journal.appendEnqueue(entry(1), null);
+        journal.appendEnqueue(entry(2), null);
+        journal.sync(5_000);
+
+        journal.clear();
+        journal.appendEnqueue(entry(3), null);
+        journal.sync(5_000);
+
+        Replayed replayed = new Replayed();
+        open(replayed);
+        assertEquals(Arrays.asList(3L), replayed.seqs());
+    }
+
+    @Test
+    public void failedAttemptsSurviveReopenAndCompaction() throws Exception {
+        OutboxJournal journal = open(new Replayed());
+        journal.appendEnqueue(entry(1), null);
+        journal.appendEnqueue(entry(2), null);
+        journal.appendFailure(1, 1, 1_000);
+        journal.appendFailure(1, 2, 1_000);
+        journal.sync(5_000);
+
+        Replayed replayed = new Replayed();
+        OutboxJournal reopened = open(replayed);
+        assertEquals(2, replayed.entries.get(1L).getAttempts());
+        assertEquals(1_000, replayed.entries.get(1L).getFirstFailedAt());
+        assertEquals(0, replayed.entries.get(2L).getAttempts());
+
+        reopened.compact(new ArrayList<>(replayed.entries.values()));
+        reopened.sync(5_000);
+
+        Replayed compacted = new Replayed();
+        open(compacted);
+        assertEquals(Arrays.asList(1L, 2L), compacted.seqs());
+        assertEquals(2, compacted.entries.get(1L).getAttempts());
+        assertEquals(1_000, compacted.entries.get(1L).getFirstFailedAt());
+    }
+
+    private OutboxJournal open(Replayed replay) throws IOException {
+        OutboxJournal journal = new OutboxJournal(file);
+        journal.open(replay);
+        return journal;
+    }
+
+    private static Outbox.Entry entry(long seq) {
+        return new Outbox.Entry(seq, Outbox.TYPE_CALL_LOG, "k-" + seq, "{\"n\":" + seq + "}", seq, "user-1", "org-1");
+    }
+
+    /**
+     * Unacked entries as Outbox would rebuild them
+     */
+    private static final class Replayed implements OutboxJournal.Replay {
+        final Map<Long, Outbox.Entry> entries = new LinkedHashMap<>();
+
+        @Override
+        public void onEnqueue(Outbox.Entry entry) {
+            entries.put(entry.seq, entry);
+        }
+
+        @Override
+        public void onAck(long seq) {
+            entries.remove(seq);
+        }
+
+        @Override
+        public void onFailure(long seq, int attempts, long firstFailedAt) {
+            Outbox.Entry entry = entries.get(seq);
+            if (entry != null) entry.setFailures(attempts, firstFailedAt);
+        }
+
+        List<Long> seqs() {
+            return new ArrayList<>(entries.keySet());
+        }
+    }
+}
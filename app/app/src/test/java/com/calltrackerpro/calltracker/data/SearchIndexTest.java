@@ -0,0 +1,132 @@
+package com.calltrackerpro.calltracker.data;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Substring matches through trigram postings, word-prefix matches for short
+ * queries, phone numbers however punctuated, and the same answers after
+ * enough replacements to rebuild the postings. The timed run is skipped
+ * unless the build is run with {@code -Pbenchmarks}.
+ */
+public class SearchIndexTest {
+
+    private static final boolean BENCHMARKS = Boolean.getBoolean("calltracker.benchmarks");
+
+    @Test
+    public void substringsMatchWithinOneFieldAndWordStartsRankFirst() {
+        SearchIndex index = new SearchIndex();
+        index.put("t", "1", "Anna Smith", "Acme");
+        index.put("t", "2", "Joe Blacksmith", "Initech");
+        index.put("t", "3", "Smithers", "Acme");
+        index.put("u", "4", "Anna Smith");
+
+        // Word starts first, newest first within each group
+        assertEquals(Arrays.asList("3", "1", "2"), index.search("t", "SMITH", 10));
+        assertEquals(Arrays.asList("3", "1"), index.search("t", "smith", 2));
+        assertEquals(Arrays.asList("2"), index.search("t", "cksm", 10));
+        // No trigram spans two fields
+        assertEquals(Collections.emptyList(), index.search("t", "thac", 10));
+        assertEquals(Collections.emptyList(), index.search("t", "zzz", 10));
+    }
+
+    @Test
+    public void shortQueriesOnlyMatchWordPrefixes() {
+        SearchIndex index = new SearchIndex();
+        index.put("t", "1", "Maria Lopez");
+        index.put("t", "2", "Bob Alpha");
+        index.put("t", "3", "Banjo Jones");
+
+        // "maria" has an "a", but no word starting with one
+        assertEquals(Arrays.asList("2"), index.search("t", "a", 10));
+        assertEquals(Arrays.asList("1"), index.search("t", "m", 10));
+        assertEquals(Arrays.asList("3"), index.search("t", "jo", 10));
+        assertEquals(Arrays.asList("3", "2"), index.search("t", "b", 10));
+        assertEquals(Collections.emptyList(), index.search("t", "ri", 10));
+    }
+
+    @Test
+    public void phoneNumbersMatchHoweverTheyArePunctuated() {
+        SearchIndex index = new SearchIndex();
+        index.put("t", "1", "Pat", "(555) 123-4567", "+15551234567");
+        index.put("t", "2", "Sam", "555 000 1111");
+
+        assertEquals(Arrays.asList("1"), index.search("t", "5551234", 10));
+        assertEquals(Arrays.asList("1"), index.search("t", "+1 555-1234", 10));
+        assertEquals(Arrays.asList("1"), index.search("t", "123-45", 10));
+        assertEquals(Arrays.asList("2"), index.search("t", "0001", 10));
+    }
+
+    @Test
+    public void replacementsAndRemovalsSurviveARebuild() {
+        SearchIndex index = new SearchIndex();
+        int records = 3_000;
+        for (int i = 0; i < records; i++) {
+            index.put("t", "id" + i, "before" + i, "shared");
+        }
+        // Enough tombstones to trigger at least one rebuild of the postings
+        for (int i = 0; i < records; i++) {
+            index.put("t", "id" + i, "after" + i, "shared");
+        }
+        for (int i = 0; i < records; i += 2) {
+            index.remove("t", "id" + i);
+        }
+
+        assertEquals(records / 2, index.size());
+        assertEquals(Collections.emptyList(), index.search("t", "before", 10));
+        assertEquals(records / 2, index.search("t", "after", Integer.MAX_VALUE).size());
+        assertEquals(Arrays.asList("id2999"), index.search("t", "after2999", 10));
+        assertEquals(Collections.emptyList(), index.search("t", "after2998", 10));
+        assertEquals(records / 2, index.search("t", "sh", Integer.MAX_VALUE).size());
+
+        index.clear("t");
+        assertEquals(0, index.size());
+        assertEquals(Collections.emptyList(), index.search("t", "shared", 10));
+    }
+
+    @Test
+    public void reportsQueryLatencyOnALargeIndex() {
+        assumeTrue("benchmark; run with -Pbenchmarks", BENCHMARKS);
+        String[] names = {"anna", "bob", "carla", "dmitri", "erin", "fatima", "george", "hiro", "ines", "jon"};
+        String[] companies = {"acme", "initech", "globex", "umbrella", "hooli", "stark"};
+        Random random = new Random(42);
+        SearchIndex index = new SearchIndex();
+        int records = 100_000;
+        for (int i = 0; i < records; i++) {
+            index.put("t", "t" + i,
+                    names[random.nextInt(names.length)] + " " + names[random.nextInt(names.length)] + "son",
+                    String.format("(%03d) %03d-%04d", random.nextInt(1000), random.nextInt(1000), random.nextInt(10000)),
+                    companies[random.nextInt(companies.length)],
+                    "TKT-" + i,
+                    "user" + i + "@example.com",
+                    "called about invoice " + random.nextInt(100_000));
+        }
+
+        String[] queries = {"a", "jo", "ann", "smith", "555", "123-4", "tkt-99", "example", "invoice 42", "hooli"};
+        for (int round = 0; round < 20; round++) {
+            for (String query : queries) {
+                index.search("t", query, 50);
+            }
+        }
+        long[] micros = new long[queries.length * 50];
+        int n = 0;
+        for (int round = 0; round < 50; round++) {
+            for (String query : queries) {
+                long start = System.nanoTime();
+                index.search("t", query, 50);
+                micros[n++] = (System.nanoTime() - start) / 1000;
+            }
+        }
+        assertEquals(records, index.size());
+        Arrays.sort(micros);
+        System.out.println(String.format(
+                "Search index (%d records): p50 %d us, p99 %d us, max %d us",
+                records, micros[micros.length / 2], micros[micros.length * 99 / 100], micros[micros.length - 1]));
+    }
+}
@@ -0,0 +1,40 @@
+package com.calltrackerpro.calltracker.data;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Timestamps as the backends send them: Mongo-style milliseconds and Z,
+ * Supabase microseconds and a +00:00 offset, and the shapes in between.
+ */
+public class TicketStoreTest {
+
+    // 2024-01-15T10:30:00Z
+    private static final long BASE = 1705314600000L;
+
+    @Test
+    public void parsesFractionsOfAnyLengthAndUtcOffsets() {
+        assertEquals(Long.valueOf(BASE + 123), TicketStore.parseTime("2024-01-15T10:30:00.123456+00:00"));
+        assertEquals(Long.valueOf(BASE + 123), TicketStore.parseTime("2024-01-15T10:30:00.123Z"));
+        assertEquals(Long.valueOf(BASE + 100), TicketStore.parseTime("2024-01-15T10:30:00.1Z"));
+        assertEquals(Long.valueOf(BASE), TicketStore.parseTime("2024-01-15T10:30:00Z"));
+        assertEquals(Long.valueOf(BASE), TicketStore.parseTime("2024-01-15T10:30:00"));
+        assertEquals(Long.valueOf(BASE + 5), TicketStore.parseTime("2024-01-15 10:30:00.005+00"));
+    }
+
+    @Test
+    public void appliesNonZeroOffsets() {
+        assertEquals(Long.valueOf(BASE), TicketStore.parseTime("2024-01-15T16:00:00.000000+05:30"));
+        assertEquals(Long.valueOf(BASE), TicketStore.parseTime("2024-01-15T05:30:00-0500"));
+    }
+
+    @Test
+    public void rejectsWhatIsNotATimestamp() {
+        assertNull(TicketStore.parseTime(null));
+        assertNull(TicketStore.parseTime(""));
+        assertNull(TicketStore.parseTime("yesterday"));
+        assertNull(TicketStore.parseTime("2024-13-45T10:30:00Z"));
+    }
+}
@@ -0,0 +1,57 @@
+package com.calltrackerpro.calltracker.json;
+
+import com.google.gson.stream.JsonReader;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Loose numbers read by the TypeAdapters: quoted, decimal, malformed or of
+ * the wrong shape, without failing the rest of the object.
+ */
+public class JsonFieldsTest {
+
+    @Test
+    public void readsNumbersInTheShapesTheBackendSends() throws IOException {
+        JsonReader in = reader("[42, \"17\", \" 8 \", 12.0, 12.9, \"1e3\", 3000000000]");
+        in.beginArray();
+        assertEquals(42, JsonFields.nextInt(in));
+        assertEquals(17, JsonFields.nextInt(in));
+        assertEquals(8, JsonFields.nextInt(in));
+        assertEquals(12, JsonFields.nextInt(in));
+        assertEquals(12, JsonFields.nextInt(in));
+        assertEquals(1000L, JsonFields.nextLong(in));
+        assertEquals(3000000000L, JsonFields.nextLong(in));
+        in.endArray();
+    }
+
+    @Test
+    public void malformedValuesFallBackToZeroAndAreConsumed() throws IOException {
+        JsonReader in = reader("{\"a\":\"n/a\",\"b\":\"\",\"c\":3000000000,\"d\":{\"x\":1},\"e\":null,\"f\":\"NaN\",\"g\":7}");
+        in.beginObject();
+        in.nextName();
+        assertEquals(0, JsonFields.nextInt(in));
+        in.nextName();
+        assertEquals(0L, JsonFields.nextLong(in));
+        in.nextName();
+        assertEquals(0, JsonFields.nextInt(in));
+        in.nextName();
+        assertEquals(0, JsonFields.nextInt(in));
+        in.nextName();
+        assertEquals(0d, JsonFields.nextDouble(in), 0d);
+        in.nextName();
+        assertEquals(0d, JsonFields.nextDouble(in), 0d);
+        // The reader is still in step
+        assertEquals("g", in.nextName());
+        assertEquals(7, JsonFields.nextInt(in));
+        in.endObject();
+    }
+
+    private static JsonReader reader(String json) {
+        return new JsonReader(new StringReader(json));
+    }
+}
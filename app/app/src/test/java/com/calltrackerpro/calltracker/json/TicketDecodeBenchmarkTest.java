@@ -0,0 +1,201 @@
+package com.calltrackerpro.calltracker.json;
+
+import com.calltrackerpro.calltracker.models.ApiResponse;
+import com.calltrackerpro.calltracker.models.Ticket;
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Type;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Before/after benchmark: reflective Gson vs the hand-written Ticket adapter
+ * on a 10k-ticket list response, and a fresh {@code new Gson()} per real-time
+ * event vs the shared instance. Prints throughput and bytes allocated per
+ * ticket; asserts only that both paths decode the same data.
+ *
+ * The timed runs are skipped unless the build is run with
+ * {@code -Pbenchmarks}; the decode comparison always runs, on a smaller list.
+ */
+public class TicketDecodeBenchmarkTest {
+
+    private static final boolean BENCHMARKS = Boolean.getBoolean("calltracker.benchmarks");
+
+    private static final int TICKETS = 10_000;
+    private static final int CHECKED_TICKETS = 1_000;
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int MEASURED_ROUNDS = 10;
+
+    private static final Type RESPONSE_TYPE = new TypeToken<ApiResponse<List<Ticket>>>() {}.getType();
+
+    @Test
+    public void handWrittenAdapterMatchesReflection() {
+        String payload = buildPayload(CHECKED_TICKETS);
+        List<Ticket> expected = decode(new Gson(), payload);
+        List<Ticket> actual = decode(GsonProvider.getGson(), payload);
+        assertEquals(CHECKED_TICKETS, actual.size());
+        for (int i = 0; i < CHECKED_TICKETS; i += 97) {
+            assertSameTicket(expected.get(i), actual.get(i));
+        }
+    }
+
+    @Test
+    public void reportsDecodeThroughput() {
+        assumeTrue("benchmark; run with -Pbenchmarks", BENCHMARKS);
+        String payload = buildPayload(TICKETS);
+        Gson reflective = new Gson();
+        Gson shared = GsonProvider.getGson();
+
+        Result before = measure(reflective, payload);
+        Result after = measure(shared, payload);
+        System.out.println(String.format(
+                "Ticket decode (%d tickets, %d KB): reflective %.0f tickets/ms, %d B/ticket; "
+                        + "hand-written %.0f tickets/ms, %d B/ticket",
+                TICKETS, payload.length() / 1024,
+                before.ticketsPerMs, before.bytesPerTicket,
+                after.ticketsPerMs, after.bytesPerTicket));
+    }
+
+    @Test
+    public void sharedGsonAvoidsPerEventSetup() {
+        String payload = buildPayload(TICKETS);
+        String event = payload.substring(payload.indexOf('[') + 1, payload.indexOf(",{\"_id\""));
+        Gson shared = GsonProvider.getGson();
+
+        Ticket decoded = shared.fromJson(event, Ticket.class);
+        assertEquals("TKT-0", decoded.getTicketId());
+        assumeTrue("benchmark; run with -Pbenchmarks", BENCHMARKS);
+
+        for (int i = 0; i < WARMUP_ROUNDS * 100; i++) {
+            new Gson().fromJson(event, Ticket.class);
+            shared.fromJson(event, Ticket.class);
+        }
+        long start = System.nanoTime();
+        long allocatedBefore = allocatedBytes();
+        for (int i = 0; i < TICKETS; i++) {
+            new Gson().fromJson(event, Ticket.class);
+        }
+        long perEventNanos = System.nanoTime() - start;
+        long perEventBytes = allocatedBytes() - allocatedBefore;
+
+        start = System.nanoTime();
+        allocatedBefore = allocatedBytes();
+        for (int i = 0; i < TICKETS; i++) {
+            shared.fromJson(event, Ticket.class);
+        }
+        long sharedNanos = System.nanoTime() - start;
+        long sharedBytes = allocatedBytes() - allocatedBefore;
+
+        System.out.println(String.format(
+                "Per-event decode (%d events): new Gson() %.0f events/ms, %d B/event; "
+                        + "shared %.0f events/ms, %d B/event",
+                TICKETS,
+                TICKETS / (perEventNanos / 1_000_000d), perEventBytes / TICKETS,
+                TICKETS / (sharedNanos / 1_000_000d), sharedBytes / TICKETS));
+    }
+
+    private static final class Result {
+        double ticketsPerMs;
+        long bytesPerTicket;
+    }
+
+    private static Result measure(Gson gson, String payload) {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            decode(gson, payload);
+        }
+        long bestNanos = Long.MAX_VALUE;
+        long allocatedBefore = allocatedBytes();
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            long start = System.nanoTime();
+            decode(gson, payload);
+            bestNanos = Math.min(bestNanos, System.nanoTime() - start);
+        }
+        long allocated = allocatedBytes() - allocatedBefore;
+
+        Result result = new Result();
+        result.ticketsPerMs = TICKETS / (bestNanos / 1_000_000d);
+        result.bytesPerTicket = allocated < 0 ? -1 : allocated / ((long) TICKETS * MEASURED_ROUNDS);
+        return result;
+    }
+
+    private static List<Ticket> decode(Gson gson, String payload) {
+        ApiResponse<List<Ticket>> response = gson.fromJson(payload, RESPONSE_TYPE);
+        return response.getData();
+    }
+
+    /**
+     * Bytes allocated by this thread so far, or -1 where the JVM cannot tell
+     */
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+
+    private static void assertSameTicket(Ticket expected, Ticket actual) {
+        assertEquals(expected.getId(), actual.getId());
+        assertEquals(expected.getTicketId(), actual.getTicketId());
+        assertEquals(expected.getPhoneNumber(), actual.getPhoneNumber());
+        assertEquals(expected.getContactName(), actual.getContactName());
+        assertEquals(expected.getStatus(), actual.getStatus());
+        assertEquals(expected.getPriority(), actual.getPriority());
+        assertEquals(expected.getCallDuration(), actual.getCallDuration());
+        assertEquals(expected.getDealValue(), actual.getDealValue(), 0.0001);
+        assertEquals(expected.isActive(), actual.isActive());
+        assertEquals(expected.getTags(), actual.getTags());
+        assertEquals(expected.getLocation().getCity(), actual.getLocation().getCity());
+        assertEquals(expected.getAgentNotes().size(), actual.getAgentNotes().size());
+        assertEquals(expected.getAgentNotes().get(0).getNote(), actual.getAgentNotes().get(0).getNote());
+        assertEquals(expected.getCustomFields(), actual.getCustomFields());
+        assertEquals(expected.getUpdatedAt(), actual.getUpdatedAt());
+    }
+
+    private static String buildPayload(int count) {
+        String[] statuses = {"open", "in_progress", "resolved", "closed"};
+        String[] priorities = {"low", "medium", "high", "urgent"};
+        StringBuilder json = new StringBuilder(count * 900);
+        json.append("{\"success\":true,\"message\":\"ok\",\"data\":[");
+        for (int i = 0; i < count; i++) {
+            if (i > 0) json.append(',');
+            json.append("{\"_id\":\"64f0c0ffee").append(i).append("\"")
+                    .append(",\"ticketId\":\"TKT-").append(i).append("\"")
+                    .append(",\"phoneNumber\":\"+1555").append(1000000 + i).append("\"")
+                    .append(",\"contactName\":\"Contact ").append(i).append("\"")
+                    .append(",\"email\":\"contact").append(i).append("@example.com\"")
+                    .append(",\"company\":\"Company ").append(i % 50).append("\"")
+                    .append(",\"location\":{\"city\":\"City ").append(i % 20).append("\",\"country\":\"US\"}")
+                    .append(",\"callDate\":\"2024-03-01T10:15:30.000Z\"")
+                    .append(",\"callDuration\":").append(i % 600)
+                    .append(",\"callType\":\"incoming\"")
+                    .append(",\"leadSource\":\"cold_call\",\"leadStatus\":\"new\"")
+                    .append(",\"priority\":\"").append(priorities[i % priorities.length]).append("\"")
+                    .append(",\"interestLevel\":\"warm\"")
+                    .append(",\"status\":\"").append(statuses[i % statuses.length]).append("\"")
+                    .append(",\"category\":\"sales\",\"source\":\"phone\",\"slaStatus\":\"on_track\"")
+                    .append(",\"dueDate\":\"2024-03-05T10:15:30.000Z\"")
+                    .append(",\"assignedTo\":\"user").append(i % 25).append("\"")
+                    .append(",\"stage\":\"prospect\"")
+                    .append(",\"dealValue\":").append(i * 12.5)
+                    .append(",\"conversionProbability\":").append(i % 100)
+                    .append(",\"agentNotes\":[{\"note\":\"Called back ").append(i)
+                    .append("\",\"author\":\"user1\",\"timestamp\":\"2024-03-01T11:00:00.000Z\"}]")
+                    .append(",\"tags\":[\"vip\",\"tag").append(i % 7).append("\"]")
+                    .append(",\"customFields\":{\"region\":\"west\"}")
+                    .append(",\"organizationId\":\"org1\",\"teamId\":\"team").append(i % 5).append("\"")
+                    .append(",\"createdAt\":\"2024-03-01T10:20:00.000Z\"")
+                    .append(",\"updatedAt\":\"2024-03-02T09:00:00.000Z\"")
+                    .append(",\"isActive\":true")
+                    .append(",\"unknownField\":{\"nested\":[1,2,3]}}");
+        }
+        json.append("]}");
+        return json.toString();
+    }
+}
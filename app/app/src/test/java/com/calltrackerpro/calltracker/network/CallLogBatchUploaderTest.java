@@ -0,0 +1,263 @@
+package com.calltrackerpro.calltracker.network;
+
+import com.calltrackerpro.calltracker.json.GsonProvider;
+import com.calltrackerpro.calltracker.services.ApiService;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonParser;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Call;
+import okhttp3.EventListener;
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okhttp3.mockwebserver.SocketPolicy;
+import okio.Buffer;
+import okio.GzipSource;
+import okio.Okio;
+import retrofit2.Retrofit;
+import retrofit2.converter.gson.GsonConverterFactory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class CallLogBatchUploaderTest {
+
+    private MockWebServer server;
+    private ScheduledExecutorService scheduler;
+    private ApiService apiService;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new MockWebServer();
+        server.start();
+        scheduler = Executors.newSingleThreadScheduledExecutor();
+        OkHttpClient client = new OkHttpClient.Builder()
+                .addInterceptor(new GzipRequestInterceptor())
+                .eventListenerFactory(call -> new EventListener() {
+                    @Override
+                    public void requestBodyEnd(Call call, long byteCount) {
+                        RequestProgress.onBodySent(call.request());
+                    }
+                })
+                .retryOnConnectionFailure(false)
+                .build();
+        apiService = new Retrofit.Builder()
+                .baseUrl(server.url("/api/"))
+                .client(client)
+                .addConverterFactory(GsonConverterFactory.create(GsonProvider.getGson()))
+                .build()
+                .create(ApiService.class);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        scheduler.shutdownNow();
+        server.shutdown();
+    }
+
+    @Test
+    public void fullBatchIsSentAsOneGzippedRequestWithPerItemResults() throws Exception {
+        server.enqueue(new MockResponse().setBody("{\"success\":true,\"data\":{\"results\":["
+                + "{\"client_id\":\"a\",\"success\":true,\"call_log\":{\"_id\":\"log-a\",\"timestamp\":\"1700000000000\"}},"
+                + "{\"client_id\":\"b\",\"success\":false,\"retryable\":false,\"error\":\"Invalid phone number\"},"
+                + "{\"client_id\":\"c\",\"success\":true,\"call_log\":{\"_id\":\"log-c\"},\"ticket\":{\"ticketId\":\"TKT-9\"}}"
+                + "],\"accepted\":2,\"rejected\":1}}"));
+
+        CallLogBatchUploader uploader = new CallLogBatchUploader(apiService, 3, 60_000, true, scheduler);
+        RecordingListener listener = new RecordingListener(3);
+        uploader.enqueue(request("a", "+15550001"), listener);
+        uploader.enqueue(request("b", "not-a-number"), listener);
+        uploader.enqueue(request("c", "+15550003"), listener);
+
+        assertTrue(listener.done.await(5, TimeUnit.SECONDS));
+        assertEquals(1, server.getRequestCount());
+
+        RecordedRequest recorded = server.takeRequest();
+        assertEquals("/api/call-logs/batch", recorded.getPath());
+        assertEquals("gzip", recorded.getHeader("Content-Encoding"));
+        JsonArray items = JsonParser.parseString(gunzip(recorded.getBody()))
+                .getAsJsonObject().getAsJsonArray("call_logs");
+        assertEquals(3, items.size());
+        assertEquals("a", items.get(0).getAsJsonObject().get("client_id").getAsString());
+
+        assertEquals(2, listener.uploaded.size());
+        assertEquals("a:log-a", listener.uploaded.get(0));
+        assertEquals("c:log-c:TKT-9", listener.uploaded.get(1));
+        assertEquals(1, listener.failed.size());
+        assertEquals("b:Invalid phone number:false", listener.failed.get(0));
+    }
+
+    @Test
+    public void partialBatchIsFlushedWhenTheOldestItemAgesOut() throws Exception {
+        server.enqueue(new MockResponse().setBody(
+                "{\"success\":true,\"data\":{\"results\":[{\"client_id\":\"only\",\"success\":true}]}}"));
+
+        CallLogBatchUploader uploader = new CallLogBatchUploader(apiService, 25, 100, true, scheduler);
+        RecordingListener listener = new RecordingListener(1);
+        uploader.enqueue(request("only", "+15550001"), listener);
+        assertEquals(1, uploader.getPendingCount());
+
+        assertTrue(listener.done.await(5, TimeUnit.SECONDS));
+        assertEquals(0, uploader.getPendingCount());
+        assertEquals(1, server.getRequestCount());
+        assertEquals(1, listener.uploaded.size());
+    }
+
+    @Test
+    public void serverErrorFailsEveryItemAsRetryable() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(503));
+
+        CallLogBatchUploader uploader = new CallLogBatchUploader(apiService, 2, 60_000, true, scheduler);
+        RecordingListener listener = new RecordingListener(2);
+        uploader.enqueue(request("x", "+15550001"), listener);
+        uploader.enqueue(request("y", "+15550002"), listener);
+
+        assertTrue(listener.done.await(5, TimeUnit.SECONDS));
+        assertEquals(0, listener.uploaded.size());
+        assertEquals(2, listener.failed.size());
+        assertTrue(listener.failed.get(0).endsWith(":true"));
+        assertTrue(listener.failed.get(1).endsWith(":true"));
+    }
+
+    @Test
+    public void withoutTheBatchEndpointEachItemIsPostedToCallLogs() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(201).setBody(
+                "{\"success\":true,\"data\":{\"call_log\":{\"_id\":\"log-a\"}}}"));
+        server.enqueue(new MockResponse().setResponseCode(400));
+
+        CallLogBatchUploader uploader = new CallLogBatchUploader(apiService, 2, 60_000, false, scheduler);
+        RecordingListener listener = new RecordingListener(2);
+        uploader.enqueue(request("a", "+15550001"), listener);
+        uploader.enqueue(request("b", ""), listener);
+
+        assertTrue(listener.done.await(5, TimeUnit.SECONDS));
+        assertEquals(2, server.getRequestCount());
+        RecordedRequest first = server.takeRequest();
+        assertEquals("/api/call-logs", first.getPath());
+        assertNull(first.getHeader("Content-Encoding"));
+        assertEquals("+15550001", JsonParser.parseString(first.getBody().readUtf8())
+                .getAsJsonObject().get("phone_number").getAsString());
+        assertEquals("/api/call-logs", server.takeRequest().getPath());
+
+        assertEquals(1, listener.uploaded.size());
+        assertEquals("a:log-a", listener.uploaded.get(0));
+        assertEquals(1, listener.failed.size());
+        assertEquals("b:HTTP 400: Client Error:false", listener.failed.get(0));
+    }
+
+    @Test
+    public void missingBatchRouteFallsBackToSinglePostsWithoutLosingItems() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(404));
+        server.enqueue(new MockResponse().setResponseCode(201).setBody(
+                "{\"success\":true,\"data\":{\"call_log\":{\"_id\":\"log-x\"}}}"));
+        server.enqueue(new MockResponse().setResponseCode(201).setBody(
+                "{\"success\":true,\"data\":{\"call_log\":{\"_id\":\"log-y\"}}}"));
+
+        CallLogBatchUploader uploader = new CallLogBatchUploader(apiService, 2, 60_000, true, scheduler);
+        RecordingListener listener = new RecordingListener(2);
+        uploader.enqueue(request("x", "+15550001"), listener);
+        uploader.enqueue(request("y", "+15550002"), listener);
+
+        assertTrue(listener.done.await(5, TimeUnit.SECONDS));
+        assertEquals("/api/call-logs/batch", server.takeRequest().getPath());
+        assertEquals("/api/call-logs", server.takeRequest().getPath());
+        assertEquals("/api/call-logs", server.takeRequest().getPath());
+        assertEquals(2, listener.uploaded.size());
+        assertEquals(0, listener.failed.size());
+    }
+
+    @Test
+    public void notFoundOnASinglePostIsRetryableAndStopsTheRun() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(404));
+
+        CallLogBatchUploader uploader = new CallLogBatchUploader(apiService, 2, 60_000, false, scheduler);
+        RecordingListener listener = new RecordingListener(2);
+        uploader.enqueue(request("x", "+15550001"), listener);
+        uploader.enqueue(request("y", "+15550002"), listener);
+
+        assertTrue(listener.done.await(5, TimeUnit.SECONDS));
+        assertEquals(1, server.getRequestCount());
+        assertEquals(2, listener.failed.size());
+        assertTrue(listener.failed.get(0).endsWith(":true"));
+        assertTrue(listener.failed.get(1).endsWith(":true"));
+    }
+
+    @Test
+    public void aPostWhoseResponseIsLostIsNotSentAgain() throws Exception {
+        server.enqueue(new MockResponse().setSocketPolicy(SocketPolicy.DISCONNECT_AFTER_REQUEST));
+
+        CallLogBatchUploader uploader = new CallLogBatchUploader(apiService, 2, 60_000, false, scheduler);
+        RecordingListener listener = new RecordingListener(2);
+        uploader.enqueue(request("x", "+15550001"), listener);
+        uploader.enqueue(request("y", "+15550002"), listener);
+
+        assertTrue(listener.done.await(5, TimeUnit.SECONDS));
+        assertEquals(1, server.getRequestCount());
+        // The backend may have recorded x; y never left the device
+        assertEquals("x:" + CallLogBatchUploader.ERROR_OUTCOME_UNKNOWN + ":false", listener.failed.get(0));
+        assertTrue(listener.failed.get(1).startsWith("y:"));
+        assertTrue(listener.failed.get(1).endsWith(":true"));
+        assertTrue(CallLogBatchUploader.isNetworkError(listener.failed.get(1).substring(2)));
+    }
+
+    @Test
+    public void clientIdIsAssignedWhenMissing() {
+        CallLogBatchUploader uploader = new CallLogBatchUploader(apiService, 25, 60_000, true, scheduler);
+        ApiService.CreateCallLogRequest request = request(null, "+15550001");
+        assertNull(request.getClient_id());
+
+        uploader.enqueue(request, new RecordingListener(1));
+        assertFalse(request.getClient_id() == null || request.getClient_id().isEmpty());
+    }
+
+    private static ApiService.CreateCallLogRequest request(String clientId, String phoneNumber) {
+        ApiService.CreateCallLogRequest request = new ApiService.CreateCallLogRequest(
+                phoneNumber, "inbound", 42, "completed", "Caller", "", true);
+        request.setClient_id(clientId);
+        return request;
+    }
+
+    private static String gunzip(Buffer body) throws IOException {
+        return Okio.buffer(new GzipSource(body)).readUtf8();
+    }
+
+    private static final class RecordingListener implements CallLogBatchUploader.Listener {
+        final List<String> uploaded = new CopyOnWriteArrayList<>();
+        final List<String> failed = new CopyOnWriteArrayList<>();
+        final CountDownLatch done;
+
+        RecordingListener(int expected) {
+            done = new CountDownLatch(expected);
+        }
+
+        @Override
+        public void onUploaded(ApiService.CreateCallLogRequest request, ApiService.BatchCallLogResult result) {
+            String entry = request.getClient_id();
+            if (result.getCall_log() != null) entry += ":" + result.getCall_log().getId();
+            if (result.getTicket() != null) entry += ":" + result.getTicket().getTicketId();
+            uploaded.add(entry);
+            done.countDown();
+        }
+
+        @Override
+        public void onFailed(ApiService.CreateCallLogRequest request, String error, boolean retryable) {
+            failed.add(request.getClient_id() + ":" + error + ":" + retryable);
+            done.countDown();
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package com.calltrackerpro.calltracker.network;
+
+import com.calltrackerpro.calltracker.json.GsonProvider;
+import com.calltrackerpro.calltracker.models.ApiResponse;
+import com.calltrackerpro.calltracker.models.Ticket;
+import com.calltrackerpro.calltracker.services.ApiService;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.Interceptor;
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okhttp3.mockwebserver.SocketPolicy;
+import retrofit2.Call;
+import retrofit2.Response;
+import retrofit2.Retrofit;
+import retrofit2.converter.gson.GsonConverterFactory;
+import retrofit2.http.Body;
+import retrofit2.http.GET;
+import retrofit2.http.POST;
+import retrofit2.http.Path;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Which requests RetryInterceptor repeats after a lost response. The
+ * stand-in CRM stores the first response per Idempotency-Key and replays
+ * it for repeats, as a deduping route marked {@link Idempotent} would;
+ * the real backend does not do this for any route yet, so the only
+ * ApiService writes repeated are those that set absolute values.
+ */
+public class IdempotentRetryTest {
+
+    private MockWebServer server;
+    private StandInCrm crm;
+
+    @Before
+    public void setUp() throws IOException {
+        crm = new StandInCrm();
+        server = new MockWebServer();
+        server.setDispatcher(crm);
+        server.start();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    public void writesToRoutesThatDoNotDedupeAreNotRetried() throws Exception {
+        crm.dropResponses.set(1);
+
+        try {
+            api(new IdempotencyKeyInterceptor()).createTicket(null, ticket()).execute();
+            fail("Expected the lost response to surface as an IOException");
+        } catch (IOException expected) {
+            // The key alone proves nothing; a repeat could open a second ticket
+        }
+        assertEquals(1, server.getRequestCount());
+        assertEquals(1, crm.created.get());
+        assertNotNull(server.takeRequest().getHeader(IdempotencyKeyInterceptor.HEADER));
+    }
+
+    @Test
+    public void lostResponsesOfIdempotentWritesAreRetriedWithTheSameKey() throws Exception {
+        crm.dropResponses.set(1);
+
+        Response<ApiResponse<Ticket>> response = client(new IdempotencyKeyInterceptor())
+                .create(DedupingApi.class).createTicket(ticket()).execute();
+
+        assertTrue(response.isSuccessful());
+        assertEquals("TKT-1", response.body().getData().getTicketId());
+        assertEquals(2, server.getRequestCount());
+        assertEquals(1, crm.created.get());
+
+        String key = server.takeRequest().getHeader(IdempotencyKeyInterceptor.HEADER);
+        assertNotNull(key);
+        assertEquals(key, server.takeRequest().getHeader(IdempotencyKeyInterceptor.HEADER));
+    }
+
+    @Test
+    public void lostResponsesOfReadsAreRetried() throws Exception {
+        crm.dropResponses.set(1);
+
+        Response<ApiResponse<Ticket>> response = client(new IdempotencyKeyInterceptor())
+                .create(DedupingApi.class).getTicket("t-1").execute();
+
+        assertTrue(response.isSuccessful());
+        assertEquals(2, server.getRequestCount());
+        assertEquals(0, crm.created.get());
+    }
+
+    @Test
+    public void unavailableResponsesAreLeftToTheCaller() throws Exception {
+        crm.unavailable.set(1);
+
+        Response<ApiResponse<Ticket>> response = client(new IdempotencyKeyInterceptor())
+                .create(DedupingApi.class).createTicket(ticket()).execute();
+
+        // Retried on the outbox's or uploader's schedule, not by sleeping on this thread
+        assertEquals(503, response.code());
+        assertEquals(1, server.getRequestCount());
+        assertEquals(0, crm.created.get());
+    }
+
+    @Test
+    public void separateWritesGetSeparateKeys() throws Exception {
+        ApiService api = api(new IdempotencyKeyInterceptor());
+        api.createTicket(null, ticket()).execute();
+        api.createTicket(null, ticket()).execute();
+
+        assertEquals(2, crm.created.get());
+        assertFalse(server.takeRequest().getHeader(IdempotencyKeyInterceptor.HEADER)
+                .equals(server.takeRequest().getHeader(IdempotencyKeyInterceptor.HEADER)));
+    }
+
+    /**
+     * Routes as they would be declared once the backend dedupes them
+     */
+    interface DedupingApi {
+        @Idempotent
+        @POST("tickets")
+        Call<ApiResponse<Ticket>> createTicket(@Body Ticket ticket);
+
+        @GET("tickets/{id}")
+        Call<ApiResponse<Ticket>> getTicket(@Path("id") String id);
+    }
+
+    private ApiService api(Interceptor keys) {
+        return client(keys).create(ApiService.class);
+    }
+
+    private Retrofit client(Interceptor keys) {
+        OkHttpClient client = new OkHttpClient.Builder()
+                .addInterceptor(keys)
+                .addInterceptor(new RetryInterceptor())
+                .retryOnConnectionFailure(false)
+                .build();
+        return new Retrofit.Builder()
+                .baseUrl(server.url("/api/"))
+                .client(client)
+                .addConverterFactory(GsonConverterFactory.create(GsonProvider.getGson()))
+                .build();
+    }
+
+    private static Ticket ticket() {
+        Ticket ticket = new Ticket();
+        ticket.setPhoneNumber("+15550001");
+        ticket.setContactName("Pat");
+        return ticket;
+    }
+
+    /**
+     * Minimal deduping CRM: each new key creates one record; a repeated key
+     * gets the stored response. Reads create nothing. Can be told to lose
+     * responses after committing, or to answer 503 before doing anything.
+     */
+    private static final class StandInCrm extends Dispatcher {
+        final AtomicInteger created = new AtomicInteger();
+        final AtomicInteger dropResponses = new AtomicInteger();
+        final AtomicInteger unavailable = new AtomicInteger();
+        private final Map<String, String> responsesByKey = new ConcurrentHashMap<>();
+
+        @Override
+        public MockResponse dispatch(RecordedRequest request) {
+            if (unavailable.getAndDecrement() > 0) {
+                return new MockResponse().setResponseCode(503);
+            }
+
+            String key = request.getHeader(IdempotencyKeyInterceptor.HEADER);
+            String body = key != null ? responsesByKey.get(key) : null;
+            if (body == null && "GET".equals(request.getMethod())) {
+                body = "{\"success\":true,\"data\":{\"_id\":\"t-1\",\"ticketId\":\"TKT-1\"}}";
+            } else if (body == null) {
+                int id = created.incrementAndGet();
+                body = "{\"success\":true,\"data\":{\"_id\":\"t-" + id + "\",\"ticketId\":\"TKT-" + id + "\"}}";
+                if (key != null) {
+                    responsesByKey.put(key, body);
+                }
+            }
+
+            if (dropResponses.getAndDecrement() > 0) {
+                // Committed, but the client never hears back
+                return new MockResponse().setSocketPolicy(SocketPolicy.DISCONNECT_AFTER_REQUEST);
+            }
+            return new MockResponse().setBody(body);
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.calltrackerpro.calltracker.services;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Sessions saved by one process and recovered by the next: ended calls are
+ * handed over to be recorded, calls that were still open are tracked again
+ * and only closed once they have been silent for the abandon window.
+ */
+public class CallSessionRegistryTest {
+
+    private static final long HOUR = TimeUnit.HOURS.toMillis(1);
+    private static final long NOW = 1704103200000L;
+
+    private File dir;
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("sessions").toFile();
+        file = new File(dir, "call_sessions.json");
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File child : files) {
+                child.delete();
+            }
+        }
+        dir.delete();
+    }
+
+    @Test
+    public void sessionsSurviveASaveAndLoad() {
+        CallSession ended = session("call-1", true, NOW - HOUR);
+        ended.contactName = "Maria Lopez";
+        ended.isAnswered = true;
+        ended.startTime = NOW - HOUR - 60_000;
+        ended.endTime = NOW - HOUR;
+        ended.duration = 60;
+        ended.callStatus = "completed";
+        CallSessionRegistry.save(file, Arrays.asList(ended, session("call-2", false, NOW)));
+
+        List<CallSession> loaded = CallSessionRegistry.load(file);
+        assertEquals(2, loaded.size());
+        CallSession copy = loaded.get(0);
+        assertEquals("call-1", copy.callId);
+        assertEquals("+15551234567", copy.phoneNumber);
+        assertEquals(CallEvent.DIRECTION_INCOMING, copy.direction);
+        assertEquals(2, copy.subscriptionId);
+        assertEquals("Maria Lopez", copy.contactName);
+        assertEquals(NOW - HOUR - 60_000, copy.createdAt);
+        assertEquals(NOW - HOUR - 60_000, copy.startTime);
+        assertEquals(NOW - HOUR, copy.endTime);
+        assertEquals(60, copy.duration);
+        assertTrue(copy.isAnswered);
+        assertTrue(copy.isEnded);
+        assertEquals("completed", copy.callStatus);
+        assertEquals(NOW - HOUR, copy.lastEventAt);
+        assertEquals("call-2", loaded.get(1).callId);
+    }
+
+    @Test
+    public void unreadableFilesRecoverNothing() throws IOException {
+        Files.write(file.toPath(), "[{\"callId\":".getBytes(StandardCharsets.UTF_8));
+        assertEquals(0, CallSessionRegistry.load(file).size());
+        assertEquals(0, CallSessionRegistry.load(new File(dir, "missing.json")).size());
+    }
+
+    @Test
+    public void recoveredOpenSessionsExpireInsteadOfClosing() {
+        CallSessionRegistry.save(file, Arrays.asList(
+                session("ended", true, NOW - HOUR),
+                session("in-progress", false, NOW - HOUR),
+                session("silent", false, NOW - 5 * HOUR)));
+
+        Recorder recorder = new Recorder();
+        CallSessionRegistry registry = new CallSessionRegistry(new File(dir, "next.json"));
+        registry.setListener(recorder);
+        registry.recover(CallSessionRegistry.load(file));
+
+        // Only the ended call is handed over to be recorded; the others are still open
+        assertEquals(Arrays.asList("ended"), recorder.recovered);
+        assertEquals(3, registry.size());
+        assertEquals(2, registry.openCount());
+        assertEquals(0, recorder.abandoned.size());
+
+        // The silent call is past its window on the first tick, the other one an hour later
+        registry.tick(NOW + TimeUnit.MINUTES.toMillis(2));
+        assertEquals(Arrays.asList("silent"), recorder.abandoned);
+        registry.tick(NOW + 4 * HOUR);
+        assertEquals(Arrays.asList("silent", "in-progress"), recorder.abandoned);
+    }
+
+    @Test
+    public void sessionsAlreadyTrackedAreNotRecoveredTwice() {
+        Recorder recorder = new Recorder();
+        CallSessionRegistry registry = new CallSessionRegistry(new File(dir, "next.json"));
+        registry.setListener(recorder);
+        registry.recover(Arrays.asList(session("ended", true, NOW)));
+        registry.recover(Arrays.asList(session("ended", true, NOW)));
+
+        assertEquals(Arrays.asList("ended"), recorder.recovered);
+        assertEquals(1, registry.size());
+    }
+
+    private static CallSession session(String callId, boolean ended, long lastEventAt) {
+        CallSession session = new CallSession();
+        session.callId = callId;
+        session.phoneNumber = "+15551234567";
+        session.callType = CallEvent.DIRECTION_INCOMING;
+        session.direction = CallEvent.DIRECTION_INCOMING;
+        session.subscriptionId = 2;
+        session.createdAt = lastEventAt - 60_000;
+        session.lastEventAt = lastEventAt;
+        session.isEnded = ended;
+        return session;
+    }
+
+    private static final class Recorder implements CallSessionRegistry.Listener {
+        final List<String> recovered = new ArrayList<>();
+        final List<String> abandoned = new ArrayList<>();
+
+        @Override
+        public void onSessionsRecovered(List<CallSession> sessions) {
+            for (CallSession session : sessions) {
+                recovered.add(session.callId);
+            }
+        }
+
+        @Override
+        public void onSessionAbandoned(CallSession session) {
+            abandoned.add(session.callId);
+        }
+    }
+}
@@ -0,0 +1,258 @@
+package com.calltrackerpro.calltracker.services;
+
+import com.calltrackerpro.calltracker.services.CallStateMachine.PhoneState;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Replays synthetic broadcast sequences through {@link CallStateMachine}
+ * the way Android delivers them: each phone state twice (with and without
+ * the number, in either order), with or without the outgoing-call
+ * broadcast, with a second call waiting and with calls merged into a
+ * conference. Checks every call yields one start and one end event; the
+ * throughput is reported only with -Pbenchmarks.
+ */
+public class CallStateMachineReplayTest {
+
+    private static final boolean BENCHMARKS = Boolean.getBoolean("calltracker.benchmarks");
+    private static final int SEQUENCES = 20_000;
+    private static final int WARMUP_SEQUENCES = 5_000;
+
+    private enum Scenario {
+        INCOMING_ANSWERED,
+        INCOMING_MISSED,
+        OUTGOING_BROADCAST,
+        OUTGOING_OFFHOOK_ONLY,
+        CALL_WAITING_MISSED,
+        CONFERENCE
+    }
+
+    @Test
+    public void duplicateBroadcastsYieldOneEventPerTransition() {
+        Recorder recorder = new Recorder();
+        CallStateMachine machine = new CallStateMachine(recorder);
+
+        machine.onPhoneState(PhoneState.RINGING, null, 1);
+        machine.onPhoneState(PhoneState.RINGING, "5551234", 2);
+        machine.onPhoneState(PhoneState.OFFHOOK, "5551234", 3);
+        machine.onPhoneState(PhoneState.OFFHOOK, null, 4);
+        machine.onPhoneState(PhoneState.IDLE, null, 10_003);
+        machine.onPhoneState(PhoneState.IDLE, "5551234", 10_004);
+
+        assertEquals(3, recorder.events.size());
+        assertEquals(CallEvent.Type.RINGING, recorder.events.get(0).type);
+        assertEquals(CallEvent.Type.ANSWERED, recorder.events.get(1).type);
+        CallEvent ended = recorder.events.get(2);
+        assertEquals(CallEvent.Type.ENDED, ended.type);
+        assertEquals("5551234", ended.phoneNumber);
+        assertEquals(recorder.events.get(0).callId, ended.callId);
+        assertEquals(10, ended.durationSeconds());
+        assertEquals(2, machine.getDuplicates());
+    }
+
+    @Test
+    public void callWaitingIsTrackedAsItsOwnCall() {
+        Recorder recorder = new Recorder();
+        CallStateMachine machine = new CallStateMachine(recorder);
+
+        replay(machine, Scenario.CALL_WAITING_MISSED, 0, new Random(1));
+
+        Map<String, List<CallEvent>> calls = recorder.byCall();
+        assertEquals(2, calls.size());
+        List<CallEvent.Type> terminals = new ArrayList<>();
+        for (List<CallEvent> events : calls.values()) {
+            terminals.add(events.get(events.size() - 1).type);
+        }
+        assertTrue(terminals.contains(CallEvent.Type.ENDED));
+        assertTrue(terminals.contains(CallEvent.Type.MISSED));
+    }
+
+    @Test
+    public void conferenceCallsStayOpenUntilThePhoneIsIdle() {
+        Recorder recorder = new Recorder();
+        CallStateMachine machine = new CallStateMachine(2, recorder);
+
+        replay(machine, Scenario.CONFERENCE, 0, new Random(1));
+
+        Map<String, List<CallEvent>> calls = recorder.byCall();
+        assertEquals(3, calls.size());
+        for (Map.Entry<String, List<CallEvent>> call : calls.entrySet()) {
+            List<CallEvent> events = call.getValue();
+            assertWellFormed(call.getKey(), events);
+            CallEvent last = events.get(events.size() - 1);
+            assertEquals(CallEvent.Type.ENDED, last.type);
+            assertEquals(40_000, last.endedAt);
+            assertEquals(2, last.subscriptionId);
+            assertTrue(call.getKey().endsWith("-sim2"));
+        }
+    }
+
+    @Test
+    public void replaysThousandsOfSequencesWithOneStartAndEndPerCall() {
+        Random random = new Random(42);
+        Scenario[] plan = plan(random);
+        int expectedCalls = 0;
+        for (Scenario scenario : plan) {
+            expectedCalls += scenario == Scenario.CONFERENCE ? 3 : scenario == Scenario.CALL_WAITING_MISSED ? 2 : 1;
+        }
+
+        Recorder recorder = new Recorder();
+        CallStateMachine machine = new CallStateMachine(recorder);
+        for (int i = 0; i < SEQUENCES; i++) {
+            replay(machine, plan[i], i * 1_000_000L, random);
+        }
+
+        Map<String, List<CallEvent>> calls = recorder.byCall();
+        assertEquals(expectedCalls, calls.size());
+        for (Map.Entry<String, List<CallEvent>> call : calls.entrySet()) {
+            assertWellFormed(call.getKey(), call.getValue());
+        }
+        assertEquals(PhoneState.IDLE, machine.getState());
+    }
+
+    @Test
+    public void reportsThroughput() {
+        assumeTrue("benchmark; run with -Pbenchmarks", BENCHMARKS);
+        Scenario[] plan = plan(new Random(42));
+
+        // A consumer that does no work, so only the state machine is timed
+        CallStateMachine warm = new CallStateMachine(event -> { });
+        Random timing = new Random(7);
+        for (int i = 0; i < WARMUP_SEQUENCES; i++) {
+            replay(warm, plan[i], i * 1_000_000L, timing);
+        }
+        int[] events = new int[1];
+        CallStateMachine measured = new CallStateMachine(event -> events[0]++);
+        long start = System.nanoTime();
+        for (int i = 0; i < SEQUENCES; i++) {
+            replay(measured, plan[i], i * 1_000_000L, timing);
+        }
+        long elapsedNanos = System.nanoTime() - start;
+        System.out.println(String.format(
+                "Call state machine: %d sequences, %d events, %d duplicates dropped; %.0f sequences/ms",
+                SEQUENCES, events[0], measured.getDuplicates(),
+                SEQUENCES / (elapsedNanos / 1_000_000.0)));
+    }
+
+    private static Scenario[] plan(Random random) {
+        Scenario[] scenarios = Scenario.values();
+        Scenario[] plan = new Scenario[SEQUENCES];
+        for (int i = 0; i < SEQUENCES; i++) {
+            plan[i] = scenarios[random.nextInt(scenarios.length)];
+        }
+        return plan;
+    }
+
+    private static void assertWellFormed(String callId, List<CallEvent> events) {
+        CallEvent first = events.get(0);
+        assertTrue(callId + " starts with " + first.type,
+                first.type == CallEvent.Type.RINGING || first.type == CallEvent.Type.OUTGOING);
+        CallEvent last = events.get(events.size() - 1);
+        assertTrue(callId + " ends with " + last.type, last.isTerminal());
+        boolean answered = false;
+        for (int i = 0; i < events.size(); i++) {
+            CallEvent event = events.get(i);
+            for (int j = i + 1; j < events.size(); j++) {
+                assertFalse(callId + " repeats " + event.type, event.type == events.get(j).type);
+            }
+            if (i < events.size() - 1) {
+                assertFalse(callId + " has an event after its end", event.isTerminal());
+            }
+            answered |= event.type == CallEvent.Type.ANSWERED;
+        }
+        assertEquals(callId, last.type == CallEvent.Type.MISSED, last.isIncoming() && !answered);
+        if (last.isIncoming()) {
+            assertNotNull(callId + " lost its number", last.phoneNumber);
+        }
+    }
+
+    /**
+     * Feed one call's broadcasts, starting and ending idle
+     */
+    private static void replay(CallStateMachine machine, Scenario scenario, long t, Random random) {
+        String number = "+1555" + (1_000_000 + random.nextInt(9_000_000));
+        switch (scenario) {
+            case INCOMING_ANSWERED:
+                twice(machine, PhoneState.RINGING, number, t, random);
+                twice(machine, PhoneState.OFFHOOK, number, t + 5_000, random);
+                twice(machine, PhoneState.IDLE, number, t + 65_000, random);
+                break;
+            case INCOMING_MISSED:
+                twice(machine, PhoneState.RINGING, number, t, random);
+                twice(machine, PhoneState.IDLE, number, t + 20_000, random);
+                break;
+            case OUTGOING_BROADCAST:
+                machine.onOutgoingCall(number, t);
+                if (random.nextBoolean()) machine.onOutgoingCall(number, t + 1);
+                twice(machine, PhoneState.OFFHOOK, null, t + 100, random);
+                twice(machine, PhoneState.IDLE, null, t + 45_000, random);
+                break;
+            case OUTGOING_OFFHOOK_ONLY:
+                twice(machine, PhoneState.OFFHOOK, null, t, random);
+                twice(machine, PhoneState.IDLE, null, t + 30_000, random);
+                break;
+            case CALL_WAITING_MISSED:
+                String second = "+1555" + (1_000_000 + random.nextInt(9_000_000));
+                twice(machine, PhoneState.RINGING, number, t, random);
+                twice(machine, PhoneState.OFFHOOK, number, t + 3_000, random);
+                twice(machine, PhoneState.RINGING, second, t + 10_000, random);
+                twice(machine, PhoneState.IDLE, null, t + 40_000, random);
+                break;
+            case CONFERENCE:
+                twice(machine, PhoneState.RINGING, number, t, random);
+                twice(machine, PhoneState.OFFHOOK, number, t + 3_000, random);
+                for (int i = 1; i <= 2; i++) {
+                    String joining = "+1555" + (1_000_000 + random.nextInt(9_000_000));
+                    twice(machine, PhoneState.RINGING, joining, t + i * 10_000, random);
+                    twice(machine, PhoneState.OFFHOOK, joining, t + i * 10_000 + 2_000, random);
+                }
+                // The idle broadcast ends every call at once
+                machine.onPhoneState(PhoneState.IDLE, null, t + 40_000);
+                machine.onPhoneState(PhoneState.IDLE, number, t + 40_001);
+                break;
+        }
+    }
+
+    /**
+     * One state as Android sends it with call log access: once with the
+     * number and once without, in either order
+     */
+    private static void twice(CallStateMachine machine, PhoneState state, String number, long t, Random random) {
+        if (random.nextBoolean()) {
+            machine.onPhoneState(state, number, t);
+            machine.onPhoneState(state, null, t + 1);
+        } else {
+            machine.onPhoneState(state, null, t);
+            machine.onPhoneState(state, number, t + 1);
+        }
+    }
+
+    private static final class Recorder implements CallStateMachine.Consumer {
+        final List<CallEvent> events = new ArrayList<>();
+
+        @Override
+        public void onCallEvent(CallEvent event) {
+            events.add(event);
+        }
+
+        Map<String, List<CallEvent>> byCall() {
+            Map<String, List<CallEvent>> calls = new LinkedHashMap<>();
+            for (CallEvent event : events) {
+                calls.computeIfAbsent(event.callId, id -> new ArrayList<>()).add(event);
+            }
+            return calls;
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.calltrackerpro.calltracker.services;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Repeat calls inside and outside the window, expiry by bucket, and how
+ * many tickets a burst of calls from a few numbers turns into.
+ */
+public class RepeatCallerWindowTest {
+
+    private static final long MINUTE = TimeUnit.MINUTES.toMillis(1);
+    private static final long WINDOW = 30 * MINUTE;
+    private static final long T0 = 1704103200000L;
+
+    @Test
+    public void callsWithinTheWindowOfTheLastCallRepeatIt() {
+        RepeatCallerWindow window = new RepeatCallerWindow(WINDOW, MINUTE);
+        RepeatCallerWindow.Entry entry = window.open("org|+15551234567", T0);
+        entry.ticketId = "t1";
+
+        assertSame(entry, window.find("org|+15551234567", T0 + 10 * MINUTE));
+        assertNull(window.find("other|+15551234567", T0 + 10 * MINUTE));
+        window.repeat(entry, T0 + 10 * MINUTE);
+
+        // 35 minutes after the first call, 25 after the last: still the same ticket
+        assertSame(entry, window.find("org|+15551234567", T0 + 35 * MINUTE));
+        assertEquals(2, entry.getCalls());
+
+        // 31 minutes after the last call
+        assertNull(window.find("org|+15551234567", T0 + 41 * MINUTE));
+        assertEquals(0, window.size());
+    }
+
+    @Test
+    public void expiredBucketsAreDroppedWhole() {
+        RepeatCallerWindow window = new RepeatCallerWindow(WINDOW, MINUTE);
+        for (int i = 0; i < 100; i++) {
+            window.open("org|+1555000" + (1000 + i), T0 + i * 1000L);
+        }
+        window.open("org|+15559999999", T0 + 20 * MINUTE);
+        assertEquals(101, window.size());
+
+        assertNull(window.find("org|+15550001000", T0 + 32 * MINUTE));
+        assertEquals(1, window.size());
+        assertTrue(window.find("org|+15559999999", T0 + 32 * MINUTE) != null);
+
+        // A jump far past the window empties it
+        assertNull(window.find("org|+15559999999", T0 + 10 * WINDOW));
+        assertEquals(0, window.size());
+    }
+
+    @Test
+    public void reopeningOrForgettingReplacesTheEntry() {
+        RepeatCallerWindow window = new RepeatCallerWindow(WINDOW, MINUTE);
+        RepeatCallerWindow.Entry first = window.open("org|+15551234567", T0);
+        first.ticketId = "t1";
+        RepeatCallerWindow.Entry second = window.open("org|+15551234567", T0 + MINUTE);
+        assertFalse(window.isCurrent(first));
+        assertTrue(window.isCurrent(second));
+
+        // A repeat counted against a replaced entry does not move the current one
+        window.repeat(first, T0 + 2 * MINUTE);
+        assertSame(second, window.find("org|+15551234567", T0 + 2 * MINUTE));
+
+        second.ticketId = "t2";
+        assertNull(window.removeTicket("t1"));
+        assertSame(second, window.removeTicket("t2"));
+        assertNull(window.find("org|+15551234567", T0 + 3 * MINUTE));
+    }
+
+    @Test
+    public void restoredEntriesKeepTheirWindow() {
+        RepeatCallerWindow saved = new RepeatCallerWindow(WINDOW, MINUTE);
+        RepeatCallerWindow.Entry live = saved.open("org|+15551111111", T0 + 20 * MINUTE);
+        live.ticketId = "t1";
+        RepeatCallerWindow.Entry old = saved.open("org|+15552222222", T0);
+        old.ticketId = "t2";
+
+        RepeatCallerWindow restored = new RepeatCallerWindow(WINDOW, MINUTE);
+        for (RepeatCallerWindow.Entry entry : saved.entries()) {
+            restored.restore(entry, T0 + 40 * MINUTE);
+        }
+        assertEquals(1, restored.size());
+        assertEquals("t1", restored.find("org|+15551111111", T0 + 45 * MINUTE).getTicketId());
+        assertNull(restored.find("org|+15551111111", T0 + 51 * MINUTE));
+    }
+
+    @Test
+    public void burstsOfCallsBecomeOneTicketPerCaller() {
+        RepeatCallerWindow window = new RepeatCallerWindow(WINDOW, MINUTE);
+        int calls = 0;
+        int tickets = 0;
+        // Five callers each ringing five times in ten minutes, every hour for a day
+        for (int hour = 0; hour < 24; hour++) {
+            for (int call = 0; call < 5; call++) {
+                for (int caller = 0; caller < 5; caller++) {
+                    String key = "org|+1555000" + (1000 + caller);
+                    long at = T0 + hour * 60 * MINUTE + call * 2 * MINUTE + caller * 1000L;
+                    calls++;
+                    RepeatCallerWindow.Entry entry = window.find(key, at);
+                    if (entry != null) {
+                        window.repeat(entry, at);
+                    } else {
+                        window.open(key, at);
+                        tickets++;
+                    }
+                }
+            }
+        }
+        assertEquals(600, calls);
+        assertEquals(120, tickets);
+    }
+}
@@ -0,0 +1,173 @@
+package com.calltrackerpro.calltracker.services;
+
+import com.calltrackerpro.calltracker.models.Organization;
+
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Compiled rules against the classification CallReceiverService used to
+ * hard-code, organization overrides, and the cost of classifying a call.
+ */
+public class TicketRuleTableTest {
+
+    // Monday 2024-01-01 10:00 UTC
+    private static final long MONDAY_10AM = 1704103200000L;
+    private static final long HOUR = TimeUnit.HOURS.toMillis(1);
+
+    private static final int CALLS = 1_000_000;
+
+    @Test
+    public void defaultsMatchTheFormerHardCodedClassification() {
+        TicketRuleTable table = TicketRuleTable.defaults();
+        TicketRuleTable.Classification out = new TicketRuleTable.Classification();
+
+        table.classify(TicketRuleTable.CALL_MISSED, 0, MONDAY_10AM, false, 0, out);
+        assertEquals("sales", out.category);
+        assertEquals("high", out.priority);
+        assertEquals("cold", out.interestLevel);
+        assertEquals(4 * HOUR, out.slaMs);
+
+        table.classify(TicketRuleTable.CALL_INCOMING, 20, MONDAY_10AM, false, 0, out);
+        assertEquals("medium", out.priority);
+        assertEquals(24 * HOUR, out.slaMs);
+
+        table.classify(TicketRuleTable.CALL_OUTGOING, 120, MONDAY_10AM, false, 0, out);
+        assertEquals("sales", out.category);
+        assertEquals("low", out.priority);
+        assertEquals("warm", out.interestLevel);
+        assertEquals(72 * HOUR, out.slaMs);
+
+        table.classify(TicketRuleTable.CALL_INCOMING, 301, MONDAY_10AM, false, 0, out);
+        assertEquals("support", out.category);
+        assertEquals("hot", out.interestLevel);
+    }
+
+    @Test
+    public void organizationRulesComeBeforeTheDefaults() {
+        Organization.OrganizationSettings settings = settings(
+                rule("priority", "urgent", r -> {
+                    r.setCallTypes(Collections.singletonList("missed"));
+                    r.setBusinessHours(false);
+                }),
+                rule("priority", "high", r -> r.setMinOpenTickets(2)),
+                rule("category", "renewal", r -> r.setKnownContact(true)),
+                rule("interest_level", "hot", r -> {
+                    r.setFromTime("22:00");
+                    r.setToTime("06:00");
+                }),
+                rule("sla_hours", "1", r -> r.setPriority("urgent")),
+                rule("nonsense", "x", r -> { }),
+                rule("sla_hours", "soon", r -> { }));
+        TicketRuleTable table = TicketRuleTable.compile(settings);
+        TicketRuleTable.Classification out = new TicketRuleTable.Classification();
+        assertEquals(5, table.getCustomRuleCount());
+
+        // Missed inside business hours: the default
+        table.classify(TicketRuleTable.CALL_MISSED, 0, MONDAY_10AM, false, 0, out);
+        assertEquals("high", out.priority);
+        assertEquals(4 * HOUR, out.slaMs);
+
+        // Missed at 20:00, after hours: urgent, with the organization's SLA
+        table.classify(TicketRuleTable.CALL_MISSED, 0, MONDAY_10AM + 10 * HOUR, false, 0, out);
+        assertEquals("urgent", out.priority);
+        assertEquals(HOUR, out.slaMs);
+
+        // Saturday morning is outside business hours too
+        table.classify(TicketRuleTable.CALL_MISSED, 0, MONDAY_10AM + 5 * 24 * HOUR, false, 0, out);
+        assertEquals("urgent", out.priority);
+
+        table.classify(TicketRuleTable.CALL_INCOMING, 100, MONDAY_10AM, true, 3, out);
+        assertEquals("high", out.priority);
+        assertEquals("renewal", out.category);
+        assertEquals("warm", out.interestLevel);
+
+        // 23:00 falls in the overnight window
+        table.classify(TicketRuleTable.CALL_INCOMING, 10, MONDAY_10AM + 13 * HOUR, false, 0, out);
+        assertEquals("hot", out.interestLevel);
+    }
+
+    @Test
+    public void classifiesWithoutAllocating() throws Exception {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        Method allocatedBytes = allocatedBytesMethod(threads);
+        assumeTrue("needs per-thread allocation counters", allocatedBytes != null);
+        long thread = Thread.currentThread().getId();
+
+        List<Organization.TicketRule> rules = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            int threshold = 1000 + i;
+            rules.add(rule(i % 2 == 0 ? "priority" : "category", "v" + i, r -> {
+                r.setMinDuration(threshold);
+                r.setKnownContact(true);
+            }));
+        }
+        TicketRuleTable table = TicketRuleTable.compile(settings(rules.toArray(new Organization.TicketRule[0])));
+        TicketRuleTable.Classification out = new TicketRuleTable.Classification();
+        int[] types = {TicketRuleTable.CALL_INCOMING, TicketRuleTable.CALL_OUTGOING, TicketRuleTable.CALL_MISSED};
+
+        for (int i = 0; i < CALLS / 10; i++) {
+            table.classify(types[i % 3], i % 400, MONDAY_10AM + i * 60_000L, (i & 1) == 0, i % 4, out);
+        }
+        long allocatedBefore = (Long) allocatedBytes.invoke(threads, thread);
+        for (int i = 0; i < CALLS; i++) {
+            table.classify(types[i % 3], i % 400, MONDAY_10AM + i * 60_000L, (i & 1) == 0, i % 4, out);
+        }
+        long allocated = (Long) allocatedBytes.invoke(threads, thread) - allocatedBefore;
+
+        assertEquals(50, table.getCustomRuleCount());
+        // Allows for the measurement itself and stray JIT activity, not a per-call object
+        assertTrue("allocated " + allocated + " bytes", allocated < CALLS);
+    }
+
+    private interface RuleSetup {
+        void apply(Organization.TicketRule rule);
+    }
+
+    private static Organization.TicketRule rule(String field, String value, RuleSetup setup) {
+        Organization.TicketRule rule = new Organization.TicketRule();
+        rule.setField(field);
+        rule.setValue(value);
+        setup.apply(rule);
+        return rule;
+    }
+
+    private static Organization.OrganizationSettings settings(Organization.TicketRule... rules) {
+        Organization.BusinessHours hours = new Organization.BusinessHours();
+        hours.setStartTime("09:00");
+        hours.setEndTime("18:00");
+        hours.setDays(Arrays.asList("monday", "tuesday", "wednesday", "thursday", "friday"));
+        Organization.OrganizationSettings settings = new Organization.OrganizationSettings();
+        settings.setTimezone("UTC");
+        settings.setBusinessHours(hours);
+        settings.setTicketRules(Arrays.asList(rules));
+        return settings;
+    }
+
+    /**
+     * getThreadAllocatedBytes(long) where the JVM has it (HotSpot's extension
+     * of ThreadMXBean) and it is switched on; null elsewhere
+     */
+    private static Method allocatedBytesMethod(ThreadMXBean threads) {
+        try {
+            Class<?> extension = Class.forName("com.sun.management.ThreadMXBean");
+            if (!extension.isInstance(threads)) return null;
+            if (!(Boolean) extension.getMethod("isThreadAllocatedMemoryEnabled").invoke(threads)) return null;
+            return extension.getMethod("getThreadAllocatedBytes", long.class);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.calltrackerpro.calltracker.utils;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Canonical keys for numbers as dialled, received and stored in contacts,
+ * one row per case: raw number, default country code, expected key.
+ */
+public class PhoneNumbersTest {
+
+    private static final Object[][] CANONICAL = {
+            // North America: the trunk 1 only on 11-digit numbers
+            {"+1 (555) 123-4567", 1, "+15551234567"},
+            {"1-555-123-4567", 1, "+15551234567"},
+            {"555.123.4567", 1, "+15551234567"},
+            {"1234567", 1, "+11234567"},
+            {"011 44 20 7946 0958", 1, "+442079460958"},
+            {"+1 555 123 4567 x89", 1, "+15551234567"},
+            // Russia: the trunk 8 only on 11-digit numbers
+            {"8 (912) 345-67-89", 7, "+79123456789"},
+            {"8 800 555 35 35", 7, "+78005553535"},
+            {"+7 912 345 67 89", 7, "+79123456789"},
+            {"912 345 67 89", 7, "+79123456789"},
+            {"8123456", 7, "+78123456"},
+            {"81234567", 7, "+781234567"},
+            // Trunk 0, a "(0)" after the country code, and IDD 00
+            {"020 7946 0958", 44, "+442079460958"},
+            {"+44 (0)20 7946 0958", 44, "+442079460958"},
+            {"00 44 20 7946 0958", 49, "+442079460958"},
+            {"030 1234567", 49, "+49301234567"},
+            // Hungary dials 06; Italy keeps its leading 0
+            {"06 30 123 4567", 36, "+36301234567"},
+            {"02 1234 5678", 39, "+390212345678"},
+            // Unknown country: national numbers are keyed by their digits
+            {"030 1234567", 0, "0301234567"},
+            // Short codes, no digits, too many digits
+            {"911", 1, "911"},
+            {"*86", 1, "86"},
+            {"", 1, null},
+            {"Private", 1, null},
+            {null, 1, null},
+            {"123456789012345678901", 1, null},
+    };
+
+    @Test
+    public void canonicalKeys() {
+        for (Object[] row : CANONICAL) {
+            assertEquals(row[0] + " in +" + row[1], row[2], PhoneNumbers.canonical((String) row[0], (Integer) row[1]));
+        }
+    }
+
+    @Test
+    public void nationalKeysMatchPlacedNumbersEndingInTheSameDigits() {
+        assertTrue(PhoneNumbers.matchesCanonical("5551234567", "+15551234567"));
+        assertTrue(PhoneNumbers.matchesCanonical("+442079460958", "02079460958"));
+        assertFalse(PhoneNumbers.matchesCanonical("5551234567", "+15551234568"));
+        assertFalse(PhoneNumbers.matchesCanonical("+15551234567", "+445551234567"));
+        assertFalse(PhoneNumbers.matchesCanonical("911", "+1555911"));
+    }
+
+    @Test
+    public void regionsSetTheDefaultCountry() {
+        try {
+            assertEquals(7, PhoneNumbers.setDefaultRegion("ru"));
+            assertEquals("+79123456789", PhoneNumbers.canonical("89123456789"));
+            assertEquals(0, PhoneNumbers.setDefaultRegion("ZZ"));
+            assertEquals("89123456789", PhoneNumbers.canonical("89123456789"));
+        } finally {
+            PhoneNumbers.setDefaultRegion(null);
+        }
+    }
+}
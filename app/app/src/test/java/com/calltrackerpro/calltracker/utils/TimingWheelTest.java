@@ -0,0 +1,67 @@
+package com.calltrackerpro.calltracker.utils;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TimingWheelTest {
+
+    @Test
+    public void expiresKeysOnceTheirTickHasPassed() {
+        TimingWheel<String> wheel = new TimingWheel<>(1000, 8);
+        wheel.schedule("a", 1500);
+        wheel.schedule("b", 2500);
+
+        assertEquals(Collections.emptyList(), wheel.advance(1400));
+        assertEquals(Collections.singletonList("a"), wheel.advance(2000));
+        assertEquals(Collections.singletonList("b"), wheel.advance(3000));
+        assertTrue(wheel.isEmpty());
+    }
+
+    @Test
+    public void deadlinesBeyondOneTurnWaitForTheirTurn() {
+        TimingWheel<String> wheel = new TimingWheel<>(1000, 4);
+        wheel.schedule("soon", 1000);
+        wheel.schedule("later", 1000 + 4 * 1000 * 3);
+
+        assertEquals(Collections.singletonList("soon"), wheel.advance(2000));
+        for (long now = 3000; now < 13_000; now += 1000) {
+            assertEquals(Collections.emptyList(), wheel.advance(now));
+        }
+        assertEquals(Collections.singletonList("later"), wheel.advance(14_000));
+    }
+
+    @Test
+    public void rescheduleAndCancelReplaceTheDeadline() {
+        TimingWheel<String> wheel = new TimingWheel<>(1000, 8);
+        wheel.schedule("a", 1000);
+        wheel.schedule("b", 1000);
+        wheel.schedule("a", 5000);
+        assertTrue(wheel.cancel("b"));
+        assertFalse(wheel.cancel("b"));
+
+        assertEquals(Collections.emptyList(), wheel.advance(3000));
+        assertTrue(wheel.contains("a"));
+        assertEquals(Collections.singletonList("a"), wheel.advance(6000));
+    }
+
+    @Test
+    public void longGapsAndPastDeadlinesExpireOnTheNextAdvance() {
+        TimingWheel<String> wheel = new TimingWheel<>(1000, 4);
+        wheel.advance(10_000);
+        wheel.schedule("past", 2000);
+        wheel.schedule("a", 11_000);
+        wheel.schedule("b", 13_000);
+
+        List<String> expired = wheel.advance(100_000);
+        Collections.sort(expired);
+        assertEquals(Arrays.asList("a", "b", "past"), expired);
+        assertEquals(0, wheel.size());
+    }
+}